@@ -50,6 +50,7 @@ import org.sonar.ce.cluster.HazelcastClientWrapperImpl;
 import org.sonar.ce.db.ReadOnlyPropertiesDao;
 import org.sonar.ce.log.CeProcessLogging;
 import org.sonar.ce.platform.ComputeEngineExtensionInstaller;
+import org.sonar.ce.purge.CePurgeModule;
 import org.sonar.ce.queue.CeQueueCleaner;
 import org.sonar.ce.queue.PurgeCeActivities;
 import org.sonar.ce.settings.ProjectConfigurationFactory;
@@ -108,9 +109,11 @@ import org.sonar.server.permission.PermissionTemplateService;
 import org.sonar.server.permission.PermissionUpdater;
 import org.sonar.server.permission.UserPermissionChanger;
 import org.sonar.server.permission.index.PermissionIndexer;
+import org.sonar.server.permission.index.ProjectAuthorizationCache;
 import org.sonar.server.permission.ws.template.DefaultTemplatesResolverImpl;
 import org.sonar.server.platform.DatabaseServerCompatibility;
 import org.sonar.server.platform.DefaultServerUpgradeStatus;
+import org.sonar.server.platform.ReferenceDataVersions;
 import org.sonar.server.platform.ServerFileSystemImpl;
 import org.sonar.server.platform.ServerIdManager;
 import org.sonar.server.platform.ServerImpl;
@@ -268,6 +271,7 @@ public class ComputeEngineContainerImpl implements ComputeEngineContainer {
       DatabaseVersion.class,
       DatabaseServerCompatibility.class,
 
+      ReferenceDataVersions.class,
       DatabaseSettingLoader.class,
       DatabaseSettingsEnabler.class,
       UrlSettings.class,
@@ -360,6 +364,7 @@ public class ComputeEngineContainerImpl implements ComputeEngineContainer {
       IssueIndexer.class,
       IssueIteratorFactory.class,
       PermissionIndexer.class,
+      ProjectAuthorizationCache.class,
       IssueFieldsSetter.class, // used in Web Services and CE's DebtCalculator
       FunctionExecutor.class, // used by IssueWorkflow
       IssueWorkflow.class, // used in Web Services and CE's DebtCalculator
@@ -409,7 +414,10 @@ public class ComputeEngineContainerImpl implements ComputeEngineContainer {
       ProjectConfigurationFactory.class,
 
       // cleaning
-      CeCleaningModule.class
+      CeCleaningModule.class,
+
+      // purge
+      CePurgeModule.class
     };
   }
 
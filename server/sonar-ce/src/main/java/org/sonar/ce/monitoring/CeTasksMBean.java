@@ -48,6 +48,12 @@ public interface CeTasksMBean {
    */
   long getProcessingTime();
 
+  /**
+   * Time spent since startup creating the containers of the analysis reports and resolving their steps, in milliseconds.
+   * It is included in {@link #getProcessingTime()}.
+   */
+  long getContainerSetupTime();
+
   /**
    * Configured number of Workers.
    */
@@ -0,0 +1,95 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.purge;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.picocontainer.Startable;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.process.Jmx;
+import org.sonar.process.systeminfo.SystemInfoSection;
+import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
+
+public class CePurgeMBeanImpl implements CePurgeMBean, Startable, SystemInfoSection {
+  private final DbClient dbClient;
+  private final AtomicLong purgedProjects = new AtomicLong();
+  private final AtomicLong failedPurges = new AtomicLong();
+  private final AtomicLong purgedRows = new AtomicLong();
+
+  public CePurgeMBeanImpl(DbClient dbClient) {
+    this.dbClient = dbClient;
+  }
+
+  @Override
+  public void start() {
+    Jmx.register(OBJECT_NAME, this);
+  }
+
+  /**
+   * Unregister, if needed
+   */
+  @Override
+  public void stop() {
+    Jmx.unregister(OBJECT_NAME);
+  }
+
+  void addPurged(long rows) {
+    purgedProjects.incrementAndGet();
+    purgedRows.addAndGet(rows);
+  }
+
+  void addFailed(long rows) {
+    failedPurges.incrementAndGet();
+    purgedRows.addAndGet(rows);
+  }
+
+  @Override
+  public long getPurgedProjectCount() {
+    return purgedProjects.get();
+  }
+
+  @Override
+  public long getFailedPurgeCount() {
+    return failedPurges.get();
+  }
+
+  @Override
+  public long getPurgedRowCount() {
+    return purgedRows.get();
+  }
+
+  @Override
+  public long getQueueSize() {
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      return dbClient.purgeQueueDao().count(dbSession);
+    }
+  }
+
+  @Override
+  public ProtobufSystemInfo.Section toProtobuf() {
+    ProtobufSystemInfo.Section.Builder builder = ProtobufSystemInfo.Section.newBuilder();
+    builder.setName("Compute Engine Background Purge");
+    builder.addAttributesBuilder().setKey("Projects Waiting For Purge").setLongValue(getQueueSize()).build();
+    builder.addAttributesBuilder().setKey("Purged Projects").setLongValue(getPurgedProjectCount()).build();
+    builder.addAttributesBuilder().setKey("Failed Purges").setLongValue(getFailedPurgeCount()).build();
+    builder.addAttributesBuilder().setKey("Purged Rows").setLongValue(getPurgedRowCount()).build();
+    return builder.build();
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.purge;
+
+import com.google.common.base.Optional;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalLong;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.settings.ProjectConfigurationFactory;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.purge.IdUuidPair;
+import org.sonar.db.purge.PurgeProfiler;
+import org.sonar.db.purge.PurgeThrottle;
+import org.sonar.server.computation.dbcleaner.ProjectCleaner;
+
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.sonar.core.config.PurgeConstants.ASYNC_PURGE_END_HOUR;
+import static org.sonar.core.config.PurgeConstants.ASYNC_PURGE_MAX_ROWS_PER_SECOND;
+import static org.sonar.core.config.PurgeConstants.ASYNC_PURGE_PAUSE_IN_MS;
+import static org.sonar.core.config.PurgeConstants.ASYNC_PURGE_START_HOUR;
+
+public class CePurgeSchedulerImpl implements CePurgeScheduler {
+  private static final Logger LOG = Loggers.get(CePurgeSchedulerImpl.class);
+
+  private static final long INITIAL_DELAY_IN_MINUTES = 1L;
+  private static final long DELAY_IN_MINUTES = 1L;
+  private static final int MAX_PROJECTS_PER_RUN = 100;
+  private static final long CLAIM_TIMEOUT_IN_MS = HOURS.toMillis(6L);
+
+  private final CePurgeExecutorService executorService;
+  private final DbClient dbClient;
+  private final ProjectCleaner projectCleaner;
+  private final ProjectConfigurationFactory projectConfigurationFactory;
+  private final Configuration config;
+  private final System2 system2;
+  private final CePurgeMBeanImpl statistics;
+
+  public CePurgeSchedulerImpl(CePurgeExecutorService executorService, DbClient dbClient, ProjectCleaner projectCleaner,
+    ProjectConfigurationFactory projectConfigurationFactory, Configuration config, System2 system2, CePurgeMBeanImpl statistics) {
+    this.executorService = executorService;
+    this.dbClient = dbClient;
+    this.projectCleaner = projectCleaner;
+    this.projectConfigurationFactory = projectConfigurationFactory;
+    this.config = config;
+    this.system2 = system2;
+    this.statistics = statistics;
+  }
+
+  @Override
+  public void startScheduling() {
+    executorService.scheduleWithFixedDelay(this::purgeQueuedProjects, INITIAL_DELAY_IN_MINUTES, DELAY_IN_MINUTES, MINUTES);
+  }
+
+  void purgeQueuedProjects() {
+    try {
+      List<String> projectUuids;
+      try (DbSession dbSession = dbClient.openSession(false)) {
+        projectUuids = isInTimeWindow()
+          ? dbClient.purgeQueueDao().selectOldestProjectUuids(dbSession, claimedBefore(), MAX_PROJECTS_PER_RUN)
+          : Collections.emptyList();
+      }
+      for (String projectUuid : projectUuids) {
+        if (!isInTimeWindow() || !purgeIfNotTaken(projectUuid) || !pause()) {
+          return;
+        }
+      }
+    } catch (Exception e) {
+      LOG.warn("Failed to purge queued projects", e);
+    }
+  }
+
+  /**
+   * @return false if the thread has been interrupted
+   */
+  private boolean purgeIfNotTaken(String projectUuid) {
+    OptionalLong startedAt;
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      // the project is purged again later, once its analysis is completed
+      if (isAnalysisInProgress(dbSession, projectUuid)) {
+        LOG.debug("Purge of project {} postponed as it is being analyzed", projectUuid);
+        return true;
+      }
+      // the request is claimed, so that another Compute Engine node does not purge the project at the same time.
+      // It is deleted only once the purge succeeded. A request claimed by a node which stopped during the purge
+      // is claimed again after CLAIM_TIMEOUT_IN_MS.
+      startedAt = dbClient.purgeQueueDao().claim(dbSession, projectUuid, claimedBefore());
+      if (!startedAt.isPresent()) {
+        return true;
+      }
+      dbSession.commit();
+    }
+
+    PurgeProfiler profiler = new PurgeProfiler();
+    boolean purged = false;
+    try {
+      purge(projectUuid, profiler);
+      purged = true;
+    } catch (Exception e) {
+      LOG.warn("Failed to purge project " + projectUuid, e);
+    } finally {
+      complete(projectUuid, startedAt.getAsLong(), purged, profiler);
+    }
+    return !Thread.currentThread().isInterrupted();
+  }
+
+  private boolean isAnalysisInProgress(DbSession dbSession, String projectUuid) {
+    return dbClient.ceQueueDao().selectByComponentUuid(dbSession, projectUuid).stream()
+      .anyMatch(task -> task.getStatus() == CeQueueDto.Status.IN_PROGRESS);
+  }
+
+  private void purge(String projectUuid, PurgeProfiler profiler) {
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      Optional<ComponentDto> project = dbClient.componentDao().selectByUuid(dbSession, projectUuid);
+      if (project.isPresent()) {
+        long start = system2.now();
+        Configuration projectConfig = projectConfigurationFactory.newProjectConfiguration(project.get().getKey());
+        PurgeThrottle throttle = new RateLimitingPurgeThrottle(system2, config.getLong(ASYNC_PURGE_MAX_ROWS_PER_SECOND).orElse(0L));
+        projectCleaner.purgeHistory(dbSession, new IdUuidPair(project.get().getId(), projectUuid), projectConfig, profiler, throttle);
+        LOG.debug("Project {} purged in {} ms, {} rows deleted", project.get().getKey(), system2.now() - start, profiler.getPurgedRows());
+      }
+    }
+  }
+
+  private void complete(String projectUuid, long startedAt, boolean purged, PurgeProfiler profiler) {
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      if (purged) {
+        dbClient.purgeQueueDao().complete(dbSession, projectUuid, startedAt);
+        statistics.addPurged(profiler.getPurgedRows());
+      } else {
+        dbClient.purgeQueueDao().release(dbSession, projectUuid, startedAt);
+        statistics.addFailed(profiler.getPurgedRows());
+      }
+      dbSession.commit();
+    }
+  }
+
+  private long claimedBefore() {
+    return system2.now() - CLAIM_TIMEOUT_IN_MS;
+  }
+
+  private boolean pause() {
+    long pauseInMs = config.getLong(ASYNC_PURGE_PAUSE_IN_MS).orElse(0L);
+    if (pauseInMs > 0) {
+      try {
+        Thread.sleep(pauseInMs);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean isInTimeWindow() {
+    int startHour = config.getInt(ASYNC_PURGE_START_HOUR).orElse(0);
+    int endHour = config.getInt(ASYNC_PURGE_END_HOUR).orElse(24);
+    int hour = Instant.ofEpochMilli(system2.now()).atZone(ZoneId.systemDefault()).getHour();
+    if (startHour <= endHour) {
+      return hour >= startHour && hour < endHour;
+    }
+    // window spans midnight, for example from 22 to 6
+    return hour >= startHour || hour < endHour;
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.purge;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.sonar.api.utils.System2;
+import org.sonar.db.purge.PurgeThrottle;
+
+/**
+ * Pauses the purge of a project as soon as the number of deleted rows exceeds the maximum rate
+ * since the creation of the throttle. A rate lower than or equal to zero disables the limit.
+ */
+class RateLimitingPurgeThrottle implements PurgeThrottle {
+  private final System2 system2;
+  private final long maxRowsPerSecond;
+  private final long startedAt;
+  private long rows = 0L;
+
+  RateLimitingPurgeThrottle(System2 system2, long maxRowsPerSecond) {
+    this.system2 = system2;
+    this.maxRowsPerSecond = maxRowsPerSecond;
+    this.startedAt = system2.now();
+  }
+
+  @Override
+  public void afterStatement(int deletedRows) {
+    long pauseInMs = computePauseInMs(deletedRows);
+    if (pauseInMs > 0) {
+      try {
+        Thread.sleep(pauseInMs);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Background purge has been interrupted", e);
+      }
+    }
+  }
+
+  @VisibleForTesting
+  long computePauseInMs(int deletedRows) {
+    rows += deletedRows;
+    if (maxRowsPerSecond <= 0) {
+      return 0L;
+    }
+    long minDurationInMs = rows * 1_000L / maxRowsPerSecond;
+    return Math.max(0L, minDurationInMs - (system2.now() - startedAt));
+  }
+}
@@ -0,0 +1,225 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.purge;
+
+import com.google.common.base.Optional;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.OptionalLong;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatcher;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.utils.internal.TestSystem2;
+import org.sonar.ce.settings.ProjectConfigurationFactory;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.ce.CeQueueDao;
+import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.component.ComponentDao;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.purge.IdUuidPair;
+import org.sonar.db.purge.PurgeProfiler;
+import org.sonar.db.purge.PurgeQueueDao;
+import org.sonar.db.purge.PurgeThrottle;
+import org.sonar.server.computation.dbcleaner.ProjectCleaner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static org.sonar.core.config.PurgeConstants.ASYNC_PURGE_END_HOUR;
+import static org.sonar.core.config.PurgeConstants.ASYNC_PURGE_START_HOUR;
+
+public class CePurgeSchedulerImplTest {
+
+  private static final long CLAIM_TIMEOUT_IN_MS = 6 * 60 * 60 * 1_000L;
+
+  private DbClient dbClient = mock(DbClient.class);
+  private DbSession dbSession = mock(DbSession.class);
+  private PurgeQueueDao purgeQueueDao = mock(PurgeQueueDao.class);
+  private CeQueueDao ceQueueDao = mock(CeQueueDao.class);
+  private ComponentDao componentDao = mock(ComponentDao.class);
+  private ProjectCleaner projectCleaner = mock(ProjectCleaner.class);
+  private ProjectConfigurationFactory projectConfigurationFactory = mock(ProjectConfigurationFactory.class);
+  private Configuration projectConfig = mock(Configuration.class);
+  private MapSettings settings = new MapSettings();
+  private TestSystem2 system2 = new TestSystem2().setNow(atHour(12));
+  private CePurgeMBeanImpl statistics = new CePurgeMBeanImpl(dbClient);
+
+  @Before
+  public void setUp() {
+    when(dbClient.openSession(anyBoolean())).thenReturn(dbSession);
+    when(dbClient.purgeQueueDao()).thenReturn(purgeQueueDao);
+    when(dbClient.ceQueueDao()).thenReturn(ceQueueDao);
+    when(dbClient.componentDao()).thenReturn(componentDao);
+    when(projectConfigurationFactory.newProjectConfiguration(anyString())).thenReturn(projectConfig);
+  }
+
+  @Test
+  public void purge_queued_projects() {
+    long claimedBefore = system2.now() - CLAIM_TIMEOUT_IN_MS;
+    when(purgeQueueDao.selectOldestProjectUuids(dbSession, claimedBefore, 100)).thenReturn(Arrays.asList("P1", "P2"));
+    when(purgeQueueDao.claim(dbSession, "P1", claimedBefore)).thenReturn(OptionalLong.of(10L));
+    when(purgeQueueDao.claim(dbSession, "P2", claimedBefore)).thenReturn(OptionalLong.of(20L));
+    mockProject(1L, "P1", "KEY_1");
+    mockProject(2L, "P2", "KEY_2");
+
+    newScheduler().purgeQueuedProjects();
+
+    verify(projectConfigurationFactory).newProjectConfiguration("KEY_1");
+    verify(projectCleaner).purgeHistory(eq(dbSession), argThat(pairWithUuid("P1")), eq(projectConfig), any(PurgeProfiler.class), any(PurgeThrottle.class));
+    verify(projectCleaner).purgeHistory(eq(dbSession), argThat(pairWithUuid("P2")), eq(projectConfig), any(PurgeProfiler.class), any(PurgeThrottle.class));
+    verify(purgeQueueDao).complete(dbSession, "P1", 10L);
+    verify(purgeQueueDao).complete(dbSession, "P2", 20L);
+    verify(purgeQueueDao, never()).release(any(DbSession.class), anyString(), anyLong());
+    assertThat(statistics.getPurgedProjectCount()).isEqualTo(2L);
+    assertThat(statistics.getFailedPurgeCount()).isZero();
+  }
+
+  @Test
+  public void do_not_purge_project_already_taken_by_another_node() {
+    when(purgeQueueDao.selectOldestProjectUuids(any(DbSession.class), anyLong(), anyInt())).thenReturn(Collections.singletonList("P1"));
+    when(purgeQueueDao.claim(any(DbSession.class), eq("P1"), anyLong())).thenReturn(OptionalLong.empty());
+    mockProject(1L, "P1", "KEY_1");
+
+    newScheduler().purgeQueuedProjects();
+
+    verifyZeroInteractions(projectCleaner);
+    verify(purgeQueueDao, never()).complete(any(DbSession.class), anyString(), anyLong());
+    verify(purgeQueueDao, never()).release(any(DbSession.class), anyString(), anyLong());
+  }
+
+  @Test
+  public void do_not_purge_project_being_analyzed() {
+    when(purgeQueueDao.selectOldestProjectUuids(any(DbSession.class), anyLong(), anyInt())).thenReturn(Collections.singletonList("P1"));
+    when(ceQueueDao.selectByComponentUuid(dbSession, "P1")).thenReturn(Collections.singletonList(
+      new CeQueueDto().setUuid("T1").setComponentUuid("P1").setStatus(CeQueueDto.Status.IN_PROGRESS)));
+    mockProject(1L, "P1", "KEY_1");
+
+    newScheduler().purgeQueuedProjects();
+
+    verify(purgeQueueDao, never()).claim(any(DbSession.class), anyString(), anyLong());
+    verifyZeroInteractions(projectCleaner);
+  }
+
+  @Test
+  public void purge_project_with_pending_analysis() {
+    when(purgeQueueDao.selectOldestProjectUuids(any(DbSession.class), anyLong(), anyInt())).thenReturn(Collections.singletonList("P1"));
+    when(purgeQueueDao.claim(any(DbSession.class), eq("P1"), anyLong())).thenReturn(OptionalLong.of(10L));
+    when(ceQueueDao.selectByComponentUuid(dbSession, "P1")).thenReturn(Collections.singletonList(
+      new CeQueueDto().setUuid("T1").setComponentUuid("P1").setStatus(CeQueueDto.Status.PENDING)));
+    mockProject(1L, "P1", "KEY_1");
+
+    newScheduler().purgeQueuedProjects();
+
+    verify(projectCleaner).purgeHistory(eq(dbSession), argThat(pairWithUuid("P1")), eq(projectConfig), any(PurgeProfiler.class), any(PurgeThrottle.class));
+    verify(purgeQueueDao).complete(dbSession, "P1", 10L);
+  }
+
+  @Test
+  public void complete_request_of_project_which_does_not_exist_anymore() {
+    when(purgeQueueDao.selectOldestProjectUuids(any(DbSession.class), anyLong(), anyInt())).thenReturn(Collections.singletonList("P1"));
+    when(purgeQueueDao.claim(any(DbSession.class), eq("P1"), anyLong())).thenReturn(OptionalLong.of(10L));
+    when(componentDao.selectByUuid(dbSession, "P1")).thenReturn(Optional.absent());
+
+    newScheduler().purgeQueuedProjects();
+
+    verify(purgeQueueDao).complete(dbSession, "P1", 10L);
+    verifyZeroInteractions(projectCleaner);
+  }
+
+  @Test
+  public void do_nothing_outside_of_time_window() {
+    settings.setProperty(ASYNC_PURGE_START_HOUR, 1);
+    settings.setProperty(ASYNC_PURGE_END_HOUR, 5);
+
+    newScheduler().purgeQueuedProjects();
+
+    verify(purgeQueueDao, never()).selectOldestProjectUuids(any(DbSession.class), anyLong(), anyInt());
+    verifyZeroInteractions(projectCleaner);
+  }
+
+  @Test
+  public void time_window_can_span_midnight() {
+    settings.setProperty(ASYNC_PURGE_START_HOUR, 22);
+    settings.setProperty(ASYNC_PURGE_END_HOUR, 6);
+    system2.setNow(atHour(23));
+
+    newScheduler().purgeQueuedProjects();
+
+    verify(purgeQueueDao).selectOldestProjectUuids(dbSession, system2.now() - CLAIM_TIMEOUT_IN_MS, 100);
+  }
+
+  @Test
+  public void release_request_and_continue_if_purge_fails() {
+    when(purgeQueueDao.selectOldestProjectUuids(any(DbSession.class), anyLong(), anyInt())).thenReturn(Arrays.asList("P1", "P2"));
+    when(purgeQueueDao.claim(any(DbSession.class), eq("P1"), anyLong())).thenReturn(OptionalLong.of(10L));
+    when(purgeQueueDao.claim(any(DbSession.class), eq("P2"), anyLong())).thenReturn(OptionalLong.of(20L));
+    mockProject(1L, "P1", "KEY_1");
+    mockProject(2L, "P2", "KEY_2");
+    doThrow(new IllegalStateException("faking purge failure")).when(projectCleaner)
+      .purgeHistory(any(), argThat(pairWithUuid("P1")), any(), any(), any());
+
+    newScheduler().purgeQueuedProjects();
+
+    verify(purgeQueueDao).release(dbSession, "P1", 10L);
+    verify(purgeQueueDao, never()).complete(dbSession, "P1", 10L);
+    verify(purgeQueueDao).complete(dbSession, "P2", 20L);
+    assertThat(statistics.getPurgedProjectCount()).isEqualTo(1L);
+    assertThat(statistics.getFailedPurgeCount()).isEqualTo(1L);
+  }
+
+  private CePurgeSchedulerImpl newScheduler() {
+    return new CePurgeSchedulerImpl(mock(CePurgeExecutorService.class), dbClient, projectCleaner, projectConfigurationFactory,
+      settings.asConfig(), system2, statistics);
+  }
+
+  private void mockProject(long id, String uuid, String key) {
+    ComponentDto project = new ComponentDto().setId(id).setUuid(uuid).setKey(key);
+    when(componentDao.selectByUuid(dbSession, uuid)).thenReturn(Optional.of(project));
+  }
+
+  private static ArgumentMatcher<IdUuidPair> pairWithUuid(String uuid) {
+    return new ArgumentMatcher<IdUuidPair>() {
+      @Override
+      public boolean matches(Object argument) {
+        return argument != null && uuid.equals(((IdUuidPair) argument).getUuid());
+      }
+    };
+  }
+
+  private static long atHour(int hour) {
+    return LocalDate.of(2017, 6, 1).atTime(hour, 30).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.purge;
+
+import org.junit.Test;
+import org.sonar.api.utils.internal.TestSystem2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RateLimitingPurgeThrottleTest {
+
+  private TestSystem2 system2 = new TestSystem2().setNow(1_000L);
+
+  @Test
+  public void pause_until_rate_is_lower_than_maximum() {
+    RateLimitingPurgeThrottle underTest = new RateLimitingPurgeThrottle(system2, 100L);
+
+    assertThat(underTest.computePauseInMs(50)).isEqualTo(500L);
+
+    system2.setNow(1_800L);
+    assertThat(underTest.computePauseInMs(50)).isEqualTo(200L);
+
+    system2.setNow(4_000L);
+    assertThat(underTest.computePauseInMs(100)).isZero();
+  }
+
+  @Test
+  public void never_pause_if_rate_is_not_limited() {
+    RateLimitingPurgeThrottle underTest = new RateLimitingPurgeThrottle(system2, 0L);
+
+    assertThat(underTest.computePauseInMs(1_000_000)).isZero();
+  }
+}
@@ -40,6 +40,8 @@ import org.sonar.db.dialect.DialectUtils;
 import org.sonar.db.profiling.NullConnectionInterceptor;
 import org.sonar.db.profiling.ProfiledConnectionInterceptor;
 import org.sonar.db.profiling.ProfiledDataSource;
+import org.sonar.db.profiling.SqlStatistics;
+import org.sonar.db.profiling.SqlStatisticsConnectionInterceptor;
 import org.sonar.process.logging.LogbackHelper;
 
 import static java.lang.String.format;
@@ -55,12 +57,17 @@ public class DefaultDatabase implements Database {
   private static final String SONAR_JDBC = "sonar.jdbc.";
   private static final String SONAR_JDBC_DIALECT = "sonar.jdbc.dialect";
   private static final String SONAR_JDBC_URL = "sonar.jdbc.url";
+  /**
+   * Statistics of SQL statements are enabled by default. They can be disabled by setting this property to false.
+   */
+  static final String SONAR_DB_SQL_STATISTICS = "sonar.db.sqlStatistics";
 
   private final LogbackHelper logbackHelper;
   private final Settings settings;
   private ProfiledDataSource datasource;
   private Dialect dialect;
   private Properties properties;
+  private final SqlStatistics sqlStatistics = new SqlStatistics();
 
   public DefaultDatabase(LogbackHelper logbackHelper, Settings settings) {
     this.logbackHelper = logbackHelper;
@@ -141,8 +148,16 @@ public class DefaultDatabase implements Database {
     enableSqlLogging(datasource, enable);
   }
 
-  private static void enableSqlLogging(ProfiledDataSource ds, boolean enable) {
-    ds.setConnectionInterceptor(enable ? ProfiledConnectionInterceptor.INSTANCE : NullConnectionInterceptor.INSTANCE);
+  private void enableSqlLogging(ProfiledDataSource ds, boolean enable) {
+    if (isSqlStatisticsEnabled()) {
+      ds.setConnectionInterceptor(new SqlStatisticsConnectionInterceptor(sqlStatistics, enable));
+    } else {
+      ds.setConnectionInterceptor(enable ? ProfiledConnectionInterceptor.INSTANCE : NullConnectionInterceptor.INSTANCE);
+    }
+  }
+
+  private boolean isSqlStatisticsEnabled() {
+    return !settings.hasKey(SONAR_DB_SQL_STATISTICS) || settings.getBoolean(SONAR_DB_SQL_STATISTICS);
   }
 
   /**
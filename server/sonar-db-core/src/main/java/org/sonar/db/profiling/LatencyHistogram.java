@@ -0,0 +1,66 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations, whose buckets are powers of 2: bucket i counts the durations lower than 2^i
+ * (and greater or equal to the upper bound of the previous bucket). The last bucket counts all the greater
+ * durations. The unit of durations is chosen by the caller.
+ */
+public final class LatencyHistogram {
+
+  private final AtomicLongArray buckets;
+
+  public LatencyHistogram(int nbOfBuckets) {
+    this.buckets = new AtomicLongArray(nbOfBuckets);
+  }
+
+  public void record(long duration) {
+    int bucket = Long.SIZE - Long.numberOfLeadingZeros(Math.max(0L, duration));
+    buckets.incrementAndGet(Math.min(buckets.length() - 1, bucket));
+  }
+
+  /**
+   * Upper bound of the given percentile of durations, in the unit of the recorded durations. Precision is a power
+   * of 2.
+   *
+   * @param percentile between 0 and 100
+   * @return 0 if no duration is recorded
+   */
+  public long getPercentile(double percentile) {
+    long[] counts = new long[buckets.length()];
+    long total = 0;
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = buckets.get(i);
+      total += counts[i];
+    }
+    long threshold = (long) Math.ceil(total * percentile / 100D);
+    long cumulated = 0;
+    for (int i = 0; i < counts.length; i++) {
+      cumulated += counts[i];
+      if (cumulated >= threshold && cumulated > 0) {
+        return 1L << i;
+      }
+    }
+    return 0L;
+  }
+}
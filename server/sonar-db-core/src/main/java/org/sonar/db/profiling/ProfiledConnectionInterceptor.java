@@ -29,15 +29,15 @@ public enum ProfiledConnectionInterceptor implements ConnectionInterceptor {
 
   @Override
   public Connection getConnection(BasicDataSource dataSource) throws SQLException {
-    return buildConnectionProxy(new ProfilingConnectionHandler(dataSource.getConnection()));
+    return buildConnectionProxy(new ProfilingConnectionHandler(dataSource.getConnection(), true, null));
   }
 
   @Override
   public Connection getConnection(BasicDataSource dataSource, String login, String password) throws SQLException {
-    return buildConnectionProxy(new ProfilingConnectionHandler(dataSource.getConnection(login, password)));
+    return buildConnectionProxy(new ProfilingConnectionHandler(dataSource.getConnection(login, password), true, null));
   }
 
-  private static Connection buildConnectionProxy(ProfilingConnectionHandler connectionHandler) {
+  static Connection buildConnectionProxy(ProfilingConnectionHandler connectionHandler) {
     ClassLoader classloader = ProfiledConnectionInterceptor.class.getClassLoader();
     return (Connection) Proxy.newProxyInstance(classloader, new Class[] {Connection.class}, connectionHandler);
   }
@@ -24,6 +24,7 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
 import java.util.Collection;
+import java.util.Optional;
 import org.apache.commons.dbcp.BasicDataSource;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
@@ -48,6 +49,16 @@ public class ProfiledDataSource extends BasicDataSource {
     this.connectionInterceptor = ci;
   }
 
+  /**
+   * Statistics of SQL statements, if enabled by {@link SqlStatisticsConnectionInterceptor}
+   */
+  public synchronized Optional<SqlStatistics> getSqlStatistics() {
+    if (connectionInterceptor instanceof SqlStatisticsConnectionInterceptor) {
+      return Optional.of(((SqlStatisticsConnectionInterceptor) connectionInterceptor).getSqlStatistics());
+    }
+    return Optional.empty();
+  }
+
   @Override
   public boolean getDefaultAutoCommit() {
     return delegate.getDefaultAutoCommit();
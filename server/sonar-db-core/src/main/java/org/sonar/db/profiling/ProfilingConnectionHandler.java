@@ -25,13 +25,20 @@ import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.Statement;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 
 class ProfilingConnectionHandler implements InvocationHandler {
 
   private final Connection connection;
+  private final boolean logSql;
+  @CheckForNull
+  private final SqlStatistics sqlStatistics;
 
-  ProfilingConnectionHandler(Connection connection) {
+  ProfilingConnectionHandler(Connection connection, boolean logSql, @Nullable SqlStatistics sqlStatistics) {
     this.connection = connection;
+    this.logSql = logSql;
+    this.sqlStatistics = sqlStatistics;
   }
 
   @Override
@@ -40,11 +47,11 @@ class ProfilingConnectionHandler implements InvocationHandler {
     if ("prepareStatement".equals(method.getName())) {
       PreparedStatement statement = (PreparedStatement) result;
       String sql = (String) args[0];
-      return buildStatementProxy(PreparedStatement.class, new ProfilingPreparedStatementHandler(statement, sql));
+      return buildStatementProxy(PreparedStatement.class, new ProfilingPreparedStatementHandler(statement, sql, logSql, sqlStatistics));
     }
     if ("createStatement".equals(method.getName())) {
       Statement statement = (Statement) result;
-      return buildStatementProxy(Statement.class, new ProfilingStatementHandler(statement));
+      return buildStatementProxy(Statement.class, new ProfilingStatementHandler(statement, logSql, sqlStatistics));
     }
     return result;
   }
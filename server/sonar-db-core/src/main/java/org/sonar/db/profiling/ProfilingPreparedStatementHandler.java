@@ -22,6 +22,8 @@ package org.sonar.db.profiling;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.sql.PreparedStatement;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.utils.log.Profiler;
 
 class ProfilingPreparedStatementHandler implements InvocationHandler {
@@ -29,31 +31,46 @@ class ProfilingPreparedStatementHandler implements InvocationHandler {
   private final PreparedStatement statement;
   private final String sql;
   private final Object[] sqlParams;
+  private final boolean logSql;
+  @CheckForNull
+  private final SqlStatistics.StatementStatistics statistics;
 
-  ProfilingPreparedStatementHandler(PreparedStatement statement, String sql) {
+  ProfilingPreparedStatementHandler(PreparedStatement statement, String sql, boolean logSql, @Nullable SqlStatistics sqlStatistics) {
     this.statement = statement;
     this.sql = sql;
-    sqlParams = new Object[SqlLogFormatter.countArguments(sql)];
+    this.logSql = logSql;
+    this.statistics = sqlStatistics == null ? null : sqlStatistics.get(sql);
+    sqlParams = logSql ? new Object[SqlLogFormatter.countArguments(sql)] : new Object[0];
   }
 
   @Override
   public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
     if (method.getName().startsWith("execute")) {
-      Profiler profiler = Profiler.create(ProfiledDataSource.SQL_LOGGER).start();
+      Profiler profiler = logSql ? Profiler.create(ProfiledDataSource.SQL_LOGGER).start() : null;
+      long start = System.nanoTime();
       Object result = null;
       try {
         result = InvocationUtils.invokeQuietly(statement, method, args);
       } finally {
-        profiler.addContext("sql", SqlLogFormatter.formatSql(sql));
-        if (sqlParams.length > 0) {
-          profiler.addContext("params", SqlLogFormatter.formatParams(sqlParams));
+        if (statistics != null) {
+          statistics.recordExecution(System.nanoTime() - start);
+        }
+        if (profiler != null) {
+          profiler.addContext("sql", SqlLogFormatter.formatSql(sql));
+          if (sqlParams.length > 0) {
+            profiler.addContext("params", SqlLogFormatter.formatParams(sqlParams));
+          }
+          profiler.stopTrace("");
         }
-        profiler.stopTrace("");
       }
-      return result;
+      return CountingResultSet.wrapIfResultSet(result, statistics);
     } else if (method.getName().startsWith("set") && args.length > 1) {
-      sqlParams[(int) args[0] - 1] = args[1];
+      if (logSql) {
+        sqlParams[(int) args[0] - 1] = args[1];
+      }
       return InvocationUtils.invokeQuietly(statement, method, args);
+    } else if ("getResultSet".equals(method.getName())) {
+      return CountingResultSet.wrapIfResultSet(InvocationUtils.invokeQuietly(statement, method, args), statistics);
     } else {
       return InvocationUtils.invokeQuietly(statement, method, args);
     }
@@ -22,29 +22,48 @@ package org.sonar.db.profiling;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.sql.Statement;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.utils.log.Profiler;
 
 class ProfilingStatementHandler implements InvocationHandler {
 
   private final Statement statement;
+  private final boolean logSql;
+  @CheckForNull
+  private final SqlStatistics sqlStatistics;
+  @CheckForNull
+  private SqlStatistics.StatementStatistics lastStatistics;
 
-  ProfilingStatementHandler(Statement statement) {
+  ProfilingStatementHandler(Statement statement, boolean logSql, @Nullable SqlStatistics sqlStatistics) {
     this.statement = statement;
+    this.logSql = logSql;
+    this.sqlStatistics = sqlStatistics;
   }
 
   @Override
   public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
     if (method.getName().startsWith("execute")) {
-      Profiler profiler = Profiler.create(ProfiledDataSource.SQL_LOGGER).start();
+      Profiler profiler = logSql ? Profiler.create(ProfiledDataSource.SQL_LOGGER).start() : null;
+      long start = System.nanoTime();
       Object result = null;
       try {
         result = InvocationUtils.invokeQuietly(statement, method, args);
       } finally {
-        String sql = (String) args[0];
-        profiler.addContext("sql", SqlLogFormatter.formatSql(sql));
-        profiler.stopTrace("");
+        // executeBatch() has no argument
+        String sql = args == null || args.length == 0 ? "<batch>" : (String) args[0];
+        if (sqlStatistics != null) {
+          lastStatistics = sqlStatistics.get(sql);
+          lastStatistics.recordExecution(System.nanoTime() - start);
+        }
+        if (profiler != null) {
+          profiler.addContext("sql", SqlLogFormatter.formatSql(sql));
+          profiler.stopTrace("");
+        }
       }
-      return result;
+      return CountingResultSet.wrapIfResultSet(result, lastStatistics);
+    } else if ("getResultSet".equals(method.getName())) {
+      return CountingResultSet.wrapIfResultSet(InvocationUtils.invokeQuietly(statement, method, args), lastStatistics);
     } else {
       return InvocationUtils.invokeQuietly(statement, method, args);
     }
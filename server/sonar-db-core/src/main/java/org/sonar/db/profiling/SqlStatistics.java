@@ -0,0 +1,191 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Aggregated execution statistics of SQL statements, grouped by normalized SQL: literals are replaced
+ * by "?" and lists of parameters are collapsed, so that statements generated by the same MyBatis
+ * mapper share the same statistics. Recording is lock-free.
+ */
+public class SqlStatistics {
+
+  /**
+   * Statements executed once there are already {@link #MAX_STATEMENTS} distinct statements are
+   * aggregated under this key
+   */
+  public static final String OTHER_STATEMENTS = "<other statements>";
+  static final int MAX_STATEMENTS = 2_000;
+  /**
+   * Max number of raw statements whose statistics are cached, so that they are not normalized again. Raw statements
+   * usually are parameterized, but lists of parameters of variable size generate a new raw statement for each size.
+   */
+  static final int MAX_CACHED_RAW_STATEMENTS = 10_000;
+
+  private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+  private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+  private static final Pattern PARAMETER_LIST = Pattern.compile("\\?(?:\\s*,\\s*\\?)+");
+  private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+
+  /**
+   * Time spent executing statements by each thread since its start. Single-element array to avoid boxing.
+   */
+  private static final ThreadLocal<long[]> THREAD_TIME_NANOS = ThreadLocal.withInitial(() -> new long[1]);
+
+  // replaced on reset, so that the two maps are always consistent
+  private volatile Registry registry = new Registry();
+
+  /**
+   * @return the statistics of the normalized statement, to be kept by callers executing the same statement
+   * several times
+   */
+  public StatementStatistics get(String sql) {
+    return registry.get(sql);
+  }
+
+  public Collection<StatementStatistics> getAll() {
+    return registry.statisticsBySql.values();
+  }
+
+  /**
+   * @return the {@code limit} statements with the largest total execution time
+   */
+  public List<StatementStatistics> getSlowest(int limit) {
+    return registry.statisticsBySql.values().stream()
+      .sorted(Comparator.comparingLong(StatementStatistics::getTotalTimeNanos).reversed())
+      .limit(limit)
+      .collect(toList());
+  }
+
+  public void reset() {
+    registry = new Registry();
+  }
+
+  /**
+   * Cumulated execution time of the statements executed by the current thread, in nanoseconds. Callers compute
+   * the difference between two calls to get the time spent in database by a unit of work, for example a HTTP request.
+   * Only the statements recorded by an instance of {@link SqlStatistics} are counted: the time stays 0 when statistics
+   * are disabled.
+   */
+  public static long getCurrentThreadTimeNanos() {
+    return THREAD_TIME_NANOS.get()[0];
+  }
+
+  static String normalize(String sql) {
+    String result = STRING_LITERAL.matcher(sql).replaceAll("?");
+    result = NUMBER_LITERAL.matcher(result).replaceAll("?");
+    result = PARAMETER_LIST.matcher(result).replaceAll("?, ...");
+    return WHITESPACES.matcher(result).replaceAll(" ").trim();
+  }
+
+  private static final class Registry {
+    private final Map<String, StatementStatistics> statisticsBySql = new ConcurrentHashMap<>();
+    // statistics by raw statement, so that statements prepared again and again are normalized only once
+    private final Map<String, StatementStatistics> statisticsByRawSql = new ConcurrentHashMap<>();
+
+    private StatementStatistics get(String sql) {
+      StatementStatistics statistics = statisticsByRawSql.get(sql);
+      if (statistics == null) {
+        statistics = getNormalized(normalize(sql));
+        if (statisticsByRawSql.size() < MAX_CACHED_RAW_STATEMENTS) {
+          statisticsByRawSql.put(sql, statistics);
+        }
+      }
+      return statistics;
+    }
+
+    private StatementStatistics getNormalized(String normalizedSql) {
+      StatementStatistics statistics = statisticsBySql.get(normalizedSql);
+      if (statistics == null) {
+        String key = statisticsBySql.size() >= MAX_STATEMENTS ? OTHER_STATEMENTS : normalizedSql;
+        statistics = statisticsBySql.computeIfAbsent(key, StatementStatistics::new);
+      }
+      return statistics;
+    }
+  }
+
+  public static final class StatementStatistics {
+    // execution times in microseconds
+    private static final int NB_OF_BUCKETS = 32;
+
+    private final String sql;
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder totalTimeNanos = new LongAdder();
+    private final LongAccumulator maxTimeNanos = new LongAccumulator(Math::max, 0L);
+    private final LongAdder fetchedRows = new LongAdder();
+    private final LatencyHistogram histogram = new LatencyHistogram(NB_OF_BUCKETS);
+
+    private StatementStatistics(String sql) {
+      this.sql = sql;
+    }
+
+    public void recordExecution(long durationNanos) {
+      executions.increment();
+      totalTimeNanos.add(durationNanos);
+      maxTimeNanos.accumulate(durationNanos);
+      THREAD_TIME_NANOS.get()[0] += durationNanos;
+      histogram.record(TimeUnit.NANOSECONDS.toMicros(durationNanos));
+    }
+
+    public void recordFetchedRow() {
+      fetchedRows.increment();
+    }
+
+    public String getSql() {
+      return sql;
+    }
+
+    public long getExecutions() {
+      return executions.sum();
+    }
+
+    public long getTotalTimeNanos() {
+      return totalTimeNanos.sum();
+    }
+
+    public long getMaxTimeNanos() {
+      return maxTimeNanos.get();
+    }
+
+    public long getFetchedRows() {
+      return fetchedRows.sum();
+    }
+
+    /**
+     * Upper bound of the given percentile of execution times, in microseconds. Precision is a power of 2.
+     *
+     * @param percentile between 0 and 100
+     */
+    public long getPercentileMicros(double percentile) {
+      return histogram.getPercentile(percentile);
+    }
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import org.apache.commons.dbcp.BasicDataSource;
+
+import static org.sonar.db.profiling.ProfiledConnectionInterceptor.buildConnectionProxy;
+
+/**
+ * Records the {@link SqlStatistics} of all the statements, and optionally logs them
+ * like {@link ProfiledConnectionInterceptor}.
+ */
+public class SqlStatisticsConnectionInterceptor implements ConnectionInterceptor {
+
+  private final SqlStatistics sqlStatistics;
+  private final boolean logSql;
+
+  public SqlStatisticsConnectionInterceptor(SqlStatistics sqlStatistics, boolean logSql) {
+    this.sqlStatistics = sqlStatistics;
+    this.logSql = logSql;
+  }
+
+  public SqlStatistics getSqlStatistics() {
+    return sqlStatistics;
+  }
+
+  @Override
+  public Connection getConnection(BasicDataSource dataSource) throws SQLException {
+    return buildConnectionProxy(new ProfilingConnectionHandler(dataSource.getConnection(), logSql, sqlStatistics));
+  }
+
+  @Override
+  public Connection getConnection(BasicDataSource dataSource, String login, String password) throws SQLException {
+    return buildConnectionProxy(new ProfilingConnectionHandler(dataSource.getConnection(login, password), logSql, sqlStatistics));
+  }
+}
@@ -78,6 +78,7 @@ public final class SqTables {
     "project_measures",
     "project_qprofiles",
     "properties",
+    "purge_queue",
     "qprofile_changes",
     "quality_gates",
     "quality_gate_conditions",
@@ -0,0 +1,64 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LatencyHistogramTest {
+
+  private LatencyHistogram underTest = new LatencyHistogram(8);
+
+  @Test
+  public void percentile_is_zero_if_no_duration_is_recorded() {
+    assertThat(underTest.getPercentile(50)).isZero();
+    assertThat(underTest.getPercentile(100)).isZero();
+  }
+
+  @Test
+  public void percentiles_are_upper_bounds_of_power_of_2_buckets() {
+    for (int i = 0; i < 90; i++) {
+      underTest.record(5L);
+    }
+    for (int i = 0; i < 10; i++) {
+      underTest.record(20L);
+    }
+
+    assertThat(underTest.getPercentile(0)).isEqualTo(8L);
+    assertThat(underTest.getPercentile(90)).isEqualTo(8L);
+    assertThat(underTest.getPercentile(91)).isEqualTo(32L);
+    assertThat(underTest.getPercentile(100)).isEqualTo(32L);
+  }
+
+  @Test
+  public void zero_durations_are_counted_in_first_bucket() {
+    underTest.record(0L);
+
+    assertThat(underTest.getPercentile(100)).isEqualTo(1L);
+  }
+
+  @Test
+  public void greatest_durations_are_counted_in_last_bucket() {
+    underTest.record(Long.MAX_VALUE);
+
+    assertThat(underTest.getPercentile(100)).isEqualTo(128L);
+  }
+}
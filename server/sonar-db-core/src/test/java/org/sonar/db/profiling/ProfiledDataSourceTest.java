@@ -25,6 +25,7 @@ import java.lang.reflect.Modifier;
 import java.sql.Connection;
 import java.sql.Date;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.Statement;
 import java.sql.Timestamp;
 import org.apache.commons.dbcp.BasicDataSource;
@@ -34,6 +35,7 @@ import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -132,6 +134,65 @@ public class ProfiledDataSourceTest {
       .doesNotContain("params=");
   }
 
+  @Test
+  public void record_statistics_of_prepared_statements_without_logging_them() throws Exception {
+    logTester.setLevel(LoggerLevel.DEBUG);
+
+    Connection connection = mock(Connection.class);
+    when(originDataSource.getConnection()).thenReturn(connection);
+    String sql = "select * from issues where project_uuid=? and kee in (?, ?)";
+    PreparedStatement preparedStatement = mock(PreparedStatement.class);
+    ResultSet resultSet = mock(ResultSet.class);
+    when(connection.prepareStatement(sql)).thenReturn(preparedStatement);
+    when(preparedStatement.executeQuery()).thenReturn(resultSet);
+    when(resultSet.next()).thenReturn(true, true, false);
+
+    SqlStatistics sqlStatistics = new SqlStatistics();
+    ProfiledDataSource ds = new ProfiledDataSource(originDataSource, new SqlStatisticsConnectionInterceptor(sqlStatistics, false));
+    for (int i = 0; i < 2; i++) {
+      try (ResultSet rs = ds.getConnection().prepareStatement(sql).executeQuery()) {
+        while (rs.next()) {
+          // fetch all rows
+        }
+      }
+    }
+
+    assertThat(ds.getSqlStatistics()).hasValue(sqlStatistics);
+    assertThat(sqlStatistics.getAll()).hasSize(1);
+    SqlStatistics.StatementStatistics statistics = sqlStatistics.getAll().iterator().next();
+    assertThat(statistics.getSql()).isEqualTo("select * from issues where project_uuid=? and kee in (?, ...)");
+    assertThat(statistics.getExecutions()).isEqualTo(2);
+    assertThat(statistics.getFetchedRows()).isEqualTo(2);
+    assertThat(statistics.getTotalTimeNanos()).isGreaterThanOrEqualTo(statistics.getMaxTimeNanos());
+    assertThat(logTester.logs()).isEmpty();
+  }
+
+  @Test
+  public void record_statistics_of_statements_and_log_them() throws Exception {
+    logTester.setLevel(LoggerLevel.TRACE);
+
+    Connection connection = mock(Connection.class);
+    when(originDataSource.getConnection()).thenReturn(connection);
+    Statement stmt = mock(Statement.class);
+    when(connection.createStatement()).thenReturn(stmt);
+    when(stmt.execute("delete from issues where id=12")).thenReturn(false);
+
+    SqlStatistics sqlStatistics = new SqlStatistics();
+    ProfiledDataSource ds = new ProfiledDataSource(originDataSource, new SqlStatisticsConnectionInterceptor(sqlStatistics, true));
+    ds.getConnection().createStatement().execute("delete from issues where id=12");
+
+    assertThat(sqlStatistics.getSlowest(10)).extracting(SqlStatistics.StatementStatistics::getSql, SqlStatistics.StatementStatistics::getExecutions)
+      .containsExactly(tuple("delete from issues where id=?", 1L));
+    assertThat(logTester.logs(LoggerLevel.TRACE)).hasSize(1);
+  }
+
+  @Test
+  public void no_statistics_if_not_enabled() {
+    ProfiledDataSource ds = new ProfiledDataSource(originDataSource, ProfiledConnectionInterceptor.INSTANCE);
+
+    assertThat(ds.getSqlStatistics()).isEmpty();
+  }
+
   @Test
   public void delegate_to_underlying_data_source() throws Exception {
     ProfiledDataSource proxy = new ProfiledDataSource(originDataSource, ProfiledConnectionInterceptor.INSTANCE);
@@ -0,0 +1,122 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SqlStatisticsTest {
+
+  private SqlStatistics underTest = new SqlStatistics();
+
+  @Test
+  public void normalize_literals_and_lists_of_parameters() {
+    assertThat(SqlStatistics.normalize("select * from projects\n  where kee='foo''s' and id > 12 and x=-3.5 and col2 = t1.col2"))
+      .isEqualTo("select * from projects where kee=? and id > ? and x=? and col2 = t1.col2");
+    assertThat(SqlStatistics.normalize("select * from issues where kee in (?,?, ?) or kee in (?)"))
+      .isEqualTo("select * from issues where kee in (?, ...) or kee in (?)");
+  }
+
+  @Test
+  public void statements_with_same_normalized_sql_share_statistics() {
+    underTest.get("select * from issues where id=1").recordExecution(10L);
+    underTest.get("select * from issues where id=2").recordExecution(30L);
+    underTest.get("select * from rules").recordExecution(20L);
+
+    assertThat(underTest.getSlowest(1)).extracting(SqlStatistics.StatementStatistics::getSql).containsExactly("select * from issues where id=?");
+    SqlStatistics.StatementStatistics statistics = underTest.get("select * from issues where id=3");
+    assertThat(statistics.getExecutions()).isEqualTo(2);
+    assertThat(statistics.getTotalTimeNanos()).isEqualTo(40L);
+    assertThat(statistics.getMaxTimeNanos()).isEqualTo(30L);
+
+    underTest.reset();
+    assertThat(underTest.getAll()).isEmpty();
+  }
+
+  @Test
+  public void percentiles_are_upper_bounds_of_power_of_2_buckets() {
+    SqlStatistics.StatementStatistics statistics = underTest.get("select 1");
+    assertThat(statistics.getPercentileMicros(50)).isZero();
+
+    for (int i = 0; i < 90; i++) {
+      statistics.recordExecution(TimeUnit.MICROSECONDS.toNanos(100));
+    }
+    for (int i = 0; i < 10; i++) {
+      statistics.recordExecution(TimeUnit.MILLISECONDS.toNanos(10));
+    }
+
+    assertThat(statistics.getPercentileMicros(50)).isEqualTo(128L);
+    assertThat(statistics.getPercentileMicros(90)).isEqualTo(128L);
+    assertThat(statistics.getPercentileMicros(99)).isEqualTo(16_384L);
+  }
+
+  @Test
+  public void execution_time_is_cumulated_per_thread() throws InterruptedException {
+    long before = SqlStatistics.getCurrentThreadTimeNanos();
+    underTest.get("select 1").recordExecution(10L);
+    underTest.get("select 2").recordExecution(20L);
+
+    Thread otherThread = new Thread(() -> underTest.get("select 1").recordExecution(100L));
+    otherThread.start();
+    otherThread.join();
+
+    assertThat(SqlStatistics.getCurrentThreadTimeNanos() - before).isEqualTo(30L);
+  }
+
+  @Test
+  public void number_of_distinct_statements_is_bounded() {
+    for (int i = 0; i < SqlStatistics.MAX_STATEMENTS; i++) {
+      underTest.get("select * from table_" + i);
+    }
+
+    SqlStatistics.StatementStatistics statistics = underTest.get("select * from other_table");
+
+    assertThat(statistics.getSql()).isEqualTo(SqlStatistics.OTHER_STATEMENTS);
+    assertThat(underTest.getAll()).hasSize(SqlStatistics.MAX_STATEMENTS + 1);
+  }
+
+  @Test
+  public void statistics_of_raw_statements_are_cached_until_reset() {
+    SqlStatistics.StatementStatistics statistics = underTest.get("select * from issues where kee in (?, ?)");
+
+    assertThat(underTest.get("select * from issues where kee in (?, ?)")).isSameAs(statistics);
+    assertThat(underTest.get("select * from issues where kee in (?, ?, ?)")).isSameAs(statistics);
+
+    underTest.reset();
+
+    SqlStatistics.StatementStatistics afterReset = underTest.get("select * from issues where kee in (?, ?)");
+    assertThat(afterReset).isNotSameAs(statistics);
+    assertThat(underTest.getAll()).containsExactly(afterReset);
+  }
+
+  @Test
+  public void statements_are_still_recorded_when_cache_of_raw_statements_is_full() {
+    for (int i = 0; i < SqlStatistics.MAX_CACHED_RAW_STATEMENTS; i++) {
+      underTest.get("select * from issues where id=" + i);
+    }
+
+    underTest.get("select * from issues where id=-1").recordExecution(10L);
+
+    assertThat(underTest.getAll()).hasSize(1);
+    assertThat(underTest.get("select * from issues where id=-2").getTotalTimeNanos()).isEqualTo(10L);
+  }
+}
@@ -50,6 +50,7 @@ import org.sonar.db.permission.template.PermissionTemplateDao;
 import org.sonar.db.property.InternalPropertiesDao;
 import org.sonar.db.property.PropertiesDao;
 import org.sonar.db.purge.PurgeDao;
+import org.sonar.db.purge.PurgeQueueDao;
 import org.sonar.db.qualitygate.ProjectQgateAssociationDao;
 import org.sonar.db.qualitygate.QualityGateConditionDao;
 import org.sonar.db.qualitygate.QualityGateDao;
@@ -105,6 +106,7 @@ public class DaoModule extends Module {
     ProjectQgateAssociationDao.class,
     PropertiesDao.class,
     PurgeDao.class,
+    PurgeQueueDao.class,
     QProfileChangeDao.class,
     QualityGateConditionDao.class,
     QualityGateDao.class,
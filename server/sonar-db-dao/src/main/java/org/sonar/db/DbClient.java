@@ -49,6 +49,7 @@ import org.sonar.db.permission.template.PermissionTemplateDao;
 import org.sonar.db.property.InternalPropertiesDao;
 import org.sonar.db.property.PropertiesDao;
 import org.sonar.db.purge.PurgeDao;
+import org.sonar.db.purge.PurgeQueueDao;
 import org.sonar.db.qualitygate.ProjectQgateAssociationDao;
 import org.sonar.db.qualitygate.QualityGateConditionDao;
 import org.sonar.db.qualitygate.QualityGateDao;
@@ -103,6 +104,7 @@ public class DbClient {
   private final ComponentLinkDao componentLinkDao;
   private final EventDao eventDao;
   private final PurgeDao purgeDao;
+  private final PurgeQueueDao purgeQueueDao;
   private final QualityGateDao qualityGateDao;
   private final QualityGateConditionDao gateConditionDao;
   private final ProjectQgateAssociationDao projectQgateAssociationDao;
@@ -158,6 +160,7 @@ public class DbClient {
     componentLinkDao = getDao(map, ComponentLinkDao.class);
     eventDao = getDao(map, EventDao.class);
     purgeDao = getDao(map, PurgeDao.class);
+    purgeQueueDao = getDao(map, PurgeQueueDao.class);
     qualityGateDao = getDao(map, QualityGateDao.class);
     gateConditionDao = getDao(map, QualityGateConditionDao.class);
     projectQgateAssociationDao = getDao(map, ProjectQgateAssociationDao.class);
@@ -307,6 +310,10 @@ public class DbClient {
     return purgeDao;
   }
 
+  public PurgeQueueDao purgeQueueDao() {
+    return purgeQueueDao;
+  }
+
   public QualityGateDao qualityGateDao() {
     return qualityGateDao;
   }
@@ -85,6 +85,7 @@ import org.sonar.db.property.PropertiesMapper;
 import org.sonar.db.property.ScrapPropertyDto;
 import org.sonar.db.purge.IdUuidPair;
 import org.sonar.db.purge.PurgeMapper;
+import org.sonar.db.purge.PurgeQueueMapper;
 import org.sonar.db.purge.PurgeableAnalysisDto;
 import org.sonar.db.qualitygate.ProjectQgateAssociationDto;
 import org.sonar.db.qualitygate.ProjectQgateAssociationMapper;
@@ -217,6 +218,7 @@ public class MyBatis implements Startable {
       ProjectQgateAssociationMapper.class,
       PropertiesMapper.class,
       PurgeMapper.class,
+      PurgeQueueMapper.class,
       QProfileChangeMapper.class,
       QualityGateConditionMapper.class,
       QualityGateMapper.class,
@@ -22,9 +22,11 @@ package org.sonar.db.duplication;
 import java.util.Collection;
 import java.util.List;
 import javax.annotation.Nullable;
+import org.apache.ibatis.session.ResultHandler;
 import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
 
+import static java.util.Objects.requireNonNull;
 import static org.sonar.db.DatabaseUtils.executeLargeInputs;
 
 public class DuplicationDao implements Dao {
@@ -38,6 +40,23 @@ public class DuplicationDao implements Dao {
       partition -> session.getMapper(DuplicationMapper.class).selectCandidates(analysisUuid, language, partition));
   }
 
+  /**
+   * Number of rows in the table DUPLICATIONS_INDEX
+   */
+  public long count(DbSession session) {
+    return session.getMapper(DuplicationMapper.class).count();
+  }
+
+  /**
+   * Selects the id and the hash of the rows of the table DUPLICATIONS_INDEX whose id is greater than {@code minId}.
+   * The result is not returned (since it is usually too big), but handed over to the <code>handler</code>
+   * as {@link DuplicationUnitDto}.
+   */
+  public void selectHashesAfter(DbSession session, long minId, ResultHandler handler) {
+    requireNonNull(handler);
+    session.getMapper(DuplicationMapper.class).selectHashesAfter(minId, handler);
+  }
+
   /**
    * Insert rows in the table DUPLICATIONS_INDEX.
    * Note that generated ids are not returned.
@@ -70,6 +70,17 @@ public class IssueDao implements Dao {
     return from(keys).transform(new KeyToIssue(unordered)).filter(Predicates.notNull()).toList();
   }
 
+  /**
+   * Same as {@link #selectByOrderedKeys(DbSession, List)} but loads only the fields which are displayed by the
+   * issue search web service. Checksum, attributes, manual severity, gap, technical dates, language, file path,
+   * component and project keys are not loaded, so the returned {@link IssueDto} must not be used to
+   * compute workflow or to update issues.
+   */
+  public List<IssueDto> selectForSearchByOrderedKeys(DbSession session, List<String> keys) {
+    List<IssueDto> unordered = executeLargeInputs(keys, mapper(session)::selectForSearchByKeys);
+    return from(keys).transform(new KeyToIssue(unordered)).filter(Predicates.notNull()).toList();
+  }
+
   private static class KeyToIssue implements Function<String, IssueDto> {
     private final Map<String, IssueDto> map = new HashMap<>();
 
@@ -34,6 +34,8 @@ public interface IssueMapper {
 
   List<IssueDto> selectByKeys(List<String> keys);
 
+  List<IssueDto> selectForSearchByKeys(List<String> keys);
+
   void insert(IssueDto issue);
 
   int update(IssueDto issue);
@@ -107,6 +107,21 @@ public class MeasureDao implements Dao {
     return mapper(dbSession).selectPastMeasuresOnSeveralAnalyses(query);
   }
 
+  /**
+   * Select measures of:
+   * - one component
+   * - for a list of metrics
+   * - for a list of analyses
+   */
+  public List<MeasureDto> selectPastMeasures(DbSession dbSession, String componentUuid, Collection<String> analysisUuids, Collection<Integer> metricIds) {
+    if (analysisUuids.isEmpty() || metricIds.isEmpty()) {
+      return emptyList();
+    }
+    return executeLargeInputs(
+      analysisUuids,
+      uuids -> mapper(dbSession).selectPastMeasuresOnAnalyses(componentUuid, uuids, metricIds));
+  }
+
   /**
    * Used by developer cockpit.
    */
@@ -61,6 +61,28 @@ public class InternalPropertiesDao implements Dao {
     }
   }
 
+  /**
+   * Same as {@link #save(DbSession, String, String)}, except that an existing property is updated in place rather
+   * than deleted and inserted again. Concurrent transactions changing the same property therefore wait for each
+   * other instead of failing on a duplicate key.
+   *
+   * @throws IllegalArgumentException if {@code key} or {@code value} is {@code null} or empty, or if {@code value}
+   *         is longer than 4000 characters
+   */
+  public void update(DbSession dbSession, String key, String value) {
+    checkKey(key);
+    checkArgument(value != null && !value.isEmpty(), "value can't be null nor empty");
+    checkArgument(!mustsBeStoredInClob(value), "value can't be longer than %s characters", TEXT_VALUE_MAX_LENGTH);
+
+    updateOrInsert(getMapper(dbSession), key, value, system2.now());
+  }
+
+  static void updateOrInsert(InternalPropertiesMapper mapper, String key, String value, long now) {
+    if (mapper.updateAsText(key, value, now) == 0) {
+      mapper.insertAsText(key, value, now);
+    }
+  }
+
   private static boolean mustsBeStoredInClob(String value) {
     return value.length() > TEXT_VALUE_MAX_LENGTH;
   }
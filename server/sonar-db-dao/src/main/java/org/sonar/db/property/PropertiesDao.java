@@ -32,6 +32,7 @@ import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.resources.Scopes;
 import org.sonar.api.utils.System2;
+import org.sonar.core.util.Uuids;
 import org.sonar.db.Dao;
 import org.sonar.db.DatabaseUtils;
 import org.sonar.db.DbSession;
@@ -45,6 +46,12 @@ import static org.sonar.db.DatabaseUtils.executeLargeInputsWithoutOutput;
 
 public class PropertiesDao implements Dao {
 
+  /**
+   * Key of the internal property which value changes in the same transaction as any global property, so that the
+   * processes which keep global properties in memory know when to reload them.
+   */
+  public static final String GLOBAL_PROPERTIES_VERSION_KEY = "referenceData.version.globalSettings";
+
   private static final String NOTIFICATION_PREFIX = "notification.";
   private static final int VARCHAR_MAXSIZE = 4000;
 
@@ -186,10 +193,13 @@ public class PropertiesDao implements Dao {
    * @throws IllegalArgumentException if {@link PropertyDto#getKey()} is {@code null} or empty
    */
   public void saveProperty(DbSession session, PropertyDto property) {
-    save(getMapper(session), property.getKey(), property.getUserId(), property.getResourceId(), property.getValue());
+    long now = save(getMapper(session), property.getKey(), property.getUserId(), property.getResourceId(), property.getValue());
+    if (isGlobal(property)) {
+      markGlobalPropertiesChanged(session, now);
+    }
   }
 
-  private void save(PropertiesMapper mapper,
+  private long save(PropertiesMapper mapper,
     String key, @Nullable Integer userId, @Nullable Long componentId,
     @Nullable String value) {
     checkKey(key);
@@ -203,6 +213,7 @@ public class PropertiesDao implements Dao {
     } else {
       mapper.insertAsText(key, userId, componentId, value, now);
     }
+    return now;
   }
 
   private static boolean mustBeStoredInClob(String value) {
@@ -232,11 +243,19 @@ public class PropertiesDao implements Dao {
    * Used by Governance.
    */
   public int deleteByQuery(DbSession dbSession, PropertyQuery query) {
-    return getMapper(dbSession).deleteByQuery(query);
+    int deleted = getMapper(dbSession).deleteByQuery(query);
+    if (deleted > 0 && query.componentId() == null && query.userId() == null) {
+      markGlobalPropertiesChanged(dbSession);
+    }
+    return deleted;
   }
 
   public int delete(DbSession dbSession, PropertyDto dto) {
-    return getMapper(dbSession).delete(dto.getKey(), dto.getUserId(), dto.getResourceId());
+    int deleted = getMapper(dbSession).delete(dto.getKey(), dto.getUserId(), dto.getResourceId());
+    if (isGlobal(dto)) {
+      markGlobalPropertiesChanged(dbSession);
+    }
+    return deleted;
   }
 
   public void deleteProjectProperty(String key, Long projectId) {
@@ -263,6 +282,7 @@ public class PropertiesDao implements Dao {
 
   public void deleteGlobalProperty(String key, DbSession session) {
     getMapper(session).deleteGlobalProperty(key);
+    markGlobalPropertiesChanged(session);
   }
 
   public void deleteGlobalProperty(String key) {
@@ -284,6 +304,8 @@ public class PropertiesDao implements Dao {
 
   public void deleteByKeyAndValue(DbSession dbSession, String key, String value){
     getMapper(dbSession).deleteByKeyAndValue(key, value);
+    // global property may be deleted
+    markGlobalPropertiesChanged(dbSession);
   }
 
   public void saveGlobalProperties(Map<String, String> properties) {
@@ -293,6 +315,7 @@ public class PropertiesDao implements Dao {
         mapper.deleteGlobalProperty(entry.getKey());
         save(mapper, entry.getKey(), null, null, entry.getValue());
       });
+      markGlobalPropertiesChanged(session);
       session.commit();
     }
   }
@@ -304,11 +327,24 @@ public class PropertiesDao implements Dao {
     if (!newKey.equals(oldKey)) {
       try (DbSession session = mybatis.openSession(false)) {
         getMapper(session).renamePropertyKey(oldKey, newKey);
+        markGlobalPropertiesChanged(session);
         session.commit();
       }
     }
   }
 
+  private static boolean isGlobal(PropertyDto property) {
+    return property.getUserId() == null && property.getResourceId() == null;
+  }
+
+  private void markGlobalPropertiesChanged(DbSession session) {
+    markGlobalPropertiesChanged(session, system2.now());
+  }
+
+  private static void markGlobalPropertiesChanged(DbSession session, long now) {
+    InternalPropertiesDao.updateOrInsert(session.getMapper(InternalPropertiesMapper.class), GLOBAL_PROPERTIES_VERSION_KEY, Uuids.create(), now);
+  }
+
   private static PropertiesMapper getMapper(DbSession session) {
     return session.getMapper(PropertiesMapper.class);
   }
@@ -23,6 +23,8 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import java.util.List;
 import java.util.stream.Collectors;
+import org.apache.ibatis.executor.BatchExecutor;
+import org.apache.ibatis.executor.BatchResult;
 import org.sonar.db.DbSession;
 
 import static com.google.common.collect.FluentIterable.from;
@@ -32,15 +34,27 @@ class PurgeCommands {
 
   private static final int MAX_SNAPSHOTS_PER_QUERY = 1000;
   private static final int MAX_RESOURCES_PER_QUERY = 1000;
+  /**
+   * Smaller statements when throttled, so that the throttle can spread the load
+   */
+  private static final int MAX_SNAPSHOTS_PER_THROTTLED_QUERY = 20;
 
   private final DbSession session;
   private final PurgeMapper purgeMapper;
   private final PurgeProfiler profiler;
+  private final PurgeThrottle throttle;
+  private final int maxSnapshotsPerQuery;
 
   PurgeCommands(DbSession session, PurgeMapper purgeMapper, PurgeProfiler profiler) {
+    this(session, purgeMapper, profiler, PurgeThrottle.NONE);
+  }
+
+  PurgeCommands(DbSession session, PurgeMapper purgeMapper, PurgeProfiler profiler, PurgeThrottle throttle) {
     this.session = session;
     this.purgeMapper = purgeMapper;
     this.profiler = profiler;
+    this.throttle = throttle;
+    this.maxSnapshotsPerQuery = throttle == PurgeThrottle.NONE ? MAX_SNAPSHOTS_PER_QUERY : MAX_SNAPSHOTS_PER_THROTTLED_QUERY;
   }
 
   @VisibleForTesting
@@ -87,47 +101,65 @@ class PurgeCommands {
 
   @VisibleForTesting
   void deleteAnalyses(List<IdUuidPair> analysisIdUuids) {
-    List<List<String>> analysisUuidsPartitions = Lists.partition(IdUuidPairs.uuids(analysisIdUuids), MAX_SNAPSHOTS_PER_QUERY);
+    List<List<String>> analysisUuidsPartitions = Lists.partition(IdUuidPairs.uuids(analysisIdUuids), maxSnapshotsPerQuery);
 
     deleteAnalysisDuplications(analysisUuidsPartitions);
 
     profiler.start("deleteAnalyses (events)");
-    analysisUuidsPartitions.forEach(purgeMapper::deleteAnalysisEvents);
+    analysisUuidsPartitions.forEach(partition -> purged(purgeMapper.deleteAnalysisEvents(partition)));
     session.commit();
     profiler.stop();
 
     profiler.start("deleteAnalyses (project_measures)");
-    analysisUuidsPartitions.forEach(purgeMapper::deleteAnalysisMeasures);
+    analysisUuidsPartitions.forEach(partition -> purged(purgeMapper.deleteAnalysisMeasures(partition)));
     session.commit();
     profiler.stop();
 
     profiler.start("deleteAnalyses (snapshots)");
-    analysisUuidsPartitions.forEach(purgeMapper::deleteAnalyses);
+    analysisUuidsPartitions.forEach(partition -> purged(purgeMapper.deleteAnalyses(partition)));
     session.commit();
     profiler.stop();
   }
 
   void purgeAnalyses(List<IdUuidPair> analysisUuids) {
-    List<List<String>> analysisUuidsPartitions = Lists.partition(IdUuidPairs.uuids(analysisUuids), MAX_SNAPSHOTS_PER_QUERY);
+    List<List<String>> analysisUuidsPartitions = Lists.partition(IdUuidPairs.uuids(analysisUuids), maxSnapshotsPerQuery);
 
     deleteAnalysisDuplications(analysisUuidsPartitions);
 
     profiler.start("deleteSnapshotWastedMeasures (project_measures)");
     List<Long> metricIdsWithoutHistoricalData = purgeMapper.selectMetricIdsWithoutHistoricalData();
     analysisUuidsPartitions
-        .forEach(analysisUuidsPartition -> purgeMapper.deleteAnalysisWastedMeasures(analysisUuidsPartition, metricIdsWithoutHistoricalData));
+        .forEach(analysisUuidsPartition -> purged(purgeMapper.deleteAnalysisWastedMeasures(analysisUuidsPartition, metricIdsWithoutHistoricalData)));
     session.commit();
     profiler.stop();
 
     profiler.start("updatePurgeStatusToOne (snapshots)");
-    analysisUuidsPartitions.forEach(purgeMapper::updatePurgeStatusToOne);
+    analysisUuidsPartitions.forEach(partition -> purged(purgeMapper.updatePurgeStatusToOne(partition)));
     session.commit();
     profiler.stop();
   }
 
   private void deleteAnalysisDuplications(List<List<String>> snapshotUuidsPartitions) {
     profiler.start("deleteAnalysisDuplications (duplications_index)");
-    snapshotUuidsPartitions.forEach(purgeMapper::deleteAnalysisDuplications);
+    snapshotUuidsPartitions.forEach(partition -> purged(purgeMapper.deleteAnalysisDuplications(partition)));
+    session.commit();
+    profiler.stop();
+  }
+
+  void deleteIssuesByKeys(List<String> issueKeys) {
+    if (issueKeys.isEmpty()) {
+      return;
+    }
+
+    List<List<String>> keyPartitions = Lists.partition(issueKeys, MAX_RESOURCES_PER_QUERY);
+
+    profiler.start("deleteIssuesByKeys (issue_changes)");
+    keyPartitions.forEach(partition -> purged(purgeMapper.deleteIssueChangesFromIssueKeys(partition)));
+    session.commit();
+    profiler.stop();
+
+    profiler.start("deleteIssuesByKeys (issues)");
+    keyPartitions.forEach(partition -> purged(purgeMapper.deleteIssuesFromKeys(partition)));
     session.commit();
     profiler.stop();
   }
@@ -233,13 +265,13 @@ class PurgeCommands {
       return;
     }
 
-    List<List<String>> analysisUuidsPartitions = Lists.partition(analysisUuids, MAX_SNAPSHOTS_PER_QUERY);
+    List<List<String>> analysisUuidsPartitions = Lists.partition(analysisUuids, maxSnapshotsPerQuery);
     List<List<String>> componentUuidsPartitions = Lists.partition(componentUuids, MAX_RESOURCES_PER_QUERY);
 
     profiler.start("deleteComponentMeasures");
     for (List<String> analysisUuidsPartition : analysisUuidsPartitions) {
       for (List<String> componentUuidsPartition : componentUuidsPartitions) {
-        purgeMapper.deleteComponentMeasures(analysisUuidsPartition, componentUuidsPartition);
+        purged(purgeMapper.deleteComponentMeasures(analysisUuidsPartition, componentUuidsPartition));
       }
     }
     session.commit();
@@ -284,4 +316,35 @@ class PurgeCommands {
     session.commit();
     profiler.stop();
   }
+
+  /**
+   * Counts the rows deleted or updated by a statement. When throttled, the statement is committed before
+   * calling the throttle, so that locks are not held while the thread pauses.
+   */
+  private void purged(int rows) {
+    int count = rows == BatchExecutor.BATCH_UPDATE_RETURN_VALUE ? flushStatements() : rows;
+    profiler.addRows(count);
+    if (throttle != PurgeThrottle.NONE) {
+      session.commit();
+      throttle.afterStatement(count);
+    }
+  }
+
+  /**
+   * In a batch session, statements are executed, and their counts of rows are known, only when flushed.
+   *
+   * @return the number of rows deleted or updated by the flushed statements
+   */
+  private int flushStatements() {
+    int count = 0;
+    for (BatchResult result : session.flushStatements()) {
+      for (int updateCount : result.getUpdateCounts()) {
+        // drivers may return Statement.SUCCESS_NO_INFO when the count is unknown
+        if (updateCount > 0) {
+          count += updateCount;
+        }
+      }
+    }
+    return count;
+  }
 }
@@ -71,7 +71,30 @@ public class PurgeDao implements Dao {
     deleteDataOfComponentsWithoutHistoricalData(session, rootUuid, conf.scopesWithoutHistoricalData(), commands);
     purgeAnalyses(commands, rootUuid);
     purgeDisabledComponents(session, conf, listener);
-    deleteOldClosedIssues(conf, mapper, listener);
+    deleteOldClosedIssues(conf, mapper, commands, listener);
+  }
+
+  /**
+   * Purges the history of a project outside of its analyses, in small statements limited by the throttle.
+   * Unlike {@link #purge(DbSession, PurgeConfiguration, PurgeListener, PurgeProfiler)}, the analyses which are
+   * not processed are kept, as one of them may be the analysis in progress. They are deleted by
+   * {@link #deleteAbortedAnalyses(DbSession, String, PurgeProfiler)} during the next analysis of the project.
+   */
+  public void purgeHistory(DbSession session, PurgeConfiguration conf, PurgeListener listener, PurgeProfiler profiler, PurgeThrottle throttle) {
+    PurgeMapper mapper = session.getMapper(PurgeMapper.class);
+    PurgeCommands commands = new PurgeCommands(session, mapper, profiler, throttle);
+    String rootUuid = conf.rootProjectIdUuid().getUuid();
+    deleteDataOfComponentsWithoutHistoricalData(session, rootUuid, conf.scopesWithoutHistoricalData(), commands);
+    purgeAnalyses(commands, rootUuid);
+    deleteOldClosedIssues(conf, mapper, commands, listener);
+  }
+
+  /**
+   * Deletes the analyses of the project which are neither processed nor the last one. This must be called only
+   * while no analysis of the project is in progress, for example by the analysis itself.
+   */
+  public void deleteAbortedAnalyses(DbSession session, String rootUuid, PurgeProfiler profiler) {
+    deleteAbortedAnalyses(rootUuid, new PurgeCommands(session, mapper(session), profiler));
   }
 
   private static void purgeAnalyses(PurgeCommands commands, String rootUuid) {
@@ -83,18 +106,11 @@ public class PurgeDao implements Dao {
     commands.purgeAnalyses(analysisUuids);
   }
 
-  private static void deleteOldClosedIssues(PurgeConfiguration conf, PurgeMapper mapper, PurgeListener listener) {
+  private static void deleteOldClosedIssues(PurgeConfiguration conf, PurgeMapper mapper, PurgeCommands commands, PurgeListener listener) {
     Date toDate = conf.maxLiveDateOfClosedIssues();
     String rootUuid = conf.rootProjectIdUuid().getUuid();
     List<String> issueKeys = mapper.selectOldClosedIssueKeys(rootUuid, dateToLong(toDate));
-    executeLargeInputs(issueKeys, input -> {
-      mapper.deleteIssueChangesFromIssueKeys(input);
-      return emptyList();
-    });
-    executeLargeInputs(issueKeys, input -> {
-      mapper.deleteIssuesFromKeys(input);
-      return emptyList();
-    });
+    commands.deleteIssuesByKeys(issueKeys);
     listener.onIssuesRemoval(rootUuid, issueKeys);
   }
 
@@ -131,7 +147,11 @@ public class PurgeDao implements Dao {
     purgeCommands.deleteComponentMeasures(analysisUuids, componentWithoutHistoricalDataUuids);
   }
 
-  private void purgeDisabledComponents(DbSession session, PurgeConfiguration conf, PurgeListener listener) {
+  /**
+   * Purges only the data of the components disabled by the last analysis. This is included in
+   * {@link #purge(DbSession, PurgeConfiguration, PurgeListener, PurgeProfiler)}.
+   */
+  public void purgeDisabledComponents(DbSession session, PurgeConfiguration conf, PurgeListener listener) {
     PurgeMapper mapper = mapper(session);
     executeLargeInputs(conf.getDisabledComponentUuids(),
       input -> {
@@ -230,7 +250,11 @@ public class PurgeDao implements Dao {
   }
 
   public void deleteAnalyses(DbSession session, PurgeProfiler profiler, List<IdUuidPair> analysisIdUuids) {
-    new PurgeCommands(session, profiler).deleteAnalyses(analysisIdUuids);
+    deleteAnalyses(session, profiler, analysisIdUuids, PurgeThrottle.NONE);
+  }
+
+  public void deleteAnalyses(DbSession session, PurgeProfiler profiler, List<IdUuidPair> analysisIdUuids, PurgeThrottle throttle) {
+    new PurgeCommands(session, mapper(session), profiler, throttle).deleteAnalyses(analysisIdUuids);
   }
 
   private static PurgeMapper mapper(DbSession session) {
@@ -32,6 +32,7 @@ import org.sonar.api.utils.log.Logger;
 public class PurgeProfiler {
 
   private Map<String, Long> durations = new HashMap<>();
+  private Map<String, Long> rows = new HashMap<>();
   private long startTime;
   private String currentTable;
   private final Clock clock;
@@ -47,6 +48,7 @@ public class PurgeProfiler {
 
   public void reset() {
     durations.clear();
+    rows.clear();
   }
 
   void start(String table) {
@@ -64,6 +66,20 @@ public class PurgeProfiler {
     durations.put(currentTable, cumulatedDuration + (clock.now() - startTime));
   }
 
+  /**
+   * Adds rows deleted or updated by the current step
+   */
+  void addRows(int count) {
+    rows.merge(currentTable, (long) count, Long::sum);
+  }
+
+  /**
+   * Total number of rows deleted or updated since last {@link #reset()}, for the steps which count them
+   */
+  public long getPurgedRows() {
+    return rows.values().stream().mapToLong(Long::longValue).sum();
+  }
+
   public void dump(long totalTime, Logger logger) {
     List<Entry<String, Long>> data = new ArrayList<>(durations.entrySet());
     Collections.sort(data, (o1, o2) -> o2.getValue().compareTo(o1.getValue()));
@@ -72,6 +88,10 @@ public class PurgeProfiler {
       StringBuilder sb = new StringBuilder();
       sb.append("   o ").append(entry.getKey()).append(": ").append(TimeUtils.formatDuration(entry.getValue()))
         .append(" (").append((int) (entry.getValue() / percent)).append("%)");
+      Long purgedRows = rows.get(entry.getKey());
+      if (purgedRows != null) {
+        sb.append(", ").append(purgedRows).append(" rows");
+      }
       logger.info(sb.toString());
     }
   }
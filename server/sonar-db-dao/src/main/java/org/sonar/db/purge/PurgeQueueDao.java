@@ -0,0 +1,102 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.purge;
+
+import java.util.List;
+import java.util.OptionalLong;
+import org.apache.ibatis.session.RowBounds;
+import org.sonar.api.utils.System2;
+import org.sonar.db.Dao;
+import org.sonar.db.DbSession;
+
+/**
+ * Queue of the projects waiting for being purged by the background housekeeping of Compute Engine.
+ * There is at most one request per project.
+ * <p>
+ * A request is claimed by a Compute Engine node before the project is purged, and deleted once the purge
+ * is done. A claim which is not deleted nor released, for example because the node stopped, can be claimed
+ * again by any node once it is older than the delay given by the caller.
+ */
+public class PurgeQueueDao implements Dao {
+
+  private final System2 system2;
+
+  public PurgeQueueDao(System2 system2) {
+    this.system2 = system2;
+  }
+
+  /**
+   * Adds a request for the project, if it is not already queued. If the request is claimed, it is marked so that
+   * it is kept in queue when the current purge is done.
+   */
+  public void enqueue(DbSession dbSession, String projectUuid) {
+    PurgeQueueMapper mapper = mapper(dbSession);
+    if (mapper.countByProjectUuid(projectUuid) == 0) {
+      mapper.insert(projectUuid, system2.now());
+    } else {
+      mapper.requeueIfStarted(projectUuid, system2.now());
+    }
+  }
+
+  /**
+   * Oldest requests first, excluding the requests claimed after {@code startedBefore}
+   */
+  public List<String> selectOldestProjectUuids(DbSession dbSession, long startedBefore, int limit) {
+    return mapper(dbSession).selectOldestProjectUuids(startedBefore, new RowBounds(0, limit));
+  }
+
+  public int count(DbSession dbSession) {
+    return mapper(dbSession).count();
+  }
+
+  /**
+   * @return the date of the claim, or empty if the request does not exist or is already claimed by another
+   * Compute Engine node since {@code startedBefore}
+   */
+  public OptionalLong claim(DbSession dbSession, String projectUuid, long startedBefore) {
+    long now = system2.now();
+    if (mapper(dbSession).claim(projectUuid, now, startedBefore) > 0) {
+      return OptionalLong.of(now);
+    }
+    return OptionalLong.empty();
+  }
+
+  /**
+   * Ends a claim once the purge is done: the request is deleted, unless the project has been queued again since
+   * the claim, in which case the request is released.
+   */
+  public void complete(DbSession dbSession, String projectUuid, long startedAt) {
+    PurgeQueueMapper mapper = mapper(dbSession);
+    if (mapper.deleteClaimed(projectUuid, startedAt) == 0) {
+      mapper.release(projectUuid, startedAt);
+    }
+  }
+
+  /**
+   * Ends a claim without deleting the request, for example because the purge failed, so that it is retried later
+   */
+  public void release(DbSession dbSession, String projectUuid, long startedAt) {
+    mapper(dbSession).release(projectUuid, startedAt);
+  }
+
+  private static PurgeQueueMapper mapper(DbSession dbSession) {
+    return dbSession.getMapper(PurgeQueueMapper.class);
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.purge;
+
+import java.util.List;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.RowBounds;
+
+public interface PurgeQueueMapper {
+
+  int countByProjectUuid(@Param("projectUuid") String projectUuid);
+
+  int count();
+
+  List<String> selectOldestProjectUuids(@Param("startedBefore") long startedBefore, RowBounds rowBounds);
+
+  void insert(@Param("projectUuid") String projectUuid, @Param("now") long now);
+
+  int requeueIfStarted(@Param("projectUuid") String projectUuid, @Param("now") long now);
+
+  int claim(@Param("projectUuid") String projectUuid, @Param("now") long now, @Param("startedBefore") long startedBefore);
+
+  int deleteClaimed(@Param("projectUuid") String projectUuid, @Param("startedAt") long startedAt);
+
+  int release(@Param("projectUuid") String projectUuid, @Param("startedAt") long startedAt);
+}
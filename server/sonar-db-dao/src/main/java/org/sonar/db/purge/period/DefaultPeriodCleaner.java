@@ -32,6 +32,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.purge.IdUuidPair;
 import org.sonar.db.purge.PurgeDao;
 import org.sonar.db.purge.PurgeProfiler;
+import org.sonar.db.purge.PurgeThrottle;
 import org.sonar.db.purge.PurgeableAnalysisDto;
 
 public class DefaultPeriodCleaner {
@@ -49,16 +50,28 @@ public class DefaultPeriodCleaner {
     doClean(rootUuid, new Filters(config).all(), session);
   }
 
+  /**
+   * Same as {@link #clean(DbSession, String, Configuration)}, with the given profiler and throttle
+   */
+  public void clean(DbSession session, String rootUuid, Configuration config, PurgeProfiler profiler, PurgeThrottle throttle) {
+    doClean(rootUuid, new Filters(config).all(), session, profiler, throttle);
+  }
+
   @VisibleForTesting
   void doClean(String rootUuid, List<Filter> filters, DbSession session) {
+    doClean(rootUuid, filters, session, profiler, PurgeThrottle.NONE);
+  }
+
+  private void doClean(String rootUuid, List<Filter> filters, DbSession session, PurgeProfiler profiler, PurgeThrottle throttle) {
     List<PurgeableAnalysisDto> history = new ArrayList<>(selectAnalysesOfComponent(rootUuid, session));
     for (Filter filter : filters) {
       filter.log();
-      history.removeAll(delete(rootUuid, filter.filter(history), session));
+      history.removeAll(delete(rootUuid, filter.filter(history), session, profiler, throttle));
     }
   }
 
-  private List<PurgeableAnalysisDto> delete(String rootUuid, List<PurgeableAnalysisDto> snapshots, DbSession session) {
+  private List<PurgeableAnalysisDto> delete(String rootUuid, List<PurgeableAnalysisDto> snapshots, DbSession session, PurgeProfiler profiler,
+    PurgeThrottle throttle) {
     if (LOG.isDebugEnabled()) {
       LOG.debug("<- Delete analyses of component {}: {}",
         rootUuid,
@@ -69,7 +82,8 @@ public class DefaultPeriodCleaner {
     }
     purgeDao.deleteAnalyses(
       session, profiler,
-      snapshots.stream().map(DefaultPeriodCleaner::toIdUuidPair).collect(MoreCollectors.toList(snapshots.size())));
+      snapshots.stream().map(DefaultPeriodCleaner::toIdUuidPair).collect(MoreCollectors.toList(snapshots.size())),
+      throttle);
     return snapshots;
   }
 
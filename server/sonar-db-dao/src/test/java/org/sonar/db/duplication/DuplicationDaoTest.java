@@ -19,6 +19,7 @@
  */
 package org.sonar.db.duplication;
 
+import java.util.ArrayList;
 import java.util.List;
 import org.junit.Rule;
 import org.junit.Test;
@@ -60,6 +61,25 @@ public class DuplicationDaoTest {
     assertThat(blocks).hasSize(2);
   }
 
+  @Test
+  public void count_and_select_hashes_after_id() {
+    insert("u1", "uuid_1", "aa");
+    insert("u1", "uuid_1", "bb");
+    insert("u2", "uuid_2", "cc");
+    dbSession.commit();
+
+    assertThat(dao.count(dbSession)).isEqualTo(3);
+
+    List<DuplicationUnitDto> all = new ArrayList<>();
+    dao.selectHashesAfter(dbSession, 0L, context -> all.add((DuplicationUnitDto) context.getResultObject()));
+    assertThat(all).extracting(DuplicationUnitDto::getHash).containsOnly("aa", "bb", "cc");
+
+    long maxId = all.stream().mapToLong(DuplicationUnitDto::getId).max().getAsLong();
+    List<DuplicationUnitDto> last = new ArrayList<>();
+    dao.selectHashesAfter(dbSession, maxId - 1, context -> last.add((DuplicationUnitDto) context.getResultObject()));
+    assertThat(last).extracting(DuplicationUnitDto::getId).containsOnly(maxId);
+  }
+
   @Test
   public void insert() {
     db.prepareDbUnit(getClass(), "insert.xml");
@@ -77,4 +97,14 @@ public class DuplicationDaoTest {
     db.assertDbUnit(getClass(), "insert-result.xml", "duplications_index");
   }
 
+  private void insert(String analysisUuid, String componentUuid, String hash) {
+    dao.insert(dbSession, new DuplicationUnitDto()
+      .setAnalysisUuid(analysisUuid)
+      .setComponentUuid(componentUuid)
+      .setHash(hash)
+      .setIndexInFile(0)
+      .setStartLine(1)
+      .setEndLine(2));
+  }
+
 }
@@ -122,6 +122,28 @@ public class IssueDaoTest {
     assertThat(issues).extracting("key").containsExactly("I2", "I1");
   }
 
+  @Test
+  public void selectForSearchByOrderedKeys() {
+    // contains I1 and I2
+    prepareTables();
+
+    List<IssueDto> issues = underTest.selectForSearchByOrderedKeys(dbTester.getSession(), asList("I2", "I3", "I1"));
+    assertThat(issues).extracting("key").containsExactly("I2", "I1");
+
+    IssueDto issue = issues.get(1);
+    assertThat(issue.getRuleKey()).isEqualTo(RULE.getKey());
+    assertThat(issue.getComponentUuid()).isEqualTo(FILE_UUID);
+    assertThat(issue.getProjectUuid()).isEqualTo(PROJECT_UUID);
+    assertThat(issue.getMessage()).isEqualTo("the message");
+    assertThat(issue.getEffort()).isEqualTo(10L);
+    assertThat(issue.getStatus()).isEqualTo("RESOLVED");
+    assertThat(issue.getIssueCreationTime()).isEqualTo(1_450_000_000_000L);
+    // fields which are not displayed by the search web service are not loaded
+    assertThat(issue.getChecksum()).isNull();
+    assertThat(issue.getIssueAttributes()).isNull();
+    assertThat(issue.getProjectKey()).isNull();
+  }
+
   private static IssueDto newIssueDto(String key) {
     IssueDto dto = new IssueDto();
     dto.setComponent(new ComponentDto().setKey("struts:Action").setId(123L).setUuid("component-uuid"));
@@ -327,6 +327,26 @@ public class MeasureDaoTest {
     assertThat(result).hasSize(2).extracting(MeasureDto::getData).containsOnly("PROJECT_M1", "PROJECT_M2");
   }
 
+  @Test
+  public void select_past_measures_of_analyses() {
+    ComponentDto project = db.components().insertPrivateProject(db.getDefaultOrganization(), "P1");
+    insertAnalysis(LAST_ANALYSIS_UUID, project.uuid(), true);
+    insertAnalysis(OTHER_ANALYSIS_UUID, project.uuid(), false);
+    insertAnalysis(PREVIOUS_ANALYSIS_UUID, project.uuid(), false);
+    insertMeasure("M1", LAST_ANALYSIS_UUID, project.uuid(), NCLOC_METRIC_ID);
+    insertMeasure("M2", LAST_ANALYSIS_UUID, project.uuid(), COVERAGE_METRIC_ID);
+    insertMeasure("M3", OTHER_ANALYSIS_UUID, project.uuid(), NCLOC_METRIC_ID);
+    insertMeasure("M4", PREVIOUS_ANALYSIS_UUID, project.uuid(), NCLOC_METRIC_ID);
+    insertMeasureOnPerson("M5", LAST_ANALYSIS_UUID, project.uuid(), NCLOC_METRIC_ID, A_PERSON_ID);
+    db.commit();
+
+    assertThat(underTest.selectPastMeasures(db.getSession(), project.uuid(), asList(LAST_ANALYSIS_UUID, PREVIOUS_ANALYSIS_UUID), singletonList(NCLOC_METRIC_ID)))
+      .extracting(MeasureDto::getData).containsOnly("M1", "M4");
+    assertThat(underTest.selectPastMeasures(db.getSession(), project.uuid(), singletonList(LAST_ANALYSIS_UUID), asList(NCLOC_METRIC_ID, COVERAGE_METRIC_ID)))
+      .extracting(MeasureDto::getData).containsOnly("M1", "M2");
+    assertThat(underTest.selectPastMeasures(db.getSession(), project.uuid(), Collections.<String>emptyList(), singletonList(NCLOC_METRIC_ID))).isEmpty();
+  }
+
   @Test
   public void selectByComponentsAndMetrics() {
     ComponentDto project1 = db.components().insertPrivateProject(db.getDefaultOrganization(), "P1");
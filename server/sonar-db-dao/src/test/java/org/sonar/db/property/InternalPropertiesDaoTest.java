@@ -180,6 +180,37 @@ public class InternalPropertiesDaoTest {
       .hasCreatedAt(DATE_2);
   }
 
+  @Test
+  public void update_inserts_property_if_it_does_not_exist() {
+    when(system2.now()).thenReturn(DATE_1);
+
+    underTest.update(dbSession, A_KEY, VALUE_1);
+
+    assertThatInternalProperty(A_KEY)
+      .hasTextValue(VALUE_1)
+      .hasCreatedAt(DATE_1);
+  }
+
+  @Test
+  public void update_replaces_value_of_existing_property() {
+    when(system2.now()).thenReturn(DATE_1, DATE_2);
+
+    underTest.save(dbSession, A_KEY, VALUE_SIZE_4001);
+    underTest.update(dbSession, A_KEY, VALUE_2);
+
+    assertThatInternalProperty(A_KEY)
+      .hasTextValue(VALUE_2)
+      .hasCreatedAt(DATE_2);
+  }
+
+  @Test
+  public void update_throws_IAE_if_value_must_be_stored_in_clob() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("value can't be longer than 4000 characters");
+
+    underTest.update(dbSession, A_KEY, VALUE_SIZE_4001);
+  }
+
   @Test
   public void saveAsEmpty_throws_IAE_if_key_is_null() {
     expectKeyNullOrEmptyIAE();
@@ -29,6 +29,7 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.junit.Rule;
 import org.junit.Test;
@@ -1071,6 +1072,38 @@ public class PropertiesDaoTest {
     session.commit();
   }
 
+  @Test
+  public void writing_global_properties_changes_their_version() {
+    String version = selectGlobalPropertiesVersion();
+
+    underTest.saveProperty(session, newGlobalPropertyDto().setKey("foo").setValue("bar"));
+    String versionAfterSave = selectGlobalPropertiesVersion();
+    assertThat(versionAfterSave).isNotNull().isNotEqualTo(version);
+
+    underTest.deleteGlobalProperty("foo", session);
+    String versionAfterDelete = selectGlobalPropertiesVersion();
+    assertThat(versionAfterDelete).isNotNull().isNotEqualTo(versionAfterSave);
+
+    underTest.saveGlobalProperties(ImmutableMap.of("foo", "baz"));
+    assertThat(selectGlobalPropertiesVersion()).isNotNull().isNotEqualTo(versionAfterDelete);
+  }
+
+  @Test
+  public void writing_component_or_user_properties_does_not_change_version_of_global_properties() {
+    String version = selectGlobalPropertiesVersion();
+
+    underTest.saveProperty(session, newComponentPropertyDto(insertProject("uuid_1")).setKey("foo").setValue("bar"));
+    underTest.saveProperty(session, new PropertyDto().setKey("foo").setValue("bar").setUserId(insertUser("user")));
+
+    assertThat(selectGlobalPropertiesVersion()).isEqualTo(version);
+  }
+
+  @CheckForNull
+  private String selectGlobalPropertiesVersion() {
+    session.commit();
+    return dbClient.internalPropertiesDao().selectByKey(session, PropertiesDao.GLOBAL_PROPERTIES_VERSION_KEY).orElse(null);
+  }
+
   private long insertProperty(String key, @Nullable String value, @Nullable Long resourceId, @Nullable Integer userId, long createdAt) throws SQLException {
     when(system2.now()).thenReturn(createdAt);
     return insertProperty(key, value, resourceId, userId);
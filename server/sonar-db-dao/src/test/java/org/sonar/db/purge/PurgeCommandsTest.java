@@ -23,6 +23,7 @@ import java.util.List;
 import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.utils.System2;
+import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.organization.OrganizationDto;
@@ -72,6 +73,35 @@ public class PurgeCommandsTest {
     dbTester.assertDbUnit(getClass(), "shouldDeleteWastedMeasuresWhenPurgingAnalysis-result.xml", "project_measures");
   }
 
+  @Test
+  public void throttle_is_called_after_each_statement_when_purging_analysis() {
+    dbTester.prepareDbUnit(getClass(), "shouldPurgeAnalysis.xml");
+    List<Integer> throttledRows = newArrayList();
+
+    new PurgeCommands(dbTester.getSession(), dbTester.getSession().getMapper(PurgeMapper.class), profiler, throttledRows::add)
+      .purgeAnalyses(singletonList(new IdUuidPair(1, "u1")));
+
+    dbTester.assertDbUnit(getClass(), "shouldPurgeAnalysis-result.xml", "snapshots", "project_measures", "duplications_index", "events");
+    assertThat(throttledRows).isNotEmpty();
+    assertThat(throttledRows.stream().mapToLong(Integer::longValue).sum()).isEqualTo(profiler.getPurgedRows()).isGreaterThan(0L);
+  }
+
+  @Test
+  public void purged_rows_are_counted_in_batch_session() {
+    dbTester.prepareDbUnit(getClass(), "shouldPurgeAnalysis.xml");
+    List<Integer> throttledRows = newArrayList();
+
+    try (DbSession batchSession = dbTester.getDbClient().openSession(true)) {
+      new PurgeCommands(batchSession, batchSession.getMapper(PurgeMapper.class), profiler, throttledRows::add)
+        .deleteAnalyses(singletonList(new IdUuidPair(1, "u1")));
+    }
+
+    // one row of each of the tables duplications_index, events, project_measures and snapshots
+    assertThat(profiler.getPurgedRows()).isEqualTo(4L);
+    assertThat(throttledRows).containsExactly(1, 1, 1, 1);
+    assertThat(dbTester.countRowsOfTable("snapshots")).isEqualTo(1);
+  }
+
   /**
    * Test that SQL queries execution do not fail with a huge number of parameter
    */
@@ -0,0 +1,158 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.purge;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.internal.TestSystem2;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PurgeQueueDaoTest {
+
+  private TestSystem2 system2 = new TestSystem2().setNow(1_000L);
+
+  @Rule
+  public DbTester db = DbTester.create(system2);
+
+  private DbSession dbSession = db.getSession();
+  private PurgeQueueDao underTest = db.getDbClient().purgeQueueDao();
+
+  @Test
+  public void enqueue_inserts_a_request() {
+    underTest.enqueue(dbSession, "P1");
+
+    assertThat(underTest.count(dbSession)).isEqualTo(1);
+    assertThat(underTest.selectOldestProjectUuids(dbSession, 0L, 10)).containsExactly("P1");
+  }
+
+  @Test
+  public void enqueue_ignores_project_already_queued() {
+    underTest.enqueue(dbSession, "P1");
+    underTest.enqueue(dbSession, "P1");
+
+    assertThat(underTest.count(dbSession)).isEqualTo(1);
+  }
+
+  @Test
+  public void selectOldestProjectUuids_returns_oldest_requests_first() {
+    enqueueAt("P1", 1_000L);
+    enqueueAt("P2", 2_000L);
+    enqueueAt("P3", 3_000L);
+
+    assertThat(underTest.selectOldestProjectUuids(dbSession, 0L, 2)).containsExactly("P1", "P2");
+    assertThat(underTest.selectOldestProjectUuids(dbSession, 0L, 10)).containsExactly("P1", "P2", "P3");
+  }
+
+  @Test
+  public void claimed_requests_are_ignored_until_claim_is_older_than_given_date() {
+    enqueueAt("P1", 1_000L);
+    enqueueAt("P2", 2_000L);
+    system2.setNow(5_000L);
+
+    assertThat(underTest.claim(dbSession, "P1", 0L)).hasValue(5_000L);
+    assertThat(underTest.claim(dbSession, "P1", 0L)).isEmpty();
+    assertThat(underTest.claim(dbSession, "P3", 0L)).isEmpty();
+    assertThat(underTest.selectOldestProjectUuids(dbSession, 5_000L, 10)).containsExactly("P2");
+
+    system2.setNow(6_000L);
+    assertThat(underTest.selectOldestProjectUuids(dbSession, 5_001L, 10)).containsExactly("P1", "P2");
+    assertThat(underTest.claim(dbSession, "P1", 5_001L)).hasValue(6_000L);
+  }
+
+  @Test
+  public void complete_deletes_claimed_request() {
+    enqueueAt("P1", 1_000L);
+    system2.setNow(2_000L);
+    long startedAt = underTest.claim(dbSession, "P1", 0L).getAsLong();
+
+    underTest.complete(dbSession, "P1", startedAt);
+
+    assertThat(underTest.count(dbSession)).isZero();
+  }
+
+  @Test
+  public void complete_releases_request_if_project_has_been_queued_again_since_claim() {
+    enqueueAt("P1", 1_000L);
+    system2.setNow(2_000L);
+    long startedAt = underTest.claim(dbSession, "P1", 0L).getAsLong();
+    enqueueAt("P1", 3_000L);
+
+    underTest.complete(dbSession, "P1", startedAt);
+
+    assertThat(underTest.selectOldestProjectUuids(dbSession, 0L, 10)).containsExactly("P1");
+    assertThat(underTest.claim(dbSession, "P1", 0L)).isPresent();
+  }
+
+  @Test
+  public void complete_deletes_request_claimed_at_the_date_it_was_queued() {
+    enqueueAt("P1", 1_000L);
+    long startedAt = underTest.claim(dbSession, "P1", 0L).getAsLong();
+
+    underTest.complete(dbSession, "P1", startedAt);
+
+    assertThat(underTest.count(dbSession)).isZero();
+  }
+
+  @Test
+  public void complete_releases_request_queued_again_at_the_date_it_was_claimed() {
+    enqueueAt("P1", 1_000L);
+    system2.setNow(2_000L);
+    long startedAt = underTest.claim(dbSession, "P1", 0L).getAsLong();
+    underTest.enqueue(dbSession, "P1");
+
+    underTest.complete(dbSession, "P1", startedAt);
+
+    assertThat(underTest.selectOldestProjectUuids(dbSession, 0L, 10)).containsExactly("P1");
+  }
+
+  @Test
+  public void complete_deletes_request_queued_again_before_being_claimed_again() {
+    enqueueAt("P1", 1_000L);
+    system2.setNow(2_000L);
+    long startedAt = underTest.claim(dbSession, "P1", 0L).getAsLong();
+    enqueueAt("P1", 3_000L);
+    underTest.complete(dbSession, "P1", startedAt);
+    system2.setNow(4_000L);
+    startedAt = underTest.claim(dbSession, "P1", 0L).getAsLong();
+
+    underTest.complete(dbSession, "P1", startedAt);
+
+    assertThat(underTest.count(dbSession)).isZero();
+  }
+
+  @Test
+  public void release_keeps_request_in_queue() {
+    enqueueAt("P1", 1_000L);
+    system2.setNow(2_000L);
+    long startedAt = underTest.claim(dbSession, "P1", 0L).getAsLong();
+
+    underTest.release(dbSession, "P1", startedAt);
+
+    assertThat(underTest.selectOldestProjectUuids(dbSession, 0L, 10)).containsExactly("P1");
+  }
+
+  private void enqueueAt(String projectUuid, long now) {
+    system2.setNow(now);
+    underTest.enqueue(dbSession, projectUuid);
+  }
+}
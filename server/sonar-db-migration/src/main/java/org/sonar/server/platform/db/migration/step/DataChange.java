@@ -33,8 +33,8 @@ public abstract class DataChange implements MigrationStep {
 
   @Override
   public final void execute() throws SQLException {
-    try (Connection readConnection = createReadUncommittedConnection();
-      Connection writeConnection = createDdlConnection()) {
+    try (Connection readConnection = createReadUncommittedConnection(db);
+      Connection writeConnection = createDdlConnection(db)) {
       Context context = new Context(db, readConnection, writeConnection);
       execute(context);
     }
@@ -42,7 +42,7 @@ public abstract class DataChange implements MigrationStep {
 
   protected abstract void execute(Context context) throws SQLException;
 
-  private Connection createReadUncommittedConnection() throws SQLException {
+  static Connection createReadUncommittedConnection(Database db) throws SQLException {
     Connection connection = db.getDataSource().getConnection();
     connection.setAutoCommit(false);
     if (connection.getMetaData().supportsTransactionIsolationLevel(Connection.TRANSACTION_READ_UNCOMMITTED)) {
@@ -51,7 +51,7 @@ public abstract class DataChange implements MigrationStep {
     return connection;
   }
 
-  private Connection createDdlConnection() throws SQLException {
+  static Connection createDdlConnection(Database db) throws SQLException {
     Connection res = db.getDataSource().getConnection();
     res.setAutoCommit(false);
     return res;
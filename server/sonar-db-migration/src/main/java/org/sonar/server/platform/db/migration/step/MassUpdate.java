@@ -27,6 +27,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import org.sonar.core.util.ProgressLogger;
 import org.sonar.db.Database;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 
 public class MassUpdate {
@@ -61,6 +62,15 @@ public class MassUpdate {
   private Select select;
   private List<UpsertImpl> updates = new ArrayList<>(1);
 
+  private String selectSql;
+  private SelectParameters selectParameters;
+  private List<String> updateSqls = new ArrayList<>(1);
+  private String partitionTable;
+  private String partitionIdColumn;
+  private int partitionThreads;
+  private long partitionChunkSize;
+  private String checkpointKey;
+
   public MassUpdate(Database db, Connection readConnection, Connection writeConnection) {
     this.db = db;
     this.readConnection = readConnection;
@@ -68,21 +78,73 @@ public class MassUpdate {
   }
 
   public SqlStatement select(String sql) throws SQLException {
+    if (isPartitioned()) {
+      this.selectSql = sql;
+      this.selectParameters = new SelectParameters();
+      return this.selectParameters;
+    }
     this.select = SelectImpl.create(db, readConnection, sql);
     return this.select;
   }
 
   public MassUpdate update(String sql) throws SQLException {
-    this.updates.add(UpsertImpl.create(writeConnection, sql));
+    if (isPartitioned()) {
+      this.updateSqls.add(sql);
+    } else {
+      this.updates.add(UpsertImpl.create(writeConnection, sql));
+    }
+    return this;
+  }
+
+  /**
+   * Processes the rows by ranges of {@code chunkSize} ids of column {@code idColumn}, with {@code threads}
+   * concurrent workers. Each worker uses its own connections, so the handler must be thread-safe.
+   * <p>
+   * Must be called before {@link #select(String)}. The SELECT request must then restrict the rows to the range
+   * of ids through its parameters 1 (lower bound, inclusive) and 2 (upper bound, exclusive), for example
+   * {@code "SELECT i.id, i.kee FROM issues i WHERE i.id >= ? AND i.id < ? AND i.status=?"}. Its other parameters
+   * are set as usual, starting at index 3.
+   */
+  public MassUpdate partitionByIdRange(String table, String idColumn, int threads, long chunkSize) {
+    checkState(select == null && selectSql == null && updates.isEmpty() && updateSqls.isEmpty(),
+      "Partitioning must be defined before SELECT and UPDATE requests");
+    checkArgument(threads > 0, "Number of threads must be positive. Got %s", threads);
+    checkArgument(chunkSize > 0L, "Chunk size must be positive. Got %s", chunkSize);
+    this.partitionTable = table;
+    this.partitionIdColumn = idColumn;
+    this.partitionThreads = threads;
+    this.partitionChunkSize = chunkSize;
     return this;
   }
 
+  /**
+   * Saves the progress of a partitioned mass update under the given key, so that an interrupted
+   * migration does not process again the ranges of ids that have already been committed. Some
+   * ranges processed after the last saved one can still be processed twice.
+   */
+  public MassUpdate checkpoint(String key) {
+    checkState(isPartitioned(), "Checkpoints are supported only by partitioned mass updates");
+    checkArgument(key.length() <= PartitionedExecution.CHECKPOINT_KEY_MAX_LENGTH,
+      "Checkpoint key must not be longer than %s characters: %s", PartitionedExecution.CHECKPOINT_KEY_MAX_LENGTH, key);
+    this.checkpointKey = key;
+    return this;
+  }
+
+  private boolean isPartitioned() {
+    return partitionTable != null;
+  }
+
   public MassUpdate rowPluralName(String s) {
     this.progress.setPluralLabel(s);
     return this;
   }
 
   public void execute(Handler handler) throws SQLException {
+    if (isPartitioned()) {
+      checkState(updateSqls.size() == 1, "There should be only one update when using a " + Handler.class.getName());
+      execute((row, update, updateIndex) -> handler.handle(row, update));
+      return;
+    }
     checkState(select != null && !updates.isEmpty(), "SELECT or UPDATE requests are not defined");
     checkState(updates.size() == 1, "There should be only one update when using a " + Handler.class.getName());
 
@@ -99,6 +161,10 @@ public class MassUpdate {
   }
 
   public void execute(MultiHandler handler) throws SQLException {
+    if (isPartitioned()) {
+      executePartitioned(handler);
+      return;
+    }
     checkState(select != null && !updates.isEmpty(), "SELECT or UPDATE(s) requests are not defined");
 
     progress.start();
@@ -113,6 +179,22 @@ public class MassUpdate {
     }
   }
 
+  private void executePartitioned(MultiHandler handler) throws SQLException {
+    checkState(selectSql != null && !updateSqls.isEmpty(), "SELECT or UPDATE(s) requests are not defined");
+
+    PartitionedExecution execution = new PartitionedExecution(db, readConnection, writeConnection, partitionTable, partitionIdColumn,
+      partitionThreads, partitionChunkSize, checkpointKey);
+    progress.start();
+    try {
+      execution.execute(selectSql, selectParameters, updateSqls, handler, counter, progress);
+
+      // log the total number of processed rows
+      progress.log();
+    } finally {
+      progress.stop();
+    }
+  }
+
   private void callSingleHandler(Handler handler, Upsert update, Select.Row row) throws SQLException {
     if (handler.handle(row, update)) {
       update.addBatch();
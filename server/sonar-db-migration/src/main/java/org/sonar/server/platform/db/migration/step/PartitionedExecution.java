@@ -0,0 +1,261 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.db.migration.step;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.util.ProgressLogger;
+import org.sonar.db.Database;
+
+/**
+ * Executes a {@link MassUpdate} by ranges of ids, processed concurrently by several workers. Each worker has
+ * its own connections and batches. The upper bound of the ranges that have all been processed is
+ * optionally saved in table INTERNAL_PROPERTIES, so that an interrupted migration resumes from there.
+ */
+class PartitionedExecution {
+
+  private static final Logger LOG = Loggers.get(MassUpdate.class);
+  private static final String CHECKPOINT_PREFIX = "massUpdate.";
+  static final int CHECKPOINT_KEY_MAX_LENGTH = 50 - CHECKPOINT_PREFIX.length();
+
+  private final Database db;
+  private final Connection readConnection;
+  private final Connection writeConnection;
+  private final String table;
+  private final String idColumn;
+  private final int threads;
+  private final long chunkSize;
+  @Nullable
+  private final String checkpointKey;
+
+  PartitionedExecution(Database db, Connection readConnection, Connection writeConnection, String table, String idColumn,
+    int threads, long chunkSize, @Nullable String checkpointKey) {
+    this.db = db;
+    this.readConnection = readConnection;
+    this.writeConnection = writeConnection;
+    this.table = table;
+    this.idColumn = idColumn;
+    this.threads = threads;
+    this.chunkSize = chunkSize;
+    this.checkpointKey = checkpointKey == null ? null : (CHECKPOINT_PREFIX + checkpointKey);
+  }
+
+  void execute(String selectSql, SelectParameters selectParameters, List<String> updateSqls, MassUpdate.MultiHandler handler,
+    AtomicLong counter, ProgressLogger progress) throws SQLException {
+    long[] bounds = selectIdBounds();
+    if (bounds == null) {
+      deleteCheckpoint();
+      return;
+    }
+    long fromId = bounds[0];
+    Long checkpoint = selectCheckpoint();
+    if (checkpoint != null && checkpoint > fromId) {
+      LOG.info("Resume processing of {} from id {}", table, checkpoint);
+      fromId = checkpoint;
+    }
+    Ranges ranges = new Ranges(fromId, bounds[1]);
+    progress.setEstimation(ranges.completedIds::get, bounds[1] + 1 - fromId);
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+      .setNameFormat("MassUpdate[" + table + "]-%d")
+      .build());
+    try {
+      List<Callable<Void>> workers = new ArrayList<>(threads);
+      for (int i = 0; i < threads; i++) {
+        workers.add(() -> runWorker(selectSql, selectParameters, updateSqls, handler, counter, ranges));
+      }
+      for (Future<Void> future : executor.invokeAll(workers)) {
+        getResult(future);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while processing " + table, e);
+    } finally {
+      executor.shutdownNow();
+    }
+    deleteCheckpoint();
+  }
+
+  private Void runWorker(String selectSql, SelectParameters selectParameters, List<String> updateSqls, MassUpdate.MultiHandler handler,
+    AtomicLong counter, Ranges ranges) throws SQLException {
+    try (Connection workerReadConnection = DataChange.createReadUncommittedConnection(db);
+      Connection workerWriteConnection = DataChange.createDdlConnection(db)) {
+      List<UpsertImpl> updates = new ArrayList<>(updateSqls.size());
+      try {
+        for (String updateSql : updateSqls) {
+          updates.add(UpsertImpl.create(workerWriteConnection, updateSql));
+        }
+        Long fromId;
+        while ((fromId = ranges.next()) != null) {
+          Select select = SelectImpl.create(db, workerReadConnection, selectSql)
+            .setLong(1, fromId)
+            .setLong(2, fromId + chunkSize);
+          selectParameters.applyTo(select);
+          select.scroll(row -> {
+            int i = 0;
+            for (UpsertImpl update : updates) {
+              if (handler.handle(row, update, i)) {
+                update.addBatch();
+              }
+              i++;
+            }
+            counter.getAndIncrement();
+          });
+          for (UpsertImpl update : updates) {
+            if (update.getBatchCount() > 0L) {
+              update.execute().commit();
+            }
+          }
+          // release the snapshot of the read transaction
+          workerReadConnection.commit();
+          ranges.complete(fromId);
+        }
+      } catch (SQLException | RuntimeException e) {
+        ranges.abort();
+        throw e;
+      } finally {
+        updates.forEach(UpsertImpl::close);
+      }
+    }
+    return null;
+  }
+
+  private static void getResult(Future<Void> future) throws SQLException, InterruptedException {
+    try {
+      future.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof SQLException) {
+        throw (SQLException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  @CheckForNull
+  private long[] selectIdBounds() throws SQLException {
+    String sql = "SELECT MIN(" + idColumn + "), MAX(" + idColumn + ") FROM " + table;
+    return SelectImpl.create(db, readConnection, sql).get(row -> {
+      Long min = row.getNullableLong(1);
+      Long max = row.getNullableLong(2);
+      return min == null || max == null ? null : new long[] {min, max};
+    });
+  }
+
+  @CheckForNull
+  private Long selectCheckpoint() throws SQLException {
+    if (checkpointKey == null) {
+      return null;
+    }
+    String value = SelectImpl.create(db, readConnection, "SELECT text_value FROM internal_properties WHERE kee=?")
+      .setString(1, checkpointKey)
+      .get(row -> row.getNullableString(1));
+    return value == null ? null : Long.parseLong(value);
+  }
+
+  private void saveCheckpoint(long id) throws SQLException {
+    if (checkpointKey == null) {
+      return;
+    }
+    try (Upsert delete = UpsertImpl.create(writeConnection, "DELETE FROM internal_properties WHERE kee=?");
+      Upsert insert = UpsertImpl.create(writeConnection, "INSERT INTO internal_properties (kee, is_empty, text_value, created_at) VALUES (?, ?, ?, ?)")) {
+      delete.setString(1, checkpointKey).execute();
+      insert.setString(1, checkpointKey)
+        .setBoolean(2, false)
+        .setString(3, String.valueOf(id))
+        .setLong(4, System.currentTimeMillis())
+        .execute()
+        .commit();
+    }
+  }
+
+  private void deleteCheckpoint() throws SQLException {
+    if (checkpointKey == null) {
+      return;
+    }
+    try (Upsert delete = UpsertImpl.create(writeConnection, "DELETE FROM internal_properties WHERE kee=?")) {
+      delete.setString(1, checkpointKey).execute().commit();
+    }
+  }
+
+  /**
+   * Distributes the ranges of ids to the workers and tracks the ones which are processed.
+   */
+  private class Ranges {
+    private final long maxId;
+    private final AtomicLong nextFromId;
+    private final AtomicBoolean aborted = new AtomicBoolean(false);
+    private final AtomicLong completedIds = new AtomicLong(0L);
+    private final Set<Long> completedAhead = new HashSet<>();
+    // all the ids lower than this one have been processed
+    private long watermark;
+
+    private Ranges(long fromId, long maxId) {
+      this.maxId = maxId;
+      this.nextFromId = new AtomicLong(fromId);
+      this.watermark = fromId;
+    }
+
+    @CheckForNull
+    private Long next() {
+      if (aborted.get()) {
+        return null;
+      }
+      long fromId = nextFromId.getAndAdd(chunkSize);
+      return fromId > maxId ? null : fromId;
+    }
+
+    private void abort() {
+      aborted.set(true);
+    }
+
+    private synchronized void complete(long fromId) throws SQLException {
+      completedIds.addAndGet(Math.min(chunkSize, maxId + 1 - fromId));
+      completedAhead.add(fromId);
+      boolean moved = false;
+      while (completedAhead.remove(watermark)) {
+        watermark += chunkSize;
+        moved = true;
+      }
+      if (moved) {
+        saveCheckpoint(watermark);
+      }
+    }
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.db.migration.step;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Parameters of the SELECT request of a partitioned {@link MassUpdate}. They are recorded once, then applied
+ * to the request executed for each range of ids. Parameters 1 and 2 are reserved for the bounds of the range.
+ */
+class SelectParameters implements SqlStatement<SelectParameters> {
+
+  static final int FIRST_FREE_INDEX = 3;
+
+  @FunctionalInterface
+  private interface Setter {
+    void applyTo(Select select) throws SQLException;
+  }
+
+  private final List<Setter> setters = new ArrayList<>();
+
+  void applyTo(Select select) throws SQLException {
+    for (Setter setter : setters) {
+      setter.applyTo(select);
+    }
+  }
+
+  @Override
+  public SelectParameters setBoolean(int columnIndex, @Nullable Boolean value) {
+    return add(columnIndex, select -> select.setBoolean(columnIndex, value));
+  }
+
+  @Override
+  public SelectParameters setDate(int columnIndex, @Nullable Date value) {
+    return add(columnIndex, select -> select.setDate(columnIndex, value));
+  }
+
+  @Override
+  public SelectParameters setDouble(int columnIndex, @Nullable Double value) {
+    return add(columnIndex, select -> select.setDouble(columnIndex, value));
+  }
+
+  @Override
+  public SelectParameters setInt(int columnIndex, @Nullable Integer value) {
+    return add(columnIndex, select -> select.setInt(columnIndex, value));
+  }
+
+  @Override
+  public SelectParameters setLong(int columnIndex, @Nullable Long value) {
+    return add(columnIndex, select -> select.setLong(columnIndex, value));
+  }
+
+  @Override
+  public SelectParameters setString(int columnIndex, @Nullable String value) {
+    return add(columnIndex, select -> select.setString(columnIndex, value));
+  }
+
+  @Override
+  public SelectParameters setBytes(int columnIndex, @Nullable byte[] data) {
+    return add(columnIndex, select -> select.setBytes(columnIndex, data));
+  }
+
+  private SelectParameters add(int columnIndex, Setter setter) {
+    checkArgument(columnIndex >= FIRST_FREE_INDEX, "Parameters 1 and 2 are reserved for the range of ids. Got %s", columnIndex);
+    setters.add(setter);
+    return this;
+  }
+
+  @Override
+  public void close() {
+    // nothing to close, the requests are created and closed for each range of ids
+  }
+}
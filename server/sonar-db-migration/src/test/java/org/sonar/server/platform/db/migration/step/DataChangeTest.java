@@ -47,6 +47,7 @@ public class DataChangeTest {
   @Before
   public void setUp() {
     db.executeUpdateSql("truncate table persons");
+    db.executeUpdateSql("truncate table internal_properties");
   }
 
   @Test
@@ -260,6 +261,7 @@ public class DataChangeTest {
   @Test
   public void mass_batch_insert() throws Exception {
     db.executeUpdateSql("truncate table persons");
+    db.executeUpdateSql("truncate table internal_properties");
 
     final int count = MAX_BATCH_SIZE + 10;
     new DataChange(db.database()) {
@@ -355,6 +357,73 @@ public class DataChangeTest {
     db.assertDbUnit(getClass(), "mass-update-result.xml", "persons");
   }
 
+  @Test
+  public void partitioned_mass_update() throws Exception {
+    db.prepareDbUnit(getClass(), "persons.xml");
+
+    new DataChange(db.database()) {
+      @Override
+      public void execute(Context context) throws SQLException {
+        MassUpdate massUpdate = context.prepareMassUpdate();
+        massUpdate.partitionByIdRange("persons", "id", 2, 1L);
+        massUpdate.select("select id from persons where id>=? and id<? and id>=?").setLong(3, 2L);
+        massUpdate.update("update persons set login=?, age=? where id=?");
+        massUpdate.execute((row, update) -> {
+          long id = row.getLong(1);
+          update
+            .setString(1, "login" + id)
+            .setInt(2, 10 + (int) id)
+            .setLong(3, id);
+          return true;
+        });
+      }
+    }.execute();
+
+    db.assertDbUnit(getClass(), "mass-update-result.xml", "persons");
+  }
+
+  @Test
+  public void partitioned_mass_update_resumes_from_checkpoint_then_deletes_it() throws Exception {
+    db.prepareDbUnit(getClass(), "persons.xml");
+    db.executeInsert("internal_properties", "kee", "massUpdate.persons_login", "is_empty", false, "text_value", "3", "created_at", 1_000L);
+
+    new DataChange(db.database()) {
+      @Override
+      public void execute(Context context) throws SQLException {
+        MassUpdate massUpdate = context.prepareMassUpdate();
+        massUpdate.partitionByIdRange("persons", "id", 1, 1L).checkpoint("persons_login");
+        massUpdate.select("select id from persons where id>=? and id<?");
+        massUpdate.update("update persons set login=?, age=? where id=?");
+        massUpdate.execute((row, update) -> {
+          long id = row.getLong(1);
+          update
+            .setString(1, "login" + id)
+            .setInt(2, 10 + (int) id)
+            .setLong(3, id);
+          return true;
+        });
+      }
+    }.execute();
+
+    db.assertDbUnit(getClass(), "partitioned-mass-update-from-checkpoint-result.xml", "persons");
+    assertThat(db.countRowsOfTable("internal_properties")).isEqualTo(0);
+  }
+
+  @Test
+  public void partitioned_mass_update_reserves_first_two_parameters_to_range_of_ids() throws Exception {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Parameters 1 and 2 are reserved for the range of ids. Got 1");
+
+    new DataChange(db.database()) {
+      @Override
+      public void execute(Context context) throws SQLException {
+        MassUpdate massUpdate = context.prepareMassUpdate();
+        massUpdate.partitionByIdRange("persons", "id", 1, 10L);
+        massUpdate.select("select id from persons where id>=?").setLong(1, 2L);
+      }
+    }.execute();
+  }
+
   @Test
   public void display_current_row_details_if_error_during_mass_update() throws Exception {
     db.prepareDbUnit(getClass(), "persons.xml");
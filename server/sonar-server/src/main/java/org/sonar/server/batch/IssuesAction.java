@@ -21,6 +21,7 @@ package org.sonar.server.batch;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -46,6 +47,7 @@ import static org.sonar.server.ws.KeyExamples.KEY_PROJECT_EXAMPLE_001;
 public class IssuesAction implements BatchWsAction {
 
   private static final String PARAM_KEY = "key";
+  private static final String PARAM_CHANGED_SINCE = "changedSince";
 
   private final DbClient dbClient;
   private final IssueIndex issueIndex;
@@ -73,6 +75,13 @@ public class IssuesAction implements BatchWsAction {
       .setRequired(true)
       .setDescription("Project, module or file key")
       .setExampleValue(KEY_PROJECT_EXAMPLE_001);
+
+    action
+      .createParam(PARAM_CHANGED_SINCE)
+      .setSince("6.5")
+      .setDescription("If set, return only the issues updated since this timestamp (in milliseconds), including the closed ones. " +
+        "It allows to synchronize incrementally a local copy of the open issues.")
+      .setExampleValue("1496300000000");
   }
 
   @Override
@@ -85,9 +94,11 @@ public class IssuesAction implements BatchWsAction {
       userSession.checkComponentPermission(USER, component);
 
       Map<String, String> keysByUUid = keysByUUid(session, component);
+      Long changedSince = request.paramAsLong(PARAM_CHANGED_SINCE);
 
       ScannerInput.ServerIssue.Builder issueBuilder = ScannerInput.ServerIssue.newBuilder();
-      for (Iterator<IssueDoc> issueDocIterator = issueIndex.selectIssuesForBatch(component); issueDocIterator.hasNext();) {
+      Iterator<IssueDoc> issueDocIterator = issueIndex.selectIssuesForBatch(component, changedSince == null ? null : new Date(changedSince));
+      while (issueDocIterator.hasNext()) {
         handleIssue(issueDocIterator.next(), issueBuilder, keysByUUid, response.stream().output());
       }
     }
@@ -109,6 +120,10 @@ public class IssuesAction implements BatchWsAction {
     setNullable(issue.resolution(), issueBuilder::setResolution);
     issueBuilder.setType(issue.type().name());
     issueBuilder.setCreationDate(issue.creationDate().getTime());
+    Date updateDate = issue.getTechnicalUpdateDate();
+    if (updateDate != null) {
+      issueBuilder.setUpdateDate(updateDate.getTime());
+    }
     try {
       issueBuilder.build().writeDelimitedTo(out);
     } catch (IOException e) {
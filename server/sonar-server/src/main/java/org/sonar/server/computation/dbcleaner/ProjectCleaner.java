@@ -20,6 +20,7 @@
 package org.sonar.server.computation.dbcleaner;
 
 import java.util.Collection;
+import java.util.Collections;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.config.Configuration;
@@ -33,6 +34,7 @@ import org.sonar.db.purge.PurgeConfiguration;
 import org.sonar.db.purge.PurgeDao;
 import org.sonar.db.purge.PurgeListener;
 import org.sonar.db.purge.PurgeProfiler;
+import org.sonar.db.purge.PurgeThrottle;
 import org.sonar.db.purge.period.DefaultPeriodCleaner;
 
 import static org.sonar.db.purge.PurgeConfiguration.newDefaultPurgeConfiguration;
@@ -68,6 +70,36 @@ public class ProjectCleaner {
     return this;
   }
 
+  /**
+   * Purges only the aborted analyses and the data of the components disabled by the analysis. The history of
+   * the project is purged later by {@link #purgeHistory(DbSession, IdUuidPair, Configuration, PurgeProfiler, PurgeThrottle)}.
+   */
+  public ProjectCleaner purgeDisabledComponents(DbSession session, IdUuidPair idUuidPair, Configuration projectConfig, Collection<String> disabledComponentUuids) {
+    PurgeConfiguration configuration = newDefaultPurgeConfiguration(projectConfig, idUuidPair, disabledComponentUuids);
+    try {
+      purgeDao.deleteAbortedAnalyses(session, idUuidPair.getUuid(), profiler);
+      purgeDao.purgeDisabledComponents(session, configuration, purgeListener);
+    } catch (Exception e) {
+      // purge errors must no fail the report analysis
+      LOG.error("Fail to purge disabled components [id=" + idUuidPair.getId() + "]", e);
+    }
+    session.commit();
+    return this;
+  }
+
+  /**
+   * Purges the history of a project outside of its analyses. Deletions are committed in small batches,
+   * the throttle being called after each of them. Errors are propagated to the caller.
+   */
+  public ProjectCleaner purgeHistory(DbSession session, IdUuidPair idUuidPair, Configuration projectConfig, PurgeProfiler historyProfiler,
+    PurgeThrottle throttle) {
+    PurgeConfiguration configuration = newDefaultPurgeConfiguration(projectConfig, idUuidPair, Collections.emptyList());
+    periodCleaner.clean(session, idUuidPair.getUuid(), projectConfig, historyProfiler, throttle);
+    purgeDao.purgeHistory(session, configuration, purgeListener, historyProfiler, throttle);
+    session.commit();
+    return this;
+  }
+
   private void logProfiling(long start, Configuration config) {
     if (config.getBoolean(CoreProperties.PROFILING_LOG_PROPERTY).orElse(false)) {
       long duration = System.currentTimeMillis() - start;
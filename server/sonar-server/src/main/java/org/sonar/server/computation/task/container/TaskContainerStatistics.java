@@ -0,0 +1,57 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.container;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Time spent setting up the containers of tasks since startup: creation of the container, then resolution of the
+ * steps and of their dependencies (visitors, repositories, holders...), which are lazily instantiated by
+ * PicoContainer. Compared to the total processing time of tasks, it gives the share of the per-task setup overhead.
+ */
+public class TaskContainerStatistics {
+
+  private final LongAdder containers = new LongAdder();
+  private final LongAdder setupTimeNanos = new LongAdder();
+
+  /**
+   * @param creationNanos time spent creating the container of a task
+   * @param resolutionNanos time spent resolving the steps of the task, and their dependencies
+   */
+  public void recordContainer(long creationNanos, long resolutionNanos) {
+    containers.increment();
+    setupTimeNanos.add(creationNanos + resolutionNanos);
+  }
+
+  /**
+   * Number of task containers created since startup
+   */
+  public long getContainers() {
+    return containers.sum();
+  }
+
+  /**
+   * Cumulated setup time of task containers since startup, in milliseconds
+   */
+  public long getSetupTimeMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(setupTimeNanos.sum());
+  }
+}
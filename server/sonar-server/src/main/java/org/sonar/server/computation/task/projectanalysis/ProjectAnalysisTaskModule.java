@@ -19,9 +19,16 @@
  */
 package org.sonar.server.computation.task.projectanalysis;
 
+import org.sonar.core.issue.tracking.Tracker;
 import org.sonar.server.computation.queue.ReportSubmitter;
+import org.sonar.server.computation.task.container.TaskContainerStatistics;
 import org.sonar.core.platform.Module;
 import org.sonar.server.computation.task.projectanalysis.container.ContainerFactoryImpl;
+import org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicationHashFilter;
+import org.sonar.server.computation.task.projectanalysis.filemove.FileSimilarityImpl;
+import org.sonar.server.computation.task.projectanalysis.filemove.SourceSimilarityImpl;
+import org.sonar.server.computation.task.projectanalysis.issue.ScmAccountToUserLoader;
+import org.sonar.server.computation.task.projectanalysis.issue.UpdateConflictResolver;
 import org.sonar.server.computation.task.projectanalysis.taskprocessor.ReportTaskProcessor;
 import org.sonar.server.computation.task.step.ComputationStepExecutor;
 
@@ -33,6 +40,20 @@ public class ProjectAnalysisTaskModule extends Module {
       ContainerFactoryImpl.class,
       ComputationStepExecutor.class,
       ReportTaskProcessor.class,
-      ReportSubmitter.class);
+      ReportSubmitter.class,
+
+      // stateless components which do not depend on the task. They are instantiated once and
+      // shared by the containers of all tasks, instead of being resolved again for each task.
+      // Steps and visitors depend on the holders and repositories of the task, so they stay in the
+      // container of each task. Their resolution time is recorded by TaskContainerStatistics.
+      Tracker.class,
+      SourceSimilarityImpl.class,
+      FileSimilarityImpl.class,
+      UpdateConflictResolver.class,
+      ScmAccountToUserLoader.class,
+
+      // state shared by all tasks
+      CrossProjectDuplicationHashFilter.class,
+      TaskContainerStatistics.class);
   }
 }
@@ -21,10 +21,12 @@ package org.sonar.server.computation.task.projectanalysis.batch;
 
 import java.io.File;
 import java.util.Objects;
+import java.util.Optional;
 
 public class BatchReportDirectoryHolderImpl implements MutableBatchReportDirectoryHolder {
 
   private File directory;
+  private File zipFile;
 
   @Override
   public void setDirectory(File newDirectory) {
@@ -38,4 +40,14 @@ public class BatchReportDirectoryHolderImpl implements MutableBatchReportDirecto
     }
     return this.directory;
   }
+
+  @Override
+  public void setZipFile(File newZipFile) {
+    this.zipFile = Objects.requireNonNull(newZipFile);
+  }
+
+  @Override
+  public Optional<File> getZipFile() {
+    return Optional.ofNullable(this.zipFile);
+  }
 }
@@ -22,25 +22,33 @@ package org.sonar.server.computation.task.projectanalysis.batch;
 import com.google.common.base.Optional;
 import com.google.common.base.Throwables;
 import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
 import com.google.protobuf.Parser;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.NoSuchElementException;
 import javax.annotation.CheckForNull;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.LineIterator;
+import org.picocontainer.Startable;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.core.util.LineReaderIterator;
+import org.sonar.core.util.Protobuf;
+import org.sonar.scanner.protocol.output.FileStructure;
 import org.sonar.scanner.protocol.output.ScannerReport;
 
-public class BatchReportReaderImpl implements BatchReportReader {
+import static org.sonar.scanner.protocol.output.FileStructure.fileNameFor;
+
+/**
+ * Reads the files of the Batch report on demand, either from the zip file of the report (read in place, without
+ * being extracted) or from the directory it has been extracted to.
+ */
+public class BatchReportReaderImpl implements BatchReportReader, Startable {
 
   private final BatchReportDirectoryHolder batchReportDirectoryHolder;
-  private org.sonar.scanner.protocol.output.ScannerReportReader delegate;
+  private ReportEntries entries;
   // caching of metadata which are read often
   private ScannerReport.Metadata metadata;
 
@@ -48,9 +56,27 @@ public class BatchReportReaderImpl implements BatchReportReader {
     this.batchReportDirectoryHolder = batchReportDirectoryHolder;
   }
 
+  @Override
+  public void start() {
+    // report is opened lazily, once it has been provided by ExtractReportStep
+  }
+
+  @Override
+  public void stop() {
+    if (this.entries != null) {
+      this.entries.close();
+      this.entries = null;
+    }
+  }
+
   private void ensureInitialized() {
-    if (this.delegate == null) {
-      this.delegate = new org.sonar.scanner.protocol.output.ScannerReportReader(batchReportDirectoryHolder.getDirectory());
+    if (this.entries == null) {
+      java.util.Optional<File> zipFile = batchReportDirectoryHolder.getZipFile();
+      if (zipFile.isPresent()) {
+        this.entries = new ZipReportEntries(zipFile.get());
+      } else {
+        this.entries = new DirectoryReportEntries(batchReportDirectoryHolder.getDirectory());
+      }
     }
   }
 
@@ -58,7 +84,11 @@ public class BatchReportReaderImpl implements BatchReportReader {
   public ScannerReport.Metadata readMetadata() {
     ensureInitialized();
     if (this.metadata == null) {
-      this.metadata = delegate.readMetadata();
+      InputStream input = entries.open(FileStructure.METADATA_FILE_NAME);
+      if (input == null) {
+        throw new IllegalStateException("Metadata file is missing in analysis report: " + FileStructure.METADATA_FILE_NAME);
+      }
+      this.metadata = Protobuf.read(input, ScannerReport.Metadata.parser());
     }
     return this.metadata;
   }
@@ -66,92 +96,99 @@ public class BatchReportReaderImpl implements BatchReportReader {
   @Override
   public CloseableIterator<String> readScannerLogs() {
     ensureInitialized();
-    File file = delegate.getFileStructure().analysisLog();
-    if (!file.exists()) {
+    InputStream input = entries.open(FileStructure.ANALYSIS_LOG_FILE_NAME);
+    if (input == null) {
       return CloseableIterator.emptyCloseableIterator();
     }
-    try {
-      InputStreamReader reader = new InputStreamReader(FileUtils.openInputStream(file), StandardCharsets.UTF_8);
-      return new LineReaderIterator(reader);
-    } catch (IOException e) {
-      throw new IllegalStateException("Fail to open file " + file, e);
-    }
+    return new LineReaderIterator(new InputStreamReader(input, StandardCharsets.UTF_8));
   }
 
   @Override
   public CloseableIterator<ScannerReport.ActiveRule> readActiveRules() {
     ensureInitialized();
-    return delegate.readActiveRules();
+    return readStream(FileStructure.ACTIVE_RULES_FILE_NAME, ScannerReport.ActiveRule.parser());
   }
 
   @Override
   public CloseableIterator<ScannerReport.Measure> readComponentMeasures(int componentRef) {
     ensureInitialized();
-    return delegate.readComponentMeasures(componentRef);
+    return readStream(fileNameFor(FileStructure.Domain.MEASURES, componentRef), ScannerReport.Measure.parser());
   }
 
   @Override
   @CheckForNull
   public ScannerReport.Changesets readChangesets(int componentRef) {
     ensureInitialized();
-    return delegate.readChangesets(componentRef);
+    InputStream input = entries.open(fileNameFor(FileStructure.Domain.CHANGESETS, componentRef));
+    if (input == null) {
+      return null;
+    }
+    return Protobuf.read(input, ScannerReport.Changesets.parser());
   }
 
   @Override
   public ScannerReport.Component readComponent(int componentRef) {
     ensureInitialized();
-    return delegate.readComponent(componentRef);
+    String fileName = fileNameFor(FileStructure.Domain.COMPONENT, componentRef);
+    InputStream input = entries.open(fileName);
+    if (input == null) {
+      throw new IllegalStateException("Unable to find report for component #" + componentRef + ". File does not exist: " + fileName);
+    }
+    return Protobuf.read(input, ScannerReport.Component.parser());
   }
 
   @Override
   public CloseableIterator<ScannerReport.Issue> readComponentIssues(int componentRef) {
     ensureInitialized();
-    return delegate.readComponentIssues(componentRef);
+    return readStream(fileNameFor(FileStructure.Domain.ISSUES, componentRef), ScannerReport.Issue.parser());
   }
 
   @Override
   public CloseableIterator<ScannerReport.Duplication> readComponentDuplications(int componentRef) {
     ensureInitialized();
-    return delegate.readComponentDuplications(componentRef);
+    return readStream(fileNameFor(FileStructure.Domain.DUPLICATIONS, componentRef), ScannerReport.Duplication.parser());
   }
 
   @Override
   public CloseableIterator<ScannerReport.CpdTextBlock> readCpdTextBlocks(int componentRef) {
     ensureInitialized();
-    return delegate.readCpdTextBlocks(componentRef);
+    return readStream(fileNameFor(FileStructure.Domain.CPD_TEXT_BLOCKS, componentRef), ScannerReport.CpdTextBlock.parser());
   }
 
   @Override
   public CloseableIterator<ScannerReport.Symbol> readComponentSymbols(int componentRef) {
     ensureInitialized();
-    return delegate.readComponentSymbols(componentRef);
+    return readStream(fileNameFor(FileStructure.Domain.SYMBOLS, componentRef), ScannerReport.Symbol.parser());
   }
 
   @Override
   public CloseableIterator<ScannerReport.SyntaxHighlightingRule> readComponentSyntaxHighlighting(int fileRef) {
     ensureInitialized();
-    return delegate.readComponentSyntaxHighlighting(fileRef);
+    return readStream(fileNameFor(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, fileRef), ScannerReport.SyntaxHighlightingRule.parser());
   }
 
   @Override
   public CloseableIterator<ScannerReport.LineCoverage> readComponentCoverage(int fileRef) {
     ensureInitialized();
-    return delegate.readComponentCoverage(fileRef);
+    return readStream(fileNameFor(FileStructure.Domain.COVERAGES, fileRef), ScannerReport.LineCoverage.parser());
   }
 
   @Override
   public Optional<CloseableIterator<String>> readFileSource(int fileRef) {
     ensureInitialized();
-    File file = delegate.readFileSource(fileRef);
-    if (file == null) {
+    InputStream input = entries.open(fileNameFor(FileStructure.Domain.SOURCE, fileRef));
+    if (input == null) {
       return Optional.absent();
     }
+    return Optional.of(new CloseableLineIterator(IOUtils.lineIterator(input, StandardCharsets.UTF_8)));
+  }
 
-    try {
-      return Optional.of(new CloseableLineIterator(IOUtils.lineIterator(FileUtils.openInputStream(file), StandardCharsets.UTF_8)));
-    } catch (IOException e) {
-      throw new IllegalStateException("Fail to traverse file: " + file, e);
+  private <T extends Message> CloseableIterator<T> readStream(String fileName, Parser<T> parser) {
+    InputStream input = entries.open(fileName);
+    if (input == null) {
+      return CloseableIterator.emptyCloseableIterator();
     }
+    return Protobuf.readStream(input, parser);
   }
 
   private static class CloseableLineIterator extends CloseableIterator<String> {
@@ -186,56 +223,42 @@ public class BatchReportReaderImpl implements BatchReportReader {
   @Override
   public CloseableIterator<ScannerReport.Test> readTests(int testFileRef) {
     ensureInitialized();
-    File file = delegate.readTests(testFileRef);
-    if (file == null) {
-      return CloseableIterator.emptyCloseableIterator();
-    }
-
-    try {
-      return new ParserCloseableIterator<>(ScannerReport.Test.parser(), FileUtils.openInputStream(file));
-    } catch (IOException e) {
-      Throwables.propagate(e);
-      // actually never reached
+    InputStream input = entries.open(fileNameFor(FileStructure.Domain.TESTS, testFileRef));
+    if (input == null) {
       return CloseableIterator.emptyCloseableIterator();
     }
+    return new ParserCloseableIterator<>(ScannerReport.Test.parser(), input);
   }
 
   @Override
   public CloseableIterator<ScannerReport.CoverageDetail> readCoverageDetails(int testFileRef) {
     ensureInitialized();
-    File file = delegate.readCoverageDetails(testFileRef);
-    if (file == null) {
-      return CloseableIterator.emptyCloseableIterator();
-    }
-
-    try {
-      return new ParserCloseableIterator<>(ScannerReport.CoverageDetail.parser(), FileUtils.openInputStream(file));
-    } catch (IOException e) {
-      Throwables.propagate(e);
-      // actually never reached
+    InputStream input = entries.open(fileNameFor(FileStructure.Domain.COVERAGE_DETAILS, testFileRef));
+    if (input == null) {
       return CloseableIterator.emptyCloseableIterator();
     }
+    return new ParserCloseableIterator<>(ScannerReport.CoverageDetail.parser(), input);
   }
 
   @Override
   public CloseableIterator<ScannerReport.ContextProperty> readContextProperties() {
     ensureInitialized();
-    return delegate.readContextProperties();
+    return readStream(FileStructure.CONTEXT_PROPERTIES_FILE_NAME, ScannerReport.ContextProperty.parser());
   }
 
   private static class ParserCloseableIterator<T> extends CloseableIterator<T> {
     private final Parser<T> parser;
-    private final FileInputStream fileInputStream;
+    private final InputStream inputStream;
 
-    public ParserCloseableIterator(Parser<T> parser, FileInputStream fileInputStream) {
+    public ParserCloseableIterator(Parser<T> parser, InputStream inputStream) {
       this.parser = parser;
-      this.fileInputStream = fileInputStream;
+      this.inputStream = inputStream;
     }
 
     @Override
     protected T doNext() {
       try {
-        return parser.parseDelimitedFrom(fileInputStream);
+        return parser.parseDelimitedFrom(inputStream);
       } catch (InvalidProtocolBufferException e) {
         Throwables.propagate(e);
         // actually never reached
@@ -245,7 +268,7 @@ public class BatchReportReaderImpl implements BatchReportReader {
 
     @Override
     protected void doClose() throws Exception {
-      fileInputStream.close();
+      inputStream.close();
     }
   }
 }
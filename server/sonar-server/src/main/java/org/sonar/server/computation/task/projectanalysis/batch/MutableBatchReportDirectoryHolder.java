@@ -31,4 +31,14 @@ public interface MutableBatchReportDirectoryHolder extends BatchReportDirectoryH
    * @throws NullPointerException if {@code newDirectory} is {@code null}
    */
   void setDirectory(File newDirectory);
+
+  /**
+   * Sets the zip file of the Batch report in the BatchReportDirectoryHolder. Settings a File more than once is allowed
+   * but it can never be set to {@code null}.
+   *
+   * @param newZipFile a {@link File}, can not be {@code null}
+   *
+   * @throws NullPointerException if {@code newZipFile} is {@code null}
+   */
+  void setZipFile(File newZipFile);
 }
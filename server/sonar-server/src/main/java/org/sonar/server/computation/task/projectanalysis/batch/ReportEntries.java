@@ -0,0 +1,41 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.batch;
+
+import java.io.InputStream;
+import javax.annotation.CheckForNull;
+
+/**
+ * Access to the files of the Batch report, whatever the way the report is stored on the Compute Engine.
+ */
+interface ReportEntries extends AutoCloseable {
+
+  /**
+   * Opens the file with the specified name, relative to the root of the report. The caller is responsible for
+   * closing the returned stream.
+   *
+   * @return {@code null} if the report does not contain such a file
+   */
+  @CheckForNull
+  InputStream open(String name);
+
+  @Override
+  void close();
+}
@@ -0,0 +1,68 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.batch;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import javax.annotation.CheckForNull;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Report which is read in place from its zip file. Only the central directory of the zip is loaded when opening
+ * the report, then each file is decompressed on demand, when it's read. Files which are never read are never
+ * decompressed.
+ */
+class ZipReportEntries implements ReportEntries {
+
+  private final File file;
+  private final ZipFile zipFile;
+
+  ZipReportEntries(File file) {
+    this.file = file;
+    try {
+      this.zipFile = new ZipFile(file);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to open analysis report " + file, e);
+    }
+  }
+
+  @Override
+  @CheckForNull
+  public InputStream open(String name) {
+    ZipEntry entry = zipFile.getEntry(name);
+    if (entry == null || entry.isDirectory()) {
+      return null;
+    }
+    try {
+      return new BufferedInputStream(zipFile.getInputStream(entry));
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to read entry " + name + " of analysis report " + file, e);
+    }
+  }
+
+  @Override
+  public void close() {
+    IOUtils.closeQuietly(zipFile);
+  }
+}
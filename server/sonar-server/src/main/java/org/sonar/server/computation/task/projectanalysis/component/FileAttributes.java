@@ -34,12 +34,24 @@ public class FileAttributes {
   @CheckForNull
   private final String languageKey;
   private final int lines;
+  private final boolean unchanged;
+  private final boolean duplicationsSkipped;
 
   public FileAttributes(boolean unitTest, @Nullable String languageKey, int lines) {
+    this(unitTest, languageKey, lines, false);
+  }
+
+  public FileAttributes(boolean unitTest, @Nullable String languageKey, int lines, boolean unchanged) {
+    this(unitTest, languageKey, lines, unchanged, false);
+  }
+
+  public FileAttributes(boolean unitTest, @Nullable String languageKey, int lines, boolean unchanged, boolean duplicationsSkipped) {
     this.unitTest = unitTest;
     this.languageKey = languageKey;
     checkArgument(lines > 0, "Number of lines must be greater than zero");
     this.lines = lines;
+    this.unchanged = unchanged;
+    this.duplicationsSkipped = duplicationsSkipped;
   }
 
   public boolean isUnitTest() {
@@ -58,12 +70,30 @@ public class FileAttributes {
     return lines;
   }
 
+  /**
+   * Whether the file was not analyzed by an incremental analysis because it did not change since the previous
+   * analysis. The report then contains neither its source nor its issues and measures.
+   */
+  public boolean isUnchanged() {
+    return unchanged;
+  }
+
+  /**
+   * Whether the duplications of an unchanged file were not detected by the incremental analysis. The ones of the
+   * previous analysis are then kept.
+   */
+  public boolean isDuplicationsSkipped() {
+    return duplicationsSkipped;
+  }
+
   @Override
   public String toString() {
     return "FileAttributes{" +
       "languageKey='" + languageKey + '\'' +
       ", unitTest=" + unitTest +
       ", lines=" + lines +
+      ", unchanged=" + unchanged +
+      ", duplicationsSkipped=" + duplicationsSkipped +
       '}';
   }
 }
@@ -25,7 +25,6 @@ import javax.annotation.Nullable;
 import org.sonar.ce.organization.DefaultOrganizationLoader;
 import org.sonar.ce.queue.CeTask;
 import org.sonar.ce.settings.SettingsLoader;
-import org.sonar.core.issue.tracking.Tracker;
 import org.sonar.core.platform.ContainerPopulator;
 import org.sonar.plugin.ce.ReportAnalysisComponentProvider;
 import org.sonar.server.computation.task.container.TaskContainer;
@@ -41,9 +40,7 @@ import org.sonar.server.computation.task.projectanalysis.duplication.CrossProjec
 import org.sonar.server.computation.task.projectanalysis.duplication.DuplicationRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.duplication.IntegrateCrossProjectDuplications;
 import org.sonar.server.computation.task.projectanalysis.event.EventRepositoryImpl;
-import org.sonar.server.computation.task.projectanalysis.filemove.FileSimilarityImpl;
 import org.sonar.server.computation.task.projectanalysis.filemove.MutableMovedFilesRepositoryImpl;
-import org.sonar.server.computation.task.projectanalysis.filemove.SourceSimilarityImpl;
 import org.sonar.server.computation.task.projectanalysis.filesystem.ComputationTempFolderProvider;
 import org.sonar.server.computation.task.projectanalysis.issue.BaseIssuesLoader;
 import org.sonar.server.computation.task.projectanalysis.issue.CloseIssuesOnRemovedComponentsVisitor;
@@ -67,11 +64,9 @@ import org.sonar.server.computation.task.projectanalysis.issue.RuleRepositoryImp
 import org.sonar.server.computation.task.projectanalysis.issue.RuleTagsCopier;
 import org.sonar.server.computation.task.projectanalysis.issue.RuleTypeCopier;
 import org.sonar.server.computation.task.projectanalysis.issue.ScmAccountToUser;
-import org.sonar.server.computation.task.projectanalysis.issue.ScmAccountToUserLoader;
 import org.sonar.server.computation.task.projectanalysis.issue.TrackerBaseInputFactory;
 import org.sonar.server.computation.task.projectanalysis.issue.TrackerExecution;
 import org.sonar.server.computation.task.projectanalysis.issue.TrackerRawInputFactory;
-import org.sonar.server.computation.task.projectanalysis.issue.UpdateConflictResolver;
 import org.sonar.server.computation.task.projectanalysis.issue.commonrule.BranchCoverageRule;
 import org.sonar.server.computation.task.projectanalysis.issue.commonrule.CommentDensityRule;
 import org.sonar.server.computation.task.projectanalysis.issue.commonrule.CommonRuleEngineImpl;
@@ -106,7 +101,6 @@ import org.sonar.server.computation.task.projectanalysis.webhook.WebhookModule;
 import org.sonar.server.computation.task.step.ComputationStepExecutor;
 import org.sonar.server.computation.task.step.ComputationSteps;
 import org.sonar.server.computation.taskprocessor.MutableTaskResultHolderImpl;
-import org.sonar.server.view.index.ViewIndex;
 
 public final class ProjectAnalysisTaskContainerPopulator implements ContainerPopulator<TaskContainer> {
   private static final ReportAnalysisComponentProvider[] NO_REPORT_ANALYSIS_COMPONENT_PROVIDERS = new ReportAnalysisComponentProvider[0];
@@ -135,7 +129,8 @@ public final class ProjectAnalysisTaskContainerPopulator implements ContainerPop
 
   /**
    * List of all objects to be injected in the picocontainer dedicated to computation stack.
-   * Does not contain the steps declared in {@link ReportComputationSteps#orderedStepClasses()}.
+   * Does not contain the steps declared in {@link ReportComputationSteps#orderedStepClasses()}, nor the
+   * stateless components shared by all tasks, which are declared in {@link org.sonar.server.computation.task.projectanalysis.ProjectAnalysisTaskModule}.
    */
   private static List<Object> componentClasses() {
     return Arrays.asList(
@@ -178,7 +173,6 @@ public final class ProjectAnalysisTaskContainerPopulator implements ContainerPop
 
       // issues
       RuleRepositoryImpl.class,
-      ScmAccountToUserLoader.class,
       ScmAccountToUser.class,
       IssueCache.class,
       DefaultAssignee.class,
@@ -221,24 +215,17 @@ public final class ProjectAnalysisTaskContainerPopulator implements ContainerPop
       LastCommitVisitor.class,
       MeasureComputersVisitor.class,
 
-      UpdateConflictResolver.class,
       TrackerBaseInputFactory.class,
       TrackerRawInputFactory.class,
-      Tracker.class,
       TrackerExecution.class,
       BaseIssuesLoader.class,
 
       // filemove
-      SourceSimilarityImpl.class,
-      FileSimilarityImpl.class,
       MutableMovedFilesRepositoryImpl.class,
 
       // duplication
       IntegrateCrossProjectDuplications.class,
 
-      // views
-      ViewIndex.class,
-
       MeasureToMeasureDto.class,
 
       // webhooks
@@ -0,0 +1,284 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.duplication;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.duplication.DuplicationUnitDto;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Probabilistic set of the hashes of the table DUPLICATIONS_INDEX, shared by all the tasks of the Compute Engine.
+ * Candidates of cross project duplications are looked up in db only for the hashes that might exist.
+ * <p>
+ * There is no false negative for the rows loaded from db or added by {@link #add(Collection)}. Before each use,
+ * {@link #refresh()} loads the rows inserted since last refresh, for example by other Compute Engine nodes. As rows
+ * can be committed late by other nodes, with an id lower than the ones already loaded, each refresh re-scans the rows
+ * inserted during the last {@link #REFRESH_OVERLAP_MS}. The filter is rebuilt from scratch every
+ * {@link #REBUILD_INTERVAL_MS}, so that hashes of purged rows are forgotten.
+ * </p>
+ * <p>
+ * The rebuild does not block the other tasks: they keep on using the previous filter until the rebuilt one is
+ * swapped in. Meanwhile {@link #refresh()} still loads the recent rows into the previous filter, so that it has no
+ * false negative either.
+ * </p>
+ * <p>
+ * The filter is disabled, and all hashes might exist, when the table contains more than {@link #MAX_EXPECTED_HASHES} rows.
+ * </p>
+ */
+public class CrossProjectDuplicationHashFilter {
+
+  private static final Logger LOG = Loggers.get(CrossProjectDuplicationHashFilter.class);
+
+  static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+  static final long MIN_EXPECTED_HASHES = 100_000L;
+  // about 57MB of memory
+  static final long MAX_EXPECTED_HASHES = 50_000_000L;
+  static final long REBUILD_INTERVAL_MS = 60L * 60 * 1000;
+  static final long REFRESH_OVERLAP_MS = 10L * 60 * 1000;
+
+  private final DbClient dbClient;
+  private final System2 system2;
+
+  // null if not built yet
+  @CheckForNull
+  private volatile Snapshot snapshot = null;
+  private volatile boolean rebuilding = false;
+
+  // guards the fields below, and the incremental loads
+  private final Object refreshLock = new Object();
+  private long maxLoadedId = 0L;
+  private final List<Checkpoint> checkpoints = new ArrayList<>();
+
+  // hashes added while the filter is rebuilt, replayed in the rebuilt filter
+  private final List<String> addedDuringRebuild = new ArrayList<>();
+
+  public CrossProjectDuplicationHashFilter(DbClient dbClient, System2 system2) {
+    this.dbClient = dbClient;
+    this.system2 = system2;
+  }
+
+  /**
+   * Loads the rows inserted in db since last call. The filter is built on first call, and rebuilt when it
+   * is too old or too full. If the filter is being rebuilt by another task, the recent rows are loaded into the
+   * previous filter, which is used until the rebuilt one is swapped in.
+   */
+  public void refresh() {
+    synchronized (refreshLock) {
+      Snapshot current = snapshot;
+      if (rebuilding) {
+        if (current != null && !current.isDisabled()) {
+          // neither the max loaded id nor the checkpoints are updated, as they must match the rebuilt filter
+          loadRecent(current, system2.now());
+        }
+        return;
+      }
+      if (current != null && !current.needsRebuild(system2.now())) {
+        if (!current.isDisabled()) {
+          loadRecent(current);
+        }
+        return;
+      }
+      rebuilding = true;
+    }
+    rebuild();
+  }
+
+  /**
+   * Adds the hashes inserted in db by the current task. They are also loaded by next {@link #refresh()}, but this
+   * makes them visible immediately to the other tasks of the same Compute Engine.
+   */
+  public void add(Collection<String> insertedHashes) {
+    synchronized (addedDuringRebuild) {
+      Snapshot current = snapshot;
+      if (current != null) {
+        current.putAll(insertedHashes);
+      }
+      if (rebuilding) {
+        addedDuringRebuild.addAll(insertedHashes);
+      }
+    }
+  }
+
+  /**
+   * @return the hashes which might exist in table DUPLICATIONS_INDEX. Others definitely don't exist.
+   */
+  public List<String> retainMightExist(Collection<String> candidateHashes) {
+    Snapshot current = snapshot;
+    if (current == null) {
+      return new ArrayList<>(candidateHashes);
+    }
+    return current.retainMightExist(candidateHashes);
+  }
+
+  private void rebuild() {
+    try {
+      long now = system2.now();
+      Snapshot rebuilt;
+      long loadedId = 0L;
+      try (DbSession dbSession = dbClient.openSession(false)) {
+        long count = dbClient.duplicationDao().count(dbSession);
+        if (count > MAX_EXPECTED_HASHES) {
+          LOG.info("Filter of cross project duplication hashes is disabled: {} rows in table DUPLICATIONS_INDEX", count);
+          rebuilt = new Snapshot(null, 0L, now);
+        } else {
+          long expectedHashes = Math.min(MAX_EXPECTED_HASHES, Math.max(MIN_EXPECTED_HASHES, 2 * count));
+          rebuilt = new Snapshot(BloomFilter.create(Funnels.stringFunnel(UTF_8), (int) expectedHashes, FALSE_POSITIVE_PROBABILITY), expectedHashes, now);
+          loadedId = load(dbSession, rebuilt, 0L, 0L);
+          LOG.debug("Filter of cross project duplication hashes is built with {} rows", rebuilt.getHashes());
+        }
+      }
+      synchronized (addedDuringRebuild) {
+        rebuilt.putAll(addedDuringRebuild);
+        snapshot = rebuilt;
+      }
+      synchronized (refreshLock) {
+        maxLoadedId = loadedId;
+        // checkpoints of the previous filter are kept, as the rebuilt filter contains at least the same rows
+        checkpoints.add(new Checkpoint(now, loadedId));
+      }
+    } finally {
+      synchronized (addedDuringRebuild) {
+        addedDuringRebuild.clear();
+      }
+      synchronized (refreshLock) {
+        rebuilding = false;
+      }
+    }
+  }
+
+  private void loadRecent(Snapshot current) {
+    long now = system2.now();
+    maxLoadedId = loadRecent(current, now);
+    checkpoints.add(new Checkpoint(now, maxLoadedId));
+  }
+
+  /**
+   * @return the max loaded id
+   */
+  private long loadRecent(Snapshot target, long now) {
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      return load(dbSession, target, maxIdLoadedBefore(now - REFRESH_OVERLAP_MS), maxLoadedId);
+    }
+  }
+
+  /**
+   * Max id loaded at the given date: rows with a greater id may have been committed after this date. The first
+   * checkpoint is used if none is old enough.
+   */
+  private long maxIdLoadedBefore(long date) {
+    while (checkpoints.size() > 1 && checkpoints.get(1).date <= date) {
+      checkpoints.remove(0);
+    }
+    return checkpoints.isEmpty() ? 0L : checkpoints.get(0).maxLoadedId;
+  }
+
+  /**
+   * Loads the rows whose id is greater than {@code fromId}. Only the rows whose id is greater than
+   * {@code previousMaxId} are counted, the others being already loaded.
+   *
+   * @return the max loaded id
+   */
+  private long load(DbSession dbSession, Snapshot target, long fromId, long previousMaxId) {
+    long[] maxId = {previousMaxId};
+    dbClient.duplicationDao().selectHashesAfter(dbSession, fromId, context -> {
+      DuplicationUnitDto dto = (DuplicationUnitDto) context.getResultObject();
+      target.put(dto.getHash(), dto.getId() > previousMaxId);
+      maxId[0] = Math.max(maxId[0], dto.getId());
+    });
+    return maxId[0];
+  }
+
+  private static class Checkpoint {
+    private final long date;
+    private final long maxLoadedId;
+
+    private Checkpoint(long date, long maxLoadedId) {
+      this.date = date;
+      this.maxLoadedId = maxLoadedId;
+    }
+  }
+
+  /**
+   * Filter built at a given date. Guava's {@link BloomFilter} is not thread-safe, so accesses are synchronized on
+   * the snapshot. They are short, compared to the loads from db.
+   */
+  private static class Snapshot {
+    // null if disabled
+    @CheckForNull
+    private final BloomFilter<CharSequence> filter;
+    private final long expectedHashes;
+    private final long builtAt;
+    private long hashes = 0L;
+
+    private Snapshot(@Nullable BloomFilter<CharSequence> filter, long expectedHashes, long builtAt) {
+      this.filter = filter;
+      this.expectedHashes = expectedHashes;
+      this.builtAt = builtAt;
+    }
+
+    boolean isDisabled() {
+      return filter == null;
+    }
+
+    synchronized boolean needsRebuild(long now) {
+      return now - builtAt >= REBUILD_INTERVAL_MS || hashes > expectedHashes;
+    }
+
+    synchronized long getHashes() {
+      return hashes;
+    }
+
+    synchronized void put(String hash, boolean isNew) {
+      if (filter != null) {
+        filter.put(hash);
+        if (isNew) {
+          hashes++;
+        }
+      }
+    }
+
+    synchronized void putAll(Collection<String> addedHashes) {
+      if (filter != null) {
+        addedHashes.forEach(filter::put);
+        hashes += addedHashes.size();
+      }
+    }
+
+    synchronized List<String> retainMightExist(Collection<String> candidateHashes) {
+      if (filter == null) {
+        return new ArrayList<>(candidateHashes);
+      }
+      return candidateHashes.stream().filter(filter::mightContain).collect(toList());
+    }
+  }
+}
@@ -23,12 +23,14 @@ import com.google.common.base.Optional;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import org.sonar.api.rule.RuleStatus;
 import org.sonar.core.issue.DefaultIssue;
 import org.sonar.core.issue.tracking.Tracking;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
 import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
 import org.sonar.server.computation.task.projectanalysis.filemove.MovedFilesRepository;
+import org.sonar.server.computation.task.projectanalysis.qualityprofile.ActiveRulesHolder;
 import org.sonar.server.util.cache.DiskCache;
 
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.POST_ORDER;
@@ -42,11 +44,15 @@ public class IntegrateIssuesVisitor extends TypeAwareVisitorAdapter {
   private final MutableComponentIssuesRepository componentIssuesRepository;
   private final ComponentsWithUnprocessedIssues componentsWithUnprocessedIssues;
   private final MovedFilesRepository movedFilesRepository;
+  private final BaseIssuesLoader baseIssuesLoader;
+  private final ActiveRulesHolder activeRulesHolder;
+  private final RuleRepository ruleRepository;
 
   private final List<DefaultIssue> componentIssues = new ArrayList<>();
 
   public IntegrateIssuesVisitor(TrackerExecution tracker, IssueCache issueCache, IssueLifecycle issueLifecycle, IssueVisitors issueVisitors,
-    ComponentsWithUnprocessedIssues componentsWithUnprocessedIssues, MutableComponentIssuesRepository componentIssuesRepository, MovedFilesRepository movedFilesRepository) {
+    ComponentsWithUnprocessedIssues componentsWithUnprocessedIssues, MutableComponentIssuesRepository componentIssuesRepository, MovedFilesRepository movedFilesRepository,
+    BaseIssuesLoader baseIssuesLoader, ActiveRulesHolder activeRulesHolder, RuleRepository ruleRepository) {
     super(CrawlerDepthLimit.FILE, POST_ORDER);
     this.tracker = tracker;
     this.issueCache = issueCache;
@@ -55,6 +61,9 @@ public class IntegrateIssuesVisitor extends TypeAwareVisitorAdapter {
     this.componentsWithUnprocessedIssues = componentsWithUnprocessedIssues;
     this.componentIssuesRepository = componentIssuesRepository;
     this.movedFilesRepository = movedFilesRepository;
+    this.baseIssuesLoader = baseIssuesLoader;
+    this.activeRulesHolder = activeRulesHolder;
+    this.ruleRepository = ruleRepository;
   }
 
   @Override
@@ -73,11 +82,16 @@ public class IntegrateIssuesVisitor extends TypeAwareVisitorAdapter {
   private void processIssues(Component component) {
     DiskCache<DefaultIssue>.DiskAppender cacheAppender = issueCache.newAppender();
     try {
-      Tracking<DefaultIssue, DefaultIssue> tracking = tracker.track(component);
-      issueVisitors.beforeComponent(component);
-      fillNewOpenIssues(component, tracking, cacheAppender);
-      fillExistingOpenIssues(component, tracking, cacheAppender);
-      closeUnmatchedBaseIssues(component, tracking, cacheAppender);
+      if (isUnchangedFile(component)) {
+        issueVisitors.beforeComponent(component);
+        copyUnchangedIssues(component, cacheAppender);
+      } else {
+        Tracking<DefaultIssue, DefaultIssue> tracking = tracker.track(component);
+        issueVisitors.beforeComponent(component);
+        fillNewOpenIssues(component, tracking, cacheAppender);
+        fillExistingOpenIssues(component, tracking, cacheAppender);
+        closeUnmatchedBaseIssues(component, tracking, cacheAppender);
+      }
       issueVisitors.afterComponent(component);
     } catch (Exception e) {
       throw new IllegalStateException(String.format("Fail to process issues of component '%s'", component.getKey()), e);
@@ -86,6 +100,29 @@ public class IntegrateIssuesVisitor extends TypeAwareVisitorAdapter {
     }
   }
 
+  private static boolean isUnchangedFile(Component component) {
+    return component.getType() == Component.Type.FILE && component.getFileAttributes().isUnchanged();
+  }
+
+  /**
+   * The file was not analyzed by the incremental analysis, so there is nothing to track: its open issues are kept as is,
+   * except the issues of the rules which are no more active. They would not have been raised again, so they are closed.
+   */
+  private void copyUnchangedIssues(Component component, DiskCache<DefaultIssue>.DiskAppender cacheAppender) {
+    for (DefaultIssue issue : baseIssuesLoader.loadForComponentUuid(component.getUuid())) {
+      if (isRuleActive(issue)) {
+        process(component, issue, cacheAppender);
+      } else {
+        issue.setOnDisabledRule(true);
+        closeBaseIssue(component, issue, cacheAppender);
+      }
+    }
+  }
+
+  private boolean isRuleActive(DefaultIssue issue) {
+    return activeRulesHolder.get(issue.ruleKey()).isPresent() && ruleRepository.getByKey(issue.ruleKey()).getStatus() != RuleStatus.REMOVED;
+  }
+
   private void fillNewOpenIssues(Component component, Tracking<DefaultIssue, DefaultIssue> tracking, DiskCache<DefaultIssue>.DiskAppender cacheAppender) {
     for (DefaultIssue issue : tracking.getUnmatchedRaws()) {
       issueLifecycle.initNewOpenIssue(issue);
@@ -104,13 +141,17 @@ public class IntegrateIssuesVisitor extends TypeAwareVisitorAdapter {
 
   private void closeUnmatchedBaseIssues(Component component, Tracking<DefaultIssue, DefaultIssue> tracking, DiskCache<DefaultIssue>.DiskAppender cacheAppender) {
     for (DefaultIssue issue : tracking.getUnmatchedBases()) {
-      // TODO should replace flag "beingClosed" by express call to transition "automaticClose"
-      issue.setBeingClosed(true);
-      // TODO manual issues -> was updater.setResolution(newIssue, Issue.RESOLUTION_REMOVED, changeContext);. Is it a problem ?
-      process(component, issue, cacheAppender);
+      closeBaseIssue(component, issue, cacheAppender);
     }
   }
 
+  private void closeBaseIssue(Component component, DefaultIssue issue, DiskCache<DefaultIssue>.DiskAppender cacheAppender) {
+    // TODO should replace flag "beingClosed" by express call to transition "automaticClose"
+    issue.setBeingClosed(true);
+    // TODO manual issues -> was updater.setResolution(newIssue, Issue.RESOLUTION_REMOVED, changeContext);. Is it a problem ?
+    process(component, issue, cacheAppender);
+  }
+
   private void process(Component component, DefaultIssue issue, DiskCache<DefaultIssue>.DiskAppender cacheAppender) {
     issueLifecycle.doAutomaticTransition(issue);
     issueVisitors.onIssue(component, issue);
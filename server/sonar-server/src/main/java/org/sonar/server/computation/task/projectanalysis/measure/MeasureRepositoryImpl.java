@@ -123,7 +123,33 @@ public class MeasureRepositoryImpl implements MeasureRepository {
         }
       }
     }
+    if (isUnchangedFile(component)) {
+      loadMeasuresOfUnchangedFile(component);
+    }
     loadedComponents.add(component.getReportAttributes().getRef());
   }
 
+  private static boolean isUnchangedFile(Component component) {
+    return component.getType() == Component.Type.FILE && component.getFileAttributes().isUnchanged();
+  }
+
+  /**
+   * Measures of files which were not analyzed by an incremental analysis are not in the report. The ones computed
+   * by the scanner are copied from the last analysis.
+   */
+  private void loadMeasuresOfUnchangedFile(Component component) {
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      MeasureQuery query = MeasureQuery.builder().setComponentUuid(component.getUuid()).build();
+      for (MeasureDto measureDto : dbClient.measureDao().selectByQuery(dbSession, query)) {
+        Metric metric = metricRepository.getById(measureDto.getMetricId());
+        if (reportMetricValidator.validate(metric.getKey())) {
+          Optional<Measure> measure = underTest.toMeasure(measureDto, metric);
+          if (measure.isPresent()) {
+            delegate.add(component, metric, measure.get(), OverridePolicy.DO_NOT_OVERRIDE);
+          }
+        }
+      }
+    }
+  }
+
 }
@@ -100,13 +100,18 @@ public class ScmInfoRepositoryImpl implements ScmInfoRepository {
     LOGGER.trace("Reading SCM info from db for file '{}'", file.getKey());
     try (DbSession dbSession = dbClient.openSession(false)) {
       FileSourceDto dto = dbClient.fileSourceDao().selectSourceByFileUuid(dbSession, file.getUuid());
-      if (dto == null || !sourceHashRepository.getRawSourceHash(file).equals(dto.getSrcHash())) {
+      if (dto == null || !isSameSource(file, dto)) {
         return NoScmInfo.INSTANCE;
       }
       return DbScmInfo.create(file, dto.getSourceData().getLinesList()).or(NoScmInfo.INSTANCE);
     }
   }
 
+  private boolean isSameSource(Component file, FileSourceDto dto) {
+    // source of files not analyzed by an incremental analysis is not in the report
+    return file.getFileAttributes().isUnchanged() || sourceHashRepository.getRawSourceHash(file).equals(dto.getSrcHash());
+  }
+
   private static ScmInfo getScmInfoFromReport(Component file, ScannerReport.Changesets changesets) {
     LOGGER.trace("Reading SCM info from report for file '{}'", file.getKey());
     return new ReportScmInfo(changesets);
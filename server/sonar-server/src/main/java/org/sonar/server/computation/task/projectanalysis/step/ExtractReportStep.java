@@ -19,14 +19,12 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
-import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.Optional;
+import org.apache.commons.io.FileUtils;
 import org.sonar.api.utils.MessageException;
 import org.sonar.api.utils.TempFolder;
-import org.sonar.api.utils.ZipUtils;
 import org.sonar.ce.queue.CeTask;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -35,8 +33,12 @@ import org.sonar.server.computation.task.projectanalysis.batch.MutableBatchRepor
 import org.sonar.server.computation.task.step.ComputationStep;
 
 /**
- * Extracts the content zip file of the {@link CeTask} to a temp directory and adds a {@link File}
- * representing that temp directory to the {@link MutableBatchReportDirectoryHolder}.
+ * Copies the content zip file of the {@link CeTask} to a temp file and adds a {@link File}
+ * representing that zip file to the {@link MutableBatchReportDirectoryHolder}.
+ * <p>
+ * The zip file is not extracted: the files of the report are read in place and decompressed on demand
+ * by {@link org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader}.
+ * </p>
  */
 public class ExtractReportStep implements ComputationStep {
 
@@ -58,14 +60,13 @@ public class ExtractReportStep implements ComputationStep {
     try (DbSession dbSession = dbClient.openSession(false)) {
       Optional<CeTaskInputDao.DataStream> opt = dbClient.ceTaskInputDao().selectData(dbSession, task.getUuid());
       if (opt.isPresent()) {
-        File unzippedDir = tempFolder.newDir();
-        try (CeTaskInputDao.DataStream reportStream = opt.get();
-             InputStream zipStream = new BufferedInputStream(reportStream.getInputStream())) {
-          ZipUtils.unzip(zipStream, unzippedDir);
+        File zipFile = tempFolder.newFile("report", ".zip");
+        try (CeTaskInputDao.DataStream reportStream = opt.get()) {
+          FileUtils.copyInputStreamToFile(reportStream.getInputStream(), zipFile);
         } catch (IOException e) {
           throw new IllegalStateException("Fail to extract report " + task.getUuid() + " from database", e);
         }
-        reportDirectoryHolder.setDirectory(unzippedDir);
+        reportDirectoryHolder.setZipFile(zipFile);
       } else {
         throw MessageException.of("Analysis report " + task.getUuid() + " is missing in database");
       }
@@ -20,9 +20,23 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.base.Function;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.SetMultimap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.db.DbClient;
@@ -38,6 +52,7 @@ import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthL
 import org.sonar.server.computation.task.projectanalysis.component.DepthTraversalTypeAwareCrawler;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
+import org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicationHashFilter;
 import org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicationStatusHolder;
 import org.sonar.server.computation.task.projectanalysis.duplication.IntegrateCrossProjectDuplications;
 import org.sonar.server.computation.task.projectanalysis.analysis.Analysis;
@@ -53,33 +68,65 @@ import static org.sonar.server.computation.task.projectanalysis.component.Compon
  * Blocks can be empty if :
  * - The file is excluded from the analysis using {@link org.sonar.api.CoreProperties#CPD_EXCLUSIONS}
  * - On Java, if the number of statements of the file is too small, nothing will be sent.
+ *
+ * Only the hashes which might exist in db, according to {@link CrossProjectDuplicationHashFilter}, are looked up.
+ * Candidates of {@link #FILES_PER_QUERY} files are loaded at once, by a small pool of threads.
  */
 public class LoadCrossProjectDuplicationsRepositoryStep implements ComputationStep {
 
   private static final Logger LOGGER = Loggers.get(LoadCrossProjectDuplicationsRepositoryStep.class);
+  static final int FILES_PER_QUERY = 50;
+  private static final int MAX_THREADS = 4;
+  private static final int MAX_QUERIES_IN_PROGRESS_PER_THREAD = 2;
+  private static final long TERMINATION_TIMEOUT_SECONDS = 30L;
 
   private final TreeRootHolder treeRootHolder;
   private final BatchReportReader reportReader;
   private final AnalysisMetadataHolder analysisMetadataHolder;
   private final IntegrateCrossProjectDuplications integrateCrossProjectDuplications;
   private final CrossProjectDuplicationStatusHolder crossProjectDuplicationStatusHolder;
+  private final CrossProjectDuplicationHashFilter hashFilter;
   private final DbClient dbClient;
 
   public LoadCrossProjectDuplicationsRepositoryStep(TreeRootHolder treeRootHolder, BatchReportReader reportReader,
     AnalysisMetadataHolder analysisMetadataHolder, CrossProjectDuplicationStatusHolder crossProjectDuplicationStatusHolder,
-    IntegrateCrossProjectDuplications integrateCrossProjectDuplications, DbClient dbClient) {
+    IntegrateCrossProjectDuplications integrateCrossProjectDuplications, CrossProjectDuplicationHashFilter hashFilter, DbClient dbClient) {
     this.treeRootHolder = treeRootHolder;
     this.reportReader = reportReader;
     this.analysisMetadataHolder = analysisMetadataHolder;
     this.integrateCrossProjectDuplications = integrateCrossProjectDuplications;
     this.crossProjectDuplicationStatusHolder = crossProjectDuplicationStatusHolder;
+    this.hashFilter = hashFilter;
     this.dbClient = dbClient;
   }
 
   @Override
   public void execute() {
-    if (crossProjectDuplicationStatusHolder.isEnabled()) {
-      new DepthTraversalTypeAwareCrawler(new CrossProjectDuplicationVisitor()).visit(treeRootHolder.getRoot());
+    if (!crossProjectDuplicationStatusHolder.isEnabled()) {
+      return;
+    }
+    hashFilter.refresh();
+    ExecutorService executor = Executors.newFixedThreadPool(MAX_THREADS,
+      new ThreadFactoryBuilder().setNameFormat("CE_CrossProjectDuplications-%d").setDaemon(true).build());
+    try {
+      CrossProjectDuplicationVisitor visitor = new CrossProjectDuplicationVisitor(executor);
+      new DepthTraversalTypeAwareCrawler(visitor).visit(treeRootHolder.getRoot());
+      visitor.computeInProgress();
+    } finally {
+      // on failure, pending queries are cancelled, and the running ones are waited for so that they do not keep
+      // db connections busy after the end of the task
+      shutdown(executor);
+    }
+  }
+
+  private static void shutdown(ExecutorService executor) {
+    executor.shutdownNow();
+    try {
+      if (!executor.awaitTermination(TERMINATION_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        LOGGER.warn("Loading of cross project duplications did not stop within {} seconds", TERMINATION_TIMEOUT_SECONDS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
     }
   }
 
@@ -89,9 +136,13 @@ public class LoadCrossProjectDuplicationsRepositoryStep implements ComputationSt
   }
 
   private class CrossProjectDuplicationVisitor extends TypeAwareVisitorAdapter {
+    private final ExecutorService executor;
+    private final Deque<Future<Batch>> inProgress = new ArrayDeque<>();
+    private Batch batch = new Batch();
 
-    private CrossProjectDuplicationVisitor() {
+    private CrossProjectDuplicationVisitor(ExecutorService executor) {
       super(CrawlerDepthLimit.FILE, PRE_ORDER);
+      this.executor = executor;
     }
 
     @Override
@@ -102,25 +153,111 @@ public class LoadCrossProjectDuplicationsRepositoryStep implements ComputationSt
         return;
       }
 
-      Collection<String> hashes = from(cpdTextBlocks).transform(CpdTextBlockToHash.INSTANCE).toList();
-      List<DuplicationUnitDto> dtos = selectDuplicates(file, hashes);
-      if (dtos.isEmpty()) {
+      List<String> hashes = hashFilter.retainMightExist(from(cpdTextBlocks).transform(CpdTextBlockToHash.INSTANCE).toSet());
+      if (hashes.isEmpty()) {
         return;
       }
 
+      batch.add(new FileBlocks(file, cpdTextBlocks, hashes));
+      if (batch.files.size() >= FILES_PER_QUERY) {
+        submitBatch();
+      }
+    }
+
+    void computeInProgress() {
+      submitBatch();
+      while (!inProgress.isEmpty()) {
+        computeNext();
+      }
+    }
+
+    private void submitBatch() {
+      if (batch.files.isEmpty()) {
+        return;
+      }
+      Batch submitted = batch;
+      Analysis baseAnalysis = analysisMetadataHolder.getBaseAnalysis();
+      String baseAnalysisUuid = baseAnalysis == null ? null : baseAnalysis.getUuid();
+      inProgress.add(executor.submit(() -> selectCandidates(submitted, baseAnalysisUuid)));
+      batch = new Batch();
+      while (inProgress.size() >= MAX_THREADS * MAX_QUERIES_IN_PROGRESS_PER_THREAD) {
+        computeNext();
+      }
+    }
+
+    private Batch selectCandidates(Batch submitted, @Nullable String baseAnalysisUuid) {
+      try (DbSession dbSession = dbClient.openSession(false)) {
+        submitted.hashesByLanguage.asMap().forEach((language, hashes) -> dbClient.duplicationDao()
+          .selectCandidates(dbSession, baseAnalysisUuid, language, hashes)
+          .forEach(dto -> submitted.candidatesByLanguageAndHash.put(language + ':' + dto.getHash(), dto)));
+      }
+      return submitted;
+    }
+
+    /**
+     * Computes the duplications of the files of the oldest batch in progress, in the current thread as
+     * {@link IntegrateCrossProjectDuplications} is not thread-safe.
+     */
+    private void computeNext() {
+      Batch computed = waitFor(inProgress.poll());
+      for (FileBlocks fileBlocks : computed.files) {
+        String language = fileBlocks.file.getFileAttributes().getLanguageKey();
+        List<DuplicationUnitDto> dtos = new ArrayList<>();
+        fileBlocks.hashes.forEach(hash -> dtos.addAll(computed.candidatesByLanguageAndHash.get(language + ':' + hash)));
+        if (!dtos.isEmpty()) {
+          computeCpd(fileBlocks, dtos);
+        }
+      }
+    }
+
+    private void computeCpd(FileBlocks fileBlocks, List<DuplicationUnitDto> dtos) {
+      Component file = fileBlocks.file;
       Collection<Block> duplicatedBlocks = from(dtos).transform(DtoToBlock.INSTANCE).toList();
-      Collection<Block> originBlocks = from(cpdTextBlocks).transform(new CpdTextBlockToBlock(file.getKey())).toList();
+      Collection<Block> originBlocks = from(fileBlocks.cpdTextBlocks).transform(new CpdTextBlockToBlock(file.getKey())).toList();
       LOGGER.trace("Found {} duplicated cpd blocks on file {}", duplicatedBlocks.size(), file.getKey());
 
       integrateCrossProjectDuplications.computeCpd(file, originBlocks, duplicatedBlocks);
     }
+  }
 
-    private List<DuplicationUnitDto> selectDuplicates(Component file, Collection<String> hashes) {
-      try (DbSession dbSession = dbClient.openSession(false)) {
-        Analysis projectAnalysis = analysisMetadataHolder.getBaseAnalysis();
-        String analysisUuid = projectAnalysis == null ? null : projectAnalysis.getUuid();
-        return dbClient.duplicationDao().selectCandidates(dbSession, analysisUuid, file.getFileAttributes().getLanguageKey(), hashes);
+  private static Batch waitFor(Future<Batch> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while loading cross project duplications", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
       }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  private static class FileBlocks {
+    private final Component file;
+    private final List<CpdTextBlock> cpdTextBlocks;
+    private final List<String> hashes;
+
+    private FileBlocks(Component file, List<CpdTextBlock> cpdTextBlocks, List<String> hashes) {
+      this.file = file;
+      this.cpdTextBlocks = cpdTextBlocks;
+      this.hashes = hashes;
+    }
+  }
+
+  /**
+   * Files whose candidates are loaded by the same queries, one per language
+   */
+  private static class Batch {
+    private final List<FileBlocks> files = new ArrayList<>();
+    private final SetMultimap<String, String> hashesByLanguage = HashMultimap.create();
+    private final ListMultimap<String, DuplicationUnitDto> candidatesByLanguageAndHash = ArrayListMultimap.create();
+
+    private void add(FileBlocks fileBlocks) {
+      files.add(fileBlocks);
+      hashesByLanguage.putAll(fileBlocks.file.getFileAttributes().getLanguageKey(), fileBlocks.hashes);
     }
   }
 
@@ -20,7 +20,17 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
 import javax.annotation.Nonnull;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import org.codehaus.staxmate.SMInputFactory;
+import org.codehaus.staxmate.in.SMHierarchicCursor;
+import org.codehaus.staxmate.in.SMInputCursor;
+import org.sonar.api.measures.CoreMetrics;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader;
@@ -29,6 +39,7 @@ import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthL
 import org.sonar.server.computation.task.projectanalysis.component.DepthTraversalTypeAwareCrawler;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
+import org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicate;
 import org.sonar.server.computation.task.projectanalysis.duplication.DetailedTextBlock;
 import org.sonar.server.computation.task.projectanalysis.duplication.Duplicate;
 import org.sonar.server.computation.task.projectanalysis.duplication.Duplication;
@@ -36,24 +47,38 @@ import org.sonar.server.computation.task.projectanalysis.duplication.Duplication
 import org.sonar.server.computation.task.projectanalysis.duplication.InProjectDuplicate;
 import org.sonar.server.computation.task.projectanalysis.duplication.InnerDuplicate;
 import org.sonar.server.computation.task.projectanalysis.duplication.TextBlock;
+import org.sonar.server.computation.task.projectanalysis.measure.Measure;
+import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
+import org.sonar.server.computation.task.projectanalysis.metric.Metric;
+import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
 import org.sonar.server.computation.task.step.ComputationStep;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.FluentIterable.from;
+import static org.sonar.api.measures.CoreMetrics.DUPLICATIONS_DATA_KEY;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.POST_ORDER;
 
 /**
  * Loads duplication information from the report and loads them into the {@link DuplicationRepository}.
+ * <p>
+ * Duplications of the unchanged files that were not detected by an incremental analysis are loaded from the
+ * {@link CoreMetrics#DUPLICATIONS_DATA} measure of the previous analysis.
+ * </p>
  */
 public class LoadDuplicationsFromReportStep implements ComputationStep {
   private final TreeRootHolder treeRootHolder;
   private final BatchReportReader batchReportReader;
   private final DuplicationRepository duplicationRepository;
+  private final MeasureRepository measureRepository;
+  private final Metric duplicationDataMetric;
 
-  public LoadDuplicationsFromReportStep(TreeRootHolder treeRootHolder, BatchReportReader batchReportReader, DuplicationRepository duplicationRepository) {
+  public LoadDuplicationsFromReportStep(TreeRootHolder treeRootHolder, BatchReportReader batchReportReader, DuplicationRepository duplicationRepository,
+    MeasureRepository measureRepository, MetricRepository metricRepository) {
     this.treeRootHolder = treeRootHolder;
     this.batchReportReader = batchReportReader;
     this.duplicationRepository = duplicationRepository;
+    this.measureRepository = measureRepository;
+    this.duplicationDataMetric = metricRepository.getByKey(DUPLICATIONS_DATA_KEY);
   }
 
   @Override
@@ -67,6 +92,10 @@ public class LoadDuplicationsFromReportStep implements ComputationStep {
       new TypeAwareVisitorAdapter(CrawlerDepthLimit.FILE, POST_ORDER) {
         @Override
         public void visitFile(Component file) {
+          if (file.getFileAttributes().isDuplicationsSkipped()) {
+            loadPreviousDuplications(file);
+            return;
+          }
           CloseableIterator<ScannerReport.Duplication> duplications = batchReportReader.readComponentDuplications(file.getReportAttributes().getRef());
           try {
             int idGenerator = 1;
@@ -89,6 +118,62 @@ public class LoadDuplicationsFromReportStep implements ComputationStep {
           .transform(new BatchDuplicateToCeDuplicate(file))));
   }
 
+  private void loadPreviousDuplications(Component file) {
+    Optional<Measure> previousData = measureRepository.getBaseMeasure(file, duplicationDataMetric);
+    if (!previousData.isPresent() || previousData.get().getData() == null) {
+      return;
+    }
+    try {
+      SMHierarchicCursor root = initStax().rootElementCursor(new StringReader(previousData.get().getData()));
+      // <duplications>
+      root.advance();
+      SMInputCursor groupCursor = root.childElementCursor("g");
+      int idGenerator = 1;
+      while (groupCursor.getNext() != null) {
+        loadPreviousDuplication(file, groupCursor.childElementCursor("b"), idGenerator);
+        idGenerator++;
+      }
+    } catch (XMLStreamException e) {
+      throw new IllegalStateException("Duplications of previous analysis are not valid on file " + file.getKey(), e);
+    }
+  }
+
+  /**
+   * The first block of a group is the original one, in the file. Duplicates on files that have been removed from the
+   * project are ignored.
+   */
+  private void loadPreviousDuplication(Component file, SMInputCursor blockCursor, int id) throws XMLStreamException {
+    TextBlock original = null;
+    List<Duplicate> duplicates = new ArrayList<>();
+    while (blockCursor.getNext() != null) {
+      int start = Integer.parseInt(blockCursor.getAttrValue("s"));
+      int end = start + Integer.parseInt(blockCursor.getAttrValue("l")) - 1;
+      String componentKey = blockCursor.getAttrValue("r");
+      if (original == null) {
+        original = new DetailedTextBlock(id, start, end);
+      } else if (file.getKey().equals(componentKey)) {
+        duplicates.add(new InnerDuplicate(new TextBlock(start, end)));
+      } else if (treeRootHolder.hasComponentWithKey(componentKey)) {
+        duplicates.add(new InProjectDuplicate(treeRootHolder.getComponentByKey(componentKey), new TextBlock(start, end)));
+      } else if (!componentKey.startsWith(treeRootHolder.getRoot().getKey() + ':')) {
+        duplicates.add(new CrossProjectDuplicate(componentKey, new TextBlock(start, end)));
+      }
+    }
+    if (original != null && !duplicates.isEmpty()) {
+      duplicationRepository.add(file, new Duplication(original, duplicates));
+    }
+  }
+
+  private static SMInputFactory initStax() {
+    XMLInputFactory xmlFactory = XMLInputFactory.newInstance();
+    xmlFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+    xmlFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.FALSE);
+    // just so it won't try to load DTD in if there's DOCTYPE
+    xmlFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    xmlFactory.setProperty(XMLInputFactory.IS_VALIDATING, Boolean.FALSE);
+    return new SMInputFactory(xmlFactory);
+  }
+
   private static TextBlock convert(ScannerReport.TextRange textRange) {
     return new TextBlock(textRange.getStartLine(), textRange.getEndLine());
   }
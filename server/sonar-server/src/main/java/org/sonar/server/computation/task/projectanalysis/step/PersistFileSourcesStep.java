@@ -21,19 +21,28 @@ package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang.ObjectUtils;
 import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
-import org.sonar.db.protobuf.DbFileSources;
 import org.sonar.db.source.FileSourceDto;
 import org.sonar.db.source.FileSourceDto.Type;
 import org.sonar.scanner.protocol.output.ScannerReport;
@@ -60,8 +69,18 @@ import org.sonar.server.computation.task.step.ComputationStep;
 
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
 
+/**
+ * Data of files are computed, serialized and compressed in parallel by a pool of threads, while rows are written
+ * to database by the thread executing the step, in the order of the component tree. The number of files which are
+ * computed but not persisted yet is bounded, so that memory does not depend on the number of files.
+ */
 public class PersistFileSourcesStep implements ComputationStep {
 
+  private static final Logger LOG = Loggers.get(PersistFileSourcesStep.class);
+  private static final int MAX_THREADS = 4;
+  private static final int MAX_FILES_IN_PROGRESS_PER_THREAD = 2;
+  private static final long TERMINATION_TIMEOUT_SECONDS = 30L;
+
   private final DbClient dbClient;
   private final System2 system2;
   private final TreeRootHolder treeRootHolder;
@@ -83,23 +102,59 @@ public class PersistFileSourcesStep implements ComputationStep {
 
   @Override
   public void execute() {
+    int threads = Math.max(1, Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors()));
+    ExecutorService executor = Executors.newFixedThreadPool(threads,
+      new ThreadFactoryBuilder().setNameFormat("CE_PersistFileSources-%d").setDaemon(true).build());
+    long start = System.nanoTime();
+    FileSourceVisitor visitor = null;
     // Don't use batch insert for file_sources since keeping all data in memory can produce OOM for big files
     try (DbSession dbSession = dbClient.openSession(false)) {
-      new DepthTraversalTypeAwareCrawler(new FileSourceVisitor(dbSession))
+      visitor = new FileSourceVisitor(dbSession, executor, threads * MAX_FILES_IN_PROGRESS_PER_THREAD);
+      new DepthTraversalTypeAwareCrawler(visitor)
         .visit(treeRootHolder.getRoot());
+      visitor.persistInProgress();
+      logThroughput(visitor.persistedFiles, start);
+    } finally {
+      // on failure, files in progress are cancelled, so that the report is not read anymore once the step has failed
+      shutdown(executor);
+      if (visitor != null) {
+        visitor.closeInProgress();
+      }
     }
   }
 
+  private static void shutdown(ExecutorService executor) {
+    executor.shutdownNow();
+    try {
+      if (!executor.awaitTermination(TERMINATION_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        LOG.warn("Persistence of sources did not stop within {} seconds", TERMINATION_TIMEOUT_SECONDS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void logThroughput(int files, long startNanos) {
+    long durationMs = Math.max(1L, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    LOG.debug("Sources of {} files persisted in {} ms ({} files/s)", files, durationMs, files * 1000L / durationMs);
+  }
+
   private class FileSourceVisitor extends TypeAwareVisitorAdapter {
 
     private final DbSession session;
+    private final ExecutorService executor;
+    private final int maxFilesInProgress;
+    private final Deque<FileInProgress> inProgress = new ArrayDeque<>();
 
     private Map<String, FileSourceDto> previousFileSourcesByUuid = new HashMap<>();
     private String projectUuid;
+    private int persistedFiles = 0;
 
-    private FileSourceVisitor(DbSession session) {
+    private FileSourceVisitor(DbSession session, ExecutorService executor, int maxFilesInProgress) {
       super(CrawlerDepthLimit.FILE, PRE_ORDER);
       this.session = session;
+      this.executor = executor;
+      this.maxFilesInProgress = maxFilesInProgress;
     }
 
     @Override
@@ -114,27 +169,53 @@ public class PersistFileSourcesStep implements ComputationStep {
 
     @Override
     public void visitFile(Component file) {
+      if (file.getFileAttributes().isUnchanged()) {
+        // sources of files not analyzed by an incremental analysis are not in the report, the persisted ones are still valid
+        return;
+      }
+      // report is read by the current thread, only the computation of data is delegated to the pool
       CloseableIterator<String> linesIterator = sourceLinesRepository.readLines(file);
       LineReaders lineReaders = new LineReaders(reportReader, scmInfoRepository, duplicationRepository, file);
+      inProgress.add(new FileInProgress(executor.submit(() -> encode(file, linesIterator, lineReaders)), linesIterator, lineReaders));
+      while (inProgress.size() >= maxFilesInProgress) {
+        persistNext();
+      }
+    }
+
+    void persistInProgress() {
+      while (!inProgress.isEmpty()) {
+        persistNext();
+      }
+    }
+
+    /**
+     * Report iterators of the files which are not persisted are closed by the tasks that are completed, but not by the
+     * ones that have been cancelled before being started. Must be called once the pool is stopped.
+     */
+    void closeInProgress() {
+      for (FileInProgress fileInProgress : inProgress) {
+        fileInProgress.linesIterator.close();
+        fileInProgress.lineReaders.close();
+      }
+      inProgress.clear();
+    }
+
+    private void persistNext() {
+      EncodedFileSource source = waitFor(inProgress.poll().future);
       try {
-        ComputeFileSourceData computeFileSourceData = new ComputeFileSourceData(linesIterator, lineReaders.readers(), file.getFileAttributes().getLines());
-        ComputeFileSourceData.Data fileSourceData = computeFileSourceData.compute();
-        persistSource(fileSourceData, file.getUuid(), lineReaders.getLatestChange());
+        persistSource(source);
+        persistedFiles++;
       } catch (Exception e) {
-        throw new IllegalStateException(String.format("Cannot persist sources of %s", file.getKey()), e);
-      } finally {
-        linesIterator.close();
-        lineReaders.close();
+        throw new IllegalStateException(String.format("Cannot persist sources of %s", source.file.getKey()), e);
       }
     }
 
-    private void persistSource(ComputeFileSourceData.Data fileSourceData, String componentUuid, @Nullable Changeset latestChange) {
-      DbFileSources.Data fileData = fileSourceData.getFileSourceData();
-
-      byte[] data = FileSourceDto.encodeSourceData(fileData);
-      String dataHash = DigestUtils.md5Hex(data);
-      String srcHash = fileSourceData.getSrcHash();
-      String lineHashes = fileSourceData.getLineHashes();
+    private void persistSource(EncodedFileSource source) {
+      String componentUuid = source.file.getUuid();
+      byte[] data = source.data;
+      String dataHash = source.dataHash;
+      String srcHash = source.srcHash;
+      String lineHashes = source.lineHashes;
       FileSourceDto previousDto = previousFileSourcesByUuid.get(componentUuid);
 
       if (previousDto == null) {
@@ -148,14 +229,14 @@ public class PersistFileSourcesStep implements ComputationStep {
           .setLineHashes(lineHashes)
           .setCreatedAt(system2.now())
           .setUpdatedAt(system2.now())
-          .setRevision(computeRevision(latestChange));
+          .setRevision(computeRevision(source.latestChange));
         dbClient.fileSourceDao().insert(session, dto);
         session.commit();
       } else {
         // Update only if data_hash has changed or if src_hash is missing or revision is missing (progressive migration)
         boolean binaryDataUpdated = !dataHash.equals(previousDto.getDataHash());
         boolean srcHashUpdated = !srcHash.equals(previousDto.getSrcHash());
-        String revision = computeRevision(latestChange);
+        String revision = computeRevision(source.latestChange);
         boolean revisionUpdated = !ObjectUtils.equals(revision, previousDto.getRevision());
         if (binaryDataUpdated || srcHashUpdated || revisionUpdated) {
           previousDto
@@ -180,6 +261,70 @@ public class PersistFileSourcesStep implements ComputationStep {
     }
   }
 
+  /**
+   * Executed by the pool of threads
+   */
+  private static EncodedFileSource encode(Component file, CloseableIterator<String> linesIterator, LineReaders lineReaders) {
+    try {
+      ComputeFileSourceData computeFileSourceData = new ComputeFileSourceData(linesIterator, lineReaders.readers(), file.getFileAttributes().getLines());
+      ComputeFileSourceData.Data fileSourceData = computeFileSourceData.compute();
+      byte[] data = FileSourceDto.encodeSourceData(fileSourceData.getFileSourceData());
+      return new EncodedFileSource(file, data, DigestUtils.md5Hex(data), fileSourceData.getSrcHash(), fileSourceData.getLineHashes(),
+        lineReaders.getLatestChange());
+    } catch (Exception e) {
+      throw new IllegalStateException(String.format("Cannot persist sources of %s", file.getKey()), e);
+    } finally {
+      linesIterator.close();
+      lineReaders.close();
+    }
+  }
+
+  private static EncodedFileSource waitFor(Future<EncodedFileSource> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while persisting sources", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  private static class FileInProgress {
+    private final Future<EncodedFileSource> future;
+    private final CloseableIterator<String> linesIterator;
+    private final LineReaders lineReaders;
+
+    private FileInProgress(Future<EncodedFileSource> future, CloseableIterator<String> linesIterator, LineReaders lineReaders) {
+      this.future = future;
+      this.linesIterator = linesIterator;
+      this.lineReaders = lineReaders;
+    }
+  }
+
+  private static class EncodedFileSource {
+    private final Component file;
+    private final byte[] data;
+    private final String dataHash;
+    private final String srcHash;
+    private final String lineHashes;
+    @CheckForNull
+    private final Changeset latestChange;
+
+    private EncodedFileSource(Component file, byte[] data, String dataHash, String srcHash, String lineHashes, @Nullable Changeset latestChange) {
+      this.file = file;
+      this.data = data;
+      this.dataHash = dataHash;
+      this.srcHash = srcHash;
+      this.lineHashes = lineHashes;
+      this.latestChange = latestChange;
+    }
+  }
+
   private static class LineReaders {
     private final List<LineReader> readers = new ArrayList<>();
     private final List<CloseableIterator<?>> closeables = new ArrayList<>();
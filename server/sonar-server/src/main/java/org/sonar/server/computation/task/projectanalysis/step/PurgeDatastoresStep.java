@@ -19,6 +19,8 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import org.sonar.api.config.Configuration;
+import org.sonar.core.config.PurgeConstants;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.purge.IdUuidPair;
@@ -75,7 +77,15 @@ public class PurgeDatastoresStep implements ComputationStep {
   private void execute(Component root) {
     try (DbSession dbSession = dbClient.openSession(true)) {
       IdUuidPair idUuidPair = new IdUuidPair(dbIdsRepository.getComponentId(root), root.getUuid());
-      projectCleaner.purge(dbSession, idUuidPair, configRepository.getConfiguration(root), disabledComponentsHolder.getUuids());
+      Configuration config = configRepository.getConfiguration(root);
+      if (config.getBoolean(PurgeConstants.PROPERTY_ASYNC_PURGE).orElse(false)) {
+        // history is purged later by the housekeeping of Compute Engine, only the data
+        // of the components removed by the analysis must be purged right now
+        projectCleaner.purgeDisabledComponents(dbSession, idUuidPair, config, disabledComponentsHolder.getUuids());
+        dbClient.purgeQueueDao().enqueue(dbSession, root.getUuid());
+      } else {
+        projectCleaner.purge(dbSession, idUuidPair, config, disabledComponentsHolder.getUuids());
+      }
       dbSession.commit();
     }
   }
@@ -21,7 +21,10 @@ package org.sonar.server.computation.task.projectanalysis.taskprocessor;
 
 import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.CheckForNull;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
 import org.sonar.ce.queue.CeTask;
 import org.sonar.ce.queue.CeTaskResult;
 import org.sonar.ce.settings.SettingsLoader;
@@ -30,6 +33,7 @@ import org.sonar.core.platform.ComponentContainer;
 import org.sonar.db.ce.CeTaskTypes;
 import org.sonar.plugin.ce.ReportAnalysisComponentProvider;
 import org.sonar.server.computation.task.container.TaskContainer;
+import org.sonar.server.computation.task.container.TaskContainerStatistics;
 import org.sonar.server.computation.task.projectanalysis.container.ContainerFactory;
 import org.sonar.server.computation.task.step.ComputationStepExecutor;
 import org.sonar.server.computation.taskprocessor.TaskResultHolder;
@@ -37,28 +41,33 @@ import org.sonar.server.setting.ThreadLocalSettings;
 
 public class ReportTaskProcessor implements CeTaskProcessor {
 
+  private static final Logger LOG = Loggers.get(ReportTaskProcessor.class);
   private static final Set<String> HANDLED_TYPES = Collections.singleton(CeTaskTypes.REPORT);
 
   private final ContainerFactory containerFactory;
   private final ComponentContainer serverContainer;
+  private final TaskContainerStatistics containerStatistics;
   @CheckForNull
   private final ReportAnalysisComponentProvider[] componentProviders;
 
   /**
    * Used when at least one Privileged plugin is installed
    */
-  public ReportTaskProcessor(ContainerFactory containerFactory, ComponentContainer serverContainer, ReportAnalysisComponentProvider[] componentProviders) {
+  public ReportTaskProcessor(ContainerFactory containerFactory, ComponentContainer serverContainer, TaskContainerStatistics containerStatistics,
+    ReportAnalysisComponentProvider[] componentProviders) {
     this.containerFactory = containerFactory;
     this.serverContainer = serverContainer;
+    this.containerStatistics = containerStatistics;
     this.componentProviders = componentProviders;
   }
 
   /**
    * Used when no privileged plugin is installed
    */
-  public ReportTaskProcessor(ContainerFactory containerFactory, ComponentContainer serverContainer) {
+  public ReportTaskProcessor(ContainerFactory containerFactory, ComponentContainer serverContainer, TaskContainerStatistics containerStatistics) {
     this.containerFactory = containerFactory;
     this.serverContainer = serverContainer;
+    this.containerStatistics = containerStatistics;
     this.componentProviders = null;
   }
 
@@ -69,18 +78,29 @@ public class ReportTaskProcessor implements CeTaskProcessor {
 
   @Override
   public CeTaskResult process(CeTask task) {
+    long start = System.nanoTime();
     TaskContainer ceContainer = containerFactory.create(serverContainer, task, componentProviders);
+    long creationNanos = System.nanoTime() - start;
 
+    ComputationStepExecutor executor = null;
     try {
-      ceContainer.getComponentByType(ComputationStepExecutor.class).execute();
+      executor = ceContainer.getComponentByType(ComputationStepExecutor.class);
+      executor.execute();
       return ceContainer.getComponentByType(TaskResultHolder.class).getResult();
     } finally {
+      recordContainerSetup(creationNanos, executor == null ? 0L : executor.getResolutionTimeNanos());
       ensureThreadLocalIsClean(ceContainer);
 
       ceContainer.cleanup();
     }
   }
 
+  private void recordContainerSetup(long creationNanos, long resolutionNanos) {
+    containerStatistics.recordContainer(creationNanos, resolutionNanos);
+    LOG.debug("Container of task created in {} ms, steps resolved in {} ms",
+      TimeUnit.NANOSECONDS.toMillis(creationNanos), TimeUnit.NANOSECONDS.toMillis(resolutionNanos));
+  }
+
   /** safety call to clear ThreadLocal even if Pico container fails to call {@link SettingsLoader#stop()}) */
   private static void ensureThreadLocalIsClean(TaskContainer ceContainer) {
     ceContainer.getComponentByType(ThreadLocalSettings.class).unload();
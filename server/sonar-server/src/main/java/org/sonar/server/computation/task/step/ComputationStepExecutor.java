@@ -19,6 +19,7 @@
  */
 package org.sonar.server.computation.task.step;
 
+import java.util.Iterator;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.utils.log.Logger;
@@ -31,6 +32,7 @@ public final class ComputationStepExecutor {
   private final ComputationSteps steps;
   @CheckForNull
   private final Listener listener;
+  private long resolutionTimeNanos = 0L;
 
   /**
    * Used when no {@link ComputationStepExecutor.Listener} is available in pico
@@ -58,8 +60,20 @@ public final class ComputationStepExecutor {
     }
   }
 
+  /**
+   * Time spent getting the steps from the container during {@link #execute()}, in nanoseconds. It includes the
+   * instantiation of the steps and of their dependencies, which are lazily resolved by the container.
+   */
+  public long getResolutionTimeNanos() {
+    return resolutionTimeNanos;
+  }
+
   private void executeSteps(Profiler stepProfiler) {
-    for (ComputationStep step : steps.instances()) {
+    Iterator<ComputationStep> instances = steps.instances().iterator();
+    while (instances.hasNext()) {
+      long resolutionStart = System.nanoTime();
+      ComputationStep step = instances.next();
+      resolutionTimeNanos += System.nanoTime() - resolutionStart;
       stepProfiler.start();
       step.execute();
       stepProfiler.stopDebug(step.getDescription());
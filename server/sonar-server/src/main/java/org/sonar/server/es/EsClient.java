@@ -76,6 +76,11 @@ public class EsClient implements Closeable {
 
   public static final Logger LOGGER = Loggers.get("es");
 
+  /**
+   * Time spent waiting for Elasticsearch responses by each thread since its start
+   */
+  private static final ThreadLocal<long[]> THREAD_TIME_NANOS = ThreadLocal.withInitial(() -> new long[1]);
+
   private final Client nativeClient;
 
   public EsClient(Client nativeClient) {
@@ -207,4 +212,16 @@ public class EsClient implements Closeable {
   public void close() {
     nativeClient.close();
   }
+
+  /**
+   * Cumulated time of the requests executed by the current thread, in nanoseconds. Callers compute
+   * the difference between two calls to get the time spent in Elasticsearch by a unit of work.
+   */
+  public static long getCurrentThreadTimeNanos() {
+    return THREAD_TIME_NANOS.get()[0];
+  }
+
+  public static void addCurrentThreadTime(long durationNanos) {
+    THREAD_TIME_NANOS.get()[0] += durationNanos;
+  }
 }
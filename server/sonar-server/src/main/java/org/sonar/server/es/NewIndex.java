@@ -47,6 +47,9 @@ import static org.sonar.server.es.DefaultIndexSettingsElement.UUID_MODULE_ANALYZ
 
 public class NewIndex {
 
+  static final long DEFAULT_DOCUMENTS_PER_SHARD = 5_000_000L;
+  private static final int MAX_SHARDS = 128;
+
   private final String indexName;
   private final Settings.Builder settings = DefaultIndexSettings.defaults();
   private final Map<String, NewIndexType> types = new LinkedHashMap<>();
@@ -78,9 +81,22 @@ public class NewIndex {
     return types;
   }
 
+  /**
+   * The number of shards is, by order of precedence:
+   * <ul>
+   *   <li>the value of property "sonar.search.{index}.shards"</li>
+   *   <li>sized by projected volume when property "sonar.search.{index}.expectedDocuments" is set: one shard
+   *   per "sonar.search.{index}.documentsPerShard" documents (default is {@link #DEFAULT_DOCUMENTS_PER_SHARD})</li>
+   *   <li>{@code defaultNbOfShards}</li>
+   * </ul>
+   */
   public void configureShards(Configuration config, int defaultNbOfShards) {
     boolean clusterMode = config.getBoolean(ProcessProperties.CLUSTER_ENABLED).orElse(false);
-    int shards = config.getInt(format("sonar.search.%s.shards", indexName)).orElse(defaultNbOfShards);
+    int shards = config.getInt(format("sonar.search.%s.shards", indexName))
+      .orElseGet(() -> config.getLong(format("sonar.search.%s.expectedDocuments", indexName))
+        .map(expectedDocuments -> computeShards(expectedDocuments,
+          config.getLong(format("sonar.search.%s.documentsPerShard", indexName)).orElse(DEFAULT_DOCUMENTS_PER_SHARD)))
+        .orElse(defaultNbOfShards));
 
     int replicas = config.getInt(ProcessProperties.SEARCH_REPLICAS).orElse(clusterMode ? 1 : 0);
 
@@ -88,6 +104,12 @@ public class NewIndex {
     getSettings().put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, replicas);
   }
 
+  private static int computeShards(long expectedDocuments, long documentsPerShard) {
+    checkArgument(documentsPerShard > 0, "Number of documents per shard must be strictly positive: %s", documentsPerShard);
+    long shards = (expectedDocuments + documentsPerShard - 1) / documentsPerShard;
+    return (int) Math.min(MAX_SHARDS, Math.max(1L, shards));
+  }
+
   public static class NewIndexType {
     private final NewIndex index;
     private final String name;
@@ -38,11 +38,13 @@ public class ProxyClearCacheRequestBuilder extends ClearIndicesCacheRequestBuild
   @Override
   public ClearIndicesCacheResponse get() {
     Profiler profiler = Profiler.createIfTrace(EsClient.LOGGER).start();
+    long start = System.nanoTime();
     try {
       return super.execute().actionGet();
     } catch (Exception e) {
       throw new IllegalStateException(String.format("Fail to execute %s", toString()), e);
     } finally {
+      EsClient.addCurrentThreadTime(System.nanoTime() - start);
       if (profiler.isTraceEnabled()) {
         profiler.stopTrace(toString());
       }
@@ -63,6 +63,7 @@ public class IssueQuery {
   private final Collection<String> directories;
   private final Collection<String> files;
   private final Collection<String> views;
+  private final Collection<String> routingProjectUuids;
   private final Collection<RuleKey> rules;
   private final Collection<String> assignees;
   private final Collection<String> authors;
@@ -93,6 +94,7 @@ public class IssueQuery {
     this.directories = defaultCollection(builder.directories);
     this.files = defaultCollection(builder.files);
     this.views = defaultCollection(builder.views);
+    this.routingProjectUuids = defaultCollection(builder.routingProjectUuids);
     this.rules = defaultCollection(builder.rules);
     this.assignees = defaultCollection(builder.assignees);
     this.authors = defaultCollection(builder.authors);
@@ -156,6 +158,14 @@ public class IssueQuery {
     return views;
   }
 
+  /**
+   * Uuids of the projects containing the searched modules, directories or files. Unlike
+   * {@link #projectUuids()}, they do not filter issues but restrict the shards to be searched.
+   */
+  public Collection<String> routingProjectUuids() {
+    return routingProjectUuids;
+  }
+
   public Collection<RuleKey> rules() {
     return rules;
   }
@@ -254,6 +264,7 @@ public class IssueQuery {
     private Collection<String> directories;
     private Collection<String> files;
     private Collection<String> views;
+    private Collection<String> routingProjectUuids;
     private Collection<RuleKey> rules;
     private Collection<String> assignees;
     private Collection<String> authors;
@@ -331,6 +342,11 @@ public class IssueQuery {
       return this;
     }
 
+    public Builder routingProjectUuids(@Nullable Collection<String> l) {
+      this.routingProjectUuids = l;
+      return this;
+    }
+
     public Builder rules(@Nullable Collection<RuleKey> rules) {
       this.rules = rules;
       return this;
@@ -30,6 +30,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
@@ -299,13 +300,16 @@ public class IssueQueryFactory {
         break;
       case Qualifiers.MODULE:
         builder.moduleRootUuids(componentUuids);
+        addRoutingProjects(builder, componentUuids, components);
         break;
       case Qualifiers.DIRECTORY:
         addDirectories(builder, components);
+        addRoutingProjects(builder, componentUuids, components);
         break;
       case Qualifiers.FILE:
       case Qualifiers.UNIT_TEST_FILE:
         builder.fileUuids(componentUuids);
+        addRoutingProjects(builder, componentUuids, components);
         break;
       default:
         throw new IllegalArgumentException("Unable to set search root context for components " + Joiner.on(',').join(componentUuids));
@@ -336,6 +340,16 @@ public class IssueQueryFactory {
     builder.directories(directoryPaths);
   }
 
+  /**
+   * Issues are routed by project uuid, so searching the components of a few projects does not require
+   * to hit all the shards. Routing is not enabled if some components are unknown.
+   */
+  private static void addRoutingProjects(IssueQuery.Builder builder, Collection<String> componentUuids, List<ComponentDto> components) {
+    if (components.size() == new HashSet<>(componentUuids).size()) {
+      builder.routingProjectUuids(components.stream().map(ComponentDto::projectUuid).collect(MoreCollectors.toSet()));
+    }
+  }
+
   private Collection<String> convertComponentKeysToUuids(DbSession dbSession, Collection<String> componentKeys) {
     List<String> componentUuids = dbClient.componentDao().selectByKeys(dbSession, componentKeys).stream().map(ComponentDto::uuid).collect(MoreCollectors.toList());
     // If unknown components are given, but no components are found, then all issues will be returned,
@@ -0,0 +1,195 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue.index;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.sonar.api.server.ServerSide;
+import org.sonar.api.utils.System2;
+import org.sonar.server.es.Facets;
+import org.sonar.server.platform.monitoring.Monitor;
+
+import static com.google.common.collect.ImmutableSet.copyOf;
+
+/**
+ * Cache of the facets returned by {@link IssueIndex#search(IssueQuery, org.sonar.server.es.SearchOptions)}
+ * for the searches restricted to some projects.
+ * <p>
+ * Keys contain the version of the issues of the projects, so entries are not reused once issues are
+ * indexed by Compute Engine. Entries of a project are also invalidated by {@link IssueIndexer} when issues
+ * of this project are indexed or deleted by the current process, and expire after {@link #TTL_MS}
+ * milliseconds. The cache is bounded by the total number of facet
+ * values ({@link #MAX_WEIGHT}), least recently used entries being evicted first.
+ */
+@ServerSide
+public class IssueFacetsCache implements Monitor {
+
+  @VisibleForTesting
+  static final long TTL_MS = TimeUnit.MINUTES.toMillis(10);
+
+  @VisibleForTesting
+  static final int MAX_WEIGHT = 200_000;
+
+  private final System2 system2;
+  private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75F, true);
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private int weight = 0;
+
+  public IssueFacetsCache(System2 system2) {
+    this.system2 = system2;
+  }
+
+  public synchronized Optional<Facets> get(Key key) {
+    Entry entry = entries.get(key);
+    if (entry == null || system2.now() - entry.createdAt >= TTL_MS) {
+      if (entry != null) {
+        remove(key);
+      }
+      misses.incrementAndGet();
+      return Optional.empty();
+    }
+    hits.incrementAndGet();
+    return Optional.of(copy(entry.facets));
+  }
+
+  public synchronized void put(Key key, Facets facets) {
+    remove(key);
+    Entry entry = new Entry(copy(facets), system2.now());
+    if (entry.weight > MAX_WEIGHT) {
+      return;
+    }
+    entries.put(key, entry);
+    weight += entry.weight;
+    Iterator<Entry> eldest = entries.values().iterator();
+    while (weight > MAX_WEIGHT) {
+      weight -= eldest.next().weight;
+      eldest.remove();
+    }
+  }
+
+  public synchronized void invalidate(Collection<String> projectUuids) {
+    Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<Key, Entry> entry = it.next();
+      if (projectUuids.stream().anyMatch(entry.getKey().projectUuids::contains)) {
+        weight -= entry.getValue().weight;
+        it.remove();
+      }
+    }
+  }
+
+  public synchronized void invalidateAll() {
+    entries.clear();
+    weight = 0;
+  }
+
+  /**
+   * Facets are copied as they can be completed by callers
+   */
+  private static Facets copy(Facets facets) {
+    LinkedHashMap<String, LinkedHashMap<String, Long>> copy = new LinkedHashMap<>();
+    facets.getAll().forEach((name, values) -> copy.put(name, new LinkedHashMap<>(values)));
+    return new Facets(copy);
+  }
+
+  private void remove(Key key) {
+    Entry removed = entries.remove(key);
+    if (removed != null) {
+      weight -= removed.weight;
+    }
+  }
+
+  @Override
+  public String name() {
+    return "Issue Facets Cache";
+  }
+
+  @Override
+  public synchronized Map<String, Object> attributes() {
+    long h = hits.get();
+    long m = misses.get();
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    attributes.put("Entries", entries.size());
+    attributes.put("Facet Values", weight);
+    attributes.put("Hits", h);
+    attributes.put("Misses", m);
+    attributes.put("Hit Ratio", h + m == 0 ? 0D : ((double) h / (h + m)));
+    return attributes;
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public static final class Key {
+    private final Set<String> projectUuids;
+    private final String query;
+
+    /**
+     * @param projectUuids the projects the search is restricted to
+     * @param query normalized representation of the search request, including the facets
+     */
+    public Key(Collection<String> projectUuids, String query) {
+      this.projectUuids = copyOf(projectUuids);
+      this.query = query;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key key = (Key) o;
+      return projectUuids.equals(key.projectUuids) && query.equals(key.query);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * projectUuids.hashCode() + query.hashCode();
+    }
+  }
+
+  private static final class Entry {
+    private final Facets facets;
+    private final long createdAt;
+    private final int weight;
+
+    private Entry(Facets facets, long createdAt) {
+      this.facets = facets;
+      this.createdAt = createdAt;
+      this.weight = 1 + facets.getAll().values().stream().mapToInt(Map::size).sum();
+    }
+  }
+}
@@ -21,6 +21,7 @@ package org.sonar.server.issue.index;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import java.util.Collection;
 import java.util.Collections;
@@ -31,6 +32,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.TimeZone;
 import java.util.regex.Pattern;
 import javax.annotation.CheckForNull;
@@ -51,6 +53,7 @@ import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInter
 import org.elasticsearch.search.aggregations.bucket.terms.Terms;
 import org.elasticsearch.search.aggregations.bucket.terms.Terms.Order;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsBuilder;
+import org.elasticsearch.search.aggregations.metrics.max.Max;
 import org.elasticsearch.search.aggregations.metrics.min.Min;
 import org.elasticsearch.search.aggregations.metrics.sum.SumBuilder;
 import org.joda.time.Duration;
@@ -58,11 +61,13 @@ import org.sonar.api.issue.Issue;
 import org.sonar.api.resources.Scopes;
 import org.sonar.api.utils.DateUtils;
 import org.sonar.api.utils.System2;
+import org.sonar.api.web.UserRole;
 import org.sonar.core.util.stream.MoreCollectors;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.organization.OrganizationDto;
 import org.sonar.server.es.EsClient;
 import org.sonar.server.es.EsUtils;
+import org.sonar.server.es.Facets;
 import org.sonar.server.es.SearchOptions;
 import org.sonar.server.es.SearchResult;
 import org.sonar.server.es.Sorting;
@@ -128,6 +133,11 @@ public class IssueIndex {
     PARAM_TYPES,
     PARAM_CREATED_AT);
 
+  /**
+   * Facets which ignore the filters on modules, directories or files
+   */
+  private static final Set<String> FACETS_ON_COMPONENTS = ImmutableSet.of(PARAM_PROJECT_UUIDS, PARAM_MODULE_UUIDS, PARAM_FILE_UUIDS, PARAM_DIRECTORIES);
+
   // TODO to be documented
   // TODO move to Facets ?
   private static final String FACET_SUFFIX_MISSING = "_missing";
@@ -143,18 +153,30 @@ public class IssueIndex {
   private static final Duration TWENTY_MONTHS = Duration.standardDays(20L * 30L);
 
   public static final String AGGREGATION_NAME_FOR_TAGS = "tags__issues";
+  private static final String AGGREGATION_NAME_FOR_ISSUES_VERSION = "issuesVersion";
 
   private final Sorting sorting;
   private final EsClient client;
   private final System2 system;
   private final UserSession userSession;
   private final AuthorizationTypeSupport authorizationTypeSupport;
+  @Nullable
+  private final IssueFacetsCache facetsCache;
 
+  /**
+   * Used by Compute Engine, where facets are not cached
+   */
   public IssueIndex(EsClient client, System2 system, UserSession userSession, AuthorizationTypeSupport authorizationTypeSupport) {
+    this(client, system, userSession, authorizationTypeSupport, null);
+  }
+
+  public IssueIndex(EsClient client, System2 system, UserSession userSession, AuthorizationTypeSupport authorizationTypeSupport,
+    @Nullable IssueFacetsCache facetsCache) {
     this.client = client;
     this.system = system;
     this.userSession = userSession;
     this.authorizationTypeSupport = authorizationTypeSupport;
+    this.facetsCache = facetsCache;
 
     this.sorting = new Sorting();
     this.sorting.add(IssueQuery.SORT_BY_ASSIGNEE, IssueIndexDefinition.FIELD_ISSUE_ASSIGNEE);
@@ -199,25 +221,132 @@ public class IssueIndex {
       requestBuilder.setQuery(esQuery);
     }
 
+    Optional<IssueFacetsCache.Key> facetsCacheKey = createFacetsCacheKey(query, options);
+    Optional<Facets> cachedFacets = facetsCacheKey.flatMap(key -> facetsCache.get(key));
+    if (cachedFacets.isPresent()) {
+      return new SearchResult<>(requestBuilder.get(), IssueDoc::new, cachedFacets.get());
+    }
+
     configureStickyFacets(query, options, filters, esQuery, requestBuilder);
-    SearchResponse response = requestBuilder.get();
-    return new SearchResult<>(response, IssueDoc::new);
+    SearchResult<IssueDoc> result = new SearchResult<>(requestBuilder.get(), IssueDoc::new);
+    facetsCacheKey.ifPresent(key -> facetsCache.put(key, result.getFacets()));
+    return result;
+  }
+
+  /**
+   * Facets are cached only when the search is restricted to some projects that user can browse, so that
+   * they do not depend on the permissions of user. The facet on projects is not cached as it ignores the
+   * filter on projects. The histogram of creation dates is not cached when its upper bound is the current date.
+   * <p>
+   * The key contains the version of the issues of the projects, so that facets are not reused once issues
+   * are indexed by another process (for example Compute Engine).
+   */
+  private Optional<IssueFacetsCache.Key> createFacetsCacheKey(IssueQuery query, SearchOptions options) {
+    Collection<String> facets = options.getFacets();
+    if (facetsCache == null || facets.isEmpty() || query.projectUuids().isEmpty()
+      || facets.contains(PARAM_PROJECT_UUIDS)
+      || (facets.contains(PARAM_CREATED_AT) && query.createdBefore() == null)
+      || (query.checkAuthorization() && !query.projectUuids().stream().allMatch(uuid -> userSession.hasComponentUuidPermission(UserRole.USER, uuid)))) {
+      return Optional.empty();
+    }
+    StringBuilder key = new StringBuilder();
+    appendToKey(key, "issueKeys", query.issueKeys());
+    appendToKey(key, "severities", query.severities());
+    appendToKey(key, "statuses", query.statuses());
+    appendToKey(key, "resolutions", query.resolutions());
+    appendToKey(key, "componentUuids", query.componentUuids());
+    appendToKey(key, "moduleUuids", query.moduleUuids());
+    appendToKey(key, "moduleRootUuids", query.moduleRootUuids());
+    appendToKey(key, "projectUuids", query.projectUuids());
+    appendToKey(key, "directories", query.directories());
+    appendToKey(key, "fileUuids", query.fileUuids());
+    appendToKey(key, "viewUuids", query.viewUuids());
+    appendToKey(key, "rules", query.rules());
+    appendToKey(key, "assignees", query.assignees());
+    appendToKey(key, "authors", query.authors());
+    appendToKey(key, "languages", query.languages());
+    appendToKey(key, "tags", query.tags());
+    appendToKey(key, "types", query.types());
+    appendToKey(key, "onComponentOnly", query.onComponentOnly());
+    appendToKey(key, "assigned", query.assigned());
+    appendToKey(key, "resolved", query.resolved());
+    appendToKey(key, "createdAfter", toTime(query.createdAfter()));
+    appendToKey(key, "createdAt", toTime(query.createdAt()));
+    appendToKey(key, "createdBefore", toTime(query.createdBefore()));
+    appendToKey(key, "checkAuthorization", query.checkAuthorization());
+    appendToKey(key, "organizationUuid", query.organizationUuid());
+    appendToKey(key, "facetMode", query.facetMode());
+    appendToKey(key, "facets", facets);
+    if (facets.contains(FACET_ASSIGNED_TO_ME)) {
+      appendToKey(key, "login", userSession.getLogin());
+    }
+    appendToKey(key, "issuesVersion", loadIssuesVersion(query.projectUuids()));
+    return Optional.of(new IssueFacetsCache.Key(query.projectUuids(), key.toString()));
+  }
+
+  private static void appendToKey(StringBuilder key, String name, @Nullable Object value) {
+    key.append(name).append('=');
+    if (value instanceof Collection) {
+      ((Collection<?>) value).stream().map(String::valueOf).sorted().forEach(v -> key.append(v).append(','));
+    } else {
+      key.append(value);
+    }
+    key.append(';');
+  }
+
+  @CheckForNull
+  private static Long toTime(@Nullable Date date) {
+    return date == null ? null : date.getTime();
+  }
+
+  /**
+   * Number of issues of the projects and greatest date of technical update. It changes as soon as issues of
+   * the projects are indexed, whatever the process.
+   */
+  private String loadIssuesVersion(Collection<String> projectUuids) {
+    SearchRequestBuilder request = client.prepareSearch(INDEX_TYPE_ISSUE)
+      .setQuery(boolQuery().filter(termsQuery(IssueIndexDefinition.FIELD_ISSUE_PROJECT_UUID, projectUuids)))
+      .setSize(0)
+      .addAggregation(AggregationBuilders.max(AGGREGATION_NAME_FOR_ISSUES_VERSION).field(IssueIndexDefinition.FIELD_ISSUE_TECHNICAL_UPDATED_AT));
+    setRouting(request, projectUuids);
+    SearchResponse response = request.get();
+    Max lastUpdate = response.getAggregations().get(AGGREGATION_NAME_FOR_ISSUES_VERSION);
+    return response.getHits().totalHits() + "/" + (long) lastUpdate.getValue();
   }
 
   /**
    * Optimization - do not send ES request to all shards when scope is restricted
    * to a set of projects. Because project UUID is used for routing, the request
    * can be sent to only the shards containing the specified projects.
-   * Note that sticky facets may involve all projects, so this optimization must be
-   * disabled when facets are enabled.
+   * Note that a sticky facet ignores its own filter, so this optimization must be
+   * disabled when the facet on the filter restricting projects is enabled.
    */
   private static void configureRouting(IssueQuery query, SearchOptions options, SearchRequestBuilder requestBuilder) {
-    Collection<String> uuids = query.projectUuids();
-    if (!uuids.isEmpty() && options.getFacets().isEmpty()) {
-      requestBuilder.setRouting(uuids.toArray(new String[uuids.size()]));
+    Collection<String> facets = options.getFacets();
+    if (!query.projectUuids().isEmpty()) {
+      if (!facets.contains(PARAM_PROJECT_UUIDS)) {
+        setRouting(requestBuilder, query.projectUuids());
+      }
+    } else if (facets.stream().noneMatch(FACETS_ON_COMPONENTS::contains)) {
+      configureRouting(query, requestBuilder);
     }
   }
 
+  /**
+   * Same as {@link #configureRouting(IssueQuery, SearchOptions, SearchRequestBuilder)} for requests without sticky facets
+   */
+  private static void configureRouting(IssueQuery query, SearchRequestBuilder requestBuilder) {
+    if (!query.projectUuids().isEmpty()) {
+      setRouting(requestBuilder, query.projectUuids());
+    } else if (!query.routingProjectUuids().isEmpty()) {
+      setRouting(requestBuilder, query.routingProjectUuids());
+    }
+  }
+
+  private static void setRouting(SearchRequestBuilder requestBuilder, Collection<String> projectUuids) {
+    requestBuilder.setRouting(projectUuids.toArray(new String[projectUuids.size()]));
+  }
+
   private void configureSorting(IssueQuery query, SearchRequestBuilder esRequest) {
     String sortField = query.sort();
     if (sortField != null) {
@@ -426,7 +555,7 @@ public class IssueIndex {
     long startTime;
     Date createdAfter = query.createdAfter();
     if (createdAfter == null) {
-      Optional<Long> minDate = getMinCreatedAt(filters, esQuery);
+      Optional<Long> minDate = getMinCreatedAt(query, filters, esQuery);
       if (!minDate.isPresent()) {
         return Optional.empty();
       }
@@ -463,11 +592,12 @@ public class IssueIndex {
     return Optional.of(dateHistogram);
   }
 
-  private Optional<Long> getMinCreatedAt(Map<String, QueryBuilder> filters, QueryBuilder esQuery) {
+  private Optional<Long> getMinCreatedAt(IssueQuery query, Map<String, QueryBuilder> filters, QueryBuilder esQuery) {
     String facetNameAndField = IssueIndexDefinition.FIELD_ISSUE_FUNC_CREATED_AT;
     SearchRequestBuilder esRequest = client
       .prepareSearch(INDEX_TYPE_ISSUE)
       .setSize(0);
+    configureRouting(query, esRequest);
     BoolQueryBuilder esFilter = boolQuery();
     filters.values().stream().filter(Objects::nonNull).forEach(esFilter::must);
     if (esFilter.hasClauses()) {
@@ -619,6 +749,7 @@ public class IssueIndex {
       .prepareSearch(INDEX_TYPE_ISSUE)
       // Avoids returning search hits
       .setSize(0);
+    configureRouting(query, requestBuilder);
 
     requestBuilder.setQuery(boolQuery().must(QueryBuilders.matchAllQuery()).filter(createBoolFilter(query)));
 
@@ -650,9 +781,21 @@ public class IssueIndex {
    * Only fields needed for the batch are returned.
    */
   public Iterator<IssueDoc> selectIssuesForBatch(ComponentDto component) {
+    return selectIssuesForBatch(component, null);
+  }
+
+  /**
+   * @param changedSince if not null, only the issues updated since this date are returned, including the closed ones,
+   *                     so that the caller can synchronize a local copy of the open issues.
+   */
+  public Iterator<IssueDoc> selectIssuesForBatch(ComponentDto component, @Nullable Date changedSince) {
     BoolQueryBuilder filter = boolQuery()
-      .must(createAuthorizationFilter(true))
-      .mustNot(termsQuery(IssueIndexDefinition.FIELD_ISSUE_STATUS, Issue.STATUS_CLOSED));
+      .must(createAuthorizationFilter(true));
+    if (changedSince == null) {
+      filter.mustNot(termsQuery(IssueIndexDefinition.FIELD_ISSUE_STATUS, Issue.STATUS_CLOSED));
+    } else {
+      filter.must(QueryBuilders.rangeQuery(IssueIndexDefinition.FIELD_ISSUE_TECHNICAL_UPDATED_AT).gte(changedSince));
+    }
 
     switch (component.scope()) {
       case Scopes.PROJECT:
@@ -667,6 +810,7 @@ public class IssueIndex {
 
     SearchRequestBuilder requestBuilder = client
       .prepareSearch(INDEX_TYPE_ISSUE)
+      .setRouting(component.projectUuid())
       .setSearchType(SearchType.SCAN)
       .setScroll(TimeValue.timeValueMinutes(EsUtils.SCROLL_TIME_IN_MINUTES))
       .setSize(10_000)
@@ -675,7 +819,7 @@ public class IssueIndex {
           IssueIndexDefinition.FIELD_ISSUE_FILE_PATH, IssueIndexDefinition.FIELD_ISSUE_SEVERITY, IssueIndexDefinition.FIELD_ISSUE_MANUAL_SEVERITY,
           IssueIndexDefinition.FIELD_ISSUE_RESOLUTION, IssueIndexDefinition.FIELD_ISSUE_STATUS, IssueIndexDefinition.FIELD_ISSUE_ASSIGNEE,
           IssueIndexDefinition.FIELD_ISSUE_LINE, IssueIndexDefinition.FIELD_ISSUE_MESSAGE, IssueIndexDefinition.FIELD_ISSUE_CHECKSUM,
-          IssueIndexDefinition.FIELD_ISSUE_TYPE, IssueIndexDefinition.FIELD_ISSUE_FUNC_CREATED_AT},
+          IssueIndexDefinition.FIELD_ISSUE_TYPE, IssueIndexDefinition.FIELD_ISSUE_FUNC_CREATED_AT, IssueIndexDefinition.FIELD_ISSUE_TECHNICAL_UPDATED_AT},
         null)
       .setQuery(boolQuery().must(matchAllQuery()).filter(filter));
     SearchResponse response = requestBuilder.get();
@@ -297,11 +297,10 @@ public class SearchAction implements IssuesWsAction {
 
   @Override
   public final void handle(Request request, Response response) throws Exception {
-    SearchWsResponse searchWsResponse = doHandle(toSearchWsRequest(request), request);
-    writeProtobuf(searchWsResponse, request, response);
+    doHandle(toSearchWsRequest(request), request, response);
   }
 
-  private SearchWsResponse doHandle(SearchWsRequest request, Request wsRequest) {
+  private void doHandle(SearchWsRequest request, Request wsRequest, Response wsResponse) {
     // prepare the Elasticsearch request
     SearchOptions options = createSearchOptionsFromRequest(request);
     EnumSet<SearchAdditionalField> additionalFields = SearchAdditionalField.getFromRequest(request);
@@ -336,7 +335,9 @@ public class SearchAction implements IssuesWsAction {
     // FIXME allow long in Paging
     Paging paging = forPageIndex(options.getPage()).withPageSize(options.getLimit()).andTotal((int) result.getTotal());
 
-    return searchResponseFormat.formatSearch(additionalFields, data, paging, facets);
+    // issues are the largest part of the response. They are formatted and written one by one.
+    SearchWsResponse searchWsResponse = searchResponseFormat.formatSearchWithoutIssues(additionalFields, data, paging, facets);
+    writeProtobuf(searchWsResponse, "issues", searchResponseFormat.formatIssues(additionalFields, data), wsRequest, wsResponse);
   }
 
   private static SearchOptions createSearchOptionsFromRequest(SearchWsRequest request) {
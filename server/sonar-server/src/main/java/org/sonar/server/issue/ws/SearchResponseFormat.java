@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -78,13 +79,16 @@ public class SearchResponseFormat {
     this.avatarFactory = avatarFactory;
   }
 
-  public SearchWsResponse formatSearch(Set<SearchAdditionalField> fields, SearchResponseData data,
+  /**
+   * Formats the response of api/issues/search, except the issues which are formatted on demand by
+   * {@link #formatIssues(Set, SearchResponseData)} when they are streamed to the response.
+   */
+  public SearchWsResponse formatSearchWithoutIssues(Set<SearchAdditionalField> fields, SearchResponseData data,
     Paging paging, @Nullable Facets facets) {
     SearchWsResponse.Builder response = SearchWsResponse.newBuilder();
 
     formatPaging(paging, response);
     formatEffortTotal(data, response);
-    response.addAllIssues(formatIssues(fields, data));
     response.addAllComponents(formatComponents(data));
     if (facets != null) {
       formatFacets(facets, response);
@@ -134,24 +138,27 @@ public class SearchResponseFormat {
     response.setPaging(commonFormat.formatPaging(paging));
   }
 
-  private List<Issues.Issue> formatIssues(Set<SearchAdditionalField> fields, SearchResponseData data) {
-    List<Issues.Issue> result = new ArrayList<>();
+  /**
+   * Issues are formatted one by one, when iterating, so that they do not have to be kept in memory.
+   */
+  public Iterator<Issue> formatIssues(Set<SearchAdditionalField> fields, SearchResponseData data) {
     Issue.Builder issueBuilder = Issue.newBuilder();
-    data.getIssues().forEach(dto -> {
-      issueBuilder.clear();
-      formatIssue(issueBuilder, dto, data);
-      if (fields.contains(SearchAdditionalField.ACTIONS)) {
-        formatIssueActions(data, issueBuilder, dto);
-      }
-      if (fields.contains(SearchAdditionalField.TRANSITIONS)) {
-        formatIssueTransitions(data, issueBuilder, dto);
-      }
-      if (fields.contains(SearchAdditionalField.COMMENTS)) {
-        formatIssueComments(data, issueBuilder, dto);
-      }
-      result.add(issueBuilder.build());
-    });
-    return result;
+    return data.getIssues().stream()
+      .map(dto -> {
+        issueBuilder.clear();
+        formatIssue(issueBuilder, dto, data);
+        if (fields.contains(SearchAdditionalField.ACTIONS)) {
+          formatIssueActions(data, issueBuilder, dto);
+        }
+        if (fields.contains(SearchAdditionalField.TRANSITIONS)) {
+          formatIssueTransitions(data, issueBuilder, dto);
+        }
+        if (fields.contains(SearchAdditionalField.COMMENTS)) {
+          formatIssueComments(data, issueBuilder, dto);
+        }
+        return issueBuilder.build();
+      })
+      .iterator();
   }
 
   private void formatIssue(Issue.Builder issueBuilder, IssueDto dto, SearchResponseData data) {
@@ -80,7 +80,7 @@ public class SearchResponseLoader {
    */
   public SearchResponseData load(Collector collector, @Nullable Facets facets) {
     try (DbSession dbSession = dbClient.openSession(false)) {
-      SearchResponseData result = new SearchResponseData(dbClient.issueDao().selectByOrderedKeys(dbSession, collector.getIssueKeys()));
+      SearchResponseData result = new SearchResponseData(loadIssues(collector, dbSession));
       collector.collect(result.getIssues());
 
       loadRules(collector, dbSession, result);
@@ -122,6 +122,17 @@ public class SearchResponseLoader {
     }
   }
 
+  /**
+   * Complete issues are required only to compute actions and transitions. Otherwise only the columns
+   * which are displayed in the response are selected.
+   */
+  private List<IssueDto> loadIssues(Collector collector, DbSession dbSession) {
+    if (collector.contains(ACTIONS) || collector.contains(TRANSITIONS)) {
+      return dbClient.issueDao().selectByOrderedKeys(dbSession, collector.getIssueKeys());
+    }
+    return dbClient.issueDao().selectForSearchByOrderedKeys(dbSession, collector.getIssueKeys());
+  }
+
   private List<IssueDto> loadIssues(SearchResponseData preloadedResponseData, Collector collector, DbSession dbSession) {
     List<IssueDto> preloadedIssues = preloadedResponseData.getIssues();
     Set<String> preloadedIssueKeys = preloadedIssues.stream().map(IssueDto::getKey).collect(MoreCollectors.toSet(preloadedIssues.size()));
@@ -53,6 +53,7 @@ import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTreeQuery;
 import org.sonar.db.component.SnapshotDto;
 import org.sonar.db.measure.MeasureDto;
+import org.sonar.db.measure.MeasureQuery;
 import org.sonar.db.measure.MeasureTreeQuery;
 import org.sonar.db.metric.MetricDto;
 import org.sonar.db.metric.MetricDtoFunctions;
@@ -71,6 +72,8 @@ import static org.sonar.api.utils.Paging.offset;
 import static org.sonar.server.component.ComponentFinder.ParamNames.BASE_COMPONENT_ID_AND_KEY;
 import static org.sonar.server.component.ComponentFinder.ParamNames.DEVELOPER_ID_AND_KEY;
 import static org.sonar.server.measure.ws.ComponentTreeAction.LEAVES_STRATEGY;
+import static org.sonar.server.measure.ws.ComponentTreeAction.METRIC_PERIOD_SORT;
+import static org.sonar.server.measure.ws.ComponentTreeAction.METRIC_SORT;
 import static org.sonar.server.measure.ws.ComponentTreeAction.STRATEGIES;
 import static org.sonar.server.measure.ws.ComponentTreeAction.WITH_MEASURES_ONLY_METRIC_SORT_FILTER;
 import static org.sonar.server.measure.ws.SnapshotDtoToWsPeriods.snapshotToWsPeriods;
@@ -106,15 +109,19 @@ public class ComponentTreeDataLoader {
       ComponentTreeQuery componentTreeQuery = toComponentTreeQuery(wsRequest, baseComponent);
       List<ComponentDto> components = searchComponents(dbSession, componentTreeQuery);
       List<MetricDto> metrics = searchMetrics(dbSession, wsRequest);
-      Table<String, MetricDto, Measure> measuresByComponentUuidAndMetric = searchMeasuresByComponentUuidAndMetric(dbSession, baseComponent, componentTreeQuery,
+      // only the measures of the metric used to sort or to filter components are loaded for the whole tree.
+      // Measures of the other metrics are loaded for the requested page only.
+      Table<String, MetricDto, Measure> sortMeasuresByComponentUuidAndMetric = searchMeasuresByComponentUuidAndMetric(dbSession, baseComponent, componentTreeQuery,
         components,
-        metrics, developerId);
+        searchSortMetrics(metrics, wsRequest), developerId);
 
-      components = filterComponents(components, measuresByComponentUuidAndMetric, metrics, wsRequest);
-      components = sortComponents(components, wsRequest, metrics, measuresByComponentUuidAndMetric);
+      components = filterComponents(components, sortMeasuresByComponentUuidAndMetric, metrics, wsRequest);
+      components = sortComponents(components, wsRequest, metrics, sortMeasuresByComponentUuidAndMetric);
 
       int componentCount = components.size();
       components = paginateComponents(components, wsRequest);
+      Table<String, MetricDto, Measure> measuresByComponentUuidAndMetric = searchMeasuresOfPageByComponentUuidAndMetric(dbSession, baseComponent, components,
+        metrics, developerId);
 
       return ComponentTreeData.builder()
         .setBaseComponent(baseComponent)
@@ -182,6 +189,9 @@ public class ComponentTreeDataLoader {
     ComponentTreeQuery componentTreeQuery,
     List<ComponentDto> components, List<MetricDto> metrics, @Nullable Long developerId) {
 
+    if (metrics.isEmpty()) {
+      return HashBasedTable.create();
+    }
     Map<Integer, MetricDto> metricsById = Maps.uniqueIndex(metrics, MetricDto::getId);
     MeasureTreeQuery measureQuery = MeasureTreeQuery.builder()
       .setStrategy(MeasureTreeQuery.Strategy.valueOf(componentTreeQuery.getStrategy().name()))
@@ -205,6 +215,44 @@ public class ComponentTreeDataLoader {
     return measuresByComponentUuidAndMetric;
   }
 
+  private Table<String, MetricDto, Measure> searchMeasuresOfPageByComponentUuidAndMetric(DbSession dbSession, ComponentDto baseComponent,
+    List<ComponentDto> components, List<MetricDto> metrics, @Nullable Long developerId) {
+    Map<Integer, MetricDto> metricsById = Maps.uniqueIndex(metrics, MetricDto::getId);
+    List<String> componentUuids = new ArrayList<>(components.size() + 1);
+    componentUuids.add(baseComponent.uuid());
+    components.forEach(component -> componentUuids.add(component.uuid()));
+    MeasureQuery measureQuery = MeasureQuery.builder()
+      .setComponentUuids(baseComponent.projectUuid(), componentUuids)
+      .setMetricIds(new ArrayList<>(metricsById.keySet()))
+      .setPersonId(developerId)
+      .build();
+
+    Table<String, MetricDto, Measure> measuresByComponentUuidAndMetric = HashBasedTable.create(componentUuids.size(), metrics.size());
+    dbClient.measureDao().selectByQuery(dbSession, measureQuery).forEach(measureDto -> measuresByComponentUuidAndMetric.put(
+      measureDto.getComponentUuid(),
+      metricsById.get(measureDto.getMetricId()),
+      Measure.createFromMeasureDto(measureDto)));
+
+    addBestValuesToMeasures(measuresByComponentUuidAndMetric, components, metrics);
+
+    return measuresByComponentUuidAndMetric;
+  }
+
+  /**
+   * The metric used to sort or to filter components, if any
+   */
+  private static List<MetricDto> searchSortMetrics(List<MetricDto> metrics, ComponentTreeWsRequest wsRequest) {
+    String metricKeyToSort = wsRequest.getMetricSort();
+    List<String> sortParameters = wsRequest.getSort();
+    boolean sortedByMetric = sortParameters != null && (sortParameters.contains(METRIC_SORT) || sortParameters.contains(METRIC_PERIOD_SORT));
+    if (metricKeyToSort == null || !(sortedByMetric || componentWithMeasuresOnly(wsRequest))) {
+      return Collections.emptyList();
+    }
+    return metrics.stream()
+      .filter(metric -> metricKeyToSort.equals(metric.getKey()))
+      .collect(MoreCollectors.toList(1));
+  }
+
   /**
    * Conditions for best value measure:
    * <ul>
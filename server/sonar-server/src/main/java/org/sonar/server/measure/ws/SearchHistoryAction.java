@@ -20,11 +20,12 @@
 package org.sonar.server.measure.ws;
 
 import com.google.common.collect.Sets;
-import java.util.Date;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Stream;
+import javax.annotation.Nullable;
 import org.sonar.api.server.ws.Request;
 import org.sonar.api.server.ws.Response;
 import org.sonar.api.server.ws.WebService;
@@ -39,7 +40,6 @@ import org.sonar.db.component.SnapshotQuery;
 import org.sonar.db.component.SnapshotQuery.SORT_FIELD;
 import org.sonar.db.component.SnapshotQuery.SORT_ORDER;
 import org.sonar.db.measure.MeasureDto;
-import org.sonar.db.measure.PastMeasureQuery;
 import org.sonar.db.metric.MetricDto;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.user.UserSession;
@@ -56,10 +56,12 @@ import static org.sonar.server.ws.WsUtils.writeProtobuf;
 import static org.sonarqube.ws.client.measure.MeasuresWsParameters.ACTION_SEARCH_HISTORY;
 import static org.sonarqube.ws.client.measure.MeasuresWsParameters.PARAM_COMPONENT;
 import static org.sonarqube.ws.client.measure.MeasuresWsParameters.PARAM_FROM;
+import static org.sonarqube.ws.client.measure.MeasuresWsParameters.PARAM_MAX_POINTS;
 import static org.sonarqube.ws.client.measure.MeasuresWsParameters.PARAM_METRICS;
 import static org.sonarqube.ws.client.measure.MeasuresWsParameters.PARAM_TO;
 import static org.sonarqube.ws.client.measure.SearchHistoryRequest.DEFAULT_PAGE_SIZE;
 import static org.sonarqube.ws.client.measure.SearchHistoryRequest.MAX_PAGE_SIZE;
+import static org.sonarqube.ws.client.measure.SearchHistoryRequest.MAX_POINTS;
 
 public class SearchHistoryAction implements MeasuresWsAction {
   private final DbClient dbClient;
@@ -78,6 +80,7 @@ public class SearchHistoryAction implements MeasuresWsAction {
       .setMetrics(request.mandatoryParamAsStrings(PARAM_METRICS))
       .setFrom(request.param(PARAM_FROM))
       .setTo(request.param(PARAM_TO))
+      .setMaxPoints(request.paramAsInt(PARAM_MAX_POINTS))
       .setPage(request.mandatoryParamAsInt(Param.PAGE))
       .setPageSize(request.mandatoryParamAsInt(Param.PAGE_SIZE))
       .build();
@@ -112,6 +115,13 @@ public class SearchHistoryAction implements MeasuresWsAction {
       .setDescription("Filter issues created before the given date (inclusive). Format: date or datetime ISO formats")
       .setExampleValue("2013-05-01 (or 2013-05-01T13:00:00+0100)");
 
+    action.createParam(PARAM_MAX_POINTS)
+      .setDescription("Maximum number of analyses to return over the period. When the period contains more analyses, " +
+        "it is split into this number of equal intervals and only the most recent analysis of each interval is returned. " +
+        "Pagination applies to the remaining analyses. Maximum value is " + MAX_POINTS + ".")
+      .setSince("6.5")
+      .setExampleValue("200");
+
     action.addPagingParams(DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE);
   }
 
@@ -135,7 +145,7 @@ public class SearchHistoryAction implements MeasuresWsAction {
           .setComponent(component)
           .setAnalyses(searchAnalyses(dbSession, request, component))
           .setMetrics(searchMetrics(dbSession, request));
-        return result.setMeasures(searchMeasures(dbSession, request, result));
+        return result.setMeasures(searchMeasures(dbSession, result));
       }
     };
   }
@@ -146,15 +156,14 @@ public class SearchHistoryAction implements MeasuresWsAction {
     return component;
   }
 
-  private List<MeasureDto> searchMeasures(DbSession dbSession, SearchHistoryRequest request, SearchHistoryResult result) {
-    Date from = parseStartingDateOrDateTime(request.getFrom());
-    Date to = parseEndingDateOrDateTime(request.getTo());
-    PastMeasureQuery dbQuery = new PastMeasureQuery(
+  /**
+   * Measures are loaded for the analyses of the requested page only
+   */
+  private List<MeasureDto> searchMeasures(DbSession dbSession, SearchHistoryResult result) {
+    return dbClient.measureDao().selectPastMeasures(dbSession,
       result.getComponent().uuid(),
-      result.getMetrics().stream().map(MetricDto::getId).collect(MoreCollectors.toList()),
-      from == null ? null : from.getTime(),
-      to == null ? null : (to.getTime() + 1_000L));
-    return dbClient.measureDao().selectPastMeasures(dbSession, dbQuery);
+      result.getAnalyses().stream().map(SnapshotDto::getUuid).collect(MoreCollectors.toList(result.getAnalyses().size())),
+      result.getMetrics().stream().map(MetricDto::getId).collect(MoreCollectors.toList(result.getMetrics().size())));
   }
 
   private List<SnapshotDto> searchAnalyses(DbSession dbSession, SearchHistoryRequest request, ComponentDto component) {
@@ -165,7 +174,32 @@ public class SearchHistoryAction implements MeasuresWsAction {
     setNullable(request.getFrom(), from -> dbQuery.setCreatedAfter(parseStartingDateOrDateTime(from).getTime()));
     setNullable(request.getTo(), to -> dbQuery.setCreatedBefore(parseEndingDateOrDateTime(to).getTime() + 1_000L));
 
-    return dbClient.snapshotDao().selectAnalysesByQuery(dbSession, dbQuery);
+    return downsample(dbClient.snapshotDao().selectAnalysesByQuery(dbSession, dbQuery), request.getMaxPoints());
+  }
+
+  /**
+   * Splits the period covered by the analyses, sorted by date, into {@code maxPoints} intervals
+   * and keeps the most recent analysis of each interval.
+   */
+  static List<SnapshotDto> downsample(List<SnapshotDto> analyses, @Nullable Integer maxPoints) {
+    if (maxPoints == null || analyses.size() <= maxPoints) {
+      return analyses;
+    }
+    long firstDate = analyses.get(0).getCreatedAt();
+    long period = analyses.get(analyses.size() - 1).getCreatedAt() - firstDate + 1L;
+    List<SnapshotDto> result = new ArrayList<>(maxPoints);
+    long previousInterval = -1L;
+    for (SnapshotDto analysis : analyses) {
+      // computed as a double, as the product of a duration in milliseconds and the number of points can overflow a long
+      long interval = (long) ((double) (analysis.getCreatedAt() - firstDate) * maxPoints / period);
+      if (interval == previousInterval) {
+        result.set(result.size() - 1, analysis);
+      } else {
+        result.add(analysis);
+        previousInterval = interval;
+      }
+    }
+    return result;
   }
 
   private List<MetricDto> searchMetrics(DbSession dbSession, SearchHistoryRequest request) {
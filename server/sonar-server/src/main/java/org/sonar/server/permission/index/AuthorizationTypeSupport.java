@@ -20,11 +20,15 @@
 package org.sonar.server.permission.index;
 
 import com.google.common.collect.ImmutableMap;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import javax.annotation.Nullable;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.config.Configuration;
 import org.sonar.api.server.ServerSide;
 import org.sonar.db.user.GroupDto;
 import org.sonar.server.es.IndexType;
@@ -35,6 +39,8 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
 import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termsQuery;
+import static org.sonar.core.util.stream.MoreCollectors.toList;
 
 @ServerSide
 @ComputeEngineSide
@@ -52,10 +58,35 @@ public class AuthorizationTypeSupport {
    */
   public static final String FIELD_ALLOW_ANYONE = "allowAnyone";
 
+  /**
+   * Name of the internal property which selects how documents are filtered by authorization:
+   * <ul>
+   *   <li>{@link #FILTER_MODE_PARENT} (default): has_parent query on the "authorization" type</li>
+   *   <li>{@link #FILTER_MODE_PROJECTS}: terms query on the routing of documents, with the uuids of the
+   *   projects that user can browse, as cached by {@link ProjectAuthorizationCache}</li>
+   * </ul>
+   */
+  public static final String PROPERTY_FILTER_MODE = "sonar.search.authorizationFilter";
+  public static final String FILTER_MODE_PARENT = "parent";
+  public static final String FILTER_MODE_PROJECTS = "projects";
+
+  private static final String FIELD_ROUTING = "_routing";
+
   private final UserSession userSession;
+  @Nullable
+  private final ProjectAuthorizationCache projectAuthorizationCache;
 
   public AuthorizationTypeSupport(UserSession userSession) {
     this.userSession = userSession;
+    this.projectAuthorizationCache = null;
+  }
+
+  public AuthorizationTypeSupport(UserSession userSession, Configuration config, ProjectAuthorizationCache projectAuthorizationCache) {
+    this.userSession = userSession;
+    String mode = config.get(PROPERTY_FILTER_MODE).orElse(FILTER_MODE_PARENT);
+    checkArgument(FILTER_MODE_PARENT.equals(mode) || FILTER_MODE_PROJECTS.equals(mode),
+      "Unsupported value of property %s: %s", PROPERTY_FILTER_MODE, mode);
+    this.projectAuthorizationCache = FILTER_MODE_PROJECTS.equals(mode) ? projectAuthorizationCache : null;
   }
 
   /**
@@ -102,6 +133,10 @@ public class AuthorizationTypeSupport {
       return QueryBuilders.matchAllQuery();
     }
 
+    if (projectAuthorizationCache != null) {
+      return createProjectsFilter(projectAuthorizationCache);
+    }
+
     Integer userId = userSession.getUserId();
     BoolQueryBuilder filter = boolQuery();
 
@@ -122,4 +157,16 @@ public class AuthorizationTypeSupport {
     return QueryBuilders.hasParentQuery(TYPE_AUTHORIZATION,
       QueryBuilders.boolQuery().filter(filter));
   }
+
+  /**
+   * Documents requiring project authorization are routed by the uuid of their project,
+   * so that the routing can be filtered without joining the "authorization" type.
+   */
+  private QueryBuilder createProjectsFilter(ProjectAuthorizationCache cache) {
+    List<Integer> groupIds = userSession.getGroups().stream()
+      .map(GroupDto::getId)
+      .collect(toList());
+    Set<String> projectUuids = cache.getAuthorizedProjectUuids(userSession.getUserId(), groupIds);
+    return termsQuery(FIELD_ROUTING, projectUuids);
+  }
 }
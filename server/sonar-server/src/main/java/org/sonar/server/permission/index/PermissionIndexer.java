@@ -57,18 +57,22 @@ public class PermissionIndexer implements ProjectIndexer, StartupIndexer {
 
   private final DbClient dbClient;
   private final EsClient esClient;
+  private final ProjectAuthorizationCache projectAuthorizationCache;
   private final Collection<AuthorizationScope> authorizationScopes;
 
-  public PermissionIndexer(DbClient dbClient, EsClient esClient, NeedAuthorizationIndexer... needAuthorizationIndexers) {
-    this(dbClient, esClient, Arrays.stream(needAuthorizationIndexers)
+  public PermissionIndexer(DbClient dbClient, EsClient esClient, ProjectAuthorizationCache projectAuthorizationCache,
+    NeedAuthorizationIndexer... needAuthorizationIndexers) {
+    this(dbClient, esClient, projectAuthorizationCache, Arrays.stream(needAuthorizationIndexers)
       .map(NeedAuthorizationIndexer::getAuthorizationScope)
       .collect(MoreCollectors.toList(needAuthorizationIndexers.length)));
   }
 
   @VisibleForTesting
-  public PermissionIndexer(DbClient dbClient, EsClient esClient, Collection<AuthorizationScope> authorizationScopes) {
+  public PermissionIndexer(DbClient dbClient, EsClient esClient, ProjectAuthorizationCache projectAuthorizationCache,
+    Collection<AuthorizationScope> authorizationScopes) {
     this.dbClient = dbClient;
     this.esClient = esClient;
+    this.projectAuthorizationCache = projectAuthorizationCache;
     this.authorizationScopes = authorizationScopes;
   }
 
@@ -124,6 +128,7 @@ public class PermissionIndexer implements ProjectIndexer, StartupIndexer {
 
   @Override
   public void deleteProject(String projectUuid) {
+    projectAuthorizationCache.invalidate();
     authorizationScopes.forEach(scope -> esClient
       .prepareDelete(scope.getIndexType(), projectUuid)
       .setRouting(projectUuid)
@@ -140,6 +145,7 @@ public class PermissionIndexer implements ProjectIndexer, StartupIndexer {
     if (authorizations.isEmpty()) {
       return;
     }
+    projectAuthorizationCache.invalidate();
 
     // index each authorization in each scope
     scopes.forEach(scope -> index(authorizations, scope, bulkSize));
@@ -0,0 +1,198 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.permission.index;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.server.ServerSide;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.util.logs.Profiler;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.server.permission.index.PermissionIndexerDao.Dto;
+
+import static java.util.Collections.unmodifiableSet;
+
+/**
+ * In-memory cache of the uuids of the projects and views that a user can browse, computed
+ * once per user and set of groups from the authorizations also indexed by {@link PermissionIndexer}.
+ * <p>
+ * Authorizations are loaded by a single thread at a time. The cache is invalidated by
+ * {@link PermissionIndexer} when permissions are (re)indexed in the current process, including
+ * while authorizations are being loaded. As permissions can also be changed by other processes, cached data
+ * are reloaded at least every {@link #TTL_MS} milliseconds.
+ */
+@ServerSide
+@ComputeEngineSide
+public class ProjectAuthorizationCache {
+
+  private static final Logger LOG = Loggers.get(ProjectAuthorizationCache.class);
+
+  @VisibleForTesting
+  static final long TTL_MS = TimeUnit.SECONDS.toMillis(30);
+
+  @VisibleForTesting
+  static final int MAX_ENTRIES = 1_000;
+
+  private final DbClient dbClient;
+  private final System2 system2;
+  private final AtomicLong generation = new AtomicLong();
+  private final Object loadLock = new Object();
+  private volatile Snapshot snapshot;
+
+  public ProjectAuthorizationCache(DbClient dbClient, System2 system2) {
+    this.dbClient = dbClient;
+    this.system2 = system2;
+  }
+
+  /**
+   * Uuids of the projects and views on which the user, one of the groups or anyone has
+   * the browse permission.
+   */
+  public Set<String> getAuthorizedProjectUuids(@Nullable Integer userId, Collection<Integer> groupIds) {
+    return getSnapshot().authorizedProjectUuids(new Key(userId, new HashSet<>(groupIds)));
+  }
+
+  /**
+   * Snapshots loaded before this call, including the ones being loaded, are not used anymore.
+   */
+  public void invalidate() {
+    generation.incrementAndGet();
+  }
+
+  private Snapshot getSnapshot() {
+    Snapshot current = snapshot;
+    if (isValid(current)) {
+      return current;
+    }
+    // only one thread loads the authorizations, the others wait for its result
+    synchronized (loadLock) {
+      current = snapshot;
+      if (isValid(current)) {
+        return current;
+      }
+      long loadedGeneration = generation.get();
+      Profiler profiler = Profiler.create(LOG).startDebug("Load authorizations of projects");
+      List<Dto> authorizations = loadAuthorizations();
+      profiler.stopDebug(authorizations.size() + " projects loaded");
+      current = new Snapshot(authorizations, system2.now(), loadedGeneration);
+      // if invalidated during the load, the snapshot is not valid and is reloaded by the next call
+      snapshot = current;
+      return current;
+    }
+  }
+
+  private boolean isValid(@Nullable Snapshot s) {
+    return s != null && s.generation == generation.get() && system2.now() - s.loadedAt < TTL_MS;
+  }
+
+  @VisibleForTesting
+  List<Dto> loadAuthorizations() {
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      return new PermissionIndexerDao().selectAll(dbClient, dbSession);
+    }
+  }
+
+  private static final class Snapshot {
+    private final List<Dto> authorizations;
+    private final long loadedAt;
+    private final long generation;
+    private final Map<Key, Set<String>> projectUuidsByKey = new ConcurrentHashMap<>();
+
+    private Snapshot(List<Dto> authorizations, long loadedAt, long generation) {
+      this.authorizations = authorizations;
+      this.loadedAt = loadedAt;
+      this.generation = generation;
+    }
+
+    private Set<String> authorizedProjectUuids(Key key) {
+      Set<String> projectUuids = projectUuidsByKey.get(key);
+      if (projectUuids == null) {
+        projectUuids = computeAuthorizedProjectUuids(key);
+        if (projectUuidsByKey.size() >= MAX_ENTRIES) {
+          projectUuidsByKey.clear();
+        }
+        projectUuidsByKey.put(key, projectUuids);
+      }
+      return projectUuids;
+    }
+
+    private Set<String> computeAuthorizedProjectUuids(Key key) {
+      Set<String> projectUuids = new HashSet<>();
+      for (Dto dto : authorizations) {
+        if (isAuthorized(dto, key)) {
+          projectUuids.add(dto.getProjectUuid());
+        }
+      }
+      return unmodifiableSet(projectUuids);
+    }
+
+    private static boolean isAuthorized(Dto dto, Key key) {
+      if (dto.isAllowAnyone()) {
+        return true;
+      }
+      if (key.userId != null && dto.getUserIds().contains(key.userId)) {
+        return true;
+      }
+      return dto.getGroupIds().stream().anyMatch(key.groupIds::contains);
+    }
+  }
+
+  private static final class Key {
+    @CheckForNull
+    private final Integer userId;
+    private final Set<Integer> groupIds;
+
+    private Key(@Nullable Integer userId, Set<Integer> groupIds) {
+      this.userId = userId;
+      this.groupIds = groupIds;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key key = (Key) o;
+      return Objects.equals(userId, key.userId) && groupIds.equals(key.groupIds);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(userId, groupIds);
+    }
+  }
+}
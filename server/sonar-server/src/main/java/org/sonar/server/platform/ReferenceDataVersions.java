@@ -0,0 +1,109 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.server.ServerSide;
+import org.sonar.api.utils.System2;
+import org.sonar.core.util.UuidFactory;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+
+/**
+ * Versions of the rarely changing reference data, like global settings, that web servers and
+ * Compute Engine keep in memory.
+ * <p>
+ * The version of a dataset is stored in the table "internal_properties", so that a change is
+ * visible to all the processes of all the nodes of the cluster. It is changed in the same transaction
+ * as the data, and checked at most once per {@link #CHECK_INTERVAL_MS}, so cached data is stale for
+ * at most one second after commit.
+ * </p>
+ * <p>
+ * The version of {@link #GLOBAL_SETTINGS} is changed by {@link org.sonar.db.property.PropertiesDao} whenever
+ * a global property is written, so writers of settings don't have to call {@link #markChanged(DbSession, String)}.
+ * </p>
+ */
+@ServerSide
+@ComputeEngineSide
+public class ReferenceDataVersions {
+
+  /**
+   * Its version is stored in {@link org.sonar.db.property.PropertiesDao#GLOBAL_PROPERTIES_VERSION_KEY}
+   */
+  public static final String GLOBAL_SETTINGS = "globalSettings";
+
+  static final String PROPERTY_PREFIX = "referenceData.version.";
+  static final long CHECK_INTERVAL_MS = 1_000L;
+  private static final String NO_VERSION = "";
+
+  private final DbClient dbClient;
+  private final UuidFactory uuidFactory;
+  private final System2 system2;
+  private final Map<String, Version> versionsByDataset = new ConcurrentHashMap<>();
+
+  public ReferenceDataVersions(DbClient dbClient, UuidFactory uuidFactory, System2 system2) {
+    this.dbClient = dbClient;
+    this.uuidFactory = uuidFactory;
+    this.system2 = system2;
+  }
+
+  /**
+   * The current version of the dataset. Caches must reload their data when it differs from the version
+   * of their snapshot.
+   */
+  public String get(String dataset) {
+    long now = system2.now();
+    Version version = versionsByDataset.get(dataset);
+    if (version == null || now - version.checkedAt >= CHECK_INTERVAL_MS) {
+      version = new Version(selectVersion(dataset), now);
+      versionsByDataset.put(dataset, version);
+    }
+    return version.value;
+  }
+
+  /**
+   * Changes the version of the dataset. Must be called in the transaction that changes its data,
+   * before it is committed.
+   */
+  public void markChanged(DbSession dbSession, String dataset) {
+    // the row is updated rather than deleted and inserted again, so that concurrent changes don't fail on a duplicate key
+    dbClient.internalPropertiesDao().update(dbSession, PROPERTY_PREFIX + dataset, uuidFactory.create());
+    // the new version is not committed yet, so it is loaded again on next call to get()
+    versionsByDataset.remove(dataset);
+  }
+
+  private String selectVersion(String dataset) {
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      return dbClient.internalPropertiesDao().selectByKey(dbSession, PROPERTY_PREFIX + dataset).orElse(NO_VERSION);
+    }
+  }
+
+  private static final class Version {
+    private final String value;
+    private final long checkedAt;
+
+    private Version(String value, long checkedAt) {
+      this.value = value;
+      this.checkedAt = checkedAt;
+    }
+  }
+}
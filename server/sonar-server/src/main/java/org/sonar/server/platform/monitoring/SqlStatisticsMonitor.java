@@ -0,0 +1,138 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.sonar.db.DbClient;
+import org.sonar.db.profiling.ProfiledDataSource;
+import org.sonar.db.profiling.SqlStatistics;
+import org.sonar.db.profiling.SqlStatistics.StatementStatistics;
+
+import static java.lang.String.format;
+
+/**
+ * Statistics of the SQL statements executed by the web server, to find hot spots
+ */
+public class SqlStatisticsMonitor extends BaseMonitorMBean implements SqlStatisticsMonitorMBean {
+
+  static final int SLOWEST_STATEMENTS = 20;
+
+  private final DbClient dbClient;
+
+  public SqlStatisticsMonitor(DbClient dbClient) {
+    this.dbClient = dbClient;
+  }
+
+  @Override
+  public String name() {
+    return "SQL Statistics";
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return sqlStatistics().isPresent();
+  }
+
+  @Override
+  public int getStatements() {
+    return sqlStatistics().map(s -> s.getAll().size()).orElse(0);
+  }
+
+  @Override
+  public long getExecutions() {
+    return sqlStatistics().map(s -> s.getAll().stream().mapToLong(StatementStatistics::getExecutions).sum()).orElse(0L);
+  }
+
+  @Override
+  public long getExecutionTimeMillis() {
+    return sqlStatistics().map(s -> TimeUnit.NANOSECONDS.toMillis(s.getAll().stream().mapToLong(StatementStatistics::getTotalTimeNanos).sum())).orElse(0L);
+  }
+
+  @Override
+  public String[] getSlowestStatements() {
+    return sqlStatistics()
+      .map(s -> s.getSlowest(SLOWEST_STATEMENTS).stream()
+        .map(statement -> format("%s | %s", toString(attributes(statement)), statement.getSql()))
+        .toArray(String[]::new))
+      .orElse(new String[0]);
+  }
+
+  @Override
+  public void reset() {
+    sqlStatistics().ifPresent(SqlStatistics::reset);
+  }
+
+  @Override
+  public Map<String, Object> attributes() {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    attributes.put("Enabled", isEnabled());
+    sqlStatistics().ifPresent(s -> {
+      attributes.put("Statements", getStatements());
+      attributes.put("Executions", getExecutions());
+      attributes.put("Execution Time (ms)", getExecutionTimeMillis());
+      Map<String, Object> slowest = new LinkedHashMap<>();
+      s.getSlowest(SLOWEST_STATEMENTS).forEach(statement -> slowest.put(statement.getSql(), attributes(statement)));
+      attributes.put("Slowest Statements", slowest);
+    });
+    return attributes;
+  }
+
+  private static Map<String, Object> attributes(StatementStatistics statement) {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    attributes.put("Executions", statement.getExecutions());
+    attributes.put("Total Time (ms)", TimeUnit.NANOSECONDS.toMillis(statement.getTotalTimeNanos()));
+    attributes.put("Max Time (ms)", TimeUnit.NANOSECONDS.toMillis(statement.getMaxTimeNanos()));
+    attributes.put("P50 (µs)", statement.getPercentileMicros(50));
+    attributes.put("P95 (µs)", statement.getPercentileMicros(95));
+    attributes.put("P99 (µs)", statement.getPercentileMicros(99));
+    attributes.put("Fetched Rows", statement.getFetchedRows());
+    return attributes;
+  }
+
+  private static String toString(Map<String, Object> attributes) {
+    StringBuilder sb = new StringBuilder();
+    attributes.forEach((key, value) -> {
+      if (sb.length() > 0) {
+        sb.append(", ");
+      }
+      sb.append(key).append('=').append(value);
+    });
+    return sb.toString();
+  }
+
+  private Optional<SqlStatistics> sqlStatistics() {
+    return sqlStatistics(dbClient);
+  }
+
+  /**
+   * @return the statistics of the SQL statements, if recorded
+   */
+  static Optional<SqlStatistics> sqlStatistics(DbClient dbClient) {
+    DataSource dataSource = dbClient.getDatabase().getDataSource();
+    if (dataSource instanceof ProfiledDataSource) {
+      return ((ProfiledDataSource) dataSource).getSqlStatistics();
+    }
+    return Optional.empty();
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.sonar.db.DbClient;
+import org.sonar.server.ws.WebServiceStatistics;
+import org.sonar.server.ws.WebServiceStatistics.ActionStatistics;
+
+import static java.lang.String.format;
+
+/**
+ * Statistics of the web services requested since startup, to find the actions which are worth optimizing
+ */
+public class WebServiceStatisticsMonitor extends BaseMonitorMBean implements WebServiceStatisticsMonitorMBean {
+
+  static final int SLOWEST_ACTIONS = 50;
+
+  private final WebServiceStatistics statistics;
+  private final DbClient dbClient;
+
+  public WebServiceStatisticsMonitor(WebServiceStatistics statistics, DbClient dbClient) {
+    this.statistics = statistics;
+    this.dbClient = dbClient;
+  }
+
+  @Override
+  public String name() {
+    return "Web Services Statistics";
+  }
+
+  @Override
+  public int getActions() {
+    return statistics.getAll().size();
+  }
+
+  @Override
+  public long getRequests() {
+    return statistics.getAll().stream().mapToLong(ActionStatistics::getRequests).sum();
+  }
+
+  @Override
+  public long getErrors() {
+    return statistics.getAll().stream().mapToLong(ActionStatistics::getErrors).sum();
+  }
+
+  @Override
+  public long getProcessingTimeMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(statistics.getAll().stream().mapToLong(ActionStatistics::getTotalTimeNanos).sum());
+  }
+
+  @Override
+  public boolean isDbTimeCollected() {
+    return SqlStatisticsMonitor.sqlStatistics(dbClient).isPresent();
+  }
+
+  @Override
+  public String[] getSlowestActions() {
+    boolean dbTimeCollected = isDbTimeCollected();
+    return statistics.getSlowest(SLOWEST_ACTIONS).stream()
+      .map(action -> format("%s | %s", action.getPath(), toString(attributes(action, dbTimeCollected))))
+      .toArray(String[]::new);
+  }
+
+  @Override
+  public void reset() {
+    statistics.reset();
+  }
+
+  @Override
+  public Map<String, Object> attributes() {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    attributes.put("Actions", getActions());
+    attributes.put("Requests", getRequests());
+    attributes.put("Errors", getErrors());
+    attributes.put("Processing Time (ms)", getProcessingTimeMillis());
+    boolean dbTimeCollected = isDbTimeCollected();
+    attributes.put("DB Time Collected", dbTimeCollected);
+    Map<String, Object> slowest = new LinkedHashMap<>();
+    statistics.getSlowest(SLOWEST_ACTIONS).forEach(action -> slowest.put(action.getPath(), attributes(action, dbTimeCollected)));
+    attributes.put("Slowest Actions", slowest);
+    return attributes;
+  }
+
+  private static Map<String, Object> attributes(ActionStatistics action, boolean dbTimeCollected) {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    attributes.put("Requests", action.getRequests());
+    attributes.put("Errors", action.getErrors());
+    attributes.put("Total Time (ms)", TimeUnit.NANOSECONDS.toMillis(action.getTotalTimeNanos()));
+    attributes.put("Max Time (ms)", TimeUnit.NANOSECONDS.toMillis(action.getMaxTimeNanos()));
+    attributes.put("P50 (ms)", action.getPercentileMillis(50));
+    attributes.put("P95 (ms)", action.getPercentileMillis(95));
+    attributes.put("P99 (ms)", action.getPercentileMillis(99));
+    if (dbTimeCollected) {
+      attributes.put("DB Time (ms)", TimeUnit.NANOSECONDS.toMillis(action.getDbTimeNanos()));
+    }
+    attributes.put("ES Time (ms)", TimeUnit.NANOSECONDS.toMillis(action.getEsTimeNanos()));
+    attributes.put("Response Size (bytes)", action.getResponseBytes());
+    return attributes;
+  }
+
+  private static String toString(Map<String, Object> attributes) {
+    StringBuilder sb = new StringBuilder();
+    attributes.forEach((key, value) -> {
+      if (sb.length() > 0) {
+        sb.append(", ");
+      }
+      sb.append(key).append('=').append(value);
+    });
+    return sb.toString();
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+public interface WebServiceStatisticsMonitorMBean {
+
+  /**
+   * Number of distinct web service actions requested since startup or last reset
+   */
+  int getActions();
+
+  /**
+   * Number of requests of all actions
+   */
+  long getRequests();
+
+  /**
+   * Number of requests of all actions which ended with an error response
+   */
+  long getErrors();
+
+  /**
+   * Cumulated processing time of all requests, in milliseconds
+   */
+  long getProcessingTimeMillis();
+
+  /**
+   * Whether the time spent executing SQL statements is collected. It depends on the statistics of SQL statements,
+   * which can be disabled by the property "sonar.db.sqlStatistics".
+   */
+  boolean isDbTimeCollected();
+
+  /**
+   * The actions with the largest cumulated processing time, with their statistics
+   */
+  String[] getSlowestActions();
+
+  /**
+   * Clears statistics
+   */
+  void reset();
+}
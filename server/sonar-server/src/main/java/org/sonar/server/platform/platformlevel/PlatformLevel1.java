@@ -41,6 +41,7 @@ import org.sonar.process.logging.LogbackHelper;
 import org.sonar.server.app.ProcessCommandWrapperImpl;
 import org.sonar.server.app.RestartFlagHolderImpl;
 import org.sonar.server.app.WebServerProcessLogging;
+import org.sonar.server.issue.index.IssueFacetsCache;
 import org.sonar.server.issue.index.IssueIndex;
 import org.sonar.server.platform.LogServerVersion;
 import org.sonar.server.platform.Platform;
@@ -113,6 +114,7 @@ public class PlatformLevel1 extends PlatformLevel {
 
       // issues
       IssueIndex.class,
+      IssueFacetsCache.class,
 
       new OkHttpClientProvider(),
       // Classes kept for backward compatibility of plugins/libs (like sonar-license) that are directly calling classes from the core
@@ -23,6 +23,7 @@ import org.sonar.api.utils.UriReader;
 import org.sonar.core.util.DefaultHttpDownloader;
 import org.sonar.server.organization.DefaultOrganizationProviderImpl;
 import org.sonar.server.organization.OrganizationFlagsImpl;
+import org.sonar.server.platform.ReferenceDataVersions;
 import org.sonar.server.platform.ServerIdGenerator;
 import org.sonar.server.platform.ServerIdLoader;
 import org.sonar.server.platform.ServerIdManager;
@@ -45,6 +46,7 @@ public class PlatformLevel3 extends PlatformLevel {
       NoopDatabaseMigrationImpl.class,
       ServerIdManager.class,
       ServerImpl.class,
+      ReferenceDataVersions.class,
       DatabaseSettingLoader.class,
       DatabaseSettingsEnabler.class,
       UriReader.class,
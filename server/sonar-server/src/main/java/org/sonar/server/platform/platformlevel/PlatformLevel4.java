@@ -94,6 +94,7 @@ import org.sonar.server.permission.PermissionTemplateService;
 import org.sonar.server.permission.PermissionUpdater;
 import org.sonar.server.permission.UserPermissionChanger;
 import org.sonar.server.permission.index.PermissionIndexer;
+import org.sonar.server.permission.index.ProjectAuthorizationCache;
 import org.sonar.server.permission.ws.PermissionsWsModule;
 import org.sonar.server.permission.ws.template.DefaultTemplatesResolverImpl;
 import org.sonar.server.platform.BackendCleanup;
@@ -106,7 +107,9 @@ import org.sonar.server.platform.monitoring.JvmPropsMonitor;
 import org.sonar.server.platform.monitoring.PluginsMonitor;
 import org.sonar.server.platform.monitoring.SettingsMonitor;
 import org.sonar.server.platform.monitoring.SonarQubeMonitor;
+import org.sonar.server.platform.monitoring.SqlStatisticsMonitor;
 import org.sonar.server.platform.monitoring.SystemMonitor;
+import org.sonar.server.platform.monitoring.WebServiceStatisticsMonitor;
 import org.sonar.server.platform.web.WebPagesFilter;
 import org.sonar.server.platform.web.requestid.HttpRequestIdModule;
 import org.sonar.server.platform.ws.ChangeLogLevelAction;
@@ -216,6 +219,7 @@ import org.sonar.server.ws.DeprecatedPropertiesWsFilter;
 import org.sonar.server.ws.WebServiceEngine;
 import org.sonar.server.ws.WebServiceFilter;
 import org.sonar.server.ws.WebServiceReroutingFilter;
+import org.sonar.server.ws.WebServiceStatistics;
 import org.sonar.server.ws.ws.WebServicesWsModule;
 
 public class PlatformLevel4 extends PlatformLevel {
@@ -320,6 +324,7 @@ public class PlatformLevel4 extends PlatformLevel {
 
       // web services
       WebServiceEngine.class,
+      WebServiceStatistics.class,
       WebServicesWsModule.class,
       WebServiceFilter.class,
       DeprecatedPropertiesWsFilter.class,
@@ -385,6 +390,7 @@ public class PlatformLevel4 extends PlatformLevel {
       IssueIndexer.class,
       IssueIteratorFactory.class,
       PermissionIndexer.class,
+      ProjectAuthorizationCache.class,
       IssueWsModule.class,
       NewIssuesEmailTemplate.class,
       MyNewIssuesEmailTemplate.class,
@@ -478,6 +484,8 @@ public class PlatformLevel4 extends PlatformLevel {
       PluginsMonitor.class,
       JvmPropsMonitor.class,
       DatabaseMonitor.class,
+      SqlStatisticsMonitor.class,
+      WebServiceStatisticsMonitor.class,
       MigrateDbAction.class,
       LogsAction.class,
       ChangeLogLevelAction.class,
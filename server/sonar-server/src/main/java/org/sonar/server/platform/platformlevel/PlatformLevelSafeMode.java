@@ -34,6 +34,7 @@ import org.sonar.server.platform.ws.StatusAction;
 import org.sonar.server.platform.ws.SystemWs;
 import org.sonar.server.ws.WebServiceEngine;
 import org.sonar.server.ws.WebServiceFilter;
+import org.sonar.server.ws.WebServiceStatistics;
 import org.sonar.server.ws.ws.WebServicesWsModule;
 
 public class PlatformLevelSafeMode extends PlatformLevel {
@@ -62,6 +63,7 @@ public class PlatformLevelSafeMode extends PlatformLevel {
 
       // WS engine
       WebServiceEngine.class,
+      WebServiceStatistics.class,
       WebServiceFilter.class,
 
       NoopDefaultOrganizationCache.class);
@@ -0,0 +1,108 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.qualityprofile;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import javax.annotation.CheckForNull;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.db.qualityprofile.ActiveRuleDto;
+import org.sonar.db.qualityprofile.ActiveRuleKey;
+import org.sonar.db.qualityprofile.ActiveRuleParamDto;
+import org.sonar.db.qualityprofile.QProfileDto;
+import org.sonar.db.rule.RuleDefinitionDto;
+import org.sonar.db.rule.RuleParamDto;
+
+/**
+ * In-memory copy of the DB state required to activate or deactivate a set of rules on a profile and
+ * on its descendants: rules, rule parameters, profiles of the hierarchy, active rules and their parameters.
+ * It is loaded with a few queries by {@link RuleActivatorContextFactory#loadForBulk} and is kept up-to-date
+ * by {@link RuleActivator} while changes are persisted, so that the contexts of the descendant
+ * profiles see the changes made on their parents.
+ */
+class BulkRuleActivationData {
+
+  private final Map<RuleKey, RuleDefinitionDto> rulesByKey = new HashMap<>();
+  private final ListMultimap<Integer, RuleParamDto> ruleParamsByRuleId = ArrayListMultimap.create();
+  private final Map<String, QProfileDto> profilesByUuid = new HashMap<>();
+  private final ListMultimap<String, QProfileDto> childrenByParentUuid = ArrayListMultimap.create();
+  private final Map<ActiveRuleKey, ActiveRuleDto> activeRulesByKey = new HashMap<>();
+  private final ListMultimap<Integer, ActiveRuleParamDto> activeRuleParamsByActiveRuleId = ArrayListMultimap.create();
+
+  BulkRuleActivationData(Collection<RuleDefinitionDto> rules, Collection<RuleParamDto> ruleParams, Collection<QProfileDto> profiles,
+    Collection<ActiveRuleDto> activeRules, Collection<ActiveRuleParamDto> activeRuleParams) {
+    rules.forEach(rule -> rulesByKey.put(rule.getKey(), rule));
+    ruleParams.forEach(param -> ruleParamsByRuleId.put(param.getRuleId(), param));
+    profiles.forEach(profile -> profilesByUuid.put(profile.getKee(), profile));
+    profiles.stream()
+      .filter(profile -> profile.getParentKee() != null)
+      .forEach(profile -> childrenByParentUuid.put(profile.getParentKee(), profile));
+    activeRules.forEach(this::addActiveRule);
+    activeRuleParams.forEach(this::addActiveRuleParam);
+  }
+
+  Optional<RuleDefinitionDto> getRule(RuleKey ruleKey) {
+    return Optional.ofNullable(rulesByKey.get(ruleKey));
+  }
+
+  List<RuleParamDto> getRuleParams(RuleDefinitionDto rule) {
+    return ruleParamsByRuleId.get(rule.getId());
+  }
+
+  @CheckForNull
+  QProfileDto getProfile(String uuid) {
+    return profilesByUuid.get(uuid);
+  }
+
+  List<QProfileDto> getChildren(QProfileDto profile) {
+    return childrenByParentUuid.get(profile.getKee());
+  }
+
+  Optional<ActiveRuleDto> getActiveRule(ActiveRuleKey key) {
+    return Optional.ofNullable(activeRulesByKey.get(key));
+  }
+
+  List<ActiveRuleParamDto> getActiveRuleParams(ActiveRuleDto activeRule) {
+    return new ArrayList<>(activeRuleParamsByActiveRuleId.get(activeRule.getId()));
+  }
+
+  void addActiveRule(ActiveRuleDto activeRule) {
+    activeRulesByKey.put(activeRule.getKey(), activeRule);
+  }
+
+  void removeActiveRule(ActiveRuleDto activeRule) {
+    activeRulesByKey.remove(activeRule.getKey());
+    activeRuleParamsByActiveRuleId.removeAll(activeRule.getId());
+  }
+
+  void addActiveRuleParam(ActiveRuleParamDto param) {
+    activeRuleParamsByActiveRuleId.put(param.getActiveRuleId(), param);
+  }
+
+  void removeActiveRuleParam(ActiveRuleParamDto param) {
+    activeRuleParamsByActiveRuleId.remove(param.getActiveRuleId(), param);
+  }
+}
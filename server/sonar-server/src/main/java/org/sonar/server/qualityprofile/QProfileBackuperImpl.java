@@ -20,6 +20,8 @@
 package org.sonar.server.qualityprofile;
 
 import com.google.common.base.Joiner;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -41,6 +43,9 @@ import org.codehaus.staxmate.in.SMHierarchicCursor;
 import org.codehaus.staxmate.in.SMInputCursor;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.server.ServerSide;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
 import org.sonar.api.utils.text.XmlWriter;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -51,10 +56,12 @@ import org.sonar.db.qualityprofile.OrgActiveRuleDto;
 import org.sonar.db.qualityprofile.QProfileDto;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static org.sonar.core.util.stream.MoreCollectors.toList;
 
 @ServerSide
 public class QProfileBackuperImpl implements QProfileBackuper {
 
+  private static final Logger LOGGER = Loggers.get(QProfileBackuperImpl.class);
   private static final Joiner RULE_KEY_JOINER = Joiner.on(", ").skipNulls();
 
   private static final String ATTRIBUTE_PROFILE = "profile";
@@ -75,21 +82,29 @@ public class QProfileBackuperImpl implements QProfileBackuper {
   private final DbClient db;
   private final QProfileReset profileReset;
   private final QProfileFactory profileFactory;
+  private final System2 system2;
 
-  public QProfileBackuperImpl(DbClient db, QProfileReset profileReset, QProfileFactory profileFactory) {
+  public QProfileBackuperImpl(DbClient db, QProfileReset profileReset, QProfileFactory profileFactory, System2 system2) {
     this.db = db;
     this.profileReset = profileReset;
     this.profileFactory = profileFactory;
+    this.system2 = system2;
   }
 
   @Override
   public void backup(DbSession dbSession, QProfileDto profile, Writer writer) {
     List<OrgActiveRuleDto> activeRules = db.activeRuleDao().selectByProfile(dbSession, profile);
     activeRules.sort(BackupActiveRuleComparator.INSTANCE);
-    writeXml(dbSession, writer, profile, activeRules.iterator());
+    // parameters of all the active rules are loaded at once, instead of one query per active rule
+    List<Integer> activeRuleIds = activeRules.stream().map(ActiveRuleDto::getId).collect(toList(activeRules.size()));
+    ListMultimap<Integer, ActiveRuleParamDto> paramsByActiveRuleId = ArrayListMultimap.create();
+    db.activeRuleDao().selectParamsByActiveRuleIds(dbSession, activeRuleIds)
+      .forEach(param -> paramsByActiveRuleId.put(param.getActiveRuleId(), param));
+    writeXml(writer, profile, activeRules.iterator(), paramsByActiveRuleId);
   }
 
-  private void writeXml(DbSession dbSession, Writer writer, QProfileDto profile, Iterator<OrgActiveRuleDto> activeRules) {
+  private static void writeXml(Writer writer, QProfileDto profile, Iterator<OrgActiveRuleDto> activeRules,
+    ListMultimap<Integer, ActiveRuleParamDto> paramsByActiveRuleId) {
     XmlWriter xml = XmlWriter.of(writer).declaration();
     xml.begin(ATTRIBUTE_PROFILE);
     xml.prop(ATTRIBUTE_NAME, profile.getName());
@@ -102,7 +117,7 @@ public class QProfileBackuperImpl implements QProfileBackuper {
       xml.prop(ATTRIBUTE_KEY, activeRule.getRuleKey().rule());
       xml.prop(ATTRIBUTE_PRIORITY, activeRule.getSeverityString());
       xml.begin(ATTRIBUTE_PARAMETERS);
-      for (ActiveRuleParamDto param : db.activeRuleDao().selectParamsByActiveRuleId(dbSession, activeRule.getId())) {
+      for (ActiveRuleParamDto param : paramsByActiveRuleId.get(activeRule.getId())) {
         xml
           .begin(ATTRIBUTE_PARAMETER)
           .prop(ATTRIBUTE_PARAMETER_KEY, param.getKey())
@@ -137,6 +152,7 @@ public class QProfileBackuperImpl implements QProfileBackuper {
 
   private QProfileRestoreSummary restore(DbSession dbSession, Reader backup, Function<QProfileName, QProfileDto> profileLoader) {
     try {
+      long start = system2.now();
       String profileLang = null;
       String profileName = null;
       List<RuleActivation> ruleActivations = Lists.newArrayList();
@@ -163,8 +179,12 @@ public class QProfileBackuperImpl implements QProfileBackuper {
 
       QProfileName targetName = new QProfileName(profileLang, profileName);
       QProfileDto targetProfile = profileLoader.apply(targetName);
+      long parsed = system2.now();
       BulkChangeResult changes = profileReset.reset(dbSession, targetProfile, ruleActivations);
-      return new QProfileRestoreSummary(targetProfile, changes);
+      long applied = system2.now();
+      LOGGER.debug("Quality profile {} restored in {} ms (parsing: {} ms, activation of {} rules: {} ms)", targetProfile.getKee(),
+        applied - start, parsed - start, ruleActivations.size(), applied - parsed);
+      return new QProfileRestoreSummary(targetProfile, changes, parsed - start, applied - parsed);
     } catch (XMLStreamException e) {
       throw new IllegalStateException("Fail to restore Quality profile backup", e);
     }
@@ -63,9 +63,14 @@ public class QProfileResetImpl implements QProfileReset {
       }
     }
 
+    // rules, active rules and their parameters are loaded once, instead of once per activation
+    Set<RuleKey> ruleKeys = Sets.newHashSet(ruleToBeDeactivated);
+    activations.forEach(activation -> ruleKeys.add(activation.getRuleKey()));
+    BulkRuleActivationData bulkData = activator.loadForBulk(dbSession, profile, ruleKeys);
+
     for (RuleActivation activation : activations) {
       try {
-        List<ActiveRuleChange> changes = activator.activate(dbSession, activation, profile);
+        List<ActiveRuleChange> changes = activator.activate(dbSession, activation, profile, bulkData);
         ruleToBeDeactivated.remove(activation.getRuleKey());
         result.incrementSucceeded();
         result.addChanges(changes);
@@ -79,7 +84,7 @@ public class QProfileResetImpl implements QProfileReset {
     changes.addAll(result.getChanges());
     for (RuleKey ruleKey : ruleToBeDeactivated) {
       try {
-        changes.addAll(activator.deactivate(dbSession, profile, ruleKey));
+        changes.addAll(activator.deactivate(dbSession, profile, ruleKey, false, bulkData));
       } catch (BadRequestException e) {
         // ignore, probably a rule inherited from parent that can't be deactivated
       }
@@ -26,10 +26,18 @@ import static java.util.Objects.requireNonNull;
 public final class QProfileRestoreSummary {
   private final QProfileDto profile;
   private final BulkChangeResult ruleChanges;
+  private final long parsingDurationMs;
+  private final long activationDurationMs;
 
   public QProfileRestoreSummary(QProfileDto profile, BulkChangeResult ruleChanges) {
+    this(profile, ruleChanges, 0L, 0L);
+  }
+
+  public QProfileRestoreSummary(QProfileDto profile, BulkChangeResult ruleChanges, long parsingDurationMs, long activationDurationMs) {
     this.profile = requireNonNull(profile);
     this.ruleChanges = requireNonNull(ruleChanges);
+    this.parsingDurationMs = parsingDurationMs;
+    this.activationDurationMs = activationDurationMs;
   }
 
   public QProfileDto getProfile() {
@@ -39,4 +47,18 @@ public final class QProfileRestoreSummary {
   public BulkChangeResult getRuleChanges() {
     return ruleChanges;
   }
+
+  /**
+   * Time spent to parse the backup and to load the target profile, in milliseconds
+   */
+  public long getParsingDurationMs() {
+    return parsingDurationMs;
+  }
+
+  /**
+   * Time spent to apply the changes of rules on the target profile, in milliseconds
+   */
+  public long getActivationDurationMs() {
+    return activationDurationMs;
+  }
 }
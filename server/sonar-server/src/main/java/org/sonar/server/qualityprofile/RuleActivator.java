@@ -21,8 +21,8 @@ package org.sonar.server.qualityprofile;
 
 import com.google.common.base.Splitter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.CheckForNull;
@@ -31,6 +31,7 @@ import org.sonar.api.rule.RuleKey;
 import org.sonar.api.server.ServerSide;
 import org.sonar.api.server.rule.RuleParamType;
 import org.sonar.api.utils.System2;
+import org.sonar.core.util.stream.MoreCollectors;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.qualityprofile.ActiveRuleDao;
@@ -84,7 +85,19 @@ public class RuleActivator {
   }
 
   public List<ActiveRuleChange> activate(DbSession dbSession, RuleActivation activation, QProfileDto profile) {
-    RuleActivatorContext context = contextFactory.create(dbSession, activation.getRuleKey(), profile, false);
+    return activate(dbSession, activation, profile, null);
+  }
+
+  /**
+   * Loads the data required to activate or deactivate the given rules on the profile and on its descendants,
+   * see {@link #activate(DbSession, RuleActivation, QProfileDto, BulkRuleActivationData)}
+   */
+  BulkRuleActivationData loadForBulk(DbSession dbSession, QProfileDto profile, Collection<RuleKey> ruleKeys) {
+    return contextFactory.loadForBulk(dbSession, profile, ruleKeys);
+  }
+
+  List<ActiveRuleChange> activate(DbSession dbSession, RuleActivation activation, QProfileDto profile, @Nullable BulkRuleActivationData bulkData) {
+    RuleActivatorContext context = contextFactory.create(dbSession, activation.getRuleKey(), profile, false, bulkData);
     return doActivate(dbSession, activation, context);
   }
 
@@ -237,15 +250,17 @@ public class RuleActivator {
 
     // get all inherited profiles
     getChildren(dbSession, context).forEach(child -> {
-      RuleActivatorContext childContext = contextFactory.create(dbSession, activation.getRuleKey(), child, true);
+      RuleActivatorContext childContext = contextFactory.create(dbSession, activation.getRuleKey(), child, true, context.getBulkData());
       changes.addAll(doActivate(dbSession, activation, childContext));
     });
     return changes;
   }
 
   protected List<QProfileDto> getChildren(DbSession session, RuleActivatorContext context) {
-    if (context.getProfile() != null) {
-      return db.qualityProfileDao().selectChildren(session, context.getProfile());
+    QProfileDto profile = context.getProfile();
+    if (profile != null) {
+      BulkRuleActivationData bulkData = context.getBulkData();
+      return bulkData == null ? db.qualityProfileDao().selectChildren(session, profile) : bulkData.getChildren(profile);
     }
     return db.qualityProfileDao().selectChildrenOfBuiltInRulesProfile(session, context.getRulesProfile());
   }
@@ -257,6 +272,10 @@ public class RuleActivator {
     } else if (change.getType() == ActiveRuleChange.Type.DEACTIVATED) {
       ActiveRuleDao dao = db.activeRuleDao();
       activeRule = dao.delete(dbSession, change.getKey()).orElse(null);
+      BulkRuleActivationData bulkData = context.getBulkData();
+      if (bulkData != null && context.activeRule() != null) {
+        bulkData.removeActiveRule(context.activeRule());
+      }
 
     } else if (change.getType() == ActiveRuleChange.Type.UPDATED) {
       activeRule = doUpdate(change, context, dbSession);
@@ -282,11 +301,18 @@ public class RuleActivator {
     activeRule.setUpdatedAt(system2.now());
     activeRule.setCreatedAt(system2.now());
     dao.insert(dbSession, activeRule);
+    BulkRuleActivationData bulkData = context.getBulkData();
+    if (bulkData != null) {
+      bulkData.addActiveRule(activeRule);
+    }
     for (Map.Entry<String, String> param : change.getParameters().entrySet()) {
       if (param.getValue() != null) {
         ActiveRuleParamDto paramDto = ActiveRuleParamDto.createFor(context.ruleParamsByKeys().get(param.getKey()));
         paramDto.setValue(param.getValue());
         dao.insertParam(dbSession, activeRule, paramDto);
+        if (bulkData != null) {
+          bulkData.addActiveRuleParam(paramDto);
+        }
       }
     }
     return activeRule;
@@ -294,6 +320,7 @@ public class RuleActivator {
 
   private ActiveRuleDto doUpdate(ActiveRuleChange change, RuleActivatorContext context, DbSession dbSession) {
     ActiveRuleDao dao = db.activeRuleDao();
+    BulkRuleActivationData bulkData = context.getBulkData();
     ActiveRuleDto activeRule = context.activeRule();
     if (activeRule != null) {
       String severity = change.getSeverity();
@@ -315,6 +342,9 @@ public class RuleActivator {
             activeRuleParamDto = ActiveRuleParamDto.createFor(context.ruleParamsByKeys().get(param.getKey()));
             activeRuleParamDto.setValue(param.getValue());
             dao.insertParam(dbSession, activeRule, activeRuleParamDto);
+            if (bulkData != null) {
+              bulkData.addActiveRuleParam(activeRuleParamDto);
+            }
           }
         } else {
           if (param.getValue() != null) {
@@ -322,6 +352,9 @@ public class RuleActivator {
             dao.updateParam(dbSession, activeRuleParamDto);
           } else {
             dao.deleteParam(dbSession, activeRuleParamDto);
+            if (bulkData != null) {
+              bulkData.removeActiveRuleParam(activeRuleParamDto);
+            }
           }
         }
       }
@@ -368,7 +401,11 @@ public class RuleActivator {
    * @param force if true then inherited rules are deactivated
    */
   public List<ActiveRuleChange> deactivate(DbSession dbSession, QProfileDto profile, RuleKey ruleKey, boolean force) {
-    RuleActivatorContext context = contextFactory.create(dbSession, ruleKey, profile, false);
+    return deactivate(dbSession, profile, ruleKey, force, null);
+  }
+
+  List<ActiveRuleChange> deactivate(DbSession dbSession, QProfileDto profile, RuleKey ruleKey, boolean force, @Nullable BulkRuleActivationData bulkData) {
+    RuleActivatorContext context = contextFactory.create(dbSession, ruleKey, profile, false, bulkData);
     return cascadeDeactivation(dbSession, context, ruleKey, force);
   }
 
@@ -393,7 +430,7 @@ public class RuleActivator {
     // get all inherited profiles (they are not built-in by design)
 
     getChildren(dbSession, context).forEach(child -> {
-      RuleActivatorContext childContext = contextFactory.create(dbSession, ruleKey, child, true);
+      RuleActivatorContext childContext = contextFactory.create(dbSession, ruleKey, child, true, context.getBulkData());
       changes.addAll(cascadeDeactivation(dbSession, childContext, ruleKey, force));
     });
 
@@ -418,14 +455,18 @@ public class RuleActivator {
     return value;
   }
 
+  /**
+   * Rules, active rules and profiles are loaded once for all the rules matching the query,
+   * instead of being loaded for each rule and each descendant profile.
+   */
   public BulkChangeResult bulkActivate(DbSession dbSession, RuleQuery ruleQuery, QProfileDto profile, @Nullable String severity) {
     BulkChangeResult result = new BulkChangeResult();
-    Iterator<RuleKey> rules = ruleIndex.searchAll(ruleQuery);
-    while (rules.hasNext()) {
-      RuleKey ruleKey = rules.next();
+    List<RuleKey> ruleKeys = searchAll(ruleQuery);
+    BulkRuleActivationData bulkData = loadForBulk(dbSession, profile, ruleKeys);
+    for (RuleKey ruleKey : ruleKeys) {
       try {
         RuleActivation activation = RuleActivation.create(ruleKey, severity, null);
-        List<ActiveRuleChange> changes = activate(dbSession, activation, profile);
+        List<ActiveRuleChange> changes = activate(dbSession, activation, profile, bulkData);
         result.addChanges(changes);
         if (!changes.isEmpty()) {
           result.incrementSucceeded();
@@ -444,11 +485,11 @@ public class RuleActivator {
 
   public BulkChangeResult bulkDeactivate(DbSession dbSession, RuleQuery ruleQuery, QProfileDto profile) {
     BulkChangeResult result = new BulkChangeResult();
-    Iterator<RuleKey> rules = ruleIndex.searchAll(ruleQuery);
-    while (rules.hasNext()) {
+    List<RuleKey> ruleKeys = searchAll(ruleQuery);
+    BulkRuleActivationData bulkData = loadForBulk(dbSession, profile, ruleKeys);
+    for (RuleKey ruleKey : ruleKeys) {
       try {
-        RuleKey ruleKey = rules.next();
-        List<ActiveRuleChange> changes = deactivate(dbSession, profile, ruleKey);
+        List<ActiveRuleChange> changes = deactivate(dbSession, profile, ruleKey, false, bulkData);
         result.addChanges(changes);
         if (!changes.isEmpty()) {
           result.incrementSucceeded();
@@ -464,6 +505,12 @@ public class RuleActivator {
     return result;
   }
 
+  private List<RuleKey> searchAll(RuleQuery ruleQuery) {
+    List<RuleKey> ruleKeys = new ArrayList<>();
+    ruleIndex.searchAll(ruleQuery).forEachRemaining(ruleKeys::add);
+    return ruleKeys;
+  }
+
   public List<ActiveRuleChange> setParent(DbSession dbSession, QProfileDto profile, @Nullable QProfileDto parent) {
     checkRequest(
       parent == null || profile.getLanguage().equals(parent.getLanguage()),
@@ -482,10 +529,14 @@ public class RuleActivator {
       // set new parent
       profile.setParentKee(parent.getKee());
       db.qualityProfileDao().update(dbSession, profile);
-      for (ActiveRuleDto parentActiveRule : db.activeRuleDao().selectByProfile(dbSession, parent)) {
+      List<RuleKey> parentRuleKeys = db.activeRuleDao().selectByProfile(dbSession, parent).stream()
+        .map(ActiveRuleDto::getRuleKey)
+        .collect(MoreCollectors.toList());
+      BulkRuleActivationData bulkData = loadForBulk(dbSession, profile, parentRuleKeys);
+      for (RuleKey ruleKey : parentRuleKeys) {
         try {
-          RuleActivation activation = RuleActivation.create(parentActiveRule.getRuleKey(), null, null);
-          changes.addAll(activate(dbSession, activation, profile));
+          RuleActivation activation = RuleActivation.create(ruleKey, null, null);
+          changes.addAll(activate(dbSession, activation, profile, bulkData));
         } catch (BadRequestException e) {
           // for example because rule status is REMOVED
           // TODO return errors
@@ -51,6 +51,7 @@ class RuleActivatorContext {
   private final Map<String, ActiveRuleParamDto> activeRuleParams = new HashMap<>();
   private final Map<String, ActiveRuleParamDto> parentActiveRuleParams = new HashMap<>();
   private final boolean isCascade;
+  private BulkRuleActivationData bulkData;
 
   RuleActivatorContext(QProfileDto profile, boolean isCascade) {
     this.profile = profile;
@@ -82,6 +83,19 @@ class RuleActivatorContext {
     return isCascade;
   }
 
+  /**
+   * Data preloaded for bulk changes, null if the context is loaded from DB
+   */
+  @CheckForNull
+  BulkRuleActivationData getBulkData() {
+    return bulkData;
+  }
+
+  RuleActivatorContext setBulkData(@Nullable BulkRuleActivationData bulkData) {
+    this.bulkData = bulkData;
+    return this;
+  }
+
   ActiveRuleKey activeRuleKey() {
     return ActiveRuleKey.of(rulesProfile, rule.getKey());
   }
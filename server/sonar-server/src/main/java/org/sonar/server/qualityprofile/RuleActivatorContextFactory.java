@@ -19,11 +19,17 @@
  */
 package org.sonar.server.qualityprofile;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.server.ServerSide;
+import org.sonar.core.util.stream.MoreCollectors;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.qualityprofile.ActiveRuleDto;
@@ -51,16 +57,57 @@ public class RuleActivatorContextFactory {
   }
 
   RuleActivatorContext create(DbSession dbSession, RuleKey ruleKey, QProfileDto profile, boolean cascade) {
+    return create(dbSession, ruleKey, profile, cascade, null);
+  }
+
+  /**
+   * @param bulkData if not null, the context is initialized from this data instead of being loaded from DB
+   */
+  RuleActivatorContext create(DbSession dbSession, RuleKey ruleKey, QProfileDto profile, boolean cascade, @Nullable BulkRuleActivationData bulkData) {
     RuleActivatorContext context = new RuleActivatorContext(profile, cascade);
+    context.setBulkData(bulkData);
     return init(dbSession, ruleKey, context);
   }
 
+  /**
+   * Loads in a few queries all the data required to activate or deactivate the given rules on a profile
+   * and on its descendants. The number of queries depends on the size of the hierarchy of profiles, not
+   * on the number of rules.
+   */
+  BulkRuleActivationData loadForBulk(DbSession dbSession, QProfileDto profile, Collection<RuleKey> ruleKeys) {
+    List<RuleDefinitionDto> rules = db.ruleDao().selectDefinitionByKeys(dbSession, ruleKeys);
+    List<RuleParamDto> ruleParams = db.ruleDao().selectRuleParamsByRuleKeys(dbSession, ruleKeys);
+
+    List<QProfileDto> profiles = new ArrayList<>();
+    profiles.add(profile);
+    profiles.addAll(db.qualityProfileDao().selectDescendants(dbSession, profile));
+    List<QProfileDto> profilesWithParent = new ArrayList<>(profiles);
+    if (profile.getParentKee() != null) {
+      QProfileDto parent = db.qualityProfileDao().selectByUuid(dbSession, profile.getParentKee());
+      if (parent != null) {
+        profilesWithParent.add(parent);
+      }
+    }
+
+    Set<RuleKey> ruleKeySet = new HashSet<>(ruleKeys);
+    List<ActiveRuleDto> activeRules = new ArrayList<>();
+    for (QProfileDto p : profilesWithParent) {
+      db.activeRuleDao().selectByRuleProfile(dbSession, RulesProfileDto.from(p)).stream()
+        .filter(activeRule -> ruleKeySet.contains(activeRule.getRuleKey()))
+        .forEach(activeRules::add);
+    }
+    List<Integer> activeRuleIds = activeRules.stream().map(ActiveRuleDto::getId).collect(MoreCollectors.toList(activeRules.size()));
+    List<ActiveRuleParamDto> activeRuleParams = db.activeRuleDao().selectParamsByActiveRuleIds(dbSession, activeRuleIds);
+
+    return new BulkRuleActivationData(rules, ruleParams, profilesWithParent, activeRules, activeRuleParams);
+  }
+
   private RuleActivatorContext init(DbSession dbSession, RuleKey ruleKey, RuleActivatorContext context) {
     initRule(ruleKey, context, dbSession);
     initActiveRules(context.getRulesProfile(), ruleKey, context, dbSession, false);
 
     if (context.getProfile() != null && context.getProfile().getParentKee() != null) {
-      QProfileDto parent = db.qualityProfileDao().selectByUuid(dbSession, context.getProfile().getParentKee());
+      QProfileDto parent = getProfile(dbSession, context, context.getProfile().getParentKee());
       if (parent != null) {
         initActiveRules(RulesProfileDto.from(parent), ruleKey, context, dbSession, true);
       }
@@ -70,20 +117,22 @@ public class RuleActivatorContextFactory {
   }
 
   private RuleDefinitionDto initRule(RuleKey ruleKey, RuleActivatorContext context, DbSession dbSession) {
-    Optional<RuleDefinitionDto> rule = getRule(dbSession, ruleKey);
+    BulkRuleActivationData bulkData = context.getBulkData();
+    Optional<RuleDefinitionDto> rule = bulkData == null ? getRule(dbSession, ruleKey) : bulkData.getRule(ruleKey);
     checkRequest(rule.isPresent(), "Rule not found: %s", ruleKey);
     RuleDefinitionDto ruleDefinitionDto = rule.get();
     context.setRule(ruleDefinitionDto);
-    context.setRuleParams(getRuleParams(dbSession, ruleDefinitionDto));
+    context.setRuleParams(bulkData == null ? getRuleParams(dbSession, ruleDefinitionDto) : bulkData.getRuleParams(ruleDefinitionDto));
     return ruleDefinitionDto;
   }
 
   private void initActiveRules(RulesProfileDto rulesProfile, RuleKey ruleKey, RuleActivatorContext context, DbSession dbSession, boolean isParent) {
     ActiveRuleKey key = ActiveRuleKey.of(rulesProfile, ruleKey);
-    Optional<ActiveRuleDto> activeRule = getActiveRule(dbSession, key);
+    BulkRuleActivationData bulkData = context.getBulkData();
+    Optional<ActiveRuleDto> activeRule = bulkData == null ? getActiveRule(dbSession, key) : bulkData.getActiveRule(key);
     Collection<ActiveRuleParamDto> activeRuleParams = null;
     if (activeRule.isPresent()) {
-      activeRuleParams = getActiveRuleParams(dbSession, activeRule.get());
+      activeRuleParams = bulkData == null ? getActiveRuleParams(dbSession, activeRule.get()) : bulkData.getActiveRuleParams(activeRule.get());
     }
     if (isParent) {
       context.setParentActiveRule(activeRule.orElse(null));
@@ -94,6 +143,18 @@ public class RuleActivatorContextFactory {
     }
   }
 
+  @CheckForNull
+  private QProfileDto getProfile(DbSession dbSession, RuleActivatorContext context, String uuid) {
+    BulkRuleActivationData bulkData = context.getBulkData();
+    if (bulkData != null) {
+      QProfileDto profile = bulkData.getProfile(uuid);
+      if (profile != null) {
+        return profile;
+      }
+    }
+    return db.qualityProfileDao().selectByUuid(dbSession, uuid);
+  }
+
   Optional<RuleDefinitionDto> getRule(DbSession dbSession, RuleKey ruleKey) {
     return Optional.ofNullable(db.ruleDao().selectDefinitionByKey(dbSession, ruleKey).orElse(null));
   }
@@ -20,35 +20,75 @@
 package org.sonar.server.setting;
 
 import com.google.common.collect.ImmutableMap;
+import java.util.Map;
+import org.sonar.api.utils.System2;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
-import org.sonar.db.property.PropertyDto;
+import org.sonar.server.platform.ReferenceDataVersions;
 
 import static org.apache.commons.lang.StringUtils.defaultString;
+import static org.sonar.server.platform.ReferenceDataVersions.GLOBAL_SETTINGS;
 
+/**
+ * Loads the global properties from db. They are kept in memory until their version changes
+ * (see {@link ReferenceDataVersions#GLOBAL_SETTINGS}), so that a request reads them once at most
+ * instead of once per key. Properties changed without updating the version, for example
+ * by plugins, are reloaded after {@link #MAX_AGE_MS}.
+ */
 public class DatabaseSettingLoader implements SettingLoader {
 
+  static final long MAX_AGE_MS = 60_000L;
+
   private final DbClient dbClient;
+  private final ReferenceDataVersions referenceDataVersions;
+  private final System2 system2;
+  private volatile Snapshot snapshot;
 
-  public DatabaseSettingLoader(DbClient dbClient) {
+  public DatabaseSettingLoader(DbClient dbClient, ReferenceDataVersions referenceDataVersions, System2 system2) {
     this.dbClient = dbClient;
+    this.referenceDataVersions = referenceDataVersions;
+    this.system2 = system2;
   }
 
   @Override
   public String load(String key) {
-    PropertyDto dto = dbClient.propertiesDao().selectGlobalProperty(key);
-    if (dto != null) {
-      return defaultString(dto.getValue());
-    }
-    return null;
+    return getGlobalProperties().get(key);
   }
 
   @Override
   public void loadAll(ImmutableMap.Builder<String, String> appendTo) {
+    appendTo.putAll(getGlobalProperties());
+  }
+
+  private Map<String, String> getGlobalProperties() {
+    String version = referenceDataVersions.get(GLOBAL_SETTINGS);
+    long now = system2.now();
+    Snapshot current = snapshot;
+    if (current == null || !current.version.equals(version) || now - current.loadedAt >= MAX_AGE_MS) {
+      current = new Snapshot(version, now, selectGlobalProperties());
+      snapshot = current;
+    }
+    return current.properties;
+  }
+
+  private Map<String, String> selectGlobalProperties() {
+    ImmutableMap.Builder<String, String> builder = ImmutableMap.builder();
     try (DbSession dbSession = dbClient.openSession(false)) {
       dbClient.propertiesDao().selectGlobalProperties(dbSession)
-        .forEach(p -> appendTo.put(p.getKey(), defaultString(p.getValue())));
+        .forEach(p -> builder.put(p.getKey(), defaultString(p.getValue())));
     }
+    return builder.build();
   }
 
+  private static final class Snapshot {
+    private final String version;
+    private final long loadedAt;
+    private final Map<String, String> properties;
+
+    private Snapshot(String version, long loadedAt, Map<String, String> properties) {
+      this.version = version;
+      this.loadedAt = loadedAt;
+      this.properties = properties;
+    }
+  }
 }
@@ -20,9 +20,14 @@
 package org.sonar.server.view.index;
 
 import com.google.common.collect.ImmutableSet;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetResponse;
 import org.elasticsearch.action.index.IndexRequest;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -59,7 +64,7 @@ public class ViewIndexer implements StartupIndexer {
       for (UuidWithProjectUuidDto uuidWithProjectUuidDto : dbClient.componentDao().selectAllViewsAndSubViews(dbSession)) {
         viewAndProjectViewUuidMap.put(uuidWithProjectUuidDto.getUuid(), uuidWithProjectUuidDto.getProjectUuid());
       }
-      index(dbSession, viewAndProjectViewUuidMap, false, Size.LARGE);
+      index(dbSession, viewAndProjectViewUuidMap, Size.LARGE);
     }
   }
 
@@ -67,18 +72,32 @@ public class ViewIndexer implements StartupIndexer {
    * Index a root view : it will load projects on each sub views and index it.
    * Used by the compute engine to reindex a root view.
    * <p/>
-   * The views lookup cache will be cleared
+   * Only the views whose projects changed since last indexing are sent to Elasticsearch. The views lookup
+   * cache is cleared if at least one of them changed.
    */
   public void index(String rootViewUuid) {
-    DbSession dbSession = dbClient.openSession(false);
-    try {
+    try (DbSession dbSession = dbClient.openSession(false)) {
       Map<String, String> viewAndProjectViewUuidMap = newHashMap();
       for (ComponentDto viewOrSubView : dbClient.componentDao().selectEnabledDescendantModules(dbSession, rootViewUuid)) {
         viewAndProjectViewUuidMap.put(viewOrSubView.uuid(), viewOrSubView.projectUuid());
       }
-      index(dbSession, viewAndProjectViewUuidMap, true, Size.REGULAR);
-    } finally {
-      dbSession.close();
+      Map<String, Set<String>> indexedProjectsByViewUuid = selectIndexedProjects(viewAndProjectViewUuidMap.keySet());
+
+      BulkIndexer bulk = new BulkIndexer(esClient, ViewIndexDefinition.INDEX_TYPE_VIEW.getIndex(), Size.REGULAR);
+      bulk.start();
+      boolean changed = false;
+      for (Map.Entry<String, String> entry : viewAndProjectViewUuidMap.entrySet()) {
+        String viewUuid = entry.getKey();
+        List<String> projects = dbClient.componentDao().selectProjectsFromView(dbSession, viewUuid, entry.getValue());
+        if (!new HashSet<>(projects).equals(indexedProjectsByViewUuid.get(viewUuid))) {
+          bulk.add(newIndexRequest(new ViewDoc().setUuid(viewUuid).setProjects(projects)));
+          changed = true;
+        }
+      }
+      bulk.stop();
+      if (changed) {
+        clearLookupCache(rootViewUuid);
+      }
     }
   }
 
@@ -90,28 +109,42 @@ public class ViewIndexer implements StartupIndexer {
   public void index(ViewDoc viewDoc) {
     BulkIndexer bulk = new BulkIndexer(esClient, ViewIndexDefinition.INDEX_TYPE_VIEW.getIndex(), Size.REGULAR);
     bulk.start();
-    doIndex(bulk, viewDoc, true);
+    bulk.add(newIndexRequest(viewDoc));
     bulk.stop();
+    clearLookupCache(viewDoc.uuid());
   }
 
-  private void index(DbSession dbSession, Map<String, String> viewAndProjectViewUuidMap, boolean needClearCache, Size bulkSize) {
+  private void index(DbSession dbSession, Map<String, String> viewAndProjectViewUuidMap, Size bulkSize) {
     BulkIndexer bulk = new BulkIndexer(esClient, ViewIndexDefinition.INDEX_TYPE_VIEW.getIndex(), bulkSize);
     bulk.start();
     for (Map.Entry<String, String> entry : viewAndProjectViewUuidMap.entrySet()) {
       String viewUuid = entry.getKey();
       List<String> projects = dbClient.componentDao().selectProjectsFromView(dbSession, viewUuid, entry.getValue());
-      doIndex(bulk, new ViewDoc()
+      bulk.add(newIndexRequest(new ViewDoc()
         .setUuid(viewUuid)
-        .setProjects(projects), needClearCache);
+        .setProjects(projects)));
     }
     bulk.stop();
   }
 
-  private void doIndex(BulkIndexer bulk, ViewDoc viewDoc, boolean needClearCache) {
-    bulk.add(newIndexRequest(viewDoc));
-    if (needClearCache) {
-      clearLookupCache(viewDoc.uuid());
+  /**
+   * The projects of the views, as currently indexed. Views that are not indexed yet are missing.
+   */
+  private Map<String, Set<String>> selectIndexedProjects(Collection<String> viewUuids) {
+    Map<String, Set<String>> result = newHashMap();
+    if (viewUuids.isEmpty()) {
+      return result;
+    }
+    MultiGetResponse response = esClient.prepareMultiGet()
+      .add(ViewIndexDefinition.INDEX_TYPE_VIEW.getIndex(), ViewIndexDefinition.INDEX_TYPE_VIEW.getType(), viewUuids)
+      .get();
+    for (MultiGetItemResponse item : response.getResponses()) {
+      GetResponse getResponse = item.getResponse();
+      if (getResponse != null && getResponse.isExists()) {
+        result.put(getResponse.getId(), new HashSet<>(new ViewDoc(getResponse.getSource()).projects()));
+      }
     }
+    return result;
   }
 
   private static IndexRequest newIndexRequest(ViewDoc doc) {
@@ -23,6 +23,7 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.sonarqube.ws.MediaTypes.JSON;
 import static org.sonarqube.ws.MediaTypes.XML;
 
+import com.google.common.io.CountingOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
@@ -42,6 +43,7 @@ public class ServletResponse implements Response {
 
   public static class ServletStream implements Stream {
     private final HttpServletResponse response;
+    private CountingOutputStream output;
 
     public ServletStream(HttpServletResponse response) {
       this.response = response;
@@ -64,11 +66,21 @@ public class ServletResponse implements Response {
 
     @Override
     public OutputStream output() {
-      try {
-        return response.getOutputStream();
-      } catch (IOException e) {
-        throw new IllegalStateException(e);
+      if (output == null) {
+        try {
+          output = new CountingOutputStream(response.getOutputStream());
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
       }
+      return output;
+    }
+
+    /**
+     * Number of bytes written to {@link #output()} since last {@link #reset()}
+     */
+    long writtenBytes() {
+      return output == null ? 0L : output.getCount();
     }
 
     HttpServletResponse response() {
@@ -77,6 +89,7 @@ public class ServletResponse implements Response {
 
     public ServletStream reset() {
       response.reset();
+      output = null;
       return this;
     }
   }
@@ -20,6 +20,7 @@
 package org.sonar.server.ws;
 
 import com.google.common.base.Throwables;
+import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
@@ -36,6 +37,8 @@ import org.sonar.api.server.ws.internal.ValidatingRequest;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.api.utils.text.JsonWriter;
+import org.sonar.db.profiling.SqlStatistics;
+import org.sonar.server.es.EsClient;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.exceptions.ServerException;
 import org.sonarqube.ws.MediaTypes;
@@ -59,8 +62,10 @@ public class WebServiceEngine implements LocalConnector, Startable {
   private static final Logger LOGGER = Loggers.get(WebServiceEngine.class);
 
   private final WebService.Context context;
+  private final WebServiceStatistics statistics;
 
-  public WebServiceEngine(WebService[] webServices) {
+  public WebServiceEngine(WebService[] webServices, WebServiceStatistics statistics) {
+    this.statistics = statistics;
     context = new WebService.Context();
     for (WebService webService : webServices) {
       webService.define(context);
@@ -90,9 +95,14 @@ public class WebServiceEngine implements LocalConnector, Startable {
   }
 
   public void execute(Request request, Response response) {
+    long start = System.nanoTime();
+    long dbTimeAtStart = SqlStatistics.getCurrentThreadTimeNanos();
+    long esTimeAtStart = EsClient.getCurrentThreadTimeNanos();
+    WebService.Action action = null;
+    boolean error = true;
     try {
       ActionExtractor actionExtractor = new ActionExtractor(request.getPath());
-      WebService.Action action = getAction(actionExtractor);
+      action = getAction(actionExtractor);
       checkFound(action, "Unknown url : %s", request.getPath());
       if (request instanceof ValidatingRequest) {
         ((ValidatingRequest) request).setAction(action);
@@ -101,6 +111,7 @@ public class WebServiceEngine implements LocalConnector, Startable {
       checkActionExtension(actionExtractor.getExtension());
       verifyRequest(action, request);
       action.handler().handle(request, response);
+      error = false;
     } catch (IllegalArgumentException e) {
       sendErrors(response, 400, singletonList(e.getMessage()));
     } catch (BadRequestException e) {
@@ -110,15 +121,40 @@ public class WebServiceEngine implements LocalConnector, Startable {
     } catch (Exception e) {
       Response.Stream stream = response.stream();
       if (stream instanceof ServletResponse.ServletStream && ((ServletResponse.ServletStream) stream).response().isCommitted()) {
-        // Request has been aborted by the client, nothing can been done as Tomcat has committed the response
-        LOGGER.debug("Request {} has been aborted by client, error is '{}'", request, e.getMessage());
-        return;
+        if (isClientAbort(e)) {
+          // Request has been aborted by the client, nothing can been done as Tomcat has committed the response
+          LOGGER.debug("Request {} has been aborted by client, error is '{}'", request, e.getMessage());
+          return;
+        }
+        // Failure while the response is streamed. An error can not be sent anymore, so the exception is propagated
+        // to Tomcat, which closes the connection instead of ending a truncated response that would look successful.
+        throw new IllegalStateException("Fail to process request " + request + " after response has been committed", e);
       }
       LOGGER.error("Fail to process request " + request, e);
       // Sending exception message into response is a vulnerability. Error must be
       // displayed only in logs.
       sendErrors(response, 500, singletonList("An error has occurred. Please contact your administrator"));
+    } finally {
+      if (action != null) {
+        statistics.get(action.path()).recordRequest(
+          System.nanoTime() - start,
+          SqlStatistics.getCurrentThreadTimeNanos() - dbTimeAtStart,
+          EsClient.getCurrentThreadTimeNanos() - esTimeAtStart,
+          writtenBytes(response),
+          error);
+      }
+    }
+  }
+
+  private static boolean isClientAbort(Exception e) {
+    return Throwables.getCausalChain(e).stream().anyMatch(IOException.class::isInstance);
+  }
+
+  private static long writtenBytes(Response response) {
+    if (response instanceof ServletResponse) {
+      return ((ServletResponse) response).stream().writtenBytes();
     }
+    return 0L;
   }
 
   @CheckForNull
@@ -0,0 +1,150 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ws;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import org.sonar.api.server.ServerSide;
+import org.sonar.db.profiling.LatencyHistogram;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Execution statistics of web services since startup, grouped by action path (for example "api/issues/search").
+ * Only the actions declared by web services are recorded, so the number of entries is bounded. Recording is
+ * lock-free.
+ */
+@ServerSide
+public class WebServiceStatistics {
+
+  private final Map<String, ActionStatistics> statisticsByPath = new ConcurrentHashMap<>();
+
+  public ActionStatistics get(String actionPath) {
+    ActionStatistics statistics = statisticsByPath.get(actionPath);
+    if (statistics == null) {
+      statistics = statisticsByPath.computeIfAbsent(actionPath, ActionStatistics::new);
+    }
+    return statistics;
+  }
+
+  public Collection<ActionStatistics> getAll() {
+    return statisticsByPath.values();
+  }
+
+  /**
+   * @return the {@code limit} actions with the largest total execution time
+   */
+  public List<ActionStatistics> getSlowest(int limit) {
+    return statisticsByPath.values().stream()
+      .sorted(Comparator.comparingLong(ActionStatistics::getTotalTimeNanos).reversed())
+      .limit(limit)
+      .collect(toList());
+  }
+
+  public void reset() {
+    statisticsByPath.clear();
+  }
+
+  public static final class ActionStatistics {
+    // durations of requests in milliseconds
+    private static final int NB_OF_BUCKETS = 24;
+
+    private final String path;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalTimeNanos = new LongAdder();
+    private final LongAccumulator maxTimeNanos = new LongAccumulator(Math::max, 0L);
+    private final LongAdder dbTimeNanos = new LongAdder();
+    private final LongAdder esTimeNanos = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+    private final LatencyHistogram histogram = new LatencyHistogram(NB_OF_BUCKETS);
+
+    private ActionStatistics(String path) {
+      this.path = path;
+    }
+
+    /**
+     * @param durationNanos total duration of the request
+     * @param dbTimeNanos part of the duration spent executing SQL statements, 0 if statistics of SQL statements are disabled
+     * @param esTimeNanos part of the duration spent waiting for Elasticsearch
+     * @param responseBytes size of the response body, 0 if unknown
+     * @param error whether the response is an error
+     */
+    public void recordRequest(long durationNanos, long dbTimeNanos, long esTimeNanos, long responseBytes, boolean error) {
+      requests.increment();
+      if (error) {
+        errors.increment();
+      }
+      totalTimeNanos.add(durationNanos);
+      maxTimeNanos.accumulate(durationNanos);
+      this.dbTimeNanos.add(dbTimeNanos);
+      this.esTimeNanos.add(esTimeNanos);
+      this.responseBytes.add(responseBytes);
+      histogram.record(TimeUnit.NANOSECONDS.toMillis(durationNanos));
+    }
+
+    public String getPath() {
+      return path;
+    }
+
+    public long getRequests() {
+      return requests.sum();
+    }
+
+    public long getErrors() {
+      return errors.sum();
+    }
+
+    public long getTotalTimeNanos() {
+      return totalTimeNanos.sum();
+    }
+
+    public long getMaxTimeNanos() {
+      return maxTimeNanos.get();
+    }
+
+    public long getDbTimeNanos() {
+      return dbTimeNanos.sum();
+    }
+
+    public long getEsTimeNanos() {
+      return esTimeNanos.sum();
+    }
+
+    public long getResponseBytes() {
+      return responseBytes.sum();
+    }
+
+    /**
+     * Upper bound of the given percentile of request durations, in milliseconds. Precision is a power of 2.
+     *
+     * @param percentile between 0 and 100
+     */
+    public long getPercentileMillis(double percentile) {
+      return histogram.getPercentile(percentile);
+    }
+  }
+}
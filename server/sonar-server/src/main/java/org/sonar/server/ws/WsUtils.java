@@ -20,9 +20,11 @@
 package org.sonar.server.ws;
 
 import com.google.common.base.Optional;
+import com.google.protobuf.CodedOutputStream;
 import com.google.protobuf.Message;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.util.Iterator;
 import java.util.List;
 import javax.annotation.Nullable;
 import org.apache.commons.io.IOUtils;
@@ -63,6 +65,42 @@ public class WsUtils {
     }
   }
 
+  /**
+   * Same as {@link #writeProtobuf(Message, Request, Response)}, except that the elements of the repeated field
+   * {@code repeatedFieldName} are provided by {@code elements} instead of being added to {@code msg}. They are
+   * written to the response as soon as they are provided, so that large responses do not have to be loaded in memory.
+   * The field must be empty in {@code msg}.
+   * <p>
+   * As the response may already be committed when an element fails to be provided, the output is closed only when
+   * all the elements are written: a failure must abort the connection, instead of ending a truncated response
+   * that would look successful. See {@link WebServiceEngine}.
+   * </p>
+   */
+  public static void writeProtobuf(Message msg, String repeatedFieldName, Iterator<? extends Message> elements, Request request, Response response) {
+    OutputStream output = response.stream().output();
+    try {
+      if (request.getMediaType().equals(PROTOBUF)) {
+        response.stream().setMediaType(PROTOBUF);
+        int fieldNumber = ProtobufJsonFormat.getStreamedField(msg, repeatedFieldName).getNumber();
+        CodedOutputStream codedOutput = CodedOutputStream.newInstance(output);
+        msg.writeTo(codedOutput);
+        // elements of a repeated field can be written after the other fields of the message
+        while (elements.hasNext()) {
+          codedOutput.writeMessage(fieldNumber, elements.next());
+        }
+        codedOutput.flush();
+      } else {
+        response.stream().setMediaType(JSON);
+        JsonWriter writer = JsonWriter.of(new OutputStreamWriter(output, UTF_8));
+        ProtobufJsonFormat.write(msg, repeatedFieldName, elements, writer);
+        writer.close();
+      }
+    } catch (Exception e) {
+      throw new IllegalStateException("Error while writing protobuf message", e);
+    }
+    IOUtils.closeQuietly(output);
+  }
+
   /**
    * @throws BadRequestException
    */
@@ -21,6 +21,9 @@ package org.sonar.server.batch;
 
 import com.google.common.base.Throwables;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -292,6 +295,24 @@ public class IssuesActionTest {
     assertThat(serverIssue.getModuleKey()).isEqualTo(MODULE_KEY);
   }
 
+  @Test
+  public void return_issues_changed_since_date_including_closed_ones() throws Exception {
+    ComponentDto project = db.components().insertComponent(newPrivateProjectDto(db.getDefaultOrganization(), PROJECT_UUID).setKey(PROJECT_KEY));
+    ComponentDto file = db.components().insertComponent(newFileDto(project, null, FILE_UUID).setKey(FILE_KEY));
+    db.rules().insert(RULE_DEFINITION);
+    db.issues().insert(RULE_DEFINITION, project, file, issue -> issue.setKee("OLD").setStatus("OPEN").setResolution(null).setUpdatedAt(1_000L));
+    db.issues().insert(RULE_DEFINITION, project, file, issue -> issue.setKee("UPDATED").setStatus("OPEN").setResolution(null).setUpdatedAt(2_000L));
+    db.issues().insert(RULE_DEFINITION, project, file, issue -> issue.setKee("CLOSED").setStatus("CLOSED").setResolution("FIXED").setUpdatedAt(3_000L));
+    indexIssues(project);
+    addBrowsePermissionOnComponent(project);
+
+    List<ServerIssue> serverIssues = callChangedSince(PROJECT_KEY, 2_000L);
+
+    assertThat(serverIssues).extracting(ServerIssue::getKey).containsOnly("UPDATED", "CLOSED");
+    assertThat(serverIssues).extracting(ServerIssue::getUpdateDate).containsOnly(2_000L, 3_000L);
+    assertThat(callChangedSince(PROJECT_KEY, 0L)).extracting(ServerIssue::getKey).containsOnly("OLD", "UPDATED", "CLOSED");
+  }
+
   @Test
   public void fail_without_browse_permission_on_file() throws Exception {
     ComponentDto project = db.components().insertPrivateProject();
@@ -319,4 +340,23 @@ public class IssuesActionTest {
       throw Throwables.propagate(e);
     }
   }
+
+  private List<ServerIssue> callChangedSince(String componentKey, long changedSince) {
+    try {
+      TestResponse response = tester.newRequest()
+        .setParam("key", componentKey)
+        .setParam("changedSince", String.valueOf(changedSince))
+        .execute();
+      List<ServerIssue> result = new ArrayList<>();
+      InputStream input = response.getInputStream();
+      ServerIssue issue = ServerIssue.parseDelimitedFrom(input);
+      while (issue != null) {
+        result.add(issue);
+        issue = ServerIssue.parseDelimitedFrom(input);
+      }
+      return result;
+    } catch (IOException e) {
+      throw Throwables.propagate(e);
+    }
+  }
 }
@@ -34,12 +34,14 @@ import org.sonar.db.purge.PurgeConfiguration;
 import org.sonar.db.purge.PurgeDao;
 import org.sonar.db.purge.PurgeListener;
 import org.sonar.db.purge.PurgeProfiler;
+import org.sonar.db.purge.PurgeThrottle;
 import org.sonar.db.purge.period.DefaultPeriodCleaner;
 
 import static java.util.Collections.emptyList;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -104,4 +106,31 @@ public class ProjectCleanerTest {
 
     verify(periodCleaner).clean(any(DbSession.class), anyString(), any(Configuration.class));
   }
+
+  @Test
+  public void purgeDisabledComponents_deletes_aborted_analyses_but_not_history() {
+    DbSession dbSession = mock(DbSession.class);
+
+    underTest.purgeDisabledComponents(dbSession, new IdUuidPair(1L, "P1"), settings.asConfig(), emptyList());
+
+    verify(dao).deleteAbortedAnalyses(dbSession, "P1", profiler);
+    verify(dao).purgeDisabledComponents(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class));
+    verify(dao, never()).purge(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class));
+    verify(periodCleaner, never()).clean(any(DbSession.class), anyString(), any(Configuration.class));
+  }
+
+  @Test
+  public void purgeHistory_uses_given_profiler_and_throttle() {
+    DbSession dbSession = mock(DbSession.class);
+    PurgeProfiler historyProfiler = new PurgeProfiler();
+    PurgeThrottle throttle = rows -> {
+    };
+    Configuration config = settings.asConfig();
+
+    underTest.purgeHistory(dbSession, new IdUuidPair(1L, "P1"), config, historyProfiler, throttle);
+
+    verify(periodCleaner).clean(dbSession, "P1", config, historyProfiler, throttle);
+    verify(dao).purgeHistory(eq(dbSession), any(PurgeConfiguration.class), eq(purgeListener), eq(historyProfiler), eq(throttle));
+    verify(dbSession).commit();
+  }
 }
@@ -0,0 +1,44 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.container;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TaskContainerStatisticsTest {
+
+  private TaskContainerStatistics underTest = new TaskContainerStatistics();
+
+  @Test
+  public void no_statistics_when_no_containers() {
+    assertThat(underTest.getContainers()).isEqualTo(0L);
+    assertThat(underTest.getSetupTimeMillis()).isEqualTo(0L);
+  }
+
+  @Test
+  public void setup_time_cumulates_creation_and_resolution_of_all_containers() {
+    underTest.recordContainer(1_000_000L, 2_000_000L);
+    underTest.recordContainer(500_000L, 1_500_000L);
+
+    assertThat(underTest.getContainers()).isEqualTo(2L);
+    assertThat(underTest.getSetupTimeMillis()).isEqualTo(5L);
+  }
+}
@@ -25,6 +25,7 @@ import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.sonar.api.utils.ZipUtils;
 import org.sonar.api.utils.internal.JUnitTempFolder;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.scanner.protocol.output.ScannerReport;
@@ -65,6 +66,25 @@ public class BatchReportReaderImplTest {
     writer = new ScannerReportWriter(holder.getDirectory());
   }
 
+  @Test
+  public void read_files_in_place_from_zip_file_of_report() throws IOException {
+    writer.writeMetadata(ScannerReport.Metadata.newBuilder().setProjectKey("foo").build());
+    writer.writeComponent(COMPONENT);
+    writer.writeComponentMeasures(COMPONENT_REF, of(MEASURE));
+    File zipFile = tempFolder.newFile();
+    ZipUtils.zipDir(writer.getFileStructure().root(), zipFile);
+    BatchReportDirectoryHolderImpl zipHolder = new BatchReportDirectoryHolderImpl();
+    zipHolder.setZipFile(zipFile);
+    BatchReportReaderImpl zipReader = new BatchReportReaderImpl(zipHolder);
+
+    assertThat(zipReader.readMetadata().getProjectKey()).isEqualTo("foo");
+    assertThat(zipReader.readComponent(COMPONENT_REF)).isEqualTo(COMPONENT);
+    assertThat(zipReader.readComponentMeasures(COMPONENT_REF)).containsExactly(MEASURE);
+    assertThat(zipReader.readComponentIssues(COMPONENT_REF)).isEmpty();
+    assertThat(zipReader.readFileSource(COMPONENT_REF)).isAbsent();
+    zipReader.stop();
+  }
+
   @Test(expected = IllegalStateException.class)
   public void readMetadata_throws_ISE_if_no_metadata() {
     underTest.readMetadata();
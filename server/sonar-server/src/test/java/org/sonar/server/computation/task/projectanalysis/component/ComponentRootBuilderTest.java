@@ -489,6 +489,16 @@ public class ComponentRootBuilderTest {
     assertThat(createFileAttributes(newBuilder().setType(FILE).setLines(10).build()).getLines()).isEqualTo(10);
   }
 
+  @Test
+  public void createFileAttributes_sets_unchanged_from_Scanner_Component_status() {
+    assertThat(createFileAttributes(newBuilder().setType(FILE).setLines(1).build()).isUnchanged()).isFalse();
+    assertThat(createFileAttributes(newBuilder().setType(FILE).setLines(1).setStatus(ScannerReport.Component.FileStatus.CHANGED).build()).isUnchanged()).isFalse();
+    assertThat(createFileAttributes(newBuilder().setType(FILE).setLines(1).setStatus(ScannerReport.Component.FileStatus.SAME).build()).isUnchanged()).isTrue();
+    assertThat(createFileAttributes(newBuilder().setType(FILE).setLines(1).setStatus(ScannerReport.Component.FileStatus.SAME).build()).isDuplicationsSkipped()).isFalse();
+    assertThat(createFileAttributes(newBuilder().setType(FILE).setLines(1).setStatus(ScannerReport.Component.FileStatus.SAME).setDuplicationsSkipped(true).build())
+      .isDuplicationsSkipped()).isTrue();
+  }
+
   @Test
   public void fail_with_IAE_when_createFileAttributes_lines_is_not_set() throws Exception {
     expectedException.expect(IllegalArgumentException.class);
@@ -37,6 +37,23 @@ public class FileAttributesTest {
     assertThat(underTest.isUnitTest()).isTrue();
     assertThat(underTest.getLanguageKey()).isEqualTo("java");
     assertThat(underTest.getLines()).isEqualTo(10);
+    assertThat(underTest.isUnchanged()).isFalse();
+  }
+
+  @Test
+  public void create_unchanged_file() throws Exception {
+    FileAttributes underTest = new FileAttributes(false, "java", 10, true);
+
+    assertThat(underTest.isUnchanged()).isTrue();
+    assertThat(underTest.isDuplicationsSkipped()).isFalse();
+  }
+
+  @Test
+  public void create_unchanged_file_with_skipped_duplications() throws Exception {
+    FileAttributes underTest = new FileAttributes(false, "java", 10, true, true);
+
+    assertThat(underTest.isUnchanged()).isTrue();
+    assertThat(underTest.isDuplicationsSkipped()).isTrue();
   }
 
   @Test
@@ -73,7 +90,7 @@ public class FileAttributesTest {
 
   @Test
   public void test_toString() throws Exception {
-    assertThat(new FileAttributes(true, "java", 10).toString()).isEqualTo("FileAttributes{languageKey='java', unitTest=true, lines=10}");
-    assertThat(new FileAttributes(false, null, 1).toString()).isEqualTo("FileAttributes{languageKey='null', unitTest=false, lines=1}");
+    assertThat(new FileAttributes(true, "java", 10).toString()).isEqualTo("FileAttributes{languageKey='java', unitTest=true, lines=10, unchanged=false, duplicationsSkipped=false}");
+    assertThat(new FileAttributes(false, null, 1).toString()).isEqualTo("FileAttributes{languageKey='null', unitTest=false, lines=1, unchanged=false, duplicationsSkipped=false}");
   }
 }
@@ -32,9 +32,12 @@ import org.junit.Test;
 import org.picocontainer.DefaultPicoContainer;
 import org.picocontainer.PicoContainer;
 import org.sonar.ce.queue.CeTask;
+import org.sonar.core.issue.tracking.Tracker;
 import org.sonar.core.platform.ComponentContainer;
 import org.sonar.plugin.ce.ReportAnalysisComponentProvider;
 import org.sonar.server.computation.task.container.TaskContainer;
+import org.sonar.server.computation.task.projectanalysis.filemove.FileSimilarityImpl;
+import org.sonar.server.computation.task.projectanalysis.filemove.SourceSimilarityImpl;
 import org.sonar.server.computation.task.step.StepsExplorer;
 import org.sonar.server.computation.task.projectanalysis.step.PersistComponentsStep;
 import org.sonar.server.computation.task.projectanalysis.step.PersistDevelopersStep;
@@ -106,6 +109,15 @@ public class ProjectAnalysisTaskContainerPopulatorTest {
     assertThat(container.added).doesNotContain(PersistDevelopersStep.class);
   }
 
+  @Test
+  public void stateless_components_shared_by_all_tasks_are_not_added_to_the_container() {
+    underTest = new ProjectAnalysisTaskContainerPopulator(task, null);
+    AddedObjectsRecorderTaskContainer container = new AddedObjectsRecorderTaskContainer();
+    underTest.populateContainer(container);
+
+    assertThat(container.added).doesNotContain(Tracker.class, SourceSimilarityImpl.class, FileSimilarityImpl.class);
+  }
+
   @Test
   public void Components_of_ReportAnalysisComponentProvider_are_added_to_the_container() {
     Object object = new Object();
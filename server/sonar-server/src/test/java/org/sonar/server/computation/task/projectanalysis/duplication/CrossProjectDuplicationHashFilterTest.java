@@ -0,0 +1,241 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.duplication;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.internal.TestSystem2;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+import org.sonar.db.duplication.DuplicationDao;
+import org.sonar.db.duplication.DuplicationUnitDto;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicationHashFilter.REBUILD_INTERVAL_MS;
+import static org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicationHashFilter.REFRESH_OVERLAP_MS;
+
+public class CrossProjectDuplicationHashFilterTest {
+
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+
+  private DbSession dbSession = db.getSession();
+  private TestSystem2 system2 = new TestSystem2().setNow(1_000_000L);
+  private CrossProjectDuplicationHashFilter underTest = new CrossProjectDuplicationHashFilter(db.getDbClient(), system2);
+
+  @Test
+  public void all_hashes_might_exist_if_not_built() {
+    assertThat(underTest.retainMightExist(asList("aa", "bb"))).containsExactly("aa", "bb");
+  }
+
+  @Test
+  public void retain_hashes_loaded_from_db() {
+    insertUnit("aa");
+    insertUnit("bb");
+
+    underTest.refresh();
+
+    assertThat(underTest.retainMightExist(asList("aa", "bb", "cc", "dd"))).contains("aa", "bb").hasSize(2);
+  }
+
+  @Test
+  public void load_hashes_inserted_since_last_refresh() {
+    insertUnit("aa");
+    underTest.refresh();
+    insertUnit("bb");
+    assertThat(underTest.retainMightExist(singletonList("bb"))).isEmpty();
+
+    underTest.refresh();
+
+    assertThat(underTest.retainMightExist(asList("aa", "bb"))).containsExactly("aa", "bb");
+  }
+
+  @Test
+  public void added_hashes_might_exist() {
+    underTest.refresh();
+
+    underTest.add(singletonList("aa"));
+
+    assertThat(underTest.retainMightExist(asList("aa", "bb"))).containsExactly("aa");
+  }
+
+  @Test
+  public void rebuild_filter_periodically_to_forget_purged_hashes() {
+    insertUnit("aa");
+    underTest.refresh();
+    db.executeUpdateSql("delete from duplications_index");
+
+    system2.setNow(system2.now() + REBUILD_INTERVAL_MS);
+    underTest.refresh();
+
+    assertThat(underTest.retainMightExist(singletonList("aa"))).isEmpty();
+  }
+
+  @Test
+  public void load_rows_committed_late_with_lower_ids() {
+    insertUnit(1L, "aa");
+    underTest.refresh();
+    system2.setNow(system2.now() + 60_000L);
+    insertUnit(3L, "bb");
+    underTest.refresh();
+
+    // committed by another node after row 3, but within the overlap
+    insertUnit(2L, "cc");
+    system2.setNow(system2.now() + 60_000L);
+    underTest.refresh();
+
+    assertThat(underTest.retainMightExist(asList("aa", "bb", "cc"))).containsExactly("aa", "bb", "cc");
+  }
+
+  @Test
+  public void rows_older_than_overlap_are_not_scanned_again() {
+    insertUnit(1L, "aa");
+    underTest.refresh();
+    system2.setNow(system2.now() + 60_000L);
+    insertUnit(3L, "bb");
+    underTest.refresh();
+    system2.setNow(system2.now() + REFRESH_OVERLAP_MS);
+    underTest.refresh();
+
+    insertUnit(2L, "cc");
+    system2.setNow(system2.now() + 60_000L);
+    underTest.refresh();
+
+    assertThat(underTest.retainMightExist(asList("aa", "bb", "cc"))).containsExactly("aa", "bb");
+  }
+
+  @Test
+  public void rebuild_does_not_block_other_tasks() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch loaded = new CountDownLatch(1);
+    DuplicationDao duplicationDao = mock(DuplicationDao.class);
+    doAnswer(invocation -> {
+      loading.countDown();
+      loaded.await();
+      return null;
+    }).when(duplicationDao).selectHashesAfter(any(DbSession.class), anyLong(), any());
+    DbClient dbClient = mock(DbClient.class);
+    when(dbClient.openSession(false)).thenReturn(mock(DbSession.class));
+    when(dbClient.duplicationDao()).thenReturn(duplicationDao);
+    CrossProjectDuplicationHashFilter filter = new CrossProjectDuplicationHashFilter(dbClient, system2);
+
+    Thread rebuild = new Thread(filter::refresh);
+    rebuild.start();
+    loading.await();
+
+    // returns immediately, the filter being built by another thread
+    filter.refresh();
+    assertThat(filter.retainMightExist(asList("aa", "bb"))).containsExactly("aa", "bb");
+    filter.add(singletonList("aa"));
+
+    loaded.countDown();
+    rebuild.join();
+
+    // hashes added during the rebuild are kept
+    assertThat(filter.retainMightExist(asList("aa", "bb"))).containsExactly("aa");
+  }
+
+  @Test
+  public void refresh_loads_recent_rows_into_previous_filter_while_it_is_rebuilt() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch loaded = new CountDownLatch(1);
+    AtomicInteger calls = new AtomicInteger();
+    DuplicationDao duplicationDao = mock(DuplicationDao.class);
+    doAnswer(invocation -> {
+      ResultHandler handler = (ResultHandler) invocation.getArguments()[2];
+      switch (calls.incrementAndGet()) {
+        case 1:
+          // initial build
+          handle(handler, 1L, "aa");
+          break;
+        case 2:
+          // rebuild
+          loading.countDown();
+          loaded.await();
+          handle(handler, 1L, "aa");
+          handle(handler, 2L, "bb");
+          break;
+        default:
+          // row committed by another node since the initial build
+          handle(handler, 2L, "bb");
+      }
+      return null;
+    }).when(duplicationDao).selectHashesAfter(any(DbSession.class), anyLong(), any());
+    DbClient dbClient = mock(DbClient.class);
+    when(dbClient.openSession(false)).thenReturn(mock(DbSession.class));
+    when(dbClient.duplicationDao()).thenReturn(duplicationDao);
+    CrossProjectDuplicationHashFilter filter = new CrossProjectDuplicationHashFilter(dbClient, system2);
+    filter.refresh();
+    system2.setNow(system2.now() + REBUILD_INTERVAL_MS);
+
+    Thread rebuild = new Thread(filter::refresh);
+    rebuild.start();
+    loading.await();
+
+    filter.refresh();
+    assertThat(filter.retainMightExist(asList("aa", "bb"))).containsExactly("aa", "bb");
+
+    loaded.countDown();
+    rebuild.join();
+
+    assertThat(filter.retainMightExist(asList("aa", "bb"))).containsExactly("aa", "bb");
+  }
+
+  private static void handle(ResultHandler handler, long id, String hash) {
+    ResultContext context = mock(ResultContext.class);
+    when(context.getResultObject()).thenReturn(new DuplicationUnitDto().setId(id).setHash(hash));
+    handler.handleResult(context);
+  }
+
+  private void insertUnit(long id, String hash) {
+    db.executeInsert("duplications_index",
+      "ID", id,
+      "ANALYSIS_UUID", "u1",
+      "COMPONENT_UUID", "uuid_1",
+      "HASH", hash,
+      "INDEX_IN_FILE", 0,
+      "START_LINE", 1,
+      "END_LINE", 2);
+  }
+
+  private void insertUnit(String hash) {
+    db.getDbClient().duplicationDao().insert(dbSession, new DuplicationUnitDto()
+      .setAnalysisUuid("u1")
+      .setComponentUuid("uuid_1")
+      .setHash(hash)
+      .setIndexInFile(0)
+      .setStartLine(1)
+      .setEndLine(2));
+    dbSession.commit();
+  }
+}
@@ -29,6 +29,7 @@ import org.junit.rules.TemporaryFolder;
 import org.mockito.ArgumentCaptor;
 import org.sonar.api.issue.Issue;
 import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rule.RuleStatus;
 import org.sonar.api.rule.Severity;
 import org.sonar.api.utils.System2;
 import org.sonar.core.issue.DefaultIssue;
@@ -44,11 +45,13 @@ import org.sonar.scanner.protocol.Constants;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.FileAttributes;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
 import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitor;
 import org.sonar.server.computation.task.projectanalysis.filemove.MovedFilesRepository;
 import org.sonar.server.computation.task.projectanalysis.issue.commonrule.CommonRuleEngineImpl;
 import org.sonar.server.computation.task.projectanalysis.issue.filter.IssueFilter;
+import org.sonar.server.computation.task.projectanalysis.qualityprofile.ActiveRule;
 import org.sonar.server.computation.task.projectanalysis.qualityprofile.ActiveRulesHolderRule;
 import org.sonar.server.computation.task.projectanalysis.source.SourceLinesRepositoryRule;
 
@@ -124,7 +127,8 @@ public class IntegrateIssuesVisitorTest {
     issueCache = new IssueCache(temp.newFile(), System2.INSTANCE);
     when(issueFilter.accept(any(DefaultIssue.class), eq(FILE))).thenReturn(true);
     when(movedFilesRepository.getOriginalFile(any(Component.class))).thenReturn(Optional.<MovedFilesRepository.OriginalFile>absent());
-    underTest = new IntegrateIssuesVisitor(tracker, issueCache, issueLifecycle, issueVisitors, componentsWithUnprocessedIssues, componentIssuesRepository, movedFilesRepository);
+    underTest = new IntegrateIssuesVisitor(tracker, issueCache, issueLifecycle, issueVisitors, componentsWithUnprocessedIssues, componentIssuesRepository, movedFilesRepository,
+      baseIssuesLoader, activeRulesHolderRule, ruleRepositoryRule);
   }
 
   @Test
@@ -225,6 +229,71 @@ public class IntegrateIssuesVisitorTest {
     assertThat(componentsWithUnprocessedIssues.getUuids()).isEmpty();
   }
 
+  @Test
+  public void copy_base_issues_of_unchanged_file() throws Exception {
+    Component unchangedFile = builder(Component.Type.FILE, FILE_REF)
+      .setKey(FILE_KEY)
+      .setUuid(FILE_UUID)
+      .setFileAttributes(new FileAttributes(false, null, 1, true))
+      .build();
+    componentsWithUnprocessedIssues.setUuids(newHashSet(FILE_UUID));
+    RuleKey ruleKey = RuleTesting.XOO_X1;
+    addBaseIssue(ruleKey);
+    activeRulesHolderRule.put(new ActiveRule(ruleKey, Severity.MAJOR, Collections.emptyMap(), 1L));
+
+    underTest.visitAny(unchangedFile);
+
+    verify(issueLifecycle).doAutomaticTransition(defaultIssueCaptor.capture());
+    assertThat(defaultIssueCaptor.getValue().key()).isEqualTo("ISSUE");
+    assertThat(defaultIssueCaptor.getValue().isBeingClosed()).isFalse();
+    verify(issueVisitor).beforeComponent(unchangedFile);
+    verify(issueVisitor).afterComponent(unchangedFile);
+    assertThat(newArrayList(issueCache.traverse())).hasSize(1);
+    assertThat(componentIssuesRepository.getIssues(FILE_REF)).hasSize(1);
+    assertThat(componentsWithUnprocessedIssues.getUuids()).isEmpty();
+  }
+
+  @Test
+  public void close_base_issues_of_unchanged_file_when_rule_is_deactivated() throws Exception {
+    Component unchangedFile = builder(Component.Type.FILE, FILE_REF)
+      .setKey(FILE_KEY)
+      .setUuid(FILE_UUID)
+      .setFileAttributes(new FileAttributes(false, null, 1, true))
+      .build();
+    componentsWithUnprocessedIssues.setUuids(newHashSet(FILE_UUID));
+    // rule is not active in the quality profile anymore
+    addBaseIssue(RuleTesting.XOO_X1);
+
+    underTest.visitAny(unchangedFile);
+
+    verify(issueLifecycle).doAutomaticTransition(defaultIssueCaptor.capture());
+    assertThat(defaultIssueCaptor.getValue().key()).isEqualTo("ISSUE");
+    assertThat(defaultIssueCaptor.getValue().isBeingClosed()).isTrue();
+    assertThat(defaultIssueCaptor.getValue().isOnDisabledRule()).isTrue();
+    assertThat(newArrayList(issueCache.traverse())).hasSize(1);
+    assertThat(componentsWithUnprocessedIssues.getUuids()).isEmpty();
+  }
+
+  @Test
+  public void close_base_issues_of_unchanged_file_when_rule_is_removed() throws Exception {
+    Component unchangedFile = builder(Component.Type.FILE, FILE_REF)
+      .setKey(FILE_KEY)
+      .setUuid(FILE_UUID)
+      .setFileAttributes(new FileAttributes(false, null, 1, true))
+      .build();
+    componentsWithUnprocessedIssues.setUuids(newHashSet(FILE_UUID));
+    RuleKey ruleKey = RuleTesting.XOO_X1;
+    addBaseIssue(ruleKey);
+    activeRulesHolderRule.put(new ActiveRule(ruleKey, Severity.MAJOR, Collections.emptyMap(), 1L));
+    // for example the plugin of the rule has been uninstalled
+    ((DumbRule) ruleRepositoryRule.getByKey(ruleKey)).setStatus(RuleStatus.REMOVED);
+
+    underTest.visitAny(unchangedFile);
+
+    verify(issueLifecycle).doAutomaticTransition(defaultIssueCaptor.capture());
+    assertThat(defaultIssueCaptor.getValue().isBeingClosed()).isTrue();
+  }
+
   @Test
   public void feed_component_issues_repo() throws Exception {
     componentsWithUnprocessedIssues.setUuids(Collections.<String>emptySet());
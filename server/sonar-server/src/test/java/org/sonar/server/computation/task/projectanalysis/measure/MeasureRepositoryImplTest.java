@@ -44,6 +44,7 @@ import org.sonar.scanner.protocol.output.ScannerReport.Measure.StringValue;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.FileAttributes;
 import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
 import org.sonar.server.computation.task.projectanalysis.metric.Metric;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricImpl;
@@ -354,6 +355,36 @@ public class MeasureRepositoryImplTest {
     assertThat(underTest.getRawMeasure(FILE_COMPONENT, metric2)).isAbsent();
   }
 
+  @Test
+  public void getRawMeasure_copies_measures_of_last_analysis_with_batch_metrics_only_when_file_is_unchanged() {
+    ReportComponent unchangedFile = ReportComponent.builder(Component.Type.FILE, 1).setKey(FILE_COMPONENT_KEY)
+      .setFileAttributes(new FileAttributes(false, null, 1, true))
+      .build();
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+    dbClient.measureDao().insert(dbSession, createMeasureDto(METRIC_ID_1, unchangedFile.getUuid(), LAST_ANALYSIS_UUID));
+    dbClient.measureDao().insert(dbSession, createMeasureDto(METRIC_ID_2, unchangedFile.getUuid(), LAST_ANALYSIS_UUID));
+    dbSession.commit();
+    when(metricRepository.getById(METRIC_ID_1)).thenReturn(metric1);
+    when(metricRepository.getById(METRIC_ID_2)).thenReturn(metric2);
+    when(reportMetricValidator.validate(METRIC_KEY_1)).thenReturn(true);
+
+    Optional<Measure> res = underTest.getRawMeasure(unchangedFile, metric1);
+
+    assertThat(res).isPresent();
+    assertThat(res.get().getStringValue()).isEqualTo(SOME_DATA);
+    assertThat(underTest.getRawMeasure(unchangedFile, metric2)).isAbsent();
+  }
+
+  @Test
+  public void getRawMeasure_does_not_copy_measures_of_last_analysis_when_file_is_changed() {
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+    dbClient.measureDao().insert(dbSession, createMeasureDto(METRIC_ID_1, FILE_COMPONENT.getUuid(), LAST_ANALYSIS_UUID));
+    dbSession.commit();
+    when(reportMetricValidator.validate(METRIC_KEY_1)).thenReturn(true);
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, metric1)).isAbsent();
+  }
+
   @Test
   public void getRawMeasure_retrieves_added_measure_over_batch_measure() {
     when(reportMetricValidator.validate(METRIC_KEY_1)).thenReturn(true);
@@ -45,6 +45,7 @@ import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetada
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.FileAttributes;
 import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
 import org.sonar.server.computation.task.projectanalysis.component.ViewsComponent;
 import org.sonar.server.computation.task.projectanalysis.source.SourceHashRepository;
@@ -122,6 +123,19 @@ public class ScmInfoRepositoryImplTest {
     assertThat(logTester.logs(TRACE)).containsOnly("Reading SCM info from db for file 'FILE_KEY'");
   }
 
+  @Test
+  public void getScmInfo_returns_ScmInfo_from_DB_CopyFromPrevious_is_true_without_source_in_report_if_file_is_unchanged() throws Exception {
+    Component unchangedFile = builder(Component.Type.FILE, FILE_REF).setKey("FILE_KEY").setUuid("FILE_UUID")
+      .setFileAttributes(new FileAttributes(false, null, 1, true))
+      .build();
+    analysisMetadataHolder.setBaseAnalysis(baseProjectAnalysis);
+    addFileSourceInDb("henry", DATE_1, "rev-1", "don't care");
+    addCopyFromPreviousChangesetInReport();
+
+    ScmInfo scmInfo = underTest.getScmInfo(unchangedFile).get();
+    assertThat(scmInfo.getAllChangesets()).hasSize(1);
+  }
+
   @Test
   public void getScmInfo_returns_absent_when_CopyFromPrevious_is_true_but_hashes_are_not_the_same() throws Exception {
     analysisMetadataHolder.setBaseAnalysis(baseProjectAnalysis);
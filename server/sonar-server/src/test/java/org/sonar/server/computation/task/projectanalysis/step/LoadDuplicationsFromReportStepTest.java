@@ -27,7 +27,9 @@ import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.FileAttributes;
 import org.sonar.server.computation.task.projectanalysis.component.VisitException;
+import org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicate;
 import org.sonar.server.computation.task.projectanalysis.duplication.DetailedTextBlock;
 import org.sonar.server.computation.task.projectanalysis.duplication.Duplicate;
 import org.sonar.server.computation.task.projectanalysis.duplication.Duplication;
@@ -35,8 +37,13 @@ import org.sonar.server.computation.task.projectanalysis.duplication.Duplication
 import org.sonar.server.computation.task.projectanalysis.duplication.InProjectDuplicate;
 import org.sonar.server.computation.task.projectanalysis.duplication.InnerDuplicate;
 import org.sonar.server.computation.task.projectanalysis.duplication.TextBlock;
+import org.sonar.server.computation.task.projectanalysis.measure.Measure;
+import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepositoryRule;
+import org.sonar.server.computation.task.projectanalysis.metric.MetricRepositoryRule;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.api.measures.CoreMetrics.DUPLICATIONS_DATA;
+import static org.sonar.api.measures.CoreMetrics.DUPLICATIONS_DATA_KEY;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.FILE;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.PROJECT;
 import static org.sonar.server.computation.task.projectanalysis.component.ReportComponent.builder;
@@ -48,13 +55,15 @@ public class LoadDuplicationsFromReportStepTest {
   private static final int ROOT_REF = 1;
   private static final int FILE_1_REF = 11;
   private static final int FILE_2_REF = 12;
+  private static final int UNCHANGED_FILE_REF = 13;
 
   @Rule
   public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule().setRoot(
     builder(PROJECT, ROOT_REF)
       .addChildren(
         builder(FILE, FILE_1_REF).build(),
-        builder(FILE, FILE_2_REF).build()
+        builder(FILE, FILE_2_REF).build(),
+        builder(FILE, UNCHANGED_FILE_REF).setFileAttributes(new FileAttributes(false, "java", 10, true, true)).build()
       )
       .build()
     );
@@ -63,9 +72,15 @@ public class LoadDuplicationsFromReportStepTest {
   @Rule
   public DuplicationRepositoryRule duplicationRepository = DuplicationRepositoryRule.create(treeRootHolder);
   @Rule
+  public MetricRepositoryRule metricRepository = new MetricRepositoryRule()
+    .add(DUPLICATIONS_DATA);
+  @Rule
+  public MeasureRepositoryRule measureRepository = MeasureRepositoryRule.create(treeRootHolder, metricRepository);
+  @Rule
   public ExpectedException expectedException = ExpectedException.none();
 
-  private LoadDuplicationsFromReportStep underTest = new LoadDuplicationsFromReportStep(treeRootHolder, reportReader, duplicationRepository);
+  private LoadDuplicationsFromReportStep underTest = new LoadDuplicationsFromReportStep(treeRootHolder, reportReader, duplicationRepository,
+    measureRepository, metricRepository);
 
   @Test
   public void verify_description() {
@@ -184,6 +199,31 @@ public class LoadDuplicationsFromReportStepTest {
     underTest.execute();
   }
 
+  @Test
+  public void loads_previous_duplications_of_unchanged_file_if_skipped_by_scanner() {
+    measureRepository.addBaseMeasure(UNCHANGED_FILE_REF, DUPLICATIONS_DATA_KEY, Measure.newMeasureBuilder().create("<duplications><g>"
+      + "<b s=\"2\" l=\"1\" r=\"key_13\"/>"
+      + "<b s=\"5\" l=\"2\" r=\"key_13\"/>"
+      + "<b s=\"3\" l=\"1\" r=\"key_11\"/>"
+      + "<b s=\"7\" l=\"1\" r=\"other:Foo.java\"/>"
+      + "<b s=\"1\" l=\"1\" r=\"key_1:Removed.java\"/>"
+      + "</g></duplications>"));
+
+    underTest.execute();
+
+    assertDuplications(UNCHANGED_FILE_REF, singleLineDetailedTextBlock(1, 2),
+      new InnerDuplicate(new TextBlock(5, 6)),
+      new InProjectDuplicate(treeRootHolder.getComponentByRef(FILE_1_REF), singleLineTextBlock(3)),
+      new CrossProjectDuplicate("other:Foo.java", singleLineTextBlock(7)));
+  }
+
+  @Test
+  public void loads_no_duplications_of_unchanged_file_if_none_in_previous_analysis() {
+    underTest.execute();
+
+    assertNoDuplication(UNCHANGED_FILE_REF);
+  }
+
   private void assertDuplications(int fileRef, TextBlock original, Duplicate... duplicates) {
     assertThat(duplicationRepository.getDuplications(fileRef)).containsExactly(duplication(original, duplicates));
   }
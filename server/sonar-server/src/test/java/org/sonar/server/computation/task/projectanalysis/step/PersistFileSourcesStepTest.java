@@ -120,6 +120,27 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
     assertThat(data.getLines(1).getSource()).isEqualTo("line2");
   }
 
+  @Test
+  public void persist_sources_of_more_files_than_can_be_computed_in_parallel() {
+    int files = 50;
+    ReportComponent.Builder module = ReportComponent.builder(Component.Type.MODULE, 2).setUuid("MODULE").setKey("MODULE_KEY");
+    for (int ref = 10; ref < 10 + files; ref++) {
+      module.addChildren(ReportComponent.builder(Component.Type.FILE, ref).setUuid("FILE_" + ref).setKey("MODULE_KEY:src/Foo" + ref + ".java")
+        .setFileAttributes(new FileAttributes(false, null, 1)).build());
+      fileSourceRepository.addLine(ref, "line of file " + ref);
+    }
+    treeRootHolder.setRoot(ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).addChildren(module.build()).build());
+
+    underTest.execute();
+
+    assertThat(dbTester.countRowsOfTable("file_sources")).isEqualTo(files);
+    for (int ref = 10; ref < 10 + files; ref++) {
+      DbFileSources.Data data = dbClient.fileSourceDao().selectSourceByFileUuid(session, "FILE_" + ref).getSourceData();
+      assertThat(data.getLinesCount()).isEqualTo(1);
+      assertThat(data.getLines(0).getSource()).isEqualTo("line of file " + ref);
+    }
+  }
+
   @Test
   public void persist_source_hashes() {
     initBasicReport(2);
@@ -313,6 +334,37 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
     assertThat(fileSourceDto.getUpdatedAt()).isEqualTo(past);
   }
 
+  @Test
+  public void not_read_nor_update_sources_of_unchanged_file() {
+    long past = 150000L;
+    dbClient.fileSourceDao().insert(dbTester.getSession(), new FileSourceDto()
+      .setProjectUuid(PROJECT_UUID)
+      .setFileUuid(FILE_UUID)
+      .setSrcHash("137f72c3708c6bd0de00a0e5a69c699b")
+      .setSourceData(DbFileSources.Data.newBuilder()
+        .addLines(DbFileSources.Line.newBuilder()
+          .setLine(1)
+          .setSource("line1")
+          .build())
+        .build())
+      .setCreatedAt(past)
+      .setUpdatedAt(past));
+    dbTester.getSession().commit();
+
+    // no source lines in the report
+    treeRootHolder.setRoot(ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).addChildren(
+      ReportComponent.builder(Component.Type.FILE, FILE_REF).setUuid(FILE_UUID).setKey("MODULE_KEY:src/Foo.java")
+        .setFileAttributes(new FileAttributes(false, null, 1, true)).build())
+      .build());
+
+    underTest.execute();
+
+    assertThat(dbTester.countRowsOfTable("file_sources")).isEqualTo(1);
+    FileSourceDto fileSourceDto = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE_UUID);
+    assertThat(fileSourceDto.getSourceData().getLinesList()).extracting("source").containsOnly("line1");
+    assertThat(fileSourceDto.getUpdatedAt()).isEqualTo(past);
+  }
+
   @Test
   public void update_sources_when_source_updated() {
     // Existing sources
@@ -19,8 +19,10 @@
  */
 package org.sonar.server.computation.task.step;
 
+import com.google.common.collect.Iterables;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -65,6 +67,18 @@ public class ComputationStepExecutorTest {
     inOrder.verifyNoMoreInteractions();
   }
 
+  @Test
+  public void execute_measures_time_spent_getting_instances_of_ComputationSteps() {
+    ComputationSteps steps = mock(ComputationSteps.class);
+    when(steps.instances()).thenReturn(Iterables.transform(Arrays.asList(computationStep1, computationStep2), ComputationStepExecutorTest::resolveSlowly));
+    ComputationStepExecutor underTest = new ComputationStepExecutor(steps);
+    assertThat(underTest.getResolutionTimeNanos()).isEqualTo(0L);
+
+    underTest.execute();
+
+    assertThat(underTest.getResolutionTimeNanos()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(20L));
+  }
+
   @Test
   public void execute_let_exception_thrown_by_ComputationStep_go_up_as_is() {
     String message = "Exception should go up";
@@ -158,6 +172,15 @@ public class ComputationStepExecutorTest {
     return steps;
   }
 
+  private static ComputationStep resolveSlowly(ComputationStep step) {
+    try {
+      Thread.sleep(10L);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return step;
+  }
+
   private static ComputationStep mockComputationStep(String desc) {
     ComputationStep mock = mock(ComputationStep.class);
     when(mock.getDescription()).thenReturn(desc);
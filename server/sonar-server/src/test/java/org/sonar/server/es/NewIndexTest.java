@@ -185,6 +185,33 @@ public class NewIndexTest {
     assertThat(index.getSettings().get(IndexMetaData.SETTING_NUMBER_OF_REPLICAS)).isEqualTo("0");
   }
 
+  @Test
+  public void size_number_of_shards_by_expected_number_of_documents() {
+    NewIndex index = new NewIndex("issues");
+    MapSettings settings = new MapSettings();
+    settings.setProperty("sonar.search.issues.expectedDocuments", "12000000");
+    index.configureShards(settings.asConfig(), 5);
+    assertThat(index.getSettings().get(IndexMetaData.SETTING_NUMBER_OF_SHARDS)).isEqualTo("3");
+
+    settings.setProperty("sonar.search.issues.documentsPerShard", "1000000");
+    index.configureShards(settings.asConfig(), 5);
+    assertThat(index.getSettings().get(IndexMetaData.SETTING_NUMBER_OF_SHARDS)).isEqualTo("12");
+
+    settings.setProperty("sonar.search.issues.expectedDocuments", "0");
+    index.configureShards(settings.asConfig(), 5);
+    assertThat(index.getSettings().get(IndexMetaData.SETTING_NUMBER_OF_SHARDS)).isEqualTo("1");
+  }
+
+  @Test
+  public void explicit_number_of_shards_has_precedence_over_expected_number_of_documents() {
+    NewIndex index = new NewIndex("issues");
+    MapSettings settings = new MapSettings();
+    settings.setProperty("sonar.search.issues.shards", "2");
+    settings.setProperty("sonar.search.issues.expectedDocuments", "12000000");
+    index.configureShards(settings.asConfig(), 5);
+    assertThat(index.getSettings().get(IndexMetaData.SETTING_NUMBER_OF_SHARDS)).isEqualTo("2");
+  }
+
   @Test
   public void default_number_of_replicas_on_standalone_instance_must_be_0() {
     NewIndex index = new NewIndex("issues");
@@ -25,6 +25,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.server.es.EsClient;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.es.FakeIndexDefinition;
 
@@ -48,6 +49,19 @@ public class ProxyGetRequestBuilderTest {
       .get();
   }
 
+  @Test
+  public void time_is_added_to_current_thread() {
+    long before = EsClient.getCurrentThreadTimeNanos();
+
+    esTester.client().prepareGet()
+      .setIndex(FakeIndexDefinition.INDEX)
+      .setType(FakeIndexDefinition.TYPE)
+      .setId("ruleKey")
+      .get();
+
+    assertThat(EsClient.getCurrentThreadTimeNanos()).isGreaterThan(before);
+  }
+
   @Test
   public void trace_logs() {
     logTester.setLevel(LoggerLevel.TRACE);
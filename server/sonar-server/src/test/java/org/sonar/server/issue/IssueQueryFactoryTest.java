@@ -219,6 +219,7 @@ public class IssueQueryFactoryTest {
 
     IssueQuery query = underTest.create(request);
     assertThat(query.projectUuids()).containsExactly(project.uuid());
+    assertThat(query.routingProjectUuids()).isEmpty();
     assertThat(query.onComponentOnly()).isFalse();
   }
 
@@ -245,6 +246,7 @@ public class IssueQueryFactoryTest {
 
     IssueQuery query = underTest.create(request);
     assertThat(query.moduleRootUuids()).containsExactly(module.uuid());
+    assertThat(query.routingProjectUuids()).containsExactly(project.uuid());
     assertThat(query.onComponentOnly()).isFalse();
   }
 
@@ -259,6 +261,7 @@ public class IssueQueryFactoryTest {
 
     assertThat(query.moduleUuids()).containsOnly(dir.moduleUuid());
     assertThat(query.directories()).containsOnly(dir.path());
+    assertThat(query.routingProjectUuids()).containsExactly(project.uuid());
     assertThat(query.onComponentOnly()).isFalse();
   }
 
@@ -272,6 +275,20 @@ public class IssueQueryFactoryTest {
     IssueQuery query = underTest.create(request);
 
     assertThat(query.fileUuids()).containsExactly(file.uuid());
+    assertThat(query.routingProjectUuids()).containsExactly(project.uuid());
+  }
+
+  @Test
+  public void param_componentUuids_does_not_enable_routing_if_a_file_is_unknown() {
+    ComponentDto project = db.components().insertPrivateProject();
+    ComponentDto file = db.components().insertComponent(ComponentTesting.newFileDto(project));
+    SearchWsRequest request = new SearchWsRequest()
+      .setComponentUuids(asList(file.uuid(), "unknown"));
+
+    IssueQuery query = underTest.create(request);
+
+    assertThat(query.fileUuids()).containsExactly(file.uuid(), "unknown");
+    assertThat(query.routingProjectUuids()).isEmpty();
   }
 
   @Test
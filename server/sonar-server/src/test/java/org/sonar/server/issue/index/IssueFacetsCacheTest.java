@@ -0,0 +1,113 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue.index;
+
+import java.util.LinkedHashMap;
+import org.junit.Test;
+import org.sonar.api.utils.internal.TestSystem2;
+import org.sonar.server.es.Facets;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class IssueFacetsCacheTest {
+
+  private static final IssueFacetsCache.Key KEY_P1 = new IssueFacetsCache.Key(singletonList("P1"), "q");
+  private static final IssueFacetsCache.Key KEY_P2 = new IssueFacetsCache.Key(singletonList("P2"), "q");
+  private static final IssueFacetsCache.Key KEY_P1_P2 = new IssueFacetsCache.Key(asList("P2", "P1"), "q");
+
+  private TestSystem2 system2 = new TestSystem2().setNow(1_000L);
+  private IssueFacetsCache underTest = new IssueFacetsCache(system2);
+
+  @Test
+  public void get_returns_copy_of_cached_facets() {
+    underTest.put(KEY_P1, newFacets("severities", 2));
+
+    Facets facets = underTest.get(new IssueFacetsCache.Key(singletonList("P1"), "q")).get();
+    assertThat(facets.get("severities")).containsOnly(entry("v0", 0L), entry("v1", 1L));
+
+    facets.get("severities").put("v2", 0L);
+    assertThat(underTest.get(KEY_P1).get().get("severities")).hasSize(2);
+    assertThat(underTest.get(new IssueFacetsCache.Key(singletonList("P1"), "other"))).isEmpty();
+    assertThat(underTest.getHits()).isEqualTo(2L);
+    assertThat(underTest.getMisses()).isEqualTo(1L);
+  }
+
+  @Test
+  public void invalidate_entries_of_projects() {
+    underTest.put(KEY_P1, newFacets("severities", 2));
+    underTest.put(KEY_P2, newFacets("severities", 2));
+    underTest.put(KEY_P1_P2, newFacets("severities", 2));
+
+    underTest.invalidate(singletonList("P1"));
+
+    assertThat(underTest.get(KEY_P1)).isEmpty();
+    assertThat(underTest.get(KEY_P1_P2)).isEmpty();
+    assertThat(underTest.get(KEY_P2)).isPresent();
+
+    underTest.invalidateAll();
+    assertThat(underTest.get(KEY_P2)).isEmpty();
+  }
+
+  @Test
+  public void entries_expire() {
+    underTest.put(KEY_P1, newFacets("severities", 2));
+
+    system2.setNow(1_000L + IssueFacetsCache.TTL_MS - 1);
+    assertThat(underTest.get(KEY_P1)).isPresent();
+
+    system2.setNow(1_000L + IssueFacetsCache.TTL_MS);
+    assertThat(underTest.get(KEY_P1)).isEmpty();
+  }
+
+  @Test
+  public void least_recently_used_entries_are_evicted_when_cache_is_full() {
+    int half = IssueFacetsCache.MAX_WEIGHT / 2;
+    underTest.put(KEY_P1, newFacets("rules", half - 1));
+    underTest.put(KEY_P2, newFacets("rules", half - 1));
+    underTest.get(KEY_P1);
+
+    underTest.put(KEY_P1_P2, newFacets("rules", 10));
+
+    assertThat(underTest.get(KEY_P1)).isPresent();
+    assertThat(underTest.get(KEY_P2)).isEmpty();
+    assertThat(underTest.get(KEY_P1_P2)).isPresent();
+    assertThat(underTest.attributes()).containsEntry("Entries", 2).containsEntry("Facet Values", half + 11);
+  }
+
+  @Test
+  public void do_not_cache_facets_bigger_than_cache() {
+    underTest.put(KEY_P1, newFacets("rules", IssueFacetsCache.MAX_WEIGHT));
+
+    assertThat(underTest.get(KEY_P1)).isEmpty();
+  }
+
+  private static Facets newFacets(String name, int nbValues) {
+    LinkedHashMap<String, Long> values = new LinkedHashMap<>();
+    for (int i = 0; i < nbValues; i++) {
+      values.put("v" + i, (long) i);
+    }
+    LinkedHashMap<String, LinkedHashMap<String, Long>> facets = new LinkedHashMap<>();
+    facets.put(name, values);
+    return new Facets(facets);
+  }
+}
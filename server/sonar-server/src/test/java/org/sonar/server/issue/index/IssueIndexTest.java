@@ -39,6 +39,7 @@ import org.sonar.api.rule.Severity;
 import org.sonar.api.utils.Duration;
 import org.sonar.api.utils.KeyValueFormat;
 import org.sonar.api.utils.System2;
+import org.sonar.api.web.UserRole;
 import org.sonar.db.DbTester;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
@@ -326,6 +327,26 @@ public class IssueIndexTest {
       .containsOnly(entry("A", 1L), entry("ABCD", 1L), entry("BCDE", 2L), entry("CDEF", 1L));
   }
 
+  @Test
+  public void search_by_files_is_routed_to_shards_of_their_projects() {
+    ComponentDto project1 = newPrivateProjectDto(newOrganizationDto());
+    ComponentDto project2 = newPrivateProjectDto(newOrganizationDto());
+    ComponentDto file1 = newFileDto(project1, null);
+    ComponentDto file2 = newFileDto(project2, null);
+
+    indexIssues(
+      newDoc("I1", file1),
+      newDoc("I2", file2));
+
+    IssueQuery query = IssueQuery.builder().fileUuids(newArrayList(file1.uuid())).routingProjectUuids(newArrayList(project1.uuid())).build();
+    assertThat(underTest.search(query, new SearchOptions()).getDocs()).extracting(IssueDoc::key).containsOnly("I1");
+
+    // routing is ignored by the sticky facet on files, which covers all the projects
+    SearchResult<IssueDoc> result = underTest.search(query, new SearchOptions().addFacets(newArrayList("fileUuids")));
+    assertThat(result.getDocs()).extracting(IssueDoc::key).containsOnly("I1");
+    assertThat(result.getFacets().get("fileUuids")).containsOnly(entry(file1.uuid(), 1L), entry(file2.uuid(), 1L));
+  }
+
   @Test
   public void filter_by_directories() {
     ComponentDto project = ComponentTesting.newPrivateProjectDto(newOrganizationDto());
@@ -412,6 +433,74 @@ public class IssueIndexTest {
     assertThat(result.getFacets().get("severities")).containsOnly(entry("INFO", 2L), entry("MAJOR", 1L));
   }
 
+  @Test
+  public void facets_of_search_on_projects_are_cached_until_issues_of_projects_are_indexed() {
+    IssueFacetsCache facetsCache = new IssueFacetsCache(system2);
+    IssueIndexer cachingIndexer = new IssueIndexer(tester.client(), new IssueIteratorFactory(null), facetsCache);
+    IssueIndex cachingIndex = new IssueIndex(tester.client(), system2, userSessionRule, new AuthorizationTypeSupport(userSessionRule), facetsCache);
+    ComponentDto project = ComponentTesting.newPrivateProjectDto(newOrganizationDto());
+    ComponentDto file = newFileDto(project, null);
+    indexIssues(newDoc("ISSUE1", file).setSeverity(Severity.INFO));
+    userSessionRule.logIn().addProjectPermission(UserRole.USER, project);
+    IssueQuery query = IssueQuery.builder().projectUuids(newArrayList(project.uuid())).build();
+    SearchOptions options = new SearchOptions().addFacets(newArrayList("severities"));
+
+    assertThat(cachingIndex.search(query, options).getFacets().get("severities")).containsOnly(entry("INFO", 1L));
+    assertThat(cachingIndex.search(query, options).getFacets().get("severities")).containsOnly(entry("INFO", 1L));
+    assertThat(facetsCache.getHits()).isEqualTo(1L);
+
+    cachingIndexer.index(newArrayList(newDoc("ISSUE2", file).setSeverity(Severity.MAJOR)).iterator());
+    assertThat(cachingIndex.search(query, options).getFacets().get("severities")).containsOnly(entry("INFO", 1L), entry("MAJOR", 1L));
+    assertThat(facetsCache.getMisses()).isEqualTo(2L);
+  }
+
+  @Test
+  public void cached_facets_are_not_used_once_issues_are_indexed_by_another_process() {
+    IssueFacetsCache facetsCache = new IssueFacetsCache(system2);
+    IssueIndex cachingIndex = new IssueIndex(tester.client(), system2, userSessionRule, new AuthorizationTypeSupport(userSessionRule), facetsCache);
+    ComponentDto project = ComponentTesting.newPrivateProjectDto(newOrganizationDto());
+    ComponentDto file = newFileDto(project, null);
+    indexIssues(newDoc("ISSUE1", file).setSeverity(Severity.INFO));
+    userSessionRule.logIn().addProjectPermission(UserRole.USER, project);
+    IssueQuery query = IssueQuery.builder().projectUuids(newArrayList(project.uuid())).build();
+    SearchOptions options = new SearchOptions().addFacets(newArrayList("severities"));
+    cachingIndex.search(query, options);
+
+    // indexed without invalidating the cache, as done by Compute Engine
+    indexIssues(newDoc("ISSUE2", file).setSeverity(Severity.MAJOR));
+    SearchResult<IssueDoc> result = cachingIndex.search(query, options);
+
+    assertThat(result.getDocs()).extracting(IssueDoc::key).containsOnly("ISSUE1", "ISSUE2");
+    assertThat(result.getFacets().get("severities")).containsOnly(entry("INFO", 1L), entry("MAJOR", 1L));
+    assertThat(facetsCache.getHits()).isZero();
+  }
+
+  @Test
+  public void facet_on_projects_is_not_cached_as_it_depends_on_permissions() {
+    IssueFacetsCache facetsCache = new IssueFacetsCache(system2);
+    IssueIndex cachingIndex = new IssueIndex(tester.client(), system2, userSessionRule, new AuthorizationTypeSupport(userSessionRule), facetsCache);
+    ComponentDto project = ComponentTesting.newPrivateProjectDto(newOrganizationDto());
+    indexIssues(newDoc("ISSUE1", newFileDto(project, null)));
+    userSessionRule.logIn().addProjectPermission(UserRole.USER, project);
+
+    cachingIndex.search(IssueQuery.builder().projectUuids(newArrayList(project.uuid())).build(), new SearchOptions().addFacets(newArrayList("projectUuids")));
+
+    assertThat(facetsCache.getHits() + facetsCache.getMisses()).isZero();
+  }
+
+  @Test
+  public void facets_are_not_cached_if_user_can_not_browse_all_projects_of_search() {
+    IssueFacetsCache facetsCache = new IssueFacetsCache(system2);
+    IssueIndex cachingIndex = new IssueIndex(tester.client(), system2, userSessionRule, new AuthorizationTypeSupport(userSessionRule), facetsCache);
+    ComponentDto project = ComponentTesting.newPrivateProjectDto(newOrganizationDto());
+    indexIssues(newDoc("ISSUE1", newFileDto(project, null)));
+    userSessionRule.logIn();
+
+    cachingIndex.search(IssueQuery.builder().projectUuids(newArrayList(project.uuid())).build(), new SearchOptions().addFacets(newArrayList("severities")));
+
+    assertThat(facetsCache.getHits() + facetsCache.getMisses()).isZero();
+  }
+
   @Test
   public void filter_by_statuses() {
     ComponentDto project = ComponentTesting.newPrivateProjectDto(newOrganizationDto());
@@ -1294,6 +1383,24 @@ public class IssueIndexTest {
     assertThat(Lists.newArrayList(underTest.selectIssuesForBatch(ComponentTesting.newPrivateProjectDto(newOrganizationDto())))).isEmpty();
   }
 
+  @Test
+  public void search_issues_for_batch_changed_since_date() {
+    ComponentDto project = ComponentTesting.newPrivateProjectDto(newOrganizationDto());
+    ComponentDto file = newFileDto(project, null);
+
+    indexIssues(
+      newDoc("OLD_ISSUE", file).setTechnicalUpdateDate(parseDate("2014-09-01")),
+      newDoc("NEW_ISSUE", file).setTechnicalUpdateDate(parseDate("2014-10-01")),
+      // closed issues are returned, so that they can be removed from a local copy
+      newDoc("CLOSED_ISSUE", file).setStatus(Issue.STATUS_CLOSED).setResolution(Issue.RESOLUTION_FIXED).setTechnicalUpdateDate(parseDate("2014-10-01")));
+
+    assertThat(Lists.newArrayList(underTest.selectIssuesForBatch(project, parseDate("2014-10-01")))).extracting(IssueDoc::key)
+      .containsOnly("NEW_ISSUE", "CLOSED_ISSUE");
+    assertThat(Lists.newArrayList(underTest.selectIssuesForBatch(project, parseDate("2014-11-01")))).isEmpty();
+    assertThat(Lists.newArrayList(underTest.selectIssuesForBatch(project, null))).extracting(IssueDoc::key)
+      .containsOnly("OLD_ISSUE", "NEW_ISSUE");
+  }
+
   @Test
   public void fail_to_search_issues_for_batch_on_not_allowed_scope() {
     try {
@@ -52,6 +52,7 @@ import org.sonarqube.ws.WsMeasures;
 import org.sonarqube.ws.WsMeasures.ComponentTreeWsResponse;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
 import static org.sonar.api.measures.CoreMetrics.NEW_SECURITY_RATING_KEY;
 import static org.sonar.api.measures.Metric.ValueType.DISTRIB;
 import static org.sonar.api.measures.Metric.ValueType.FLOAT;
@@ -318,6 +319,41 @@ public class ComponentTreeActionTest {
     assertThat(response.getPaging().getTotal()).isEqualTo(4);
   }
 
+  @Test
+  public void sort_by_metric_value_and_load_measures_of_all_metrics_on_requested_page() {
+    ComponentDto projectDto = newPrivateProjectDto(db.getDefaultOrganization(), "project-uuid");
+    SnapshotDto projectSnapshot = componentDb.insertProjectAndSnapshot(projectDto);
+    ComponentDto file1 = componentDb.insertComponent(newFileDto(projectDto, null, "file-uuid-1"));
+    ComponentDto file2 = componentDb.insertComponent(newFileDto(projectDto, null, "file-uuid-2"));
+    ComponentDto file3 = componentDb.insertComponent(newFileDto(projectDto, null, "file-uuid-3"));
+    MetricDto ncloc = insertNclocMetric();
+    MetricDto coverage = insertCoverageMetric();
+    dbClient.measureDao().insert(dbSession,
+      newMeasureDto(ncloc, projectDto, projectSnapshot).setValue(6.0d),
+      newMeasureDto(ncloc, file1, projectSnapshot).setValue(3.0d),
+      newMeasureDto(ncloc, file2, projectSnapshot).setValue(1.0d),
+      newMeasureDto(ncloc, file3, projectSnapshot).setValue(2.0d),
+      newMeasureDto(coverage, file1, projectSnapshot).setValue(30.0d),
+      newMeasureDto(coverage, file2, projectSnapshot).setValue(10.0d),
+      newMeasureDto(coverage, file3, projectSnapshot).setValue(20.0d));
+    db.commit();
+
+    ComponentTreeWsResponse response = ws.newRequest()
+      .setParam(PARAM_BASE_COMPONENT_ID, "project-uuid")
+      .setParam(Param.SORT, METRIC_SORT)
+      .setParam(PARAM_METRIC_SORT, "ncloc")
+      .setParam(PARAM_METRIC_KEYS, "ncloc,coverage")
+      .setParam(Param.PAGE, "2")
+      .setParam(Param.PAGE_SIZE, "2")
+      .executeProtobuf(ComponentTreeWsResponse.class);
+
+    assertThat(response.getBaseComponent().getMeasuresList()).extracting("metric").containsOnly("ncloc");
+    assertThat(response.getComponentsList()).extracting("id").containsExactly("file-uuid-1");
+    assertThat(response.getComponentsList().get(0).getMeasuresList()).extracting("metric", "value")
+      .containsOnly(tuple("ncloc", "3"), tuple("coverage", "30.0"));
+    assertThat(response.getPaging().getTotal()).isEqualTo(3);
+  }
+
   @Test
   public void remove_components_without_measure_on_the_metric_sort() {
     ComponentDto project = newPrivateProjectDto(db.getDefaultOrganization(), "project-uuid");
@@ -66,6 +66,7 @@ import static org.sonar.db.metric.MetricTesting.newMetricDto;
 import static org.sonar.test.JsonAssert.assertJson;
 import static org.sonarqube.ws.client.measure.MeasuresWsParameters.PARAM_COMPONENT;
 import static org.sonarqube.ws.client.measure.MeasuresWsParameters.PARAM_FROM;
+import static org.sonarqube.ws.client.measure.MeasuresWsParameters.PARAM_MAX_POINTS;
 import static org.sonarqube.ws.client.measure.MeasuresWsParameters.PARAM_METRICS;
 import static org.sonarqube.ws.client.measure.MeasuresWsParameters.PARAM_TO;
 
@@ -206,6 +207,26 @@ public class SearchHistoryActionTest {
       analysisDates.get(3), analysisDates.get(4), analysisDates.get(5));
   }
 
+  @Test
+  public void return_most_recent_analysis_of_each_interval_when_max_points_is_set() {
+    project = db.components().insertPrivateProject();
+    userSession.addProjectPermission(UserRole.USER, project);
+    List<String> analysisDates = LongStream.rangeClosed(1, 9)
+      .mapToObj(i -> dbClient.snapshotDao().insert(dbSession, newAnalysis(project).setCreatedAt(i * 1_000_000_000)))
+      .peek(a -> dbClient.measureDao().insert(dbSession, newMeasureDto(complexityMetric, project, a).setValue(101d)))
+      .map(a -> formatDateTime(a.getCreatedAt()))
+      .collect(MoreCollectors.toList());
+    db.commit();
+    wsRequest.setComponent(project.getKey()).setMaxPoints(3);
+
+    SearchHistoryResponse result = call();
+
+    assertThat(result.getPaging()).extracting(Paging::getPageIndex, Paging::getPageSize, Paging::getTotal).containsExactly(1, 100, 3);
+    assertThat(result.getMeasures(0).getHistoryList()).extracting(HistoryValue::getDate).containsExactly(
+      analysisDates.get(2), analysisDates.get(5), analysisDates.get(8));
+    assertThat(result.getMeasures(0).getHistoryList()).extracting(HistoryValue::getValue).containsExactly("101", "101", "101");
+  }
+
   @Test
   public void inclusive_from_and_to_dates() {
     project = db.components().insertPrivateProject();
@@ -356,6 +377,7 @@ public class SearchHistoryActionTest {
     request.setParam(PARAM_METRICS, String.join(",", wsRequest.getMetrics()));
     setNullable(wsRequest.getFrom(), from -> request.setParam(PARAM_FROM, from));
     setNullable(wsRequest.getTo(), to -> request.setParam(PARAM_TO, to));
+    setNullable(wsRequest.getMaxPoints(), maxPoints -> request.setParam(PARAM_MAX_POINTS, String.valueOf(maxPoints)));
     setNullable(wsRequest.getPage(), p -> request.setParam(Param.PAGE, String.valueOf(p)));
     setNullable(wsRequest.getPageSize(), ps -> request.setParam(Param.PAGE_SIZE, String.valueOf(ps)));
 
@@ -19,23 +19,34 @@
  */
 package org.sonar.server.permission.index;
 
+import com.google.common.collect.ImmutableSet;
 import org.elasticsearch.index.query.HasParentQueryBuilder;
 import org.elasticsearch.index.query.MatchAllQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.config.internal.MapSettings;
 import org.sonar.db.user.GroupDto;
 import org.sonar.db.user.GroupTesting;
 import org.sonar.server.tester.UserSessionRule;
 
+import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
 import static org.sonar.test.JsonAssert.assertJson;
 
 public class AuthorizationTypeSupportTest {
 
   @Rule
   public UserSessionRule userSession = UserSessionRule.standalone();
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
 
+  private ProjectAuthorizationCache projectAuthorizationCache = mock(ProjectAuthorizationCache.class);
+  private MapSettings settings = new MapSettings();
   private AuthorizationTypeSupport underTest = new AuthorizationTypeSupport(userSession);
 
   @Test
@@ -150,4 +161,51 @@ public class AuthorizationTypeSupportTest {
       "  }" +
       "}");
   }
+
+  @Test
+  public void createQueryFilter_uses_has_parent_query_by_default() {
+    userSession.anonymous();
+    underTest = new AuthorizationTypeSupport(userSession, settings.asConfig(), projectAuthorizationCache);
+
+    assertThat(underTest.createQueryFilter()).isInstanceOf(HasParentQueryBuilder.class);
+    verifyZeroInteractions(projectAuthorizationCache);
+  }
+
+  @Test
+  public void createQueryFilter_sets_filter_on_routing_of_cached_authorized_projects_in_projects_mode() {
+    GroupDto group1 = GroupTesting.newGroupDto().setId(10);
+    GroupDto group2 = GroupTesting.newGroupDto().setId(11);
+    userSession.logIn().setUserId(1234).setGroups(group1, group2);
+    when(projectAuthorizationCache.getAuthorizedProjectUuids(1234, asList(10, 11))).thenReturn(ImmutableSet.of("P1", "P2"));
+    settings.setProperty(AuthorizationTypeSupport.PROPERTY_FILTER_MODE, AuthorizationTypeSupport.FILTER_MODE_PROJECTS);
+    underTest = new AuthorizationTypeSupport(userSession, settings.asConfig(), projectAuthorizationCache);
+
+    QueryBuilder filter = underTest.createQueryFilter();
+
+    assertJson(filter.toString()).isSimilarTo("{" +
+      "  \"terms\": {" +
+      "    \"_routing\": [\"P1\", \"P2\"]" +
+      "  }" +
+      "}");
+  }
+
+  @Test
+  public void createQueryFilter_does_not_load_authorized_projects_if_user_is_flagged_as_root_in_projects_mode() {
+    userSession.logIn().setRoot();
+    settings.setProperty(AuthorizationTypeSupport.PROPERTY_FILTER_MODE, AuthorizationTypeSupport.FILTER_MODE_PROJECTS);
+    underTest = new AuthorizationTypeSupport(userSession, settings.asConfig(), projectAuthorizationCache);
+
+    assertThat(underTest.createQueryFilter()).isInstanceOf(MatchAllQueryBuilder.class);
+    verifyZeroInteractions(projectAuthorizationCache);
+  }
+
+  @Test
+  public void fail_if_filter_mode_is_not_supported() {
+    settings.setProperty(AuthorizationTypeSupport.PROPERTY_FILTER_MODE, "foo");
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Unsupported value of property sonar.search.authorizationFilter: foo");
+
+    new AuthorizationTypeSupport(userSession, settings.asConfig(), projectAuthorizationCache);
+  }
 }
@@ -56,7 +56,8 @@ public class PermissionIndexerTest {
   private UserDbTester userDbTester = new UserDbTester(dbTester);
   private FooIndex fooIndex = new FooIndex(esTester.client(), new AuthorizationTypeSupport(userSession));
   private FooIndexer fooIndexer = new FooIndexer(esTester.client());
-  private PermissionIndexer underTest = new PermissionIndexer(dbTester.getDbClient(), esTester.client(), fooIndexer);
+  private PermissionIndexer underTest = new PermissionIndexer(dbTester.getDbClient(), esTester.client(),
+    new ProjectAuthorizationCache(dbTester.getDbClient(), System2.INSTANCE), fooIndexer);
 
   @Test
   public void initalizeOnStartup_grants_access_to_any_user_and_to_group_Anyone_on_public_projects() {
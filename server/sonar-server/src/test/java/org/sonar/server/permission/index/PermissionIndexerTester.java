@@ -21,6 +21,7 @@ package org.sonar.server.permission.index;
 
 import java.util.Arrays;
 import java.util.stream.Stream;
+import org.sonar.api.utils.System2;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.user.GroupDto;
 import org.sonar.db.user.UserDto;
@@ -34,7 +35,7 @@ public class PermissionIndexerTester {
 
   public PermissionIndexerTester(EsTester esTester, NeedAuthorizationIndexer indexer, NeedAuthorizationIndexer... others) {
     NeedAuthorizationIndexer[] indexers = Stream.concat(Stream.of(indexer), Arrays.stream(others)).toArray(NeedAuthorizationIndexer[]::new);
-    this.permissionIndexer = new PermissionIndexer(null, esTester.client(), indexers);
+    this.permissionIndexer = new PermissionIndexer(null, esTester.client(), new ProjectAuthorizationCache(null, System2.INSTANCE), indexers);
   }
 
   public PermissionIndexerTester allowOnlyAnyone(ComponentDto project) {
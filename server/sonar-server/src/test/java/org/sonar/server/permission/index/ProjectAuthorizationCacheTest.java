@@ -0,0 +1,173 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.permission.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.internal.TestSystem2;
+import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDbTester;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.user.GroupDto;
+import org.sonar.db.user.UserDbTester;
+import org.sonar.db.user.UserDto;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.api.web.UserRole.ADMIN;
+import static org.sonar.api.web.UserRole.USER;
+
+public class ProjectAuthorizationCacheTest {
+
+  private TestSystem2 system2 = new TestSystem2().setNow(1_000L);
+
+  @Rule
+  public DbTester db = DbTester.create(system2);
+
+  private ComponentDbTester componentDbTester = new ComponentDbTester(db);
+  private UserDbTester userDbTester = new UserDbTester(db);
+  private ProjectAuthorizationCache underTest = new ProjectAuthorizationCache(db.getDbClient(), system2);
+
+  @Test
+  public void anonymous_is_authorized_on_public_projects_only() {
+    ComponentDto publicProject = componentDbTester.insertPublicProject();
+    componentDbTester.insertPrivateProject();
+
+    assertThat(underTest.getAuthorizedProjectUuids(null, emptyList())).containsOnly(publicProject.uuid());
+  }
+
+  @Test
+  public void user_is_authorized_on_projects_with_browse_permission_on_user_or_on_one_of_its_groups() {
+    ComponentDto publicProject = componentDbTester.insertPublicProject();
+    ComponentDto projectOfUser = componentDbTester.insertPrivateProject();
+    ComponentDto projectOfGroup = componentDbTester.insertPrivateProject();
+    ComponentDto projectAdministeredByUser = componentDbTester.insertPrivateProject();
+    UserDto user = userDbTester.insertUser();
+    GroupDto group1 = userDbTester.insertGroup();
+    GroupDto group2 = userDbTester.insertGroup();
+    userDbTester.insertProjectPermissionOnUser(user, USER, projectOfUser);
+    userDbTester.insertProjectPermissionOnUser(user, ADMIN, projectAdministeredByUser);
+    userDbTester.insertProjectPermissionOnGroup(group2, USER, projectOfGroup);
+
+    assertThat(underTest.getAuthorizedProjectUuids(user.getId(), emptyList())).containsOnly(publicProject.uuid(), projectOfUser.uuid());
+    assertThat(underTest.getAuthorizedProjectUuids(user.getId(), asList(group1.getId(), group2.getId())))
+      .containsOnly(publicProject.uuid(), projectOfUser.uuid(), projectOfGroup.uuid());
+    assertThat(underTest.getAuthorizedProjectUuids(null, singletonList(group1.getId()))).containsOnly(publicProject.uuid());
+  }
+
+  @Test
+  public void permission_changes_are_visible_once_cache_is_invalidated() {
+    ComponentDto project = componentDbTester.insertPrivateProject();
+    UserDto user = userDbTester.insertUser();
+    assertThat(underTest.getAuthorizedProjectUuids(user.getId(), emptyList())).isEmpty();
+
+    userDbTester.insertProjectPermissionOnUser(user, USER, project);
+    assertThat(underTest.getAuthorizedProjectUuids(user.getId(), emptyList())).isEmpty();
+
+    underTest.invalidate();
+    assertThat(underTest.getAuthorizedProjectUuids(user.getId(), emptyList())).containsOnly(project.uuid());
+  }
+
+  @Test
+  public void permission_changes_are_visible_once_cache_is_expired() {
+    ComponentDto project = componentDbTester.insertPrivateProject();
+    UserDto user = userDbTester.insertUser();
+    assertThat(underTest.getAuthorizedProjectUuids(user.getId(), emptyList())).isEmpty();
+
+    userDbTester.insertProjectPermissionOnUser(user, USER, project);
+    system2.setNow(1_000L + ProjectAuthorizationCache.TTL_MS - 1);
+    assertThat(underTest.getAuthorizedProjectUuids(user.getId(), emptyList())).isEmpty();
+
+    system2.setNow(1_000L + ProjectAuthorizationCache.TTL_MS);
+    assertThat(underTest.getAuthorizedProjectUuids(user.getId(), emptyList())).containsOnly(project.uuid());
+  }
+
+  @Test
+  public void authorizations_loaded_while_cache_is_invalidated_are_not_reused() {
+    ComponentDto project = componentDbTester.insertPrivateProject();
+    UserDto user = userDbTester.insertUser();
+    AtomicInteger loads = new AtomicInteger();
+    ProjectAuthorizationCache cache = new ProjectAuthorizationCache(db.getDbClient(), system2) {
+      @Override
+      List<PermissionIndexerDao.Dto> loadAuthorizations() {
+        List<PermissionIndexerDao.Dto> authorizations = super.loadAuthorizations();
+        if (loads.incrementAndGet() == 1) {
+          // permission granted and indexed by another thread after the authorizations have been read
+          userDbTester.insertProjectPermissionOnUser(user, USER, project);
+          invalidate();
+        }
+        return authorizations;
+      }
+    };
+
+    assertThat(cache.getAuthorizedProjectUuids(user.getId(), emptyList())).isEmpty();
+    assertThat(cache.getAuthorizedProjectUuids(user.getId(), emptyList())).containsOnly(project.uuid());
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void authorizations_are_loaded_once_by_concurrent_requests() throws Exception {
+    componentDbTester.insertPublicProject();
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch waitingThreads = new CountDownLatch(1);
+    ProjectAuthorizationCache cache = new ProjectAuthorizationCache(db.getDbClient(), system2) {
+      @Override
+      List<PermissionIndexerDao.Dto> loadAuthorizations() {
+        loads.incrementAndGet();
+        loading.countDown();
+        try {
+          waitingThreads.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return super.loadAuthorizations();
+      }
+    };
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Set<String>>> results = new ArrayList<>();
+      results.add(executor.submit(() -> cache.getAuthorizedProjectUuids(null, emptyList())));
+      loading.await(10, TimeUnit.SECONDS);
+      for (int i = 0; i < 3; i++) {
+        results.add(executor.submit(() -> cache.getAuthorizedProjectUuids(null, emptyList())));
+      }
+      waitingThreads.countDown();
+
+      for (Future<Set<String>> result : results) {
+        assertThat(result.get(10, TimeUnit.SECONDS)).hasSize(1);
+      }
+      assertThat(loads.get()).isEqualTo(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
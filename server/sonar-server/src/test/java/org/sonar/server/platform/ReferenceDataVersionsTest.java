@@ -0,0 +1,107 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.internal.TestSystem2;
+import org.sonar.core.util.SequenceUuidFactory;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+import org.sonar.db.property.PropertyDto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.server.platform.ReferenceDataVersions.CHECK_INTERVAL_MS;
+import static org.sonar.server.platform.ReferenceDataVersions.GLOBAL_SETTINGS;
+
+public class ReferenceDataVersionsTest {
+
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+
+  private TestSystem2 system2 = new TestSystem2().setNow(1_000_000L);
+  private ReferenceDataVersions underTest = new ReferenceDataVersions(db.getDbClient(), new SequenceUuidFactory(), system2);
+  private ReferenceDataVersions otherProcess = new ReferenceDataVersions(db.getDbClient(), new SequenceUuidFactory(), system2);
+
+  @Test
+  public void version_is_empty_if_dataset_never_changed() {
+    assertThat(underTest.get(GLOBAL_SETTINGS)).isEmpty();
+  }
+
+  @Test
+  public void version_is_changed_in_current_process_once_committed() {
+    String initialVersion = underTest.get(GLOBAL_SETTINGS);
+
+    markChanged(underTest);
+
+    assertThat(underTest.get(GLOBAL_SETTINGS)).isNotEqualTo(initialVersion);
+  }
+
+  @Test
+  public void version_is_changed_in_other_processes_after_check_interval() {
+    String initialVersion = otherProcess.get(GLOBAL_SETTINGS);
+
+    markChanged(underTest);
+
+    assertThat(otherProcess.get(GLOBAL_SETTINGS)).isEqualTo(initialVersion);
+    system2.setNow(system2.now() + CHECK_INTERVAL_MS);
+    assertThat(otherProcess.get(GLOBAL_SETTINGS)).isEqualTo(underTest.get(GLOBAL_SETTINGS)).isNotEqualTo(initialVersion);
+  }
+
+  @Test
+  public void version_is_changed_again_by_next_change() {
+    markChanged(underTest);
+    system2.setNow(system2.now() + CHECK_INTERVAL_MS);
+    String version = otherProcess.get(GLOBAL_SETTINGS);
+
+    markChanged(underTest);
+
+    system2.setNow(system2.now() + CHECK_INTERVAL_MS);
+    assertThat(otherProcess.get(GLOBAL_SETTINGS)).isNotEqualTo(version);
+  }
+
+  @Test
+  public void version_of_global_settings_is_changed_when_a_global_property_is_saved() {
+    String initialVersion = underTest.get(GLOBAL_SETTINGS);
+
+    try (DbSession dbSession = db.getDbClient().openSession(false)) {
+      db.getDbClient().propertiesDao().saveProperty(dbSession, new PropertyDto().setKey("sonar.qualitygate").setValue("1"));
+      dbSession.commit();
+    }
+
+    system2.setNow(system2.now() + CHECK_INTERVAL_MS);
+    assertThat(underTest.get(GLOBAL_SETTINGS)).isNotEqualTo(initialVersion);
+  }
+
+  @Test
+  public void versions_of_datasets_are_independent() {
+    markChanged(underTest);
+
+    assertThat(underTest.get("other")).isEmpty();
+  }
+
+  private void markChanged(ReferenceDataVersions versions) {
+    try (DbSession dbSession = db.getDbClient().openSession(false)) {
+      versions.markChanged(dbSession, GLOBAL_SETTINGS);
+      dbSession.commit();
+    }
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.util.Map;
+import org.apache.commons.dbcp.BasicDataSource;
+import org.junit.Test;
+import org.sonar.db.Database;
+import org.sonar.db.DbClient;
+import org.sonar.db.profiling.ProfiledConnectionInterceptor;
+import org.sonar.db.profiling.ProfiledDataSource;
+import org.sonar.db.profiling.SqlStatistics;
+import org.sonar.db.profiling.SqlStatisticsConnectionInterceptor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SqlStatisticsMonitorTest {
+
+  private DbClient dbClient = mock(DbClient.class, RETURNS_DEEP_STUBS);
+  private SqlStatistics sqlStatistics = new SqlStatistics();
+  private SqlStatisticsMonitor underTest = new SqlStatisticsMonitor(dbClient);
+
+  @Test
+  public void name_is_not_empty() {
+    assertThat(underTest.name()).isNotEmpty();
+  }
+
+  @Test
+  public void disabled_if_datasource_is_not_profiled() {
+    Database database = mock(Database.class);
+    when(database.getDataSource()).thenReturn(mock(BasicDataSource.class));
+    when(dbClient.getDatabase()).thenReturn(database);
+
+    assertThat(underTest.isEnabled()).isFalse();
+    assertThat(underTest.getSlowestStatements()).isEmpty();
+    assertThat(underTest.attributes()).containsOnlyKeys("Enabled");
+  }
+
+  @Test
+  public void disabled_if_statistics_are_not_recorded() {
+    mockDataSource(new ProfiledDataSource(mock(BasicDataSource.class), ProfiledConnectionInterceptor.INSTANCE));
+
+    assertThat(underTest.isEnabled()).isFalse();
+    assertThat(underTest.getStatements()).isEqualTo(0);
+  }
+
+  @Test
+  public void statistics_of_slowest_statements() {
+    mockDataSource(new ProfiledDataSource(mock(BasicDataSource.class), new SqlStatisticsConnectionInterceptor(sqlStatistics, false)));
+    sqlStatistics.get("select * from projects where kee='foo'").recordExecution(3_000_000L);
+    sqlStatistics.get("select * from projects where kee='bar'").recordExecution(5_000_000L);
+    sqlStatistics.get("select * from issues").recordExecution(1_000_000L);
+
+    assertThat(underTest.isEnabled()).isTrue();
+    assertThat(underTest.getStatements()).isEqualTo(2);
+    assertThat(underTest.getExecutions()).isEqualTo(3L);
+    assertThat(underTest.getExecutionTimeMillis()).isEqualTo(9L);
+    assertThat(underTest.getSlowestStatements()).hasSize(2);
+    assertThat(underTest.getSlowestStatements()[0]).endsWith("select * from projects where kee=?");
+
+    Map<String, Object> attributes = underTest.attributes();
+    assertThat(attributes.get("Enabled")).isEqualTo(true);
+    Map<String, Object> slowest = (Map<String, Object>) attributes.get("Slowest Statements");
+    assertThat(slowest).containsOnlyKeys("select * from projects where kee=?", "select * from issues");
+    Map<String, Object> statement = (Map<String, Object>) slowest.get("select * from projects where kee=?");
+    assertThat(statement.get("Executions")).isEqualTo(2L);
+    assertThat(statement.get("Total Time (ms)")).isEqualTo(8L);
+    assertThat(statement.get("Max Time (ms)")).isEqualTo(5L);
+  }
+
+  @Test
+  public void reset_statistics() {
+    mockDataSource(new ProfiledDataSource(mock(BasicDataSource.class), new SqlStatisticsConnectionInterceptor(sqlStatistics, false)));
+    sqlStatistics.get("select * from issues").recordExecution(1_000_000L);
+
+    underTest.reset();
+
+    assertThat(underTest.getStatements()).isEqualTo(0);
+  }
+
+  private void mockDataSource(ProfiledDataSource dataSource) {
+    Database database = mock(Database.class);
+    when(database.getDataSource()).thenReturn(dataSource);
+    when(dbClient.getDatabase()).thenReturn(database);
+  }
+}
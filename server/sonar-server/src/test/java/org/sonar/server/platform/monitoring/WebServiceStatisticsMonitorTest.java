@@ -0,0 +1,117 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.util.Map;
+import org.apache.commons.dbcp.BasicDataSource;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.db.Database;
+import org.sonar.db.DbClient;
+import org.sonar.db.profiling.NullConnectionInterceptor;
+import org.sonar.db.profiling.ProfiledDataSource;
+import org.sonar.db.profiling.SqlStatistics;
+import org.sonar.db.profiling.SqlStatisticsConnectionInterceptor;
+import org.sonar.server.ws.WebServiceStatistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class WebServiceStatisticsMonitorTest {
+
+  private WebServiceStatistics statistics = new WebServiceStatistics();
+  private DbClient dbClient = mock(DbClient.class);
+  private WebServiceStatisticsMonitor underTest = new WebServiceStatisticsMonitor(statistics, dbClient);
+
+  @Before
+  public void setUp() {
+    mockDataSource(new ProfiledDataSource(mock(BasicDataSource.class), new SqlStatisticsConnectionInterceptor(new SqlStatistics(), false)));
+  }
+
+  @Test
+  public void name_is_not_empty() {
+    assertThat(underTest.name()).isNotEmpty();
+  }
+
+  @Test
+  public void no_statistics_when_no_requests() {
+    assertThat(underTest.getActions()).isEqualTo(0);
+    assertThat(underTest.getRequests()).isEqualTo(0L);
+    assertThat(underTest.getSlowestActions()).isEmpty();
+    assertThat((Map<String, Object>) underTest.attributes().get("Slowest Actions")).isEmpty();
+  }
+
+  @Test
+  public void statistics_of_slowest_actions() {
+    statistics.get("api/issues/search").recordRequest(3_000_000L, 1_000_000L, 2_000_000L, 100L, false);
+    statistics.get("api/issues/search").recordRequest(5_000_000L, 0L, 4_000_000L, 50L, true);
+    statistics.get("api/system/status").recordRequest(1_000_000L, 0L, 0L, 10L, false);
+
+    assertThat(underTest.getActions()).isEqualTo(2);
+    assertThat(underTest.getRequests()).isEqualTo(3L);
+    assertThat(underTest.getErrors()).isEqualTo(1L);
+    assertThat(underTest.getProcessingTimeMillis()).isEqualTo(9L);
+    assertThat(underTest.isDbTimeCollected()).isTrue();
+    assertThat(underTest.getSlowestActions()).hasSize(2);
+    assertThat(underTest.getSlowestActions()[0]).startsWith("api/issues/search | ");
+
+    Map<String, Object> attributes = underTest.attributes();
+    assertThat(attributes.get("DB Time Collected")).isEqualTo(true);
+    Map<String, Object> slowest = (Map<String, Object>) attributes.get("Slowest Actions");
+    assertThat(slowest).containsOnlyKeys("api/issues/search", "api/system/status");
+    Map<String, Object> action = (Map<String, Object>) slowest.get("api/issues/search");
+    assertThat(action.get("Requests")).isEqualTo(2L);
+    assertThat(action.get("Errors")).isEqualTo(1L);
+    assertThat(action.get("Total Time (ms)")).isEqualTo(8L);
+    assertThat(action.get("Max Time (ms)")).isEqualTo(5L);
+    assertThat(action.get("DB Time (ms)")).isEqualTo(1L);
+    assertThat(action.get("ES Time (ms)")).isEqualTo(6L);
+    assertThat(action.get("Response Size (bytes)")).isEqualTo(150L);
+  }
+
+  @Test
+  public void reset_statistics() {
+    statistics.get("api/issues/search").recordRequest(3_000_000L, 0L, 0L, 0L, false);
+
+    underTest.reset();
+
+    assertThat(underTest.getActions()).isEqualTo(0);
+  }
+
+  @Test
+  public void db_time_is_not_reported_if_statistics_of_sql_statements_are_disabled() {
+    mockDataSource(new ProfiledDataSource(mock(BasicDataSource.class), NullConnectionInterceptor.INSTANCE));
+    statistics.get("api/issues/search").recordRequest(3_000_000L, 0L, 0L, 0L, false);
+
+    assertThat(underTest.isDbTimeCollected()).isFalse();
+    assertThat(underTest.getSlowestActions()[0]).doesNotContain("DB Time");
+    Map<String, Object> attributes = underTest.attributes();
+    assertThat(attributes.get("DB Time Collected")).isEqualTo(false);
+    Map<String, Object> action = (Map<String, Object>) ((Map<String, Object>) attributes.get("Slowest Actions")).get("api/issues/search");
+    assertThat(action).doesNotContainKey("DB Time (ms)").containsKey("ES Time (ms)");
+  }
+
+  private void mockDataSource(ProfiledDataSource dataSource) {
+    Database database = mock(Database.class);
+    when(database.getDataSource()).thenReturn(dataSource);
+    when(dbClient.getDatabase()).thenReturn(database);
+  }
+}
@@ -64,7 +64,7 @@ public class QProfileBackuperImplTest {
 
   private DummyReset reset = new DummyReset();
   private QProfileFactory profileFactory = new DummyProfileFactory();
-  private QProfileBackuper underTest = new QProfileBackuperImpl(db.getDbClient(), reset, profileFactory);
+  private QProfileBackuper underTest = new QProfileBackuperImpl(db.getDbClient(), reset, profileFactory, system2);
 
   @Test
   public void backup_generates_xml_file() {
@@ -154,6 +154,38 @@ public class QProfileBackuperImplTest {
     assertThat(reset.calledActivations).isEmpty();
   }
 
+  @Test
+  public void restore_reports_durations() {
+    OrganizationDto organization = db.organizations().insert();
+    Reader backup = new StringReader(EMPTY_BACKUP);
+
+    QProfileRestoreSummary summary = underTest.restore(db.getSession(), backup, organization, null);
+
+    // AlwaysIncreasingSystem2 increments time at each call
+    assertThat(summary.getParsingDurationMs()).isPositive();
+    assertThat(summary.getActivationDurationMs()).isPositive();
+  }
+
+  @Test
+  public void backup_parameters_of_multiple_rules() {
+    RuleDefinitionDto rule1 = createRule();
+    RuleParamDto param1 = db.rules().insertRuleParam(rule1);
+    RuleDefinitionDto rule2 = db.rules().insert(r -> r.setLanguage(rule1.getLanguage()));
+    RuleParamDto param2 = db.rules().insertRuleParam(rule2);
+    QProfileDto profile = createProfile(rule1);
+    activate(profile, rule1, param1);
+    activate(profile, rule2, param2);
+
+    StringWriter writer = new StringWriter();
+    underTest.backup(db.getSession(), profile, writer);
+
+    assertThat(writer.toString())
+      .contains("<key>" + rule1.getRuleKey() + "</key>")
+      .contains("<key>" + param1.getName() + "</key>")
+      .contains("<key>" + rule2.getRuleKey() + "</key>")
+      .contains("<key>" + param2.getName() + "</key>");
+  }
+
   @Test
   public void restore_resets_the_activated_rules() {
     OrganizationDto organization = db.organizations().insert();
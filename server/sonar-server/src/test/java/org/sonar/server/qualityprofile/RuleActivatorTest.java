@@ -866,6 +866,32 @@ public class RuleActivatorTest {
       r -> assertThatRuleIsActivated(profile, r.getDefinition(), null, MINOR, null, emptyMap()));
   }
 
+  @Test
+  public void bulk_activation_propagates_parameters_to_descendants() {
+    RuleDefinitionDto rule1 = createJavaRule();
+    RuleDefinitionDto rule2 = createJavaRule();
+    db.rules().insertRuleParam(rule1, p -> p.setName("min").setDefaultValue("10"));
+    QProfileDto parentProfile = createProfile(rule1);
+    QProfileDto childProfile = createChildProfile(parentProfile);
+    QProfileDto grandchildProfile = createChildProfile(childProfile);
+    activate(childProfile, RuleActivation.create(rule2.getKey(), CRITICAL, null));
+
+    ruleIndexer.indexOnStartup(ruleIndexer.getIndexTypes());
+
+    RuleQuery query = new RuleQuery().setLanguages(singletonList("java"));
+    BulkChangeResult result = underTest.bulkActivate(db.getSession(), query, parentProfile, MINOR);
+
+    assertThat(result.countSucceeded()).isEqualTo(2);
+    assertThat(result.countFailed()).isEqualTo(0);
+    assertThatRuleIsActivated(parentProfile, rule1, null, MINOR, null, of("min", "10"));
+    assertThatRuleIsActivated(childProfile, rule1, null, MINOR, INHERITED, of("min", "10"));
+    assertThatRuleIsActivated(grandchildProfile, rule1, null, MINOR, INHERITED, of("min", "10"));
+    assertThatRuleIsActivated(parentProfile, rule2, null, MINOR, null, emptyMap());
+    // rule2 was already activated on child profile -> it overrides the parent and propagation stops
+    assertThatRuleIsUpdated(childProfile, rule2, CRITICAL, ActiveRule.Inheritance.OVERRIDES, emptyMap());
+    assertThatRuleIsActivated(grandchildProfile, rule2, null, CRITICAL, INHERITED, emptyMap());
+  }
+
   @Test
   public void bulk_deactivation() {
     int bulkSize = SearchOptions.MAX_LIMIT + 10 + new Random().nextInt(100);
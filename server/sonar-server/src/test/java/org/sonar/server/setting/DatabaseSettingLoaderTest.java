@@ -23,8 +23,12 @@ import com.google.common.collect.ImmutableMap;
 import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.utils.System2;
+import org.sonar.api.utils.internal.TestSystem2;
+import org.sonar.core.util.SequenceUuidFactory;
+import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.property.PropertyDto;
+import org.sonar.server.platform.ReferenceDataVersions;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.data.MapEntry.entry;
@@ -36,7 +40,9 @@ public class DatabaseSettingLoaderTest {
   @Rule
   public DbTester dbTester = DbTester.create(System2.INSTANCE);
 
-  private DatabaseSettingLoader underTest = new DatabaseSettingLoader(dbTester.getDbClient());
+  private TestSystem2 system2 = new TestSystem2().setNow(1_000_000L);
+  private ReferenceDataVersions referenceDataVersions = new ReferenceDataVersions(dbTester.getDbClient(), new SequenceUuidFactory(), system2);
+  private DatabaseSettingLoader underTest = new DatabaseSettingLoader(dbTester.getDbClient(), referenceDataVersions, system2);
 
   @Test
   public void test_load() {
@@ -74,6 +80,32 @@ public class DatabaseSettingLoaderTest {
   assertThat(map.build()).containsOnly(entry("foo", "1"), entry("bar", "2"));
  }
 
+  @Test
+  public void properties_are_cached_until_version_changes() {
+    insertPropertyIntoDb(A_KEY, "foo");
+    assertThat(underTest.load(A_KEY)).isEqualTo("foo");
+
+    insertPropertyIntoDb(A_KEY, "bar");
+    system2.setNow(system2.now() + ReferenceDataVersions.CHECK_INTERVAL_MS);
+    assertThat(underTest.load(A_KEY)).isEqualTo("foo");
+
+    try (DbSession dbSession = dbTester.getDbClient().openSession(false)) {
+      referenceDataVersions.markChanged(dbSession, ReferenceDataVersions.GLOBAL_SETTINGS);
+      dbSession.commit();
+    }
+    assertThat(underTest.load(A_KEY)).isEqualTo("bar");
+  }
+
+  @Test
+  public void properties_are_reloaded_when_too_old() {
+    insertPropertyIntoDb(A_KEY, "foo");
+    assertThat(underTest.load(A_KEY)).isEqualTo("foo");
+
+    insertPropertyIntoDb(A_KEY, "bar");
+    system2.setNow(system2.now() + DatabaseSettingLoader.MAX_AGE_MS);
+    assertThat(underTest.load(A_KEY)).isEqualTo("bar");
+  }
+
   private void insertPropertyIntoDb(String key, String value) {
     dbTester.getDbClient().propertiesDao().saveProperty(new PropertyDto().setKey(key).setValue(value));
   }
@@ -47,6 +47,7 @@ import org.sonar.server.issue.index.IssueIndexer;
 import org.sonar.server.issue.index.IssueIteratorFactory;
 import org.sonar.server.permission.index.AuthorizationTypeSupport;
 import org.sonar.server.permission.index.PermissionIndexer;
+import org.sonar.server.permission.index.ProjectAuthorizationCache;
 import org.sonar.server.tester.UserSessionRule;
 
 import static com.google.common.collect.Lists.newArrayList;
@@ -69,7 +70,7 @@ public class ViewIndexerTest {
   private DbClient dbClient = dbTester.getDbClient();
   private DbSession dbSession = dbTester.getSession();
   private IssueIndexer issueIndexer = new IssueIndexer(esTester.client(), new IssueIteratorFactory(dbClient));
-  private PermissionIndexer permissionIndexer = new PermissionIndexer(dbClient, esTester.client(), issueIndexer);
+  private PermissionIndexer permissionIndexer = new PermissionIndexer(dbClient, esTester.client(), new ProjectAuthorizationCache(dbClient, system2), issueIndexer);
   private ViewIndexer underTest = new ViewIndexer(dbClient, esTester.client());
 
   @Test
@@ -110,6 +111,35 @@ public class ViewIndexerTest {
     assertThat(viewsByUuid.get("FGHI").projects()).containsOnly("JKLM");
   }
 
+  @Test
+  public void index_root_view_does_not_reindex_views_whose_projects_did_not_change() {
+    dbTester.prepareDbUnit(getClass(), "index.xml");
+    underTest.index("EFGH");
+    long efghVersion = getVersion("EFGH");
+    long fghiVersion = getVersion("FGHI");
+
+    underTest.index("EFGH");
+
+    assertThat(getVersion("EFGH")).isEqualTo(efghVersion);
+    assertThat(getVersion("FGHI")).isEqualTo(fghiVersion);
+  }
+
+  @Test
+  public void index_root_view_reindexes_only_views_whose_projects_changed() {
+    dbTester.prepareDbUnit(getClass(), "index.xml");
+    underTest.index("EFGH");
+    underTest.index(new ViewDoc().setUuid("FGHI").setProjects(newArrayList("OTHER")));
+    long efghVersion = getVersion("EFGH");
+    long fghiVersion = getVersion("FGHI");
+
+    underTest.index("EFGH");
+
+    assertThat(getVersion("EFGH")).isEqualTo(efghVersion);
+    assertThat(getVersion("FGHI")).isEqualTo(fghiVersion + 1);
+    Map<String, ViewDoc> viewsByUuid = Maps.uniqueIndex(esTester.getDocuments(ViewIndexDefinition.INDEX_TYPE_VIEW, ViewDoc.class), ViewDoc::uuid);
+    assertThat(viewsByUuid.get("FGHI").projects()).containsOnly("JKLM");
+  }
+
   @Test
   public void index_view_doc() {
     underTest.index(new ViewDoc().setUuid("EFGH").setProjects(newArrayList("KLMN", "JKLM")));
@@ -162,6 +192,10 @@ public class ViewIndexerTest {
     assertThat(issueIndex.search(IssueQuery.builder().viewUuids(newArrayList(viewUuid)).build(), new SearchOptions()).getDocs()).hasSize(2);
   }
 
+  private long getVersion(String viewUuid) {
+    return esTester.client().prepareGet(ViewIndexDefinition.INDEX_TYPE_VIEW, viewUuid).get().getVersion();
+  }
+
   private ComponentDto addProjectWithIssue(RuleDto rule, OrganizationDto org) {
     ComponentDto project = ComponentTesting.newPublicProjectDto(org);
     ComponentDto file = ComponentTesting.newFileDto(project, null);
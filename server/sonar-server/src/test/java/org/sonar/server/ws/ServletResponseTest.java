@@ -90,7 +90,22 @@ public class ServletResponseTest {
 
   @Test
   public void test_output() throws Exception {
-    assertThat(underTest.stream().output()).isEqualTo(output);
+    underTest.stream().output().write(new byte[] {1, 2, 3});
+
+    verify(output).write(new byte[] {1, 2, 3}, 0, 3);
+    assertThat(underTest.stream().output()).isSameAs(underTest.stream().output());
+  }
+
+  @Test
+  public void count_written_bytes_until_reset() throws Exception {
+    assertThat(underTest.stream().writtenBytes()).isZero();
+
+    underTest.stream().output().write(new byte[] {1, 2, 3});
+    underTest.stream().output().write(4);
+    assertThat(underTest.stream().writtenBytes()).isEqualTo(4L);
+
+    underTest.stream().reset();
+    assertThat(underTest.stream().writtenBytes()).isZero();
   }
 
 
@@ -50,7 +50,8 @@ public class WebServiceEngineTest {
   @Rule
   public ExpectedException expectedException = ExpectedException.none();
 
-  private WebServiceEngine underTest = new WebServiceEngine(new WebService[] {new SystemWs()});
+  private WebServiceStatistics statistics = new WebServiceStatistics();
+  private WebServiceEngine underTest = new WebServiceEngine(new WebService[] {new SystemWs()}, statistics);
 
   @Before
   public void start() {
@@ -253,6 +254,26 @@ public class WebServiceEngineTest {
     assertThat(logTester.logs(LoggerLevel.ERROR)).filteredOn(l -> l.contains("Fail to process request")).isNotEmpty();
   }
 
+  @Test
+  public void record_statistics_of_requests() {
+    underTest.execute(new TestRequest().setMethod("GET").setPath("/api/system/health"), new DumbResponse());
+    underTest.execute(new TestRequest().setMethod("GET").setPath("/api/system/health"), new DumbResponse());
+    underTest.execute(new TestRequest().setMethod("GET").setPath("/api/system/fail"), new DumbResponse());
+
+    assertThat(statistics.getAll()).extracting(WebServiceStatistics.ActionStatistics::getPath).containsOnly("api/system/health", "api/system/fail");
+    assertThat(statistics.get("api/system/health").getRequests()).isEqualTo(2L);
+    assertThat(statistics.get("api/system/health").getErrors()).isEqualTo(0L);
+    assertThat(statistics.get("api/system/fail").getRequests()).isEqualTo(1L);
+    assertThat(statistics.get("api/system/fail").getErrors()).isEqualTo(1L);
+  }
+
+  @Test
+  public void do_not_record_statistics_of_unknown_actions() {
+    underTest.execute(new TestRequest().setMethod("GET").setPath("/api/xxx/health"), new DumbResponse());
+
+    assertThat(statistics.getAll()).isEmpty();
+  }
+
   @Test
   public void bad_request() {
     ValidatingRequest request = new TestRequest().setMethod("GET").setPath("/api/system/fail_bad_request").setParam("count", "3");
@@ -318,6 +339,22 @@ public class WebServiceEngineTest {
     assertThat(logTester.logs(LoggerLevel.DEBUG)).isNotEmpty();
   }
 
+  @Test
+  public void propagate_failure_when_response_is_committed() throws Exception {
+    ValidatingRequest request = new TestRequest().setMethod("GET").setPath("/api/system/fail_while_streaming");
+    Response response = mock(Response.class);
+    ServletResponse.ServletStream servletStream = mock(ServletResponse.ServletStream.class);
+    when(response.stream()).thenReturn(servletStream);
+    HttpServletResponse httpServletResponse = mock(HttpServletResponse.class);
+    when(httpServletResponse.isCommitted()).thenReturn(true);
+    when(servletStream.response()).thenReturn(httpServletResponse);
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("after response has been committed");
+
+    underTest.execute(request, response);
+  }
+
   static class SystemWs implements WebService {
     @Override
     public void define(Context context) {
@@ -382,6 +419,11 @@ public class WebServiceEngineTest {
         }
       });
 
+      createNewDefaultAction(newController, "fail_while_streaming")
+        .setHandler((request, response) -> {
+          throw new IllegalStateException("fail!");
+        });
+
       createNewDefaultAction(newController, "fail_with_client_abort_exception")
         .setHandler((request, response) -> {
           throw new IllegalStateException("fail!", new ClientAbortException());
@@ -0,0 +1,67 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ws;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WebServiceStatisticsTest {
+
+  private WebServiceStatistics underTest = new WebServiceStatistics();
+
+  @Test
+  public void requests_of_same_action_share_statistics() {
+    underTest.get("api/issues/search").recordRequest(10L, 1L, 2L, 100L, false);
+    underTest.get("api/issues/search").recordRequest(30L, 3L, 4L, 200L, true);
+    underTest.get("api/rules/search").recordRequest(20L, 0L, 0L, 0L, false);
+
+    assertThat(underTest.getSlowest(1)).extracting(WebServiceStatistics.ActionStatistics::getPath).containsExactly("api/issues/search");
+    WebServiceStatistics.ActionStatistics statistics = underTest.get("api/issues/search");
+    assertThat(statistics.getRequests()).isEqualTo(2L);
+    assertThat(statistics.getErrors()).isEqualTo(1L);
+    assertThat(statistics.getTotalTimeNanos()).isEqualTo(40L);
+    assertThat(statistics.getMaxTimeNanos()).isEqualTo(30L);
+    assertThat(statistics.getDbTimeNanos()).isEqualTo(4L);
+    assertThat(statistics.getEsTimeNanos()).isEqualTo(6L);
+    assertThat(statistics.getResponseBytes()).isEqualTo(300L);
+
+    underTest.reset();
+    assertThat(underTest.getAll()).isEmpty();
+  }
+
+  @Test
+  public void percentiles_are_upper_bounds_of_power_of_2_buckets() {
+    WebServiceStatistics.ActionStatistics statistics = underTest.get("api/issues/search");
+    assertThat(statistics.getPercentileMillis(50)).isZero();
+
+    for (int i = 0; i < 90; i++) {
+      statistics.recordRequest(TimeUnit.MILLISECONDS.toNanos(100), 0L, 0L, 0L, false);
+    }
+    for (int i = 0; i < 10; i++) {
+      statistics.recordRequest(TimeUnit.SECONDS.toNanos(10), 0L, 0L, 0L, false);
+    }
+
+    assertThat(statistics.getPercentileMillis(50)).isEqualTo(128L);
+    assertThat(statistics.getPercentileMillis(90)).isEqualTo(128L);
+    assertThat(statistics.getPercentileMillis(99)).isEqualTo(16_384L);
+  }
+}
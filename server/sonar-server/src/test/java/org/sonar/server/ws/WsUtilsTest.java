@@ -19,17 +19,25 @@
  */
 package org.sonar.server.ws;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.sonar.api.server.ws.Response;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonarqube.ws.Issues;
 import org.sonarqube.ws.MediaTypes;
 import org.sonarqube.ws.WsPermissions;
 
+import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 import static org.sonar.test.ExceptionCauseMatcher.hasType;
 
 public class WsUtilsTest {
@@ -68,6 +76,71 @@ public class WsUtilsTest {
     assertThat(Issues.Issue.parseFrom(response.getFlushedOutput()).getKey()).isEqualTo("I1");
   }
 
+  @Test
+  public void stream_elements_of_repeated_field_in_json() throws Exception {
+    TestRequest request = new TestRequest();
+    DumbResponse response = new DumbResponse();
+
+    Issues.SearchWsResponse msg = Issues.SearchWsResponse.newBuilder().setTotal(2L).build();
+    WsUtils.writeProtobuf(msg, "issues", asList(Issues.Issue.newBuilder().setKey("I1").build(), Issues.Issue.newBuilder().setKey("I2").build()).iterator(),
+      request, response);
+
+    assertThat(response.stream().mediaType()).isEqualTo(MediaTypes.JSON);
+    assertThat(response.outputAsString())
+      .contains("\"total\":2")
+      .contains("\"issues\":[{\"key\":\"I1\"},{\"key\":\"I2\"}]");
+  }
+
+  @Test
+  public void stream_elements_of_repeated_field_in_protobuf() throws Exception {
+    TestRequest request = new TestRequest();
+    request.setMediaType(MediaTypes.PROTOBUF);
+    DumbResponse response = new DumbResponse();
+
+    Issues.SearchWsResponse msg = Issues.SearchWsResponse.newBuilder().setTotal(2L).build();
+    WsUtils.writeProtobuf(msg, "issues", asList(Issues.Issue.newBuilder().setKey("I1").build(), Issues.Issue.newBuilder().setKey("I2").build()).iterator(),
+      request, response);
+
+    assertThat(response.stream().mediaType()).isEqualTo(MediaTypes.PROTOBUF);
+    Issues.SearchWsResponse result = Issues.SearchWsResponse.parseFrom(response.getFlushedOutput());
+    assertThat(result.getTotal()).isEqualTo(2L);
+    assertThat(result.getIssuesList()).extracting(Issues.Issue::getKey).containsExactly("I1", "I2");
+  }
+
+  @Test
+  public void do_not_close_output_when_streamed_element_fails() {
+    TestRequest request = new TestRequest();
+    AtomicBoolean closed = new AtomicBoolean(false);
+    Response response = mock(Response.class);
+    Response.Stream stream = mock(Response.Stream.class);
+    when(response.stream()).thenReturn(stream);
+    when(stream.output()).thenReturn(new ByteArrayOutputStream() {
+      @Override
+      public void close() {
+        closed.set(true);
+      }
+    });
+    Iterator<Issues.Issue> failingElements = new Iterator<Issues.Issue>() {
+      @Override
+      public boolean hasNext() {
+        return true;
+      }
+
+      @Override
+      public Issues.Issue next() {
+        throw new IllegalStateException("fail to format");
+      }
+    };
+
+    try {
+      WsUtils.writeProtobuf(Issues.SearchWsResponse.newBuilder().build(), "issues", failingElements, request, response);
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessage("Error while writing protobuf message");
+    }
+    assertThat(closed.get()).isFalse();
+  }
+
   @Test
   public void rethrow_error_as_ISE_when_error_writing_message() throws IOException {
     TestRequest request = new TestRequest();
@@ -0,0 +1,117 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares the results of a run of benchmarks, in the JSON format of JMH, with the results of a previous run
+ * on the same machine.
+ */
+class BaselineComparator {
+
+  private static final String THROUGHPUT_MODE = "thrpt";
+
+  private final double thresholdPercent;
+
+  BaselineComparator(double thresholdPercent) {
+    this.thresholdPercent = thresholdPercent;
+  }
+
+  /**
+   * @return the descriptions of the benchmarks which are slower than in the baseline by more than the threshold.
+   * Benchmarks which are not in the baseline are ignored.
+   */
+  List<String> findRegressions(Path baseline, Path results) throws IOException {
+    Map<String, Score> baselineScores = readScores(baseline);
+    List<String> regressions = new ArrayList<>();
+    for (Map.Entry<String, Score> entry : readScores(results).entrySet()) {
+      Score before = baselineScores.get(entry.getKey());
+      if (before != null) {
+        double degradation = entry.getValue().degradationPercentFrom(before);
+        if (degradation > thresholdPercent) {
+          regressions.add(String.format("%s: %.3f -> %.3f %s (%.1f%% slower)", entry.getKey(), before.value, entry.getValue().value,
+            entry.getValue().unit, degradation));
+        }
+      }
+    }
+    return regressions;
+  }
+
+  private static Map<String, Score> readScores(Path file) throws IOException {
+    Map<String, Score> scores = new LinkedHashMap<>();
+    try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      JsonArray results = new JsonParser().parse(reader).getAsJsonArray();
+      for (JsonElement element : results) {
+        JsonObject result = element.getAsJsonObject();
+        JsonObject metric = result.getAsJsonObject("primaryMetric");
+        Score score = new Score(result.get("mode").getAsString(), metric.get("score").getAsDouble(), metric.get("scoreUnit").getAsString());
+        scores.put(key(result), score);
+      }
+    }
+    return scores;
+  }
+
+  private static String key(JsonObject result) {
+    StringBuilder key = new StringBuilder(result.get("benchmark").getAsString());
+    JsonObject params = result.getAsJsonObject("params");
+    if (params != null) {
+      Map<String, String> sortedParams = new TreeMap<>();
+      params.entrySet().forEach(param -> sortedParams.put(param.getKey(), param.getValue().getAsString()));
+      key.append(sortedParams);
+    }
+    return key.toString();
+  }
+
+  private static class Score {
+    private final String mode;
+    private final double value;
+    private final String unit;
+
+    Score(String mode, double value, String unit) {
+      this.mode = mode;
+      this.value = value;
+      this.unit = unit;
+    }
+
+    double degradationPercentFrom(Score before) {
+      if (before.value == 0.0 || value == 0.0) {
+        return 0.0;
+      }
+      if (THROUGHPUT_MODE.equals(mode)) {
+        return (before.value / value - 1.0) * 100.0;
+      }
+      return (value / before.value - 1.0) * 100.0;
+    }
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.benchmarks;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks and compares the results with the baseline of the machine, stored in
+ * {@code baselines/<host name>.json}. The baseline is created by the first run.
+ * <p/>
+ * Usage: {@code java -jar target/benchmarks.jar [regular expression of benchmarks]}
+ * <ul>
+ *   <li>{@code -Dsonar.benchmarks.baseline=<path>} overrides the path of the baseline file</li>
+ *   <li>{@code -Dsonar.benchmarks.threshold=<percent>} maximum accepted degradation, 10% by default</li>
+ * </ul>
+ * The process exits with code 1 if at least one benchmark is slower than in the baseline.
+ */
+public class BenchmarkRunner {
+
+  private BenchmarkRunner() {
+    // only static stuff
+  }
+
+  public static void main(String[] args) throws Exception {
+    String include = args.length > 0 ? args[0] : ".*Benchmark.*";
+    Path results = Paths.get("target", "jmh-result.json").toAbsolutePath();
+    Files.createDirectories(results.getParent());
+    Path baseline = Paths.get(System.getProperty("sonar.benchmarks.baseline", "baselines/" + hostName() + ".json")).toAbsolutePath();
+    double threshold = Double.parseDouble(System.getProperty("sonar.benchmarks.threshold", "10"));
+
+    Options options = new OptionsBuilder()
+      .include(include)
+      .resultFormat(ResultFormatType.JSON)
+      .result(results.toString())
+      .build();
+    new Runner(options).run();
+
+    if (!Files.exists(baseline)) {
+      Files.createDirectories(baseline.getParent());
+      Files.copy(results, baseline, StandardCopyOption.REPLACE_EXISTING);
+      System.out.println("Baseline created: " + baseline);
+      return;
+    }
+    List<String> regressions = new BaselineComparator(threshold).findRegressions(baseline, results);
+    if (regressions.isEmpty()) {
+      System.out.println("No regression compared to " + baseline);
+      return;
+    }
+    System.out.println(String.format("%d regression(s) compared to %s:", regressions.size(), baseline));
+    regressions.forEach(regression -> System.out.println("  " + regression));
+    System.exit(1);
+  }
+
+  private static String hostName() {
+    try {
+      return InetAddress.getLocalHost().getHostName();
+    } catch (UnknownHostException e) {
+      return "localhost";
+    }
+  }
+}
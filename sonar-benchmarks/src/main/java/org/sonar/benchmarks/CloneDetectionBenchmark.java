@@ -0,0 +1,116 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
+import org.sonar.duplications.detector.suffixtree.SuffixTreeCloneDetectionAlgorithm;
+import org.sonar.duplications.index.CloneGroup;
+import org.sonar.duplications.index.PackedMemoryCloneIndex;
+
+/**
+ * Indexing of CPD blocks in {@link PackedMemoryCloneIndex} and detection of the clones of files with
+ * {@link SuffixTreeCloneDetectionAlgorithm}, as done by the scanner at the end of the analysis.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CloneDetectionBenchmark {
+
+  private static final int BLOCKS_PER_FILE = 200;
+  private static final int DETECTED_FILES = 20;
+
+  @Param({"1000"})
+  public int files;
+
+  /**
+   * Number of distinct block hashes. The lower, the more duplications.
+   */
+  @Param({"10000", "100000"})
+  public int distinctHashes;
+
+  private List<List<Block>> blocksByFile;
+  private PackedMemoryCloneIndex index;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42L);
+    blocksByFile = new ArrayList<>(files);
+    for (int f = 0; f < files; f++) {
+      String resourceId = "file" + f;
+      List<Block> blocks = new ArrayList<>(BLOCKS_PER_FILE);
+      for (int i = 0; i < BLOCKS_PER_FILE; i++) {
+        blocks.add(Block.builder()
+          .setResourceId(resourceId)
+          .setBlockHash(new ByteArray((long) random.nextInt(distinctHashes)))
+          .setIndexInFile(i)
+          .setLines(i + 1, i + 10)
+          .setUnit(i * 5, i * 5 + 50)
+          .build());
+      }
+      blocksByFile.add(blocks);
+    }
+    index = buildIndex();
+  }
+
+  @Benchmark
+  public PackedMemoryCloneIndex buildIndex() {
+    PackedMemoryCloneIndex result = new PackedMemoryCloneIndex();
+    for (List<Block> blocks : blocksByFile) {
+      for (Block block : blocks) {
+        result.insert(block);
+      }
+    }
+    // blocks are sorted on first search
+    result.getBySequenceHash(blocksByFile.get(0).get(0).getBlockHash());
+    return result;
+  }
+
+  @Benchmark
+  public int detectClones() {
+    int clones = 0;
+    for (int f = 0; f < DETECTED_FILES; f++) {
+      Collection<Block> fileBlocks = index.getByResourceId("file" + f);
+      List<CloneGroup> groups = SuffixTreeCloneDetectionAlgorithm.detect(index, fileBlocks);
+      clones += groups.size();
+    }
+    return clones;
+  }
+
+}
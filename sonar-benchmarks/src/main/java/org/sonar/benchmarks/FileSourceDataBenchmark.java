@@ -0,0 +1,87 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.db.protobuf.DbFileSources;
+import org.sonar.db.source.FileSourceDto;
+
+/**
+ * Serialization and compression of the data of sources, stored in the column FILE_SOURCES.BINARY_DATA
+ * by the Compute Engine and read by web services.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FileSourceDataBenchmark {
+
+  @Param({"100", "5000"})
+  public int lines;
+
+  private final FileSourceDto dto = new FileSourceDto();
+  private DbFileSources.Data data;
+  private byte[] encoded;
+
+  @Setup
+  public void setUp() {
+    List<String> sources = SampleSources.javaLines(lines);
+    DbFileSources.Data.Builder builder = DbFileSources.Data.newBuilder();
+    for (int i = 0; i < sources.size(); i++) {
+      builder.addLinesBuilder()
+        .setLine(i + 1)
+        .setSource(sources.get(i))
+        .setScmRevision("rev-" + (i % 20))
+        .setScmAuthor("author" + (i % 5) + "@sonarsource.com")
+        .setScmDate(1_490_000_000_000L + i)
+        .setHighlighting("0,6,k;7,12,k")
+        .setLineHits(i % 3)
+        .setConditions(i % 2)
+        .setCoveredConditions(i % 2);
+    }
+    data = builder.build();
+    encoded = FileSourceDto.encodeSourceData(data);
+  }
+
+  @Benchmark
+  public byte[] encode() {
+    return FileSourceDto.encodeSourceData(data);
+  }
+
+  @Benchmark
+  public DbFileSources.Data decode() {
+    return dto.decodeSourceData(encoded);
+  }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonar.server.source.HtmlSourceDecorator;
+
+/**
+ * Conversion of highlighted lines to HTML, as done by the web services returning the source of files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class HtmlSourceDecoratorBenchmark {
+
+  private static final String[] KEYWORDS = {"package", "import", "public", "private", "final", "int", "for", "if", "return"};
+
+  @Param({"1000"})
+  public int lines;
+
+  private final HtmlSourceDecorator decorator = new HtmlSourceDecorator();
+  private List<String> sources;
+  private List<String> highlightings;
+  private List<String> symbols;
+
+  @Setup
+  public void setUp() {
+    sources = SampleSources.javaLines(lines);
+    highlightings = new ArrayList<>(lines);
+    symbols = new ArrayList<>(lines);
+    for (String source : sources) {
+      highlightings.add(highlighting(source));
+      int symbol = source.indexOf("values");
+      symbols.add(symbol < 0 ? "" : (symbol + "," + (symbol + 6) + ",1"));
+    }
+  }
+
+  @Benchmark
+  public void decorate(Blackhole blackhole) {
+    for (int i = 0; i < sources.size(); i++) {
+      blackhole.consume(decorator.getDecoratedSourceAsHtml(sources.get(i), highlightings.get(i), symbols.get(i)));
+    }
+  }
+
+  private static String highlighting(String line) {
+    StringBuilder sb = new StringBuilder();
+    for (String keyword : KEYWORDS) {
+      int start = line.indexOf(keyword + " ");
+      if (start >= 0) {
+        appendRule(sb, start, start + keyword.length(), "k");
+        break;
+      }
+    }
+    int comment = line.indexOf("//");
+    if (comment >= 0) {
+      appendRule(sb, comment, line.length(), "cd");
+    }
+    return sb.toString();
+  }
+
+  private static void appendRule(StringBuilder sb, int start, int end, String type) {
+    if (sb.length() > 0) {
+      sb.append(';');
+    }
+    sb.append(start).append(',').append(end).append(',').append(type);
+  }
+}
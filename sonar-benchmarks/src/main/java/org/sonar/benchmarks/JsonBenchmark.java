@@ -0,0 +1,114 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.benchmarks;
+
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.utils.text.JsonWriter;
+import org.sonar.core.util.ProtobufJsonFormat;
+import org.sonarqube.ws.Common;
+import org.sonarqube.ws.Issues;
+
+/**
+ * Generation of the JSON responses of web services, either from protobuf messages with {@link ProtobufJsonFormat}
+ * or directly with {@link JsonWriter}. Both benchmarks write the same document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class JsonBenchmark {
+
+  @Param({"100", "500"})
+  public int issues;
+
+  private Issues.SearchWsResponse response;
+
+  @Setup
+  public void setUp() {
+    Issues.SearchWsResponse.Builder builder = Issues.SearchWsResponse.newBuilder()
+      .setTotal(issues)
+      .setP(1)
+      .setPs(issues);
+    for (int i = 0; i < issues; i++) {
+      builder.addIssuesBuilder()
+        .setKey("AVsm1dBVuVzPQmDTuCL" + i)
+        .setRule("squid:S" + (100 + i % 50))
+        .setSeverity(Common.Severity.MAJOR)
+        .setComponent("org.sonarsource:sample:src/main/java/Sample" + (i % 30) + ".java")
+        .setProject("org.sonarsource:sample")
+        .setLine(1 + i % 300)
+        .setStatus("OPEN")
+        .setMessage("Remove this unused \"value\" local variable, declared at line " + i + ".")
+        .setEffort("5min")
+        .setAuthor("author" + (i % 5) + "@sonarsource.com")
+        .addTags("unused")
+        .addTags("clumsy");
+    }
+    response = builder.build();
+  }
+
+  @Benchmark
+  public String protobufToJson() {
+    return ProtobufJsonFormat.toJson(response);
+  }
+
+  @Benchmark
+  public String jsonWriter() {
+    StringWriter output = new StringWriter();
+    JsonWriter json = JsonWriter.of(output);
+    json.beginObject()
+      .prop("total", response.getTotal())
+      .prop("p", response.getP())
+      .prop("ps", response.getPs())
+      .name("issues").beginArray();
+    for (Issues.Issue issue : response.getIssuesList()) {
+      json.beginObject()
+        .prop("key", issue.getKey())
+        .prop("rule", issue.getRule())
+        .prop("severity", issue.getSeverity().name())
+        .prop("component", issue.getComponent())
+        .prop("project", issue.getProject())
+        .prop("line", issue.getLine())
+        .prop("status", issue.getStatus())
+        .prop("message", issue.getMessage())
+        .prop("effort", issue.getEffort())
+        .prop("author", issue.getAuthor())
+        .name("tags").beginArray().values(issue.getTagsList()).endArray()
+        .endObject();
+    }
+    json.endArray().endObject().close();
+    return output.toString();
+  }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic generation of the data used by benchmarks, so that results of different runs can be compared.
+ */
+final class SampleSources {
+
+  private static final String[] LINES = {
+    "package org.sonar.sample;",
+    "",
+    "import java.util.List;",
+    "public class Sample {",
+    "  private final List<String> values;",
+    "  // comment on the constructor",
+    "  public Sample(List<String> values) {",
+    "    this.values = values;",
+    "  }",
+    "  public int count(String value) {",
+    "    int count = 0;",
+    "    for (String v : values) {",
+    "      if (v.equals(value)) {",
+    "        count++;",
+    "      }",
+    "    }",
+    "    return count;",
+    "  }",
+    "}"
+  };
+
+  private SampleSources() {
+    // only static stuff
+  }
+
+  static List<String> javaLines(int count) {
+    List<String> lines = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      String line = LINES[i % LINES.length];
+      // make lines distinct from one block of code to the other, as in real files
+      lines.add(line.isEmpty() ? line : (line + " // " + (i / LINES.length)));
+    }
+    return lines;
+  }
+
+  static String javaFile(int lines) {
+    return String.join("\n", javaLines(lines)) + "\n";
+  }
+}
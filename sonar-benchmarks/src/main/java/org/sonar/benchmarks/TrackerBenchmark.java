@@ -0,0 +1,163 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.CheckForNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.core.issue.tracking.BlockHashSequence;
+import org.sonar.core.issue.tracking.Input;
+import org.sonar.core.issue.tracking.LineHashSequence;
+import org.sonar.core.issue.tracking.Trackable;
+import org.sonar.core.issue.tracking.Tracker;
+import org.sonar.core.issue.tracking.Tracking;
+
+/**
+ * Matching of the issues raised on a file with the issues of the previous analysis. Lines are inserted
+ * at the beginning of the file and some messages are changed, so that all the steps of tracking are involved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TrackerBenchmark {
+
+  private static final RuleKey[] RULES = {RuleKey.of("squid", "S001"), RuleKey.of("squid", "S002"), RuleKey.of("squid", "S003")};
+  private static final int INSERTED_LINES = 10;
+
+  @Param({"2000", "20000"})
+  public int lines;
+
+  @Param({"100", "1000", "5000"})
+  public int issues;
+
+  private final Tracker<SimpleIssue, SimpleIssue> tracker = new Tracker<>();
+  private SimpleInput rawInput;
+  private SimpleInput baseInput;
+
+  @Setup
+  public void setUp() {
+    List<String> baseLines = SampleSources.javaLines(lines);
+    List<String> rawLines = new ArrayList<>(baseLines.size() + INSERTED_LINES);
+    for (int i = 0; i < INSERTED_LINES; i++) {
+      rawLines.add("// inserted line " + i);
+    }
+    rawLines.addAll(baseLines);
+
+    LineHashSequence baseHashes = LineHashSequence.createForLines(baseLines);
+    LineHashSequence rawHashes = LineHashSequence.createForLines(rawLines);
+    List<SimpleIssue> baseIssues = new ArrayList<>(issues);
+    List<SimpleIssue> rawIssues = new ArrayList<>(issues);
+    for (int i = 0; i < issues; i++) {
+      int line = 1 + (i * 7) % lines;
+      RuleKey rule = RULES[i % RULES.length];
+      baseIssues.add(new SimpleIssue(rule, line, "message " + i, baseHashes.getHashForLine(line)));
+      // one issue out of 5 has a new message
+      String rawMessage = i % 5 == 0 ? ("new message " + i) : ("message " + i);
+      rawIssues.add(new SimpleIssue(rule, line + INSERTED_LINES, rawMessage, rawHashes.getHashForLine(line + INSERTED_LINES)));
+    }
+    baseInput = new SimpleInput(baseHashes, baseIssues);
+    rawInput = new SimpleInput(rawHashes, rawIssues);
+  }
+
+  @Benchmark
+  public Tracking<SimpleIssue, SimpleIssue> track() {
+    return tracker.track(rawInput, baseInput);
+  }
+
+  public static class SimpleIssue implements Trackable {
+    private final RuleKey ruleKey;
+    private final Integer line;
+    private final String message;
+    private final String lineHash;
+
+    SimpleIssue(RuleKey ruleKey, Integer line, String message, String lineHash) {
+      this.ruleKey = ruleKey;
+      this.line = line;
+      this.message = message;
+      this.lineHash = lineHash;
+    }
+
+    @CheckForNull
+    @Override
+    public Integer getLine() {
+      return line;
+    }
+
+    @Override
+    public String getMessage() {
+      return message;
+    }
+
+    @CheckForNull
+    @Override
+    public String getLineHash() {
+      return lineHash;
+    }
+
+    @Override
+    public RuleKey getRuleKey() {
+      return ruleKey;
+    }
+  }
+
+  private static class SimpleInput implements Input<SimpleIssue> {
+    private final LineHashSequence lineHashes;
+    private final BlockHashSequence blockHashes;
+    private final Collection<SimpleIssue> issues;
+
+    SimpleInput(LineHashSequence lineHashes, Collection<SimpleIssue> issues) {
+      this.lineHashes = lineHashes;
+      this.blockHashes = BlockHashSequence.create(lineHashes);
+      this.issues = issues;
+    }
+
+    @Override
+    public LineHashSequence getLineHashSequence() {
+      return lineHashes;
+    }
+
+    @Override
+    public BlockHashSequence getBlockHashSequence() {
+      return blockHashes;
+    }
+
+    @Override
+    public Collection<SimpleIssue> getIssues() {
+      return issues;
+    }
+  }
+}
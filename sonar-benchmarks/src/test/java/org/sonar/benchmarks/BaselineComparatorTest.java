@@ -0,0 +1,102 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BaselineComparatorTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private BaselineComparator underTest = new BaselineComparator(10.0);
+
+  @Test
+  public void no_regression_when_scores_are_within_threshold() throws IOException {
+    Path baseline = results(result("Foo.bar", "avgt", 100.0, "10"));
+    Path current = results(result("Foo.bar", "avgt", 109.0, "10"));
+
+    assertThat(underTest.findRegressions(baseline, current)).isEmpty();
+  }
+
+  @Test
+  public void regression_when_average_time_increases() throws IOException {
+    Path baseline = results(result("Foo.bar", "avgt", 100.0, "10"));
+    Path current = results(result("Foo.bar", "avgt", 120.0, "10"));
+
+    assertThat(underTest.findRegressions(baseline, current))
+      .hasSize(1)
+      .allMatch(regression -> regression.startsWith("Foo.bar{lines=10}"));
+  }
+
+  @Test
+  public void regression_when_throughput_decreases() throws IOException {
+    Path baseline = results(result("Foo.bar", "thrpt", 1000.0, "10"));
+    Path current = results(result("Foo.bar", "thrpt", 800.0, "10"));
+
+    assertThat(underTest.findRegressions(baseline, current)).hasSize(1);
+  }
+
+  @Test
+  public void throughput_increase_is_not_a_regression() throws IOException {
+    Path baseline = results(result("Foo.bar", "thrpt", 1000.0, "10"));
+    Path current = results(result("Foo.bar", "thrpt", 2000.0, "10"));
+
+    assertThat(underTest.findRegressions(baseline, current)).isEmpty();
+  }
+
+  @Test
+  public void results_are_compared_per_benchmark_params() throws IOException {
+    Path baseline = results(result("Foo.bar", "avgt", 100.0, "10"), result("Foo.bar", "avgt", 1000.0, "1000"));
+    Path current = results(result("Foo.bar", "avgt", 105.0, "10"), result("Foo.bar", "avgt", 2000.0, "1000"));
+
+    assertThat(underTest.findRegressions(baseline, current))
+      .hasSize(1)
+      .allMatch(regression -> regression.startsWith("Foo.bar{lines=1000}"));
+  }
+
+  @Test
+  public void ignore_benchmarks_missing_from_baseline() throws IOException {
+    Path baseline = results(result("Foo.bar", "avgt", 100.0, "10"));
+    Path current = results(result("Foo.baz", "avgt", 1000.0, "10"));
+
+    assertThat(underTest.findRegressions(baseline, current)).isEmpty();
+  }
+
+  private Path results(String... results) throws IOException {
+    File file = temp.newFile();
+    FileUtils.write(file, "[" + String.join(",", results) + "]", StandardCharsets.UTF_8);
+    return file.toPath();
+  }
+
+  private static String result(String benchmark, String mode, double score, String lines) {
+    return "{\"benchmark\":\"" + benchmark + "\",\"mode\":\"" + mode + "\",\"params\":{\"lines\":\"" + lines + "\"},"
+      + "\"primaryMetric\":{\"score\":" + score + ",\"scoreUnit\":\"us/op\"}}";
+  }
+}
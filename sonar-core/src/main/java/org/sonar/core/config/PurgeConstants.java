@@ -27,4 +27,9 @@ public interface PurgeConstants {
   String WEEKS_BEFORE_KEEPING_ONLY_ONE_SNAPSHOT_BY_MONTH = "sonar.dbcleaner.weeksBeforeKeepingOnlyOneSnapshotByMonth";
   String WEEKS_BEFORE_DELETING_ALL_SNAPSHOTS = "sonar.dbcleaner.weeksBeforeDeletingAllSnapshots";
   String DAYS_BEFORE_DELETING_CLOSED_ISSUES = "sonar.dbcleaner.daysBeforeDeletingClosedIssues";
+  String PROPERTY_ASYNC_PURGE = "sonar.dbcleaner.async";
+  String ASYNC_PURGE_START_HOUR = "sonar.dbcleaner.async.startHour";
+  String ASYNC_PURGE_END_HOUR = "sonar.dbcleaner.async.endHour";
+  String ASYNC_PURGE_PAUSE_IN_MS = "sonar.dbcleaner.async.pauseInMs";
+  String ASYNC_PURGE_MAX_ROWS_PER_SECOND = "sonar.dbcleaner.async.maxRowsPerSecond";
 }
@@ -100,6 +100,60 @@ public final class PurgeProperties {
         .category(CoreProperties.CATEGORY_GENERAL)
         .subCategory(CoreProperties.SUBCATEGORY_DATABASE_CLEANER)
         .index(6)
+        .build(),
+
+      PropertyDefinition.builder(PurgeConstants.PROPERTY_ASYNC_PURGE)
+        .defaultValue("false")
+        .name("Purge in background")
+        .description("If set to true, the history of projects is purged by a background task of the Compute Engine instead of being "
+          + "purged at the end of each analysis. Data of the components removed by the analysis are still purged by the analysis. "
+          + "Projects waiting for purge keep their obsolete history until the background task processes them.")
+        .type(PropertyType.BOOLEAN)
+        .category(CoreProperties.CATEGORY_GENERAL)
+        .subCategory(CoreProperties.SUBCATEGORY_DATABASE_CLEANER)
+        .index(7)
+        .build(),
+
+      PropertyDefinition.builder(PurgeConstants.ASYNC_PURGE_START_HOUR)
+        .defaultValue("0")
+        .name("Start hour of background purge")
+        .description("Hour of the day (0-23) from which projects are purged in background.")
+        .type(PropertyType.INTEGER)
+        .category(CoreProperties.CATEGORY_GENERAL)
+        .subCategory(CoreProperties.SUBCATEGORY_DATABASE_CLEANER)
+        .index(8)
+        .build(),
+
+      PropertyDefinition.builder(PurgeConstants.ASYNC_PURGE_END_HOUR)
+        .defaultValue("24")
+        .name("End hour of background purge")
+        .description("Hour of the day (1-24) until which projects are purged in background. "
+          + "If lower than the start hour, the time window spans midnight.")
+        .type(PropertyType.INTEGER)
+        .category(CoreProperties.CATEGORY_GENERAL)
+        .subCategory(CoreProperties.SUBCATEGORY_DATABASE_CLEANER)
+        .index(9)
+        .build(),
+
+      PropertyDefinition.builder(PurgeConstants.ASYNC_PURGE_PAUSE_IN_MS)
+        .defaultValue("1000")
+        .name("Pause between purges of projects")
+        .description("Number of milliseconds to wait after the purge of a project in background, in order to limit the load on the database.")
+        .type(PropertyType.INTEGER)
+        .category(CoreProperties.CATEGORY_GENERAL)
+        .subCategory(CoreProperties.SUBCATEGORY_DATABASE_CLEANER)
+        .index(10)
+        .build(),
+
+      PropertyDefinition.builder(PurgeConstants.ASYNC_PURGE_MAX_ROWS_PER_SECOND)
+        .defaultValue("5000")
+        .name("Maximum number of rows purged per second")
+        .description("Maximum number of database rows deleted per second by the background purge. Deletions are committed in small "
+          + "batches and the purge pauses as soon as this rate is exceeded. Set to 0 to disable the limit.")
+        .type(PropertyType.INTEGER)
+        .category(CoreProperties.CATEGORY_GENERAL)
+        .subCategory(CoreProperties.SUBCATEGORY_DATABASE_CLEANER)
+        .index(11)
         .build()
       );
   }
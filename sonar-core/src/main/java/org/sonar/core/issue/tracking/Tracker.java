@@ -19,11 +19,9 @@
  */
 package org.sonar.core.issue.tracking;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.Multimap;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Objects;
-import javax.annotation.Nonnull;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.batch.InstantiationStrategy;
@@ -35,22 +33,26 @@ public class Tracker<RAW extends Trackable, BASE extends Trackable> {
 
   public Tracking<RAW, BASE> track(Input<RAW> rawInput, Input<BASE> baseInput) {
     Tracking<RAW, BASE> tracking = new Tracking<>(rawInput, baseInput);
+    // fields of issues are read and hashed only once, then they are shared by all the matching passes
+    Trackables<RAW> raws = new Trackables<>(rawInput.getIssues());
+    Trackables<BASE> bases = new Trackables<>(baseInput.getIssues());
+    BaseIndex baseIndex = new BaseIndex(bases.size());
 
     // 1. match issues with same rule, same line and same line hash, but not necessarily with same message
-    match(tracking, LineAndLineHashKeyFactory.INSTANCE);
+    match(tracking, raws, bases, baseIndex, SearchKey.LINE_AND_LINE_HASH);
 
     // 2. detect code moves by comparing blocks of codes
     detectCodeMoves(rawInput, baseInput, tracking);
 
     // 3. match issues with same rule, same message and same line hash
-    match(tracking, LineHashAndMessageKeyFactory.INSTANCE);
+    match(tracking, raws, bases, baseIndex, SearchKey.LINE_HASH_AND_MESSAGE);
 
     // 4. match issues with same rule, same line and same message
-    match(tracking, LineAndMessageKeyFactory.INSTANCE);
+    match(tracking, raws, bases, baseIndex, SearchKey.LINE_AND_MESSAGE);
 
     // 5. match issues with same rule and same line hash but different line and different message.
     // See SONAR-2812
-    match(tracking, LineHashKeyFactory.INSTANCE);
+    match(tracking, raws, bases, baseIndex, SearchKey.LINE_HASH);
 
     return tracking;
   }
@@ -61,189 +63,253 @@ public class Tracker<RAW extends Trackable, BASE extends Trackable> {
     }
   }
 
-  private void match(Tracking<RAW, BASE> tracking, SearchKeyFactory factory) {
+  /**
+   * Each unmatched raw issue is matched with the first unmatched base issue, in the order of the base input, which
+   * has the same search key.
+   */
+  private void match(Tracking<RAW, BASE> tracking, Trackables<RAW> raws, Trackables<BASE> bases, BaseIndex baseIndex, SearchKey searchKey) {
     if (tracking.isComplete()) {
       return;
     }
 
-    Multimap<SearchKey, BASE> baseSearch = ArrayListMultimap.create();
-    for (BASE base : tracking.getUnmatchedBases()) {
-      baseSearch.put(factory.create(base), base);
+    baseIndex.clear();
+    for (int base = 0; base < bases.size(); base++) {
+      if (tracking.containsUnmatchedBase(bases.get(base))) {
+        baseIndex.add(searchKey.hash(bases, base), base);
+      }
     }
 
-    for (RAW raw : tracking.getUnmatchedRaws()) {
-      SearchKey rawKey = factory.create(raw);
-      Collection<BASE> bases = baseSearch.get(rawKey);
-      if (!bases.isEmpty()) {
-        // TODO taking the first one. Could be improved if there are more than 2 issues on the same line.
-        // Message could be checked to take the best one.
-        BASE match = bases.iterator().next();
-        tracking.match(raw, match);
-        baseSearch.remove(rawKey, match);
+    for (int raw = 0; raw < raws.size(); raw++) {
+      RAW rawIssue = raws.get(raw);
+      if (tracking.baseFor(rawIssue) == null) {
+        int hash = searchKey.hash(raws, raw);
+        int base = baseIndex.first(hash);
+        while (base >= 0 && !searchKey.equals(raws, raw, bases, base)) {
+          base = baseIndex.next(base);
+        }
+        if (base >= 0) {
+          // TODO taking the first one. Could be improved if there are more than 2 issues on the same line.
+          // Message could be checked to take the best one.
+          tracking.match(rawIssue, bases.get(base));
+          baseIndex.remove(base);
+        }
       }
     }
   }
 
-  private interface SearchKey {
-  }
-
-  private interface SearchKeyFactory {
-    SearchKey create(Trackable trackable);
-  }
+  /**
+   * Keys used to search the base issues matching a raw issue. Hashes are compared before the fields themselves.
+   */
+  private enum SearchKey {
+    LINE_AND_LINE_HASH {
+      @Override
+      int hash(Trackables<?> t, int i) {
+        int result = t.ruleKeyHashes[i];
+        result = 31 * result + t.lineHashHashes[i];
+        return 31 * result + t.lineHashCodes[i];
+      }
 
-  private static class LineAndLineHashKey implements SearchKey {
-    private final RuleKey ruleKey;
-    private final String lineHash;
-    private final Integer line;
+      @Override
+      boolean equals(Trackables<?> a, int i, Trackables<?> b, int j) {
+        // start with most discriminant field
+        return Objects.equals(a.lines[i], b.lines[j])
+          && a.lineHashes[i].equals(b.lineHashes[j])
+          && a.ruleKeys[i].equals(b.ruleKeys[j]);
+      }
+    },
+
+    LINE_HASH_AND_MESSAGE {
+      @Override
+      int hash(Trackables<?> t, int i) {
+        int result = t.ruleKeyHashes[i];
+        result = 31 * result + t.messageHashes[i];
+        return 31 * result + t.lineHashHashes[i];
+      }
 
-    LineAndLineHashKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.line = trackable.getLine();
-      this.lineHash = StringUtils.defaultString(trackable.getLineHash(), "");
-    }
+      @Override
+      boolean equals(Trackables<?> a, int i, Trackables<?> b, int j) {
+        return a.lineHashes[i].equals(b.lineHashes[j])
+          && Objects.equals(a.messages[i], b.messages[j])
+          && a.ruleKeys[i].equals(b.ruleKeys[j]);
+      }
+    },
+
+    LINE_AND_MESSAGE {
+      @Override
+      int hash(Trackables<?> t, int i) {
+        int result = t.ruleKeyHashes[i];
+        result = 31 * result + t.messageHashes[i];
+        return 31 * result + t.lineHashCodes[i];
+      }
 
-    @Override
-    public boolean equals(@Nonnull Object o) {
-      if (this == o) {
-        return true;
+      @Override
+      boolean equals(Trackables<?> a, int i, Trackables<?> b, int j) {
+        return Objects.equals(a.lines[i], b.lines[j])
+          && Objects.equals(a.messages[i], b.messages[j])
+          && a.ruleKeys[i].equals(b.ruleKeys[j]);
       }
-      LineAndLineHashKey that = (LineAndLineHashKey) o;
-      // start with most discriminant field
-      return Objects.equals(line, that.line)
-        && lineHash.equals(that.lineHash)
-        && ruleKey.equals(that.ruleKey);
-    }
+    },
 
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + lineHash.hashCode();
-      result = 31 * result + (line != null ? line.hashCode() : 0);
-      return result;
-    }
-  }
+    LINE_HASH {
+      @Override
+      int hash(Trackables<?> t, int i) {
+        return 31 * t.ruleKeyHashes[i] + t.lineHashHashes[i];
+      }
 
-  private enum LineAndLineHashKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-    @Override
-    public SearchKey create(Trackable t) {
-      return new LineAndLineHashKey(t);
-    }
-  }
+      @Override
+      boolean equals(Trackables<?> a, int i, Trackables<?> b, int j) {
+        return a.lineHashes[i].equals(b.lineHashes[j])
+          && a.ruleKeys[i].equals(b.ruleKeys[j]);
+      }
+    };
 
-  private static class LineHashAndMessageKey implements SearchKey {
-    private final RuleKey ruleKey;
-    private final String message;
-    private final String lineHash;
+    abstract int hash(Trackables<?> trackables, int index);
 
-    LineHashAndMessageKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.message = trackable.getMessage();
-      this.lineHash = StringUtils.defaultString(trackable.getLineHash(), "");
-    }
+    abstract boolean equals(Trackables<?> a, int indexInA, Trackables<?> b, int indexInB);
+  }
 
-    @Override
-    public boolean equals(@Nonnull Object o) {
-      if (this == o) {
-        return true;
+  /**
+   * Fields of the issues which are involved in matching, and their hashes, stored by position of issue in input.
+   */
+  private static class Trackables<T extends Trackable> {
+    private final Object[] trackables;
+    private final RuleKey[] ruleKeys;
+    private final Integer[] lines;
+    private final String[] lineHashes;
+    private final String[] messages;
+    private final int[] ruleKeyHashes;
+    private final int[] lineHashCodes;
+    private final int[] lineHashHashes;
+    private final int[] messageHashes;
+
+    Trackables(Collection<T> issues) {
+      int size = issues.size();
+      this.trackables = issues.toArray(new Object[size]);
+      this.ruleKeys = new RuleKey[size];
+      this.lines = new Integer[size];
+      this.lineHashes = new String[size];
+      this.messages = new String[size];
+      this.ruleKeyHashes = new int[size];
+      this.lineHashCodes = new int[size];
+      this.lineHashHashes = new int[size];
+      this.messageHashes = new int[size];
+      for (int i = 0; i < size; i++) {
+        Trackable trackable = (Trackable) trackables[i];
+        ruleKeys[i] = trackable.getRuleKey();
+        lines[i] = trackable.getLine();
+        lineHashes[i] = StringUtils.defaultString(trackable.getLineHash(), "");
+        messages[i] = trackable.getMessage();
+        ruleKeyHashes[i] = ruleKeys[i].hashCode();
+        lineHashCodes[i] = Objects.hashCode(lines[i]);
+        lineHashHashes[i] = lineHashes[i].hashCode();
+        messageHashes[i] = Objects.hashCode(messages[i]);
       }
-      LineHashAndMessageKey that = (LineHashAndMessageKey) o;
-      // start with most discriminant field
-      return lineHash.equals(that.lineHash)
-        && message.equals(that.message)
-        && ruleKey.equals(that.ruleKey);
     }
 
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + message.hashCode();
-      result = 31 * result + lineHash.hashCode();
-      return result;
+    int size() {
+      return trackables.length;
     }
-  }
 
-  private enum LineHashAndMessageKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-    @Override
-    public SearchKey create(Trackable t) {
-      return new LineHashAndMessageKey(t);
+    @SuppressWarnings("unchecked")
+    T get(int index) {
+      return (T) trackables[index];
     }
   }
 
-  private static class LineAndMessageKey implements SearchKey {
-    private final RuleKey ruleKey;
-    private final String message;
-    private final Integer line;
+  /**
+   * Index of base issues by hash of search key. It's an open-addressing hash table (linear probing) whose entries
+   * are the chains of the base issues having the same hash, in the order of the base input. Arrays are allocated once
+   * and reused by all the matching passes.
+   */
+  private static class BaseIndex {
+    private static final int NONE = -1;
+
+    private final int[] slotHashes;
+    private final int[] slotHeads;
+    private final int[] slotTails;
+    private final int[] nextBases;
+    private final boolean[] removed;
+    private final int mask;
+
+    BaseIndex(int bases) {
+      int capacity = Integer.highestOneBit(Math.max(bases, 1) * 2 - 1) << 1;
+      this.mask = capacity - 1;
+      this.slotHashes = new int[capacity];
+      this.slotHeads = new int[capacity];
+      this.slotTails = new int[capacity];
+      this.nextBases = new int[bases];
+      this.removed = new boolean[bases];
+    }
 
-    LineAndMessageKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.message = trackable.getMessage();
-      this.line = trackable.getLine();
+    void clear() {
+      Arrays.fill(slotHeads, NONE);
     }
 
-    @Override
-    public boolean equals(@Nonnull Object o) {
-      if (this == o) {
-        return true;
+    void add(int hash, int base) {
+      int slot = slot(hash);
+      if (slotHeads[slot] == NONE) {
+        slotHashes[slot] = hash;
+        slotHeads[slot] = base;
+      } else {
+        nextBases[slotTails[slot]] = base;
       }
-      LineAndMessageKey that = (LineAndMessageKey) o;
-      // start with most discriminant field
-      return Objects.equals(line, that.line)
-        && message.equals(that.message)
-        && ruleKey.equals(that.ruleKey);
+      slotTails[slot] = base;
+      nextBases[base] = NONE;
+      removed[base] = false;
     }
 
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + message.hashCode();
-      result = 31 * result + (line != null ? line.hashCode() : 0);
-      return result;
+    /**
+     * First base which is not removed and which has the given hash, or {@link #NONE}
+     */
+    int first(int hash) {
+      int slot = slot(hash);
+      int head = slotHeads[slot];
+      if (head == NONE) {
+        return NONE;
+      }
+      // bases removed from the head of the chain are dropped, so that they are not traversed again
+      while (head != NONE && removed[head]) {
+        head = nextBases[head];
+      }
+      if (head == NONE) {
+        // the chain has been consumed. The slot must stay used so that probing of other hashes is not broken,
+        // so it points to the last removed base.
+        slotHeads[slot] = slotTails[slot];
+        return NONE;
+      }
+      slotHeads[slot] = head;
+      return head;
     }
-  }
 
-  private enum LineAndMessageKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-    @Override
-    public SearchKey create(Trackable t) {
-      return new LineAndMessageKey(t);
+    /**
+     * Next base which is not removed in the chain of {@code base}, or {@link #NONE}
+     */
+    int next(int base) {
+      int next = nextBases[base];
+      while (next != NONE && removed[next]) {
+        next = nextBases[next];
+      }
+      return next;
     }
-  }
-
-  private static class LineHashKey implements SearchKey {
-    private final RuleKey ruleKey;
-    private final String lineHash;
 
-    LineHashKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.lineHash = StringUtils.defaultString(trackable.getLineHash(), "");
+    void remove(int base) {
+      removed[base] = true;
     }
 
-    @Override
-    public boolean equals(@Nonnull Object o) {
-      if (this == o) {
-        return true;
+    /**
+     * Slot of the chain of the given hash, or the free slot where it should be created
+     */
+    private int slot(int hash) {
+      int slot = mix(hash) & mask;
+      while (slotHeads[slot] != NONE && slotHashes[slot] != hash) {
+        slot = (slot + 1) & mask;
       }
-      LineHashKey that = (LineHashKey) o;
-      // start with most discriminant field
-      return lineHash.equals(that.lineHash)
-        && ruleKey.equals(that.ruleKey);
+      return slot;
     }
 
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + lineHash.hashCode();
-      return result;
-    }
-  }
-
-  private enum LineHashKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-    @Override
-    public SearchKey create(Trackable t) {
-      return new LineHashKey(t);
+    private static int mix(int hash) {
+      int h = hash * 0x9E3779B9;
+      return h ^ (h >>> 16);
     }
   }
 }
@@ -22,6 +22,7 @@ package org.sonar.core.util;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 
@@ -51,6 +52,7 @@ public class ProgressLogger {
    * Warning, does not check if already started.
    */
   public void start() {
+    task.startedAt = System.currentTimeMillis();
     // first log after {periodMs} milliseconds
     timer.schedule(task, periodMs, periodMs);
   }
@@ -84,6 +86,16 @@ public class ProgressLogger {
     return task.pluralLabel;
   }
 
+  /**
+   * Adds the percentage of completion and the estimated remaining time to logs. The unit of {@code completed}
+   * and {@code total} can differ from the one of the counter, for example a range of ids.
+   */
+  public ProgressLogger setEstimation(LongSupplier completed, long total) {
+    task.completed = completed;
+    task.total = total;
+    return this;
+  }
+
   public void log() {
     task.log();
   }
@@ -93,6 +105,9 @@ public class ProgressLogger {
     private final Logger logger;
     private String pluralLabel = "rows";
     private long previousCounter = 0L;
+    private long startedAt = 0L;
+    private LongSupplier completed = null;
+    private long total = 0L;
 
     private LoggerTimerTask(AtomicLong counter, Logger logger) {
       this.counter = counter;
@@ -106,8 +121,33 @@ public class ProgressLogger {
 
     private void log() {
       long current = counter.get();
-      logger.info(String.format("%d %s processed (%d items/sec)", current, pluralLabel, 1000 * (current - previousCounter) / periodMs));
+      String message = String.format("%d %s processed (%d items/sec)", current, pluralLabel, 1000 * (current - previousCounter) / periodMs);
+      if (completed != null && total > 0L) {
+        message += estimation(completed.getAsLong());
+      }
+      logger.info(message);
       previousCounter = current;
     }
+
+    private String estimation(long done) {
+      long percent = 100L * done / total;
+      long elapsedMs = System.currentTimeMillis() - startedAt;
+      if (done <= 0L || elapsedMs <= 0L) {
+        return String.format(", %d%% done", percent);
+      }
+      long remainingMs = elapsedMs * Math.max(0L, total - done) / done;
+      return String.format(", %d%% done, %s remaining", percent, formatDuration(remainingMs));
+    }
+
+    private String formatDuration(long ms) {
+      long minutes = ms / 60_000L;
+      if (minutes == 0L) {
+        return (ms / 1_000L) + "s";
+      }
+      if (minutes < 60L) {
+        return minutes + "min";
+      }
+      return String.format("%dh%02dmin", minutes / 60L, minutes % 60L);
+    }
   }
 }
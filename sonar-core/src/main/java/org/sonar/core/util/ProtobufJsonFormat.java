@@ -25,9 +25,13 @@ import com.google.protobuf.Message;
 import java.io.StringWriter;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import javax.annotation.Nullable;
 import org.sonar.api.utils.text.JsonWriter;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 /**
  * Converts a Protocol Buffers message to JSON. Unknown fields, binary fields and groups
  * are not supported. Absent fields are ignored, so it's possible to distinguish
@@ -159,6 +163,45 @@ public class ProtobufJsonFormat {
     writer.endObject();
   }
 
+  /**
+   * Same as {@link #write(Message, JsonWriter)}, except that the elements of the repeated field
+   * {@code repeatedFieldName} are not read from {@code message} but from {@code elements}. Each element is
+   * written as soon as it is provided by the iterator, so that the whole array does not have to be loaded
+   * in memory. The array is written after the other fields of {@code message}.
+   *
+   * @throws IllegalArgumentException if {@code repeatedFieldName} is not a repeated field of messages, or
+   * if this field is not empty in {@code message}
+   */
+  public static void write(Message message, String repeatedFieldName, Iterator<? extends Message> elements, JsonWriter writer) {
+    Descriptors.FieldDescriptor streamedField = getStreamedField(message, repeatedFieldName);
+    writer.setSerializeNulls(false).setSerializeEmptys(true);
+    writer.beginObject();
+    writeMessage(message, writer, streamedField);
+    writer.name(streamedField.getName());
+    writer.beginArray();
+    while (elements.hasNext()) {
+      writer.beginObject();
+      writeMessage(elements.next(), writer);
+      writer.endObject();
+    }
+    writer.endArray();
+    writer.endObject();
+  }
+
+  /**
+   * Repeated field of messages which is expected to be empty in {@code message}, as its elements are
+   * provided separately.
+   *
+   * @throws IllegalArgumentException if the field does not exist, is not a repeated field of messages or is not empty
+   */
+  public static Descriptors.FieldDescriptor getStreamedField(Message message, String repeatedFieldName) {
+    Descriptors.FieldDescriptor field = message.getDescriptorForType().findFieldByName(repeatedFieldName);
+    checkArgument(field != null && field.isRepeated() && !field.isMapField() && field.getJavaType() == Descriptors.FieldDescriptor.JavaType.MESSAGE,
+      "Field '%s' is not a repeated field of messages of %s", repeatedFieldName, message.getDescriptorForType().getName());
+    checkArgument(message.getRepeatedFieldCount(field) == 0, "Field '%s' must be empty as its elements are streamed", repeatedFieldName);
+    return field;
+  }
+
   public static String toJson(Message message) {
     StringWriter json = new StringWriter();
     try (JsonWriter jsonWriter = JsonWriter.of(json)) {
@@ -168,8 +211,15 @@ public class ProtobufJsonFormat {
   }
 
   private static void writeMessage(Message message, JsonWriter writer) {
+    writeMessage(message, writer, null);
+  }
+
+  private static void writeMessage(Message message, JsonWriter writer, @Nullable Descriptors.FieldDescriptor excludedField) {
     MessageType type = MessageType.of(message);
     for (Descriptors.FieldDescriptor fieldDescriptor : type.fieldDescriptors) {
+      if (fieldDescriptor.equals(excludedField)) {
+        continue;
+      }
       if (fieldDescriptor.isRepeated()) {
         writer.name(fieldDescriptor.getName());
         if (fieldDescriptor.isMapField()) {
@@ -19,9 +19,13 @@
  */
 package org.sonar.core.issue.tracking;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Multimap;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
 import javax.annotation.Nullable;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.junit.Rule;
@@ -381,6 +385,99 @@ public class TrackerTest {
     assertThat(tracking.baseFor(raw1)).isEqualTo(base1);
   }
 
+  @Test
+  public void issues_with_same_search_key_are_matched_in_order_of_base_input() {
+    FakeInput baseInput = new FakeInput("H1");
+    Issue base1 = baseInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg");
+    Issue base2 = baseInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg");
+    Issue base3 = baseInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg");
+
+    FakeInput rawInput = new FakeInput("H1");
+    Issue raw1 = rawInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg");
+    Issue raw2 = rawInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg");
+
+    Tracking<Issue, Issue> tracking = tracker.track(rawInput, baseInput);
+    assertThat(tracking.baseFor(raw1)).isSameAs(base1);
+    assertThat(tracking.baseFor(raw2)).isSameAs(base2);
+    assertThat(tracking.getUnmatchedBases()).containsOnly(base3);
+  }
+
+  /**
+   * Differential test against the straightforward implementation of the matching passes, based on multimaps
+   */
+  @Test
+  public void match_same_issues_as_multimap_based_implementation() {
+    Random random = new Random(42);
+    RuleKey[] rules = {RULE_SYSTEM_PRINT, RULE_UNUSED_LOCAL_VARIABLE, RULE_USE_DIAMOND};
+    for (int i = 0; i < 500; i++) {
+      String[] baseHashes = randomHashes(random, 1 + random.nextInt(30));
+      String[] rawHashes = randomHashes(random, 1 + random.nextInt(30));
+      FakeInput baseInput = new FakeInput(baseHashes);
+      FakeInput rawInput = new FakeInput(rawHashes);
+      int maxIssues = i % 10 == 0 ? 200 : 20;
+      int baseIssues = random.nextInt(maxIssues);
+      int rawIssues = random.nextInt(maxIssues);
+      for (int j = 0; j < baseIssues; j++) {
+        createRandomIssue(random, baseInput, baseHashes.length, rules);
+      }
+      for (int j = 0; j < rawIssues; j++) {
+        createRandomIssue(random, rawInput, rawHashes.length, rules);
+      }
+
+      Tracking<Issue, Issue> tracking = tracker.track(rawInput, baseInput);
+      Tracking<Issue, Issue> expected = trackWithMultimaps(rawInput, baseInput);
+      for (Issue raw : rawInput.getIssues()) {
+        assertThat(tracking.baseFor(raw)).isSameAs(expected.baseFor(raw));
+      }
+    }
+  }
+
+  private static String[] randomHashes(Random random, int lines) {
+    String[] hashes = new String[lines];
+    for (int i = 0; i < lines; i++) {
+      hashes[i] = "H" + random.nextInt(8);
+    }
+    return hashes;
+  }
+
+  private static void createRandomIssue(Random random, FakeInput input, int lines, RuleKey[] rules) {
+    RuleKey rule = rules[random.nextInt(rules.length)];
+    String message = "msg" + random.nextInt(4);
+    if (random.nextInt(6) == 0) {
+      input.createIssue(rule, message);
+    } else {
+      input.createIssueOnLine(1 + random.nextInt(lines), rule, message);
+    }
+  }
+
+  private static Tracking<Issue, Issue> trackWithMultimaps(FakeInput rawInput, FakeInput baseInput) {
+    Tracking<Issue, Issue> tracking = new Tracking<>(rawInput, baseInput);
+    matchWithMultimap(tracking, t -> asList(t.getRuleKey(), t.getLine(), t.getLineHash()));
+    if (!tracking.isComplete()) {
+      new BlockRecognizer<Issue, Issue>().match(rawInput, baseInput, tracking);
+    }
+    matchWithMultimap(tracking, t -> asList(t.getRuleKey(), t.getMessage(), t.getLineHash()));
+    matchWithMultimap(tracking, t -> asList(t.getRuleKey(), t.getMessage(), t.getLine()));
+    matchWithMultimap(tracking, t -> asList(t.getRuleKey(), t.getLineHash()));
+    return tracking;
+  }
+
+  private static void matchWithMultimap(Tracking<Issue, Issue> tracking, Function<Issue, List<Object>> keyFunction) {
+    Multimap<List<Object>, Issue> baseSearch = ArrayListMultimap.create();
+    for (Issue base : tracking.getUnmatchedBases()) {
+      baseSearch.put(keyFunction.apply(base), base);
+    }
+    for (Issue raw : tracking.getUnmatchedRaws()) {
+      List<Object> rawKey = keyFunction.apply(raw);
+      Collection<Issue> bases = baseSearch.get(rawKey);
+      if (!bases.isEmpty()) {
+        Issue match = bases.iterator().next();
+        tracking.match(raw, match);
+        baseSearch.remove(rawKey, match);
+      }
+    }
+  }
+
   private static class Issue implements Trackable {
     private final RuleKey ruleKey;
     private final Integer line;
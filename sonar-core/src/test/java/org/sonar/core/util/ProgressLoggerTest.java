@@ -53,6 +53,17 @@ public class ProgressLoggerTest {
     assertThat(hasInfoLog("43 rows processed")).isTrue();
   }
 
+  @Test
+  public void log_completion_and_remaining_time_when_estimation_is_defined() {
+    AtomicLong counter = new AtomicLong(10L);
+    ProgressLogger progress = new ProgressLogger("ProgressLoggerTest", counter, Loggers.get(getClass()));
+    progress.setEstimation(() -> 250L, 1_000L);
+
+    progress.log();
+
+    assertThat(hasInfoLog("10 rows processed (0 items/sec), 25% done")).isTrue();
+  }
+
   @Test
   public void create() {
     ProgressLogger progress = ProgressLogger.create(getClass(), new AtomicLong());
@@ -21,6 +21,7 @@ package org.sonar.core.util;
 
 import com.google.protobuf.ByteString;
 import java.io.StringWriter;
+import java.util.Collections;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -38,6 +39,7 @@ import org.sonar.core.test.Test.TestNullableMap;
 import org.sonar.core.test.Test.Translations;
 import org.sonar.test.TestUtils;
 
+import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.sonar.core.util.ProtobufJsonFormat.toJson;
 
@@ -111,6 +113,48 @@ public class ProtobufJsonFormatTest {
     assertThat(toJson(msg)).isEqualTo("{\"strings\":[],\"nesteds\":[]}");
   }
 
+  @Test
+  public void stream_elements_of_repeated_field() {
+    TestArray msg = TestArray.newBuilder().addStrings("one").build();
+    StringWriter json = new StringWriter();
+
+    try (JsonWriter writer = JsonWriter.of(json)) {
+      ProtobufJsonFormat.write(msg, "nesteds",
+        asList(NestedMsg.newBuilder().setLabel("nestedOne").build(), NestedMsg.newBuilder().setLabel("nestedTwo").build()).iterator(), writer);
+    }
+
+    assertThat(json.toString()).isEqualTo("{\"strings\":[\"one\"],\"nesteds\":[{\"label\":\"nestedOne\"},{\"label\":\"nestedTwo\"}]}");
+  }
+
+  @Test
+  public void stream_no_elements_of_repeated_field() {
+    TestArray msg = TestArray.newBuilder().build();
+    StringWriter json = new StringWriter();
+
+    try (JsonWriter writer = JsonWriter.of(json)) {
+      ProtobufJsonFormat.write(msg, "nesteds", Collections.<NestedMsg>emptyIterator(), writer);
+    }
+
+    assertThat(json.toString()).isEqualTo("{\"strings\":[],\"nesteds\":[]}");
+  }
+
+  @Test
+  public void fail_to_stream_elements_of_field_which_is_not_repeated_message() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Field 'strings' is not a repeated field of messages of TestArray");
+
+    ProtobufJsonFormat.write(TestArray.newBuilder().build(), "strings", Collections.<NestedMsg>emptyIterator(), JsonWriter.of(new StringWriter()));
+  }
+
+  @Test
+  public void fail_to_stream_elements_of_field_which_is_not_empty() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Field 'nesteds' must be empty as its elements are streamed");
+
+    TestArray msg = TestArray.newBuilder().addNesteds(NestedMsg.newBuilder().setLabel("nestedOne")).build();
+    ProtobufJsonFormat.write(msg, "nesteds", Collections.<NestedMsg>emptyIterator(), JsonWriter.of(new StringWriter()));
+  }
+
   @Test
   public void do_not_write_null_wrapper_of_array() {
     TestNullableArray msg = TestNullableArray.newBuilder()
@@ -56,6 +56,15 @@ public class FileHashes {
     }
   }
 
+  public String of(byte[] bytes) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("MD5");
+      return toHex(digest.digest(bytes));
+    } catch (Exception e) {
+      throw new IllegalStateException("Fail to compute hash", e);
+    }
+  }
+
   private static byte[] digest(InputStream input, MessageDigest digest) throws IOException {
     final byte[] buffer = new byte[STREAM_BUFFER_LENGTH];
     int read = input.read(buffer, 0, STREAM_BUFFER_LENGTH);
@@ -0,0 +1,223 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.home.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+/**
+ * Key/value store persisted in the user home, so that data computed by an analysis can be reused by the following ones
+ * on the same machine. Entries are stored as files named by the hash of their key.
+ * <p/>
+ * The size of the cache is bounded: {@link #clean()} evicts the least recently used entries until the total size
+ * of the entries is under the limit. An entry is considered as used when it's written or read.
+ *
+ * @since 6.5
+ */
+public class PersistentCache {
+
+  private static final String TMP_DIR_NAME = "_tmp";
+
+  private final Path dir;
+  private final Path tmpDir;
+  private final long maxSize;
+  private final FileHashes hashes;
+  private final Logger logger;
+
+  PersistentCache(File dir, long maxSize, FileHashes hashes, Logger logger) {
+    this.dir = createDir(dir.toPath());
+    this.tmpDir = createDir(this.dir.resolve(TMP_DIR_NAME));
+    this.maxSize = maxSize;
+    this.hashes = hashes;
+    this.logger = logger;
+    logger.debug(String.format("Persistent cache: %s", dir.getAbsolutePath()));
+  }
+
+  public static PersistentCache create(File dir, long maxSize, Logger logger) {
+    return new PersistentCache(dir, maxSize, new FileHashes(), logger);
+  }
+
+  public File getDir() {
+    return dir.toFile();
+  }
+
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Returns the value associated to the key, or null if not present in the cache.
+   */
+  @CheckForNull
+  public byte[] get(String key) {
+    Path entry = entryPath(key);
+    try {
+      byte[] value = Files.readAllBytes(entry);
+      touch(entry);
+      return value;
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException e) {
+      logger.warn(String.format("Fail to read entry %s of the persistent cache: %s", entry, e.getMessage()));
+      return null;
+    }
+  }
+
+  /**
+   * Associates the value to the key, replacing any existing value. The entry is visible to other processes only once
+   * fully written. Failures, for example when the disk is full or read-only, are logged and ignored: the entry
+   * is then missing from the cache, as if it had been evicted.
+   *
+   * @return whether the entry has been written
+   */
+  public boolean put(String key, byte[] value) {
+    Path entry = entryPath(key);
+    Path tempFile = null;
+    try {
+      tempFile = Files.createTempFile(tmpDir, "entry", null);
+      Files.write(tempFile, value);
+      Files.createDirectories(entry.getParent());
+      move(tempFile, entry);
+      return true;
+    } catch (IOException e) {
+      logger.warn(String.format("Fail to write entry %s of the persistent cache: %s", entry, e.getMessage()));
+      deleteQuietly(tempFile);
+      return false;
+    }
+  }
+
+  /**
+   * Evicts the least recently used entries until the size of the cache is under the limit. Does nothing if
+   * the cache is already being cleaned by another process.
+   */
+  public void clean() {
+    DirectoryLock lock = new DirectoryLock(dir, logger);
+    if (!lock.tryLock()) {
+      logger.debug("Persistent cache is locked by another process, skip cleaning");
+      return;
+    }
+    try {
+      List<Entry> entries = listEntries();
+      long size = 0L;
+      for (Entry entry : entries) {
+        size += entry.size;
+      }
+      entries.sort(Comparator.comparing(e -> e.lastUse));
+      int evicted = 0;
+      for (int i = 0; i < entries.size() && size > maxSize; i++) {
+        Entry entry = entries.get(i);
+        Files.deleteIfExists(entry.path);
+        size -= entry.size;
+        evicted++;
+      }
+      logger.debug(String.format("Persistent cache cleaned: %d entries evicted, %d bytes used", evicted, size));
+    } catch (IOException e) {
+      logger.warn("Fail to clean the persistent cache: " + e.getMessage());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private List<Entry> listEntries() throws IOException {
+    List<Entry> entries = new ArrayList<>();
+    try (DirectoryStream<Path> subDirs = Files.newDirectoryStream(dir, Files::isDirectory)) {
+      for (Path subDir : subDirs) {
+        if (subDir.equals(tmpDir)) {
+          continue;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(subDir)) {
+          for (Path file : files) {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            entries.add(new Entry(file, attributes.size(), attributes.lastModifiedTime()));
+          }
+        }
+      }
+    }
+    return entries;
+  }
+
+  private Path entryPath(String key) {
+    String hash = hashes.of(key.getBytes(StandardCharsets.UTF_8));
+    // entries are spread in sub-directories in order to keep directories small
+    return dir.resolve(hash.substring(0, 2)).resolve(hash);
+  }
+
+  private void touch(Path entry) {
+    try {
+      Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+    } catch (IOException e) {
+      // the entry may have been evicted by another process. Not a problem for a LRU policy.
+      logger.debug(String.format("Fail to update last use of %s: %s", entry, e.getMessage()));
+    }
+  }
+
+  private void deleteQuietly(@Nullable Path file) {
+    if (file == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      logger.debug(String.format("Fail to delete temporary file %s: %s", file, e.getMessage()));
+    }
+  }
+
+  private static void move(Path source, Path target) throws IOException {
+    try {
+      Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  private static Path createDir(Path dir) {
+    try {
+      return Files.createDirectories(dir);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to create persistent cache directory " + dir, e);
+    }
+  }
+
+  private static class Entry {
+    private final Path path;
+    private final long size;
+    private final FileTime lastUse;
+
+    Entry(Path path, long size, FileTime lastUse) {
+      this.path = path;
+      this.size = size;
+      this.lastUse = lastUse;
+    }
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.home.cache;
+
+import java.io.File;
+import javax.annotation.Nullable;
+
+/**
+ * @since 6.5
+ */
+public class PersistentCacheBuilder {
+  public static final long DEFAULT_MAX_SIZE = 1024L * 1024L * 1024L;
+
+  private final Logger logger;
+  private File userHome;
+  private long maxSize = DEFAULT_MAX_SIZE;
+
+  public PersistentCacheBuilder(Logger logger) {
+    this.logger = logger;
+  }
+
+  public PersistentCacheBuilder setUserHome(File d) {
+    this.userHome = d;
+    return this;
+  }
+
+  public PersistentCacheBuilder setUserHome(@Nullable String path) {
+    this.userHome = (path == null) ? null : new File(path);
+    return this;
+  }
+
+  /**
+   * Maximum size in bytes of the entries stored in the cache.
+   */
+  public PersistentCacheBuilder setMaxSize(long maxSize) {
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("Max size of persistent cache must be positive: " + maxSize);
+    }
+    this.maxSize = maxSize;
+    return this;
+  }
+
+  public PersistentCache build() {
+    if (userHome == null) {
+      userHome = findHome();
+    }
+    File cacheDir = new File(userHome, "persistent_cache");
+    return PersistentCache.create(cacheDir, maxSize, logger);
+  }
+
+  private static File findHome() {
+    String path = System.getenv("SONAR_USER_HOME");
+    if (path == null) {
+      // Default
+      path = System.getProperty("user.home") + File.separator + ".sonar";
+    }
+    return new File(path);
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.home.cache;
+
+import java.io.File;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class PersistentCacheBuilderTest {
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  @Test
+  public void setUserHome() throws Exception {
+    File userHome = temp.newFolder();
+    PersistentCache cache = new PersistentCacheBuilder(mock(Logger.class)).setUserHome(userHome).build();
+
+    assertThat(cache.getDir()).isDirectory().exists();
+    assertThat(cache.getDir().getName()).isEqualTo("persistent_cache");
+    assertThat(cache.getDir().getParentFile()).isEqualTo(userHome);
+    assertThat(cache.getMaxSize()).isEqualTo(PersistentCacheBuilder.DEFAULT_MAX_SIZE);
+  }
+
+  @Test
+  public void setMaxSize() throws Exception {
+    PersistentCache cache = new PersistentCacheBuilder(mock(Logger.class)).setUserHome(temp.newFolder()).setMaxSize(42L).build();
+
+    assertThat(cache.getMaxSize()).isEqualTo(42L);
+  }
+
+  @Test
+  public void fail_if_max_size_is_negative() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Max size of persistent cache must be positive: -1");
+
+    new PersistentCacheBuilder(mock(Logger.class)).setMaxSize(-1L);
+  }
+}
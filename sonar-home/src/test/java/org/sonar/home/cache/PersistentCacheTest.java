@@ -0,0 +1,181 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.home.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class PersistentCacheTest {
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private File dir;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = tempFolder.newFolder();
+  }
+
+  @Test
+  public void not_in_cache() {
+    PersistentCache cache = PersistentCache.create(dir, 100L, mock(Logger.class));
+
+    assertThat(cache.get("foo")).isNull();
+  }
+
+  @Test
+  public void put_and_get() {
+    PersistentCache cache = PersistentCache.create(dir, 100L, mock(Logger.class));
+
+    assertThat(cache.put("foo", bytes("bar"))).isTrue();
+
+    assertThat(cache.get("foo")).isEqualTo(bytes("bar"));
+    assertThat(cache.get("other")).isNull();
+  }
+
+  @Test
+  public void replace_existing_value() {
+    PersistentCache cache = PersistentCache.create(dir, 100L, mock(Logger.class));
+
+    cache.put("foo", bytes("bar"));
+    cache.put("foo", bytes("baz"));
+
+    assertThat(cache.get("foo")).isEqualTo(bytes("baz"));
+  }
+
+  @Test
+  public void entries_are_persisted_across_instances() {
+    PersistentCache.create(dir, 100L, mock(Logger.class)).put("foo", bytes("bar"));
+
+    assertThat(PersistentCache.create(dir, 100L, mock(Logger.class)).get("foo")).isEqualTo(bytes("bar"));
+  }
+
+  @Test
+  public void clean_evicts_least_recently_used_entries() throws IOException {
+    PersistentCache cache = PersistentCache.create(dir, 10L, mock(Logger.class));
+    cache.put("first", bytes("12345"));
+    cache.put("second", bytes("12345"));
+    cache.put("third", bytes("12345"));
+    setLastUse(cache, "first", 1_000L);
+    setLastUse(cache, "second", 3_000L);
+    setLastUse(cache, "third", 2_000L);
+
+    cache.clean();
+
+    assertThat(cache.get("first")).isNull();
+    assertThat(cache.get("second")).isNotNull();
+    assertThat(cache.get("third")).isNotNull();
+  }
+
+  @Test
+  public void get_updates_last_use_of_entry() throws IOException {
+    PersistentCache cache = PersistentCache.create(dir, 10L, mock(Logger.class));
+    cache.put("first", bytes("12345"));
+    cache.put("second", bytes("12345"));
+    setLastUse(cache, "first", 1_000L);
+    setLastUse(cache, "second", 2_000L);
+
+    assertThat(cache.get("first")).isNotNull();
+    cache.put("third", bytes("12345"));
+    setLastUse(cache, "third", 3_000L);
+    cache.clean();
+
+    assertThat(cache.get("second")).isNull();
+    assertThat(cache.get("first")).isNotNull();
+    assertThat(cache.get("third")).isNotNull();
+  }
+
+  @Test
+  public void clean_does_nothing_if_under_max_size() throws IOException {
+    PersistentCache cache = PersistentCache.create(dir, 100L, mock(Logger.class));
+    cache.put("first", bytes("12345"));
+    cache.put("second", bytes("12345"));
+
+    cache.clean();
+
+    assertThat(cache.get("first")).isNotNull();
+    assertThat(cache.get("second")).isNotNull();
+  }
+
+  @Test
+  public void no_temp_files_are_left() throws IOException {
+    PersistentCache cache = PersistentCache.create(dir, 100L, mock(Logger.class));
+    cache.put("foo", bytes("bar"));
+
+    try (Stream<Path> tempFiles = Files.list(dir.toPath().resolve("_tmp"))) {
+      assertThat(tempFiles.count()).isZero();
+    }
+  }
+
+  @Test
+  public void failure_to_write_is_logged_and_ignored() throws IOException {
+    Logger logger = mock(Logger.class);
+    PersistentCache cache = PersistentCache.create(dir, 100L, logger);
+    // a file prevents the creation of the directory of the entry
+    String hash = new FileHashes().of(bytes("foo"));
+    Files.createFile(dir.toPath().resolve(hash.substring(0, 2)));
+
+    assertThat(cache.put("foo", bytes("bar"))).isFalse();
+
+    assertThat(cache.get("foo")).isNull();
+    verify(logger).warn(startsWith("Fail to write entry "));
+    try (Stream<Path> tempFiles = Files.list(dir.toPath().resolve("_tmp"))) {
+      assertThat(tempFiles.count()).isZero();
+    }
+  }
+
+  @Test
+  public void failure_to_write_in_temp_directory_is_logged_and_ignored() throws IOException {
+    Logger logger = mock(Logger.class);
+    PersistentCache cache = PersistentCache.create(dir, 100L, logger);
+    Path tmpDir = dir.toPath().resolve("_tmp");
+    Files.delete(tmpDir);
+    Files.createFile(tmpDir);
+
+    assertThat(cache.put("foo", bytes("bar"))).isFalse();
+
+    assertThat(cache.get("foo")).isNull();
+    verify(logger).warn(startsWith("Fail to write entry "));
+  }
+
+  private static void setLastUse(PersistentCache cache, String key, long time) throws IOException {
+    String hash = new FileHashes().of(bytes(key));
+    Path entry = cache.getDir().toPath().resolve(hash.substring(0, 2)).resolve(hash);
+    Files.setLastModifiedTime(entry, FileTime.fromMillis(time));
+  }
+
+  private static byte[] bytes(String s) {
+    return s.getBytes(StandardCharsets.UTF_8);
+  }
+}
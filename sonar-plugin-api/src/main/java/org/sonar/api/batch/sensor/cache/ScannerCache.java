@@ -0,0 +1,62 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.sensor.cache;
+
+import com.google.common.annotations.Beta;
+import javax.annotation.CheckForNull;
+import org.sonar.api.batch.ScannerSide;
+import org.sonar.api.batch.fs.InputFile;
+
+/**
+ * Local cache of the results computed by sensors on files, persisted across analyses on the same machine.
+ * Entries are associated to the content of the file: a result stored by an analysis is available to the next analyses
+ * as long as the content of the file does not change, even if the file is moved.
+ * <p/>
+ * The size of the cache is bounded and the least recently used entries are evicted, so a sensor must always be able
+ * to compute the results that are not found in the cache.
+ * <p/>
+ * This component can be injected in the constructor of sensors.
+ * <pre>
+ *   byte[] tokens = cache.read(inputFile, "myplugin-tokens-v1");
+ *   if (tokens == null) {
+ *     tokens = tokenize(inputFile);
+ *     cache.write(inputFile, "myplugin-tokens-v1", tokens);
+ *   }
+ * </pre>
+ * @since 6.5
+ */
+@ScannerSide
+@Beta
+public interface ScannerCache {
+
+  /**
+   * Value stored for the given file content and key, or null if not found.
+   * @param key identifies the kind of result. It should contain the name of the plugin and the version of the format of the data.
+   */
+  @CheckForNull
+  byte[] read(InputFile inputFile, String key);
+
+  /**
+   * Stores the value for the given file content and key, replacing any existing value.
+   * @param key identifies the kind of result. It should contain the name of the plugin and the version of the format of the data.
+   */
+  void write(InputFile inputFile, String key, byte[] value);
+
+}
@@ -34,8 +34,10 @@ public class DefaultAnalysisMode extends AbstractAnalysisMode {
 
   private static final Logger LOG = LoggerFactory.getLogger(DefaultAnalysisMode.class);
   private static final String KEY_SCAN_ALL = "sonar.scanAllFiles";
+  public static final String KEY_INCREMENTAL = "sonar.incremental";
 
   private boolean scanAllFiles;
+  private boolean incremental;
 
   public DefaultAnalysisMode(GlobalProperties globalProps, AnalysisProperties props) {
     init(globalProps.properties(), props.properties());
@@ -45,6 +47,14 @@ public class DefaultAnalysisMode extends AbstractAnalysisMode {
     return scanAllFiles;
   }
 
+  /**
+   * Only files that changed since the previous analysis are analyzed and published. Issues and measures of
+   * unchanged files are copied from the previous analysis by the Compute Engine.
+   */
+  public boolean isIncremental() {
+    return incremental;
+  }
+
   private void init(Map<String, String> globalProps, Map<String, String> analysisProps) {
     // make sure analysis is consistent with global properties
     boolean globalPreview = isIssues(globalProps);
@@ -62,8 +72,12 @@ public class DefaultAnalysisMode extends AbstractAnalysisMode {
     validate(mode);
     issues = CoreProperties.ANALYSIS_MODE_ISSUES.equals(mode) || CoreProperties.ANALYSIS_MODE_PREVIEW.equals(mode);
     mediumTestMode = "true".equals(getPropertyWithFallback(analysisProps, globalProps, MEDIUM_TEST_ENABLED));
+    incremental = "true".equals(getPropertyWithFallback(analysisProps, globalProps, KEY_INCREMENTAL));
+    if (incremental && issues) {
+      throw new IllegalStateException("Incremental analysis is only supported in publish mode");
+    }
     String scanAllStr = getPropertyWithFallback(analysisProps, globalProps, KEY_SCAN_ALL);
-    scanAllFiles = !issues || "true".equals(scanAllStr);
+    scanAllFiles = !incremental && (!issues || "true".equals(scanAllStr));
   }
 
   public void printMode() {
@@ -71,6 +85,8 @@ public class DefaultAnalysisMode extends AbstractAnalysisMode {
       LOG.info("Preview mode");
     } else if (issues) {
       LOG.info("Issues mode");
+    } else if (incremental) {
+      LOG.info("Incremental mode");
     } else {
       LOG.info("Publish mode");
     }
@@ -93,6 +93,7 @@ public class GlobalContainer extends ComponentContainer {
       DefaultHttpDownloader.class,
       UriReader.class,
       new FileCacheProvider(),
+      new PersistentCacheProvider(),
       System2.INSTANCE,
       new MetricsRepositoryProvider(),
       UuidFactoryImpl.INSTANCE);
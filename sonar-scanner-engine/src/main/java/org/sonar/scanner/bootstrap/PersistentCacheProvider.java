@@ -0,0 +1,41 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.bootstrap;
+
+import org.picocontainer.injectors.ProviderAdapter;
+import org.sonar.api.config.Configuration;
+import org.sonar.home.cache.PersistentCache;
+import org.sonar.home.cache.PersistentCacheBuilder;
+
+public class PersistentCacheProvider extends ProviderAdapter {
+  public static final String MAX_SIZE_PROPERTY = "sonar.scanner.persistentCache.maxSizeInMb";
+
+  private PersistentCache cache;
+
+  public PersistentCache provide(Configuration settings) {
+    if (cache == null) {
+      String home = settings.get("sonar.userHome").orElse(null);
+      PersistentCacheBuilder builder = new PersistentCacheBuilder(new Slf4jLogger()).setUserHome(home);
+      settings.getLong(MAX_SIZE_PROPERTY).ifPresent(maxSizeInMb -> builder.setMaxSize(maxSizeInMb * 1024L * 1024L));
+      cache = builder.build();
+    }
+    return cache;
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.cache;
+
+import javax.annotation.CheckForNull;
+import org.picocontainer.Startable;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.sensor.cache.ScannerCache;
+import org.sonar.home.cache.PersistentCache;
+
+/**
+ * Entries are stored in the {@link PersistentCache} of the user home, keyed by the hash of the file content.
+ * Least recently used entries are evicted at the end of the analysis.
+ */
+public class DefaultScannerCache implements ScannerCache, Startable {
+
+  private final PersistentCache persistentCache;
+
+  public DefaultScannerCache(PersistentCache persistentCache) {
+    this.persistentCache = persistentCache;
+  }
+
+  @CheckForNull
+  @Override
+  public byte[] read(InputFile inputFile, String key) {
+    return persistentCache.get(entryKey(inputFile, key));
+  }
+
+  @Override
+  public void write(InputFile inputFile, String key, byte[] value) {
+    persistentCache.put(entryKey(inputFile, key), value);
+  }
+
+  private static String entryKey(InputFile inputFile, String key) {
+    return key + ":" + ((DefaultInputFile) inputFile).hash();
+  }
+
+  @Override
+  public void start() {
+    // nothing to do
+  }
+
+  @Override
+  public void stop() {
+    persistentCache.clean();
+  }
+}
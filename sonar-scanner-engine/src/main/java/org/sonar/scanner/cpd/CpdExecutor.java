@@ -33,6 +33,7 @@ import java.util.concurrent.TimeoutException;
 import org.sonar.api.batch.fs.InputComponent;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputComponent;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.config.Configuration;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
@@ -41,6 +42,8 @@ import org.sonar.duplications.detector.suffixtree.SuffixTreeCloneDetectionAlgori
 import org.sonar.duplications.index.CloneGroup;
 import org.sonar.duplications.index.ClonePart;
 import org.sonar.duplications.index.PackedMemoryCloneIndex.ResourceBlocks;
+import org.sonar.scanner.analysis.DefaultAnalysisMode;
+import org.sonar.scanner.cpd.index.CpdBlocksCache;
 import org.sonar.scanner.cpd.index.SonarCpdBlockIndex;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.scanner.protocol.output.ScannerReport.Duplicate;
@@ -67,15 +70,20 @@ public class CpdExecutor {
   private final ReportPublisher publisher;
   private final InputComponentStore componentStore;
   private final Configuration settings;
+  private final CpdBlocksCache blocksCache;
+  private final DefaultAnalysisMode mode;
   private final ProgressReport progressReport;
   private int count;
   private int total;
 
-  public CpdExecutor(Configuration settings, SonarCpdBlockIndex index, ReportPublisher publisher, InputComponentStore inputComponentCache) {
+  public CpdExecutor(Configuration settings, SonarCpdBlockIndex index, ReportPublisher publisher, InputComponentStore inputComponentCache,
+    CpdBlocksCache blocksCache, DefaultAnalysisMode mode) {
     this.settings = settings;
     this.index = index;
     this.publisher = publisher;
     this.componentStore = inputComponentCache;
+    this.blocksCache = blocksCache;
+    this.mode = mode;
     this.progressReport = new ProgressReport("CPD computation", TimeUnit.SECONDS.toMillis(10));
   }
 
@@ -85,6 +93,9 @@ public class CpdExecutor {
 
   @VisibleForTesting
   void execute(long timeout) {
+    if (mode.isIncremental()) {
+      indexUnchangedFiles();
+    }
     total = index.noResources();
     int filesWithoutBlocks = index.noIndexedFiles() - total;
     if (filesWithoutBlocks > 0) {
@@ -109,6 +120,28 @@ public class CpdExecutor {
     }
   }
 
+  /**
+   * Unchanged files are not analyzed by incremental analyses. Their blocks are loaded from the cache, so that their
+   * duplications, and the ones of changed files with them, are still detected. Duplications of the unchanged files
+   * not found in the cache are copied from the previous analysis by the Compute Engine.
+   */
+  private void indexUnchangedFiles() {
+    int loaded = 0;
+    int notFound = 0;
+    for (DefaultInputFile inputFile : componentStore.allFilesToPublish()) {
+      if (inputFile.status() == InputFile.Status.SAME && !index.isIndexed(inputFile)) {
+        List<Block> blocks = blocksCache.read(inputFile);
+        if (blocks == null) {
+          notFound++;
+        } else {
+          index.insertFromCache(inputFile, blocks);
+          loaded++;
+        }
+      }
+    }
+    LOG.info("CPD blocks of {} unchanged {} loaded from cache, {} not found", loaded, pluralize(loaded), notFound);
+  }
+
   private static String pluralize(int files) {
     return files == 1 ? "file" : "files";
   }
@@ -0,0 +1,112 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.cpd.index;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import javax.annotation.CheckForNull;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.cache.ScannerCache;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
+import org.sonar.scanner.analysis.DefaultAnalysisMode;
+
+/**
+ * CPD blocks of the files analyzed in publish mode, kept in the {@link ScannerCache}, so that unchanged files, which are
+ * not analyzed by incremental analyses, can still take part in the duplication detection.
+ */
+public class CpdBlocksCache {
+
+  private static final Logger LOG = Loggers.get(CpdBlocksCache.class);
+  static final String CACHE_KEY = "cpd-blocks-v1";
+
+  private final ScannerCache cache;
+  private final DefaultAnalysisMode mode;
+
+  public CpdBlocksCache(ScannerCache cache, DefaultAnalysisMode mode) {
+    this.cache = cache;
+    this.mode = mode;
+  }
+
+  public void write(InputFile inputFile, Collection<Block> blocks) {
+    if (!mode.isPublish() || isUpToDate(inputFile)) {
+      return;
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream output = new DataOutputStream(bytes)) {
+      output.writeInt(blocks.size());
+      for (Block block : blocks) {
+        output.writeUTF(block.getBlockHash().toHexString());
+        output.writeInt(block.getIndexInFile());
+        output.writeInt(block.getStartLine());
+        output.writeInt(block.getEndLine());
+        output.writeInt(block.getStartUnit());
+        output.writeInt(block.getEndUnit());
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to serialize CPD blocks of " + inputFile, e);
+    }
+    cache.write(inputFile, CACHE_KEY, bytes.toByteArray());
+  }
+
+  /**
+   * Entries are associated to the content of files, so the entry of an unchanged file, if any, already contains
+   * the same blocks. Reading it is cheaper than writing it again, and prevents it from being evicted.
+   */
+  private boolean isUpToDate(InputFile inputFile) {
+    return inputFile.status() == InputFile.Status.SAME && cache.read(inputFile, CACHE_KEY) != null;
+  }
+
+  /**
+   * @return the blocks of the file stored by a previous analysis, or null if not found
+   */
+  @CheckForNull
+  public List<Block> read(InputFile inputFile) {
+    byte[] data = cache.read(inputFile, CACHE_KEY);
+    if (data == null) {
+      return null;
+    }
+    Block.Builder builder = Block.builder().setResourceId(inputFile.key());
+    try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(data))) {
+      int size = input.readInt();
+      List<Block> blocks = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        blocks.add(builder
+          .setBlockHash(new ByteArray(input.readUTF()))
+          .setIndexInFile(input.readInt())
+          .setLines(input.readInt(), input.readInt())
+          .setUnit(input.readInt(), input.readInt())
+          .build());
+      }
+      return blocks;
+    } catch (IOException | RuntimeException e) {
+      LOG.debug("Ignore corrupted CPD blocks of {} in cache", inputFile, e);
+      return null;
+    }
+  }
+}
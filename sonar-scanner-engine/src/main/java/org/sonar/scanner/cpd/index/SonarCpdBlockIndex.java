@@ -45,15 +45,28 @@ public class SonarCpdBlockIndex extends AbstractCloneIndex {
   private final CloneIndex mem = new PackedMemoryCloneIndex();
   private final ReportPublisher publisher;
   private final Configuration settings;
+  private final CpdBlocksCache blocksCache;
   // Files already tokenized
   private final Set<InputFile> indexedFiles = new HashSet<>();
 
-  public SonarCpdBlockIndex(ReportPublisher publisher, Configuration settings) {
+  public SonarCpdBlockIndex(ReportPublisher publisher, Configuration settings, CpdBlocksCache blocksCache) {
     this.publisher = publisher;
     this.settings = settings;
+    this.blocksCache = blocksCache;
   }
 
   public void insert(InputFile inputFile, Collection<Block> blocks) {
+    insert(inputFile, blocks, true);
+  }
+
+  /**
+   * Inserts the blocks of an unchanged file loaded from the {@link CpdBlocksCache}. They are not written again to the cache.
+   */
+  public void insertFromCache(InputFile inputFile, Collection<Block> blocks) {
+    insert(inputFile, blocks, false);
+  }
+
+  private void insert(InputFile inputFile, Collection<Block> blocks, boolean writeToCache) {
     if (isCrossProjectDuplicationEnabled(settings)) {
       int id = ((DefaultInputFile) inputFile).batchId();
       if (publisher.getWriter().hasComponentData(FileStructure.Domain.CPD_TEXT_BLOCKS, id)) {
@@ -76,6 +89,9 @@ public class SonarCpdBlockIndex extends AbstractCloneIndex {
     if (blocks.isEmpty()) {
       LOG.debug("Not enough content in '{}' to have CPD blocks, it will not be part of the duplication detection", inputFile.relativePath());
     }
+    if (writeToCache) {
+      blocksCache.write(inputFile, blocks);
+    }
     indexedFiles.add(inputFile);
   }
 
@@ -30,10 +30,22 @@ public class BatchStepEvent extends AbstractPhaseEvent<BatchStepHandler>
     implements BatchStepHandler.BatchStepEvent {
 
   private String stepName;
+  private long duration;
 
   public BatchStepEvent(String stepName, boolean start) {
     super(start);
     this.stepName = stepName;
+    this.duration = -1L;
+  }
+
+  /**
+   * End event of a step whose duration has already been measured.
+   * @since 6.5
+   */
+  public BatchStepEvent(String stepName, long duration) {
+    super(false);
+    this.stepName = stepName;
+    this.duration = duration;
   }
 
   @Override
@@ -41,6 +53,11 @@ public class BatchStepEvent extends AbstractPhaseEvent<BatchStepHandler>
     return stepName;
   }
 
+  @Override
+  public long duration() {
+    return duration;
+  }
+
   @Override
   protected void dispatch(BatchStepHandler handler) {
     handler.onBatchStep(this);
@@ -38,6 +38,13 @@ public interface BatchStepHandler extends EventHandler {
 
     boolean isEnd();
 
+    /**
+     * Duration in milliseconds of a step measured by the caller, for example because its execution
+     * is interleaved with other steps. Returns -1 if the duration must be measured between the start and end events.
+     * @since 6.5
+     */
+    long duration();
+
   }
 
   /**
@@ -30,11 +30,12 @@ import org.sonar.scanner.issue.ignore.pattern.IssuePattern;
 import org.sonar.scanner.issue.ignore.pattern.PatternMatcher;
 
 public final class IssueExclusionsLoader {
-  private final List<java.util.regex.Pattern> allFilePatterns;
+  private final List<PrefilteredPattern> allFilePatterns;
   private final List<DoubleRegexpMatcher> blockMatchers;
   private final PatternMatcher patternMatcher;
   private final IssueExclusionPatternInitializer patternsInitializer;
   private final boolean enableCharHandler;
+  private final RegexpStatistics statistics = new RegexpStatistics();
 
   public IssueExclusionsLoader(IssueExclusionPatternInitializer patternsInitializer, PatternMatcher patternMatcher) {
     this.patternsInitializer = patternsInitializer;
@@ -43,7 +44,7 @@ public final class IssueExclusionsLoader {
     this.blockMatchers = new ArrayList<>();
 
     for (String pattern : patternsInitializer.getAllFilePatterns()) {
-      allFilePatterns.add(java.util.regex.Pattern.compile(pattern));
+      allFilePatterns.add(new PrefilteredPattern(java.util.regex.Pattern.compile(pattern)));
     }
     for (BlockIssuePattern pattern : patternsInitializer.getBlockPatterns()) {
       blockMatchers.add(new DoubleRegexpMatcher(
@@ -68,27 +69,55 @@ public final class IssueExclusionsLoader {
   @CheckForNull
   public CharHandler createCharHandlerFor(String componentKey) {
     if (enableCharHandler) {
-      return new IssueExclusionsRegexpScanner(componentKey, allFilePatterns, blockMatchers, patternMatcher);
+      return new IssueExclusionsRegexpScanner(componentKey, allFilePatterns, blockMatchers, patternMatcher, statistics);
     }
     return null;
   }
 
+  /**
+   * Number of lines of source files checked against the exclusion regexps.
+   */
+  public long scannedLines() {
+    return statistics.scannedLines();
+  }
+
+  /**
+   * Number of regexps that were actually executed on lines.
+   */
+  public long evaluatedRegexps() {
+    return statistics.evaluatedRegexps();
+  }
+
+  /**
+   * Number of regexps that were not executed because the line did not contain their required literal.
+   */
+  public long skippedRegexps() {
+    return statistics.skippedRegexps();
+  }
+
+  /**
+   * Time spent matching lines, cumulated over all the threads indexing files.
+   */
+  public long matchingTimeMs() {
+    return statistics.matchingTimeMs();
+  }
+
   public static class DoubleRegexpMatcher {
 
-    private java.util.regex.Pattern firstPattern;
-    private java.util.regex.Pattern secondPattern;
+    private final PrefilteredPattern firstPattern;
+    private final PrefilteredPattern secondPattern;
 
     DoubleRegexpMatcher(java.util.regex.Pattern firstPattern, java.util.regex.Pattern secondPattern) {
-      this.firstPattern = firstPattern;
-      this.secondPattern = secondPattern;
+      this.firstPattern = new PrefilteredPattern(firstPattern);
+      this.secondPattern = new PrefilteredPattern(secondPattern);
     }
 
-    boolean matchesFirstPattern(String line) {
-      return firstPattern.matcher(line).find();
+    PrefilteredPattern firstPattern() {
+      return firstPattern;
     }
 
-    boolean matchesSecondPattern(String line) {
-      return hasSecondPattern() && secondPattern.matcher(line).find();
+    PrefilteredPattern secondPattern() {
+      return secondPattern;
     }
 
     boolean hasSecondPattern() {
@@ -23,7 +23,6 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.regex.Pattern;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,21 +35,28 @@ public class IssueExclusionsRegexpScanner extends CharHandler {
   private static final Logger LOG = LoggerFactory.getLogger(IssueExclusionsLoader.class);
 
   private final StringBuilder sb = new StringBuilder();
-  private final List<Pattern> allFilePatterns;
+  private final List<PrefilteredPattern> allFilePatterns;
   private final List<DoubleRegexpMatcher> blockMatchers;
   private final String componentKey;
   private final PatternMatcher patternMatcher;
+  private final RegexpStatistics statistics;
 
   private int lineIndex = 1;
   private List<LineExclusion> lineExclusions = new ArrayList<>();
   private LineExclusion currentLineExclusion = null;
   private int fileLength = 0;
   private DoubleRegexpMatcher currentMatcher;
+  private long scannedLines = 0;
+  private long evaluatedRegexps = 0;
+  private long skippedRegexps = 0;
+  private long matchingTimeNanos = 0;
 
-  IssueExclusionsRegexpScanner(String componentKey, List<Pattern> allFilePatterns, List<DoubleRegexpMatcher> blockMatchers, PatternMatcher patternMatcher) {
+  IssueExclusionsRegexpScanner(String componentKey, List<PrefilteredPattern> allFilePatterns, List<DoubleRegexpMatcher> blockMatchers, PatternMatcher patternMatcher,
+    RegexpStatistics statistics) {
     this.allFilePatterns = allFilePatterns;
     this.blockMatchers = blockMatchers;
     this.patternMatcher = patternMatcher;
+    this.statistics = statistics;
     this.componentKey = componentKey;
     String relativePath = StringUtils.substringAfterLast(componentKey, ":");
     LOG.info("'{}' generating issue exclusions", relativePath);
@@ -71,6 +77,7 @@ public class IssueExclusionsRegexpScanner extends CharHandler {
   @Override
   protected void eof() {
     processLine(sb.toString());
+    statistics.add(scannedLines, evaluatedRegexps, skippedRegexps, matchingTimeNanos);
 
     if (currentMatcher != null && !currentMatcher.hasSecondPattern()) {
       // this will happen when there is a start block regexp but no end block regexp
@@ -90,10 +97,16 @@ public class IssueExclusionsRegexpScanner extends CharHandler {
     if (line.trim().length() == 0) {
       return;
     }
+    long start = System.nanoTime();
+    scannedLines++;
+    matchLine(line);
+    matchingTimeNanos += System.nanoTime() - start;
+  }
 
+  private void matchLine(String line) {
     // first check the single regexp patterns that can be used to totally exclude a file
-    for (Pattern pattern : allFilePatterns) {
-      if (pattern.matcher(line).find()) {
+    for (PrefilteredPattern pattern : allFilePatterns) {
+      if (matches(pattern, line)) {
         patternMatcher.addPatternToExcludeResource(componentKey);
         // nothing more to do on this file
         LOG.debug("- Exclusion pattern '{}': every issue in this file will be ignored.", pattern);
@@ -105,6 +118,15 @@ public class IssueExclusionsRegexpScanner extends CharHandler {
     checkDoubleRegexps(line, lineIndex);
   }
 
+  private boolean matches(PrefilteredPattern pattern, String line) {
+    if (!pattern.mayMatch(line)) {
+      skippedRegexps++;
+      return false;
+    }
+    evaluatedRegexps++;
+    return pattern.find(line);
+  }
+
   private Set<LineRange> convertLineExclusionsToLineRanges() {
     Set<LineRange> lineRanges = new HashSet<>(lineExclusions.size());
     for (LineExclusion lineExclusion : lineExclusions) {
@@ -116,14 +138,14 @@ public class IssueExclusionsRegexpScanner extends CharHandler {
   private void checkDoubleRegexps(String line, int lineIndex) {
     if (currentMatcher == null) {
       for (DoubleRegexpMatcher matcher : blockMatchers) {
-        if (matcher.matchesFirstPattern(line)) {
+        if (matches(matcher.firstPattern(), line)) {
           startExclusion(lineIndex);
           currentMatcher = matcher;
           break;
         }
       }
     } else {
-      if (currentMatcher.matchesSecondPattern(line)) {
+      if (currentMatcher.hasSecondPattern() && matches(currentMatcher.secondPattern(), line)) {
         endExclusion(lineIndex);
         currentMatcher = null;
       }
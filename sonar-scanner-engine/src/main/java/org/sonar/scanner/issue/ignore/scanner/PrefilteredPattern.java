@@ -0,0 +1,261 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.issue.ignore.scanner;
+
+import java.util.regex.Pattern;
+import javax.annotation.CheckForNull;
+
+/**
+ * A compiled regular expression associated to a literal substring that must be part of any of its matches.
+ * Lines that don't contain the literal are rejected with a plain {@link String#contains(CharSequence)},
+ * without running the regexp engine.
+ * <p/>
+ * The extraction of the literal is conservative: when the regexp uses alternations, embedded flags, back-references
+ * or any construct that is not understood, no literal is extracted and the regexp is always evaluated.
+ */
+final class PrefilteredPattern {
+
+  private static final String META_CHARS = "\\[](){}.*+?^$|";
+  private static final String QUANTIFIERS = "?*+{";
+  private static final String UNSUPPORTED_ESCAPES = "pPxuckN";
+
+  private final Pattern pattern;
+  @CheckForNull
+  private final String requiredLiteral;
+
+  PrefilteredPattern(Pattern pattern) {
+    this.pattern = pattern;
+    this.requiredLiteral = pattern.flags() == 0 ? extractRequiredLiteral(pattern.pattern()) : null;
+  }
+
+  Pattern pattern() {
+    return pattern;
+  }
+
+  @CheckForNull
+  String requiredLiteral() {
+    return requiredLiteral;
+  }
+
+  /**
+   * @return false if the line can't match the regexp, true if the regexp has to be evaluated
+   */
+  boolean mayMatch(String line) {
+    return requiredLiteral == null || line.contains(requiredLiteral);
+  }
+
+  boolean find(String line) {
+    return pattern.matcher(line).find();
+  }
+
+  @Override
+  public String toString() {
+    return pattern.toString();
+  }
+
+  /**
+   * Returns the longest sequence of characters that is part of any match of the given regexp, or null
+   * if it can't be determined.
+   */
+  @CheckForNull
+  static String extractRequiredLiteral(String regexp) {
+    LiteralExtractor extractor = new LiteralExtractor(regexp);
+    if (!extractor.parse()) {
+      return null;
+    }
+    return extractor.longest.length() == 0 ? null : extractor.longest;
+  }
+
+  private static class LiteralExtractor {
+    private final String regexp;
+    private final StringBuilder current = new StringBuilder();
+    private String longest = "";
+    private int index = 0;
+
+    LiteralExtractor(String regexp) {
+      this.regexp = regexp;
+    }
+
+    /**
+     * @return false if the regexp contains constructs that prevent the extraction of a literal
+     */
+    boolean parse() {
+      while (index < regexp.length()) {
+        char c = regexp.charAt(index);
+        boolean parsed;
+        if (c == '\\') {
+          parsed = parseEscape();
+        } else if (c == '[') {
+          endLiteral();
+          parsed = skipCharacterClass();
+        } else if (c == '(') {
+          endLiteral();
+          parsed = skipGroup();
+        } else if (c == '|' || c == ')' || c == ']') {
+          parsed = false;
+        } else if (QUANTIFIERS.indexOf(c) >= 0) {
+          endLiteral();
+          parsed = skipQuantifier();
+        } else if (META_CHARS.indexOf(c) >= 0) {
+          endLiteral();
+          index++;
+          parsed = true;
+        } else {
+          index++;
+          appendLiteral(c);
+          parsed = true;
+        }
+        if (!parsed) {
+          return false;
+        }
+      }
+      endLiteral();
+      return true;
+    }
+
+    private boolean parseEscape() {
+      if (index + 1 >= regexp.length()) {
+        return false;
+      }
+      char escaped = regexp.charAt(index + 1);
+      if (escaped == 'Q') {
+        return parseQuotation();
+      }
+      index += 2;
+      if (Character.isDigit(escaped) || UNSUPPORTED_ESCAPES.indexOf(escaped) >= 0) {
+        return false;
+      }
+      if (Character.isLetter(escaped)) {
+        // character classes (\d, \s, ...), boundaries (\b, \A, ...) or control characters (\n, \t, ...)
+        endLiteral();
+      } else {
+        appendLiteral(escaped);
+      }
+      return true;
+    }
+
+    private boolean parseQuotation() {
+      int end = regexp.indexOf("\\E", index + 2);
+      String quoted = end < 0 ? regexp.substring(index + 2) : regexp.substring(index + 2, end);
+      if (quoted.isEmpty()) {
+        return false;
+      }
+      index = end < 0 ? regexp.length() : (end + 2);
+      current.append(quoted);
+      dropLastCharIfQuantified();
+      return true;
+    }
+
+    private void appendLiteral(char c) {
+      current.append(c);
+      dropLastCharIfQuantified();
+    }
+
+    /**
+     * A quantifier applies to the last character only, which becomes optional or repeated. In both cases
+     * the literal can't go further.
+     */
+    private void dropLastCharIfQuantified() {
+      if (index < regexp.length() && QUANTIFIERS.indexOf(regexp.charAt(index)) >= 0 && current.length() > 0) {
+        if (regexp.charAt(index) != '+') {
+          current.setLength(current.length() - 1);
+        }
+        endLiteral();
+      }
+    }
+
+    private boolean skipQuantifier() {
+      char c = regexp.charAt(index);
+      if (c == '{') {
+        int end = regexp.indexOf('}', index);
+        if (end < 0) {
+          return false;
+        }
+        index = end + 1;
+      } else {
+        index++;
+      }
+      return true;
+    }
+
+    private boolean skipCharacterClass() {
+      int depth = 0;
+      // a closing bracket right after the opening one (or after the negation) is a literal
+      int firstContentIndex = index + 1;
+      if (firstContentIndex < regexp.length() && regexp.charAt(firstContentIndex) == '^') {
+        firstContentIndex++;
+      }
+      while (index < regexp.length()) {
+        char c = regexp.charAt(index);
+        if (c == '\\') {
+          index++;
+        } else if (c == '[') {
+          depth++;
+        } else if (c == ']' && index != firstContentIndex) {
+          depth--;
+          if (depth == 0) {
+            index++;
+            return true;
+          }
+        }
+        index++;
+      }
+      return false;
+    }
+
+    private boolean skipGroup() {
+      if (index + 1 < regexp.length() && regexp.charAt(index + 1) == '?') {
+        // embedded flags like (?i) change the way the following characters are matched
+        if (index + 2 >= regexp.length() || ":=!<>".indexOf(regexp.charAt(index + 2)) < 0) {
+          return false;
+        }
+      }
+      int depth = 0;
+      while (index < regexp.length()) {
+        char c = regexp.charAt(index);
+        if (c == '\\') {
+          index++;
+        } else if (c == '[') {
+          if (!skipCharacterClass()) {
+            return false;
+          }
+          continue;
+        } else if (c == '(') {
+          depth++;
+        } else if (c == ')') {
+          depth--;
+          if (depth == 0) {
+            index++;
+            return true;
+          }
+        }
+        index++;
+      }
+      return false;
+    }
+
+    private void endLiteral() {
+      if (current.length() > longest.length()) {
+        longest = current.toString();
+      }
+      current.setLength(0);
+    }
+  }
+}
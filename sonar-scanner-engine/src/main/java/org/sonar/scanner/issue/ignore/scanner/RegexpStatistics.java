@@ -0,0 +1,57 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.issue.ignore.scanner;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of {@link IssueExclusionsRegexpScanner}. Files are indexed by several threads, so each scanner
+ * accumulates its own counters and publishes them once the file is read.
+ */
+class RegexpStatistics {
+  private final AtomicLong scannedLines = new AtomicLong();
+  private final AtomicLong evaluatedRegexps = new AtomicLong();
+  private final AtomicLong skippedRegexps = new AtomicLong();
+  private final AtomicLong matchingTimeNanos = new AtomicLong();
+
+  void add(long lines, long evaluated, long skipped, long nanos) {
+    scannedLines.addAndGet(lines);
+    evaluatedRegexps.addAndGet(evaluated);
+    skippedRegexps.addAndGet(skipped);
+    matchingTimeNanos.addAndGet(nanos);
+  }
+
+  long scannedLines() {
+    return scannedLines.get();
+  }
+
+  long evaluatedRegexps() {
+    return evaluatedRegexps.get();
+  }
+
+  long skippedRegexps() {
+    return skippedRegexps.get();
+  }
+
+  long matchingTimeMs() {
+    return TimeUnit.NANOSECONDS.toMillis(matchingTimeNanos.get());
+  }
+}
@@ -19,6 +19,8 @@
  */
 package org.sonar.scanner.phases;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.SensorContext;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
@@ -31,6 +33,8 @@ import org.sonar.scanner.scan.filesystem.FileSystemLogger;
 
 public abstract class AbstractPhaseExecutor {
 
+  private static final Logger LOG = LoggerFactory.getLogger(AbstractPhaseExecutor.class);
+
   private final EventBus eventBus;
   private final PostJobsExecutor postJobsExecutor;
   private final InitializersExecutor initializersExecutor;
@@ -106,6 +110,18 @@ public abstract class AbstractPhaseExecutor {
     eventBus.fireEvent(new BatchStepEvent(stepName, true));
     fs.index();
     eventBus.fireEvent(new BatchStepEvent(stepName, false));
+    reportIssueExclusionsRegexps();
+  }
+
+  /**
+   * Exclusion regexps are matched while file metadata is computed during indexing
+   */
+  private void reportIssueExclusionsRegexps() {
+    if (issueExclusionsLoader.scannedLines() > 0) {
+      eventBus.fireEvent(new BatchStepEvent("Issue exclusions regexps", issueExclusionsLoader.matchingTimeMs()));
+      LOG.debug("Issue exclusions: {} lines scanned, {} regexps evaluated, {} regexps skipped by literal prefilter",
+        issueExclusionsLoader.scannedLines(), issueExclusionsLoader.evaluatedRegexps(), issueExclusionsLoader.skippedRegexps());
+    }
   }
 
   private void executeInitializersPhase() {
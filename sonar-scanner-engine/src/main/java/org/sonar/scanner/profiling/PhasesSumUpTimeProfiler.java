@@ -205,6 +205,9 @@ public class PhasesSumUpTimeProfiler implements ProjectAnalysisHandler, SensorEx
   public void onBatchStep(BatchStepEvent event) {
     if (event.isStart()) {
       currentModuleProfiling.addBatchStepProfiling(event.stepName());
+    } else if (event.duration() >= 0) {
+      currentModuleProfiling.addBatchStepProfiling(event.stepName());
+      currentModuleProfiling.getProfilingPerBatchStep(event.stepName()).setTotalTime(event.duration());
     } else {
       currentModuleProfiling.getProfilingPerBatchStep(event.stepName()).stop();
     }
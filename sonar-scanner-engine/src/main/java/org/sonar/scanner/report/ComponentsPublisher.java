@@ -36,8 +36,11 @@ import org.sonar.api.batch.fs.internal.DefaultInputModule;
 import org.sonar.api.batch.fs.internal.InputComponentTree;
 import org.sonar.api.batch.fs.internal.InputModuleHierarchy;
 import org.sonar.core.util.CloseableIterator;
+import org.sonar.scanner.analysis.DefaultAnalysisMode;
+import org.sonar.scanner.cpd.index.SonarCpdBlockIndex;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.scanner.protocol.output.ScannerReport.Component.ComponentType;
+import org.sonar.scanner.protocol.output.ScannerReport.Component.FileStatus;
 import org.sonar.scanner.protocol.output.ScannerReport.ComponentLink;
 import org.sonar.scanner.protocol.output.ScannerReport.ComponentLink.ComponentLinkType;
 import org.sonar.scanner.protocol.output.ScannerReport.Issue;
@@ -51,12 +54,17 @@ public class ComponentsPublisher implements ReportPublisherStep {
 
   private InputComponentTree componentTree;
   private InputModuleHierarchy moduleHierarchy;
+  private DefaultAnalysisMode mode;
+  private SonarCpdBlockIndex cpdBlockIndex;
   private ScannerReportReader reader;
   private ScannerReportWriter writer;
 
-  public ComponentsPublisher(InputModuleHierarchy moduleHierarchy, InputComponentTree inputComponentTree) {
+  public ComponentsPublisher(InputModuleHierarchy moduleHierarchy, InputComponentTree inputComponentTree, DefaultAnalysisMode mode,
+    SonarCpdBlockIndex cpdBlockIndex) {
     this.moduleHierarchy = moduleHierarchy;
     this.componentTree = inputComponentTree;
+    this.mode = mode;
+    this.cpdBlockIndex = cpdBlockIndex;
   }
 
   @Override
@@ -113,6 +121,11 @@ public class ComponentsPublisher implements ReportPublisherStep {
       if (lang != null) {
         builder.setLanguage(lang);
       }
+
+      if (mode.isIncremental()) {
+        builder.setStatus(getStatus(file));
+        builder.setDuplicationsSkipped(file.status() == InputFile.Status.SAME && !cpdBlockIndex.isIndexed(file));
+      }
     }
 
     String path = getPath(component);
@@ -221,6 +234,19 @@ public class ComponentsPublisher implements ReportPublisherStep {
     return module.definition().getDescription();
   }
 
+  private static FileStatus getStatus(InputFile file) {
+    switch (file.status()) {
+      case SAME:
+        return FileStatus.SAME;
+      case CHANGED:
+        return FileStatus.CHANGED;
+      case ADDED:
+        return FileStatus.ADDED;
+      default:
+        throw new IllegalArgumentException("Unknown status: " + file.status());
+    }
+  }
+
   private ComponentType getType(InputComponent r) {
     if (r instanceof InputFile) {
       return ComponentType.FILE;
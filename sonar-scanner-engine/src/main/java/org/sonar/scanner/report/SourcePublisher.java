@@ -27,21 +27,29 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import org.apache.commons.io.IOUtils;
+import org.sonar.api.batch.fs.InputFile.Status;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.scanner.analysis.DefaultAnalysisMode;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
 import org.sonar.scanner.scan.filesystem.InputComponentStore;
 
 public class SourcePublisher implements ReportPublisherStep {
 
   private final InputComponentStore componentCache;
+  private final DefaultAnalysisMode mode;
 
-  public SourcePublisher(InputComponentStore componentStore) {
+  public SourcePublisher(InputComponentStore componentStore, DefaultAnalysisMode mode) {
     this.componentCache = componentStore;
+    this.mode = mode;
   }
 
   @Override
   public void publish(ScannerReportWriter writer) {
     for (final DefaultInputFile inputFile : componentCache.allFilesToPublish()) {
+      if (mode.isIncremental() && inputFile.status() == Status.SAME) {
+        // source is kept from the previous analysis
+        continue;
+      }
       File iofile = writer.getSourceFile(inputFile.batchId());
 
       try (FileOutputStream output = new FileOutputStream(iofile);
@@ -19,30 +19,151 @@
  */
 package org.sonar.scanner.repository;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import javax.annotation.CheckForNull;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.CoreProperties;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.home.cache.PersistentCache;
+import org.sonar.scanner.bootstrap.GlobalProperties;
 import org.sonar.scanner.bootstrap.ScannerWsClient;
 import org.sonar.scanner.protocol.input.ScannerInput.ServerIssue;
 import org.sonar.scanner.util.ScannerUtils;
 import org.sonarqube.ws.client.GetRequest;
 
+/**
+ * Open issues of the server are kept in the {@link PersistentCache}, so that only the issues changed since the
+ * previous analysis have to be downloaded.
+ * <p>
+ * The local copy is specific to the server, the project and the user, as issues are filtered by permissions.
+ * It is fully downloaded again every {@link #FULL_SYNC_PERIOD_MS} milliseconds, in order to drop the issues
+ * which were deleted on server side, for example with their component, and are therefore not returned as
+ * changed issues.
+ */
 public class DefaultServerIssuesLoader implements ServerIssuesLoader {
 
+  private static final Logger LOG = Loggers.get(DefaultServerIssuesLoader.class);
+
+  /**
+   * Issues are indexed some time after their update date, once the analysis which changed them is completed.
+   * Changes are requested since the previous synchronization minus this margin, so that an issue updated before
+   * the previous synchronization but indexed after it is not missed. It also covers a clock difference between
+   * the scanner and the server.
+   */
+  static final long SAFETY_MARGIN_MS = TimeUnit.HOURS.toMillis(1);
+  static final long FULL_SYNC_PERIOD_MS = TimeUnit.DAYS.toMillis(1);
+
   private final ScannerWsClient wsClient;
+  private final PersistentCache persistentCache;
+  private final GlobalProperties globalProperties;
+  private final System2 system2;
 
-  public DefaultServerIssuesLoader(ScannerWsClient wsClient) {
+  public DefaultServerIssuesLoader(ScannerWsClient wsClient, PersistentCache persistentCache, GlobalProperties globalProperties, System2 system2) {
     this.wsClient = wsClient;
+    this.persistentCache = persistentCache;
+    this.globalProperties = globalProperties;
+    this.system2 = system2;
   }
 
   @Override
   public void load(String componentKey, Consumer<ServerIssue> consumer) {
-    GetRequest getRequest = new GetRequest("/batch/issues.protobuf?key=" + ScannerUtils.encodeForUrl(componentKey));
-    InputStream is = wsClient.call(getRequest).contentStream();
+    String login = StringUtils.defaultString(globalProperties.property(CoreProperties.LOGIN));
+    String snapshotKey = "serverIssues:" + wsClient.baseUrl() + ":" + login + ":" + componentKey;
+    String syncKey = snapshotKey + ":sync";
+    long now = system2.now();
+    Map<String, ServerIssue> issuesByKey = new LinkedHashMap<>();
+    Sync previousSync = readSync(syncKey, now);
+    byte[] snapshot = previousSync == null ? null : persistentCache.get(snapshotKey);
+
+    Sync sync;
+    String url = "/batch/issues.protobuf?key=" + ScannerUtils.encodeForUrl(componentKey);
+    if (previousSync == null || snapshot == null) {
+      download(url, issue -> issuesByKey.put(issue.getKey(), issue));
+      sync = new Sync(now - SAFETY_MARGIN_MS, now);
+    } else {
+      parseIssues(new ByteArrayInputStream(snapshot), issue -> issuesByKey.put(issue.getKey(), issue));
+      int local = issuesByKey.size();
+      download(url + "&changedSince=" + previousSync.changedSince, issue -> merge(issuesByKey, issue));
+      sync = new Sync(Math.max(previousSync.changedSince, now - SAFETY_MARGIN_MS), previousSync.fullSyncAt);
+      LOG.debug("Synchronized {} local server issues to {} issues", local, issuesByKey.size());
+    }
+
+    // the date of synchronization is valid only if the snapshot is up-to-date
+    if (persistentCache.put(snapshotKey, serialize(issuesByKey))) {
+      persistentCache.put(syncKey, sync.serialize());
+    }
+    issuesByKey.values().forEach(consumer);
+  }
+
+  private static void merge(Map<String, ServerIssue> issuesByKey, ServerIssue issue) {
+    if (Issue.STATUS_CLOSED.equals(issue.getStatus())) {
+      issuesByKey.remove(issue.getKey());
+    } else {
+      issuesByKey.put(issue.getKey(), issue);
+    }
+  }
+
+  private void download(String url, Consumer<ServerIssue> consumer) {
+    InputStream is = wsClient.call(new GetRequest(url)).contentStream();
     parseIssues(is, consumer);
   }
 
+  /**
+   * @return null if the local copy must be fully downloaded again
+   */
+  @CheckForNull
+  private Sync readSync(String key, long now) {
+    byte[] value = persistentCache.get(key);
+    if (value == null) {
+      return null;
+    }
+    String[] fields = new String(value, StandardCharsets.UTF_8).split(",");
+    try {
+      Sync sync = new Sync(Long.parseLong(fields[0]), Long.parseLong(fields[1]));
+      return now - sync.fullSyncAt < FULL_SYNC_PERIOD_MS ? sync : null;
+    } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+      return null;
+    }
+  }
+
+  private static class Sync {
+    private final long changedSince;
+    private final long fullSyncAt;
+
+    private Sync(long changedSince, long fullSyncAt) {
+      this.changedSince = changedSince;
+      this.fullSyncAt = fullSyncAt;
+    }
+
+    private byte[] serialize() {
+      return (changedSince + "," + fullSyncAt).getBytes(StandardCharsets.UTF_8);
+    }
+  }
+
+  private static byte[] serialize(Map<String, ServerIssue> issuesByKey) {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try {
+      for (ServerIssue issue : issuesByKey.values()) {
+        issue.writeDelimitedTo(output);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to serialize server issues", e);
+    }
+    return output.toByteArray();
+  }
+
   private static void parseIssues(InputStream is, Consumer<ServerIssue> consumer) {
     try {
       ServerIssue previousIssue = ServerIssue.parseDelimitedFrom(is);
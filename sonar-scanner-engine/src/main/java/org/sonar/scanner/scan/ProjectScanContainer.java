@@ -41,7 +41,9 @@ import org.sonar.scanner.bootstrap.ExtensionInstaller;
 import org.sonar.scanner.bootstrap.ExtensionMatcher;
 import org.sonar.scanner.bootstrap.ExtensionUtils;
 import org.sonar.scanner.bootstrap.MetricProvider;
+import org.sonar.scanner.cache.DefaultScannerCache;
 import org.sonar.scanner.cpd.CpdExecutor;
+import org.sonar.scanner.cpd.index.CpdBlocksCache;
 import org.sonar.scanner.cpd.index.SonarCpdBlockIndex;
 import org.sonar.scanner.deprecated.test.TestPlanBuilder;
 import org.sonar.scanner.deprecated.test.TestableBuilder;
@@ -198,6 +200,10 @@ public class ProjectScanContainer extends ComponentContainer {
       // Cpd
       CpdExecutor.class,
       SonarCpdBlockIndex.class,
+      CpdBlocksCache.class,
+
+      // cache of sensor results
+      DefaultScannerCache.class,
 
       ScanTaskObservers.class);
 
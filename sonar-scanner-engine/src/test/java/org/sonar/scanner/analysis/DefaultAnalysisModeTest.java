@@ -108,6 +108,29 @@ public class DefaultAnalysisModeTest {
     assertThat(mode.scanAllFiles()).isTrue();
   }
 
+  @Test
+  public void incremental_publish_mode() {
+    Map<String, String> props = new HashMap<>();
+    props.put(DefaultAnalysisMode.KEY_INCREMENTAL, "true");
+    DefaultAnalysisMode mode = new DefaultAnalysisMode(new GlobalProperties(new HashMap<>()), new AnalysisProperties(props));
+
+    assertThat(mode.isPublish()).isTrue();
+    assertThat(mode.isIncremental()).isTrue();
+    assertThat(mode.scanAllFiles()).isFalse();
+  }
+
+  @Test
+  public void fail_if_incremental_in_issues_mode() {
+    Map<String, String> props = new HashMap<>();
+    props.put(CoreProperties.ANALYSIS_MODE, CoreProperties.ANALYSIS_MODE_ISSUES);
+    props.put(DefaultAnalysisMode.KEY_INCREMENTAL, "true");
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Incremental analysis is only supported in publish mode");
+
+    new DefaultAnalysisMode(new GlobalProperties(props), new AnalysisProperties(props));
+  }
+
   @Test
   public void support_issues_mode() {
     DefaultAnalysisMode mode = createMode(CoreProperties.ANALYSIS_MODE_ISSUES);
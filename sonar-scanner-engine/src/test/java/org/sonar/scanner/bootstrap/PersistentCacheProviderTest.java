@@ -0,0 +1,70 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.bootstrap;
+
+import java.io.File;
+import java.io.IOException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.home.cache.PersistentCache;
+import org.sonar.home.cache.PersistentCacheBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PersistentCacheProviderTest {
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void keep_singleton_instance() throws IOException {
+    PersistentCacheProvider provider = new PersistentCacheProvider();
+    MapSettings settings = new MapSettings();
+    settings.setProperty("sonar.userHome", temp.newFolder().getAbsolutePath());
+    PersistentCache cache1 = provider.provide(settings.asConfig());
+    PersistentCache cache2 = provider.provide(settings.asConfig());
+
+    assertThat(cache1).isSameAs(cache2);
+  }
+
+  @Test
+  public void honor_sonarUserHome() throws IOException {
+    PersistentCacheProvider provider = new PersistentCacheProvider();
+    MapSettings settings = new MapSettings();
+    File f = temp.newFolder();
+    settings.setProperty("sonar.userHome", f.getAbsolutePath());
+    PersistentCache cache = provider.provide(settings.asConfig());
+
+    assertThat(cache.getDir()).isEqualTo(new File(f, "persistent_cache"));
+    assertThat(cache.getMaxSize()).isEqualTo(PersistentCacheBuilder.DEFAULT_MAX_SIZE);
+  }
+
+  @Test
+  public void honor_max_size() throws IOException {
+    PersistentCacheProvider provider = new PersistentCacheProvider();
+    MapSettings settings = new MapSettings();
+    settings.setProperty("sonar.userHome", temp.newFolder().getAbsolutePath());
+    settings.setProperty(PersistentCacheProvider.MAX_SIZE_PROPERTY, "10");
+    PersistentCache cache = provider.provide(settings.asConfig());
+
+    assertThat(cache.getMaxSize()).isEqualTo(10L * 1024L * 1024L);
+  }
+}
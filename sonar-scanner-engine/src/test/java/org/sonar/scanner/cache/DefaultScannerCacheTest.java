@@ -0,0 +1,82 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.cache;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.home.cache.Logger;
+import org.sonar.home.cache.PersistentCache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+public class DefaultScannerCacheTest {
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private PersistentCache persistentCache;
+  private DefaultScannerCache underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    persistentCache = spy(PersistentCache.create(temp.newFolder(), 1024L, mock(Logger.class)));
+    underTest = new DefaultScannerCache(persistentCache);
+  }
+
+  @Test
+  public void entries_are_associated_to_file_content_and_key() {
+    DefaultInputFile file = newFile("src/Foo.java", "hash1");
+    underTest.write(file, "tokens", bytes("foo tokens"));
+
+    assertThat(underTest.read(file, "tokens")).isEqualTo(bytes("foo tokens"));
+    assertThat(underTest.read(file, "symbols")).isNull();
+    assertThat(underTest.read(newFile("src/Foo.java", "hash2"), "tokens")).isNull();
+  }
+
+  @Test
+  public void entries_are_found_when_file_is_moved() {
+    underTest.write(newFile("src/Foo.java", "hash1"), "tokens", bytes("foo tokens"));
+
+    assertThat(underTest.read(newFile("src/Bar.java", "hash1"), "tokens")).isEqualTo(bytes("foo tokens"));
+  }
+
+  @Test
+  public void clean_cache_on_stop() {
+    underTest.start();
+    underTest.stop();
+
+    verify(persistentCache).clean();
+  }
+
+  private static DefaultInputFile newFile(String path, String hash) {
+    return new TestInputFileBuilder("foo", path).setHash(hash).build();
+  }
+
+  private static byte[] bytes(String s) {
+    return s.getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -42,6 +42,8 @@ import org.sonar.duplications.block.Block;
 import org.sonar.duplications.block.ByteArray;
 import org.sonar.duplications.index.CloneGroup;
 import org.sonar.duplications.index.ClonePart;
+import org.sonar.scanner.analysis.DefaultAnalysisMode;
+import org.sonar.scanner.cpd.index.CpdBlocksCache;
 import org.sonar.scanner.cpd.index.SonarCpdBlockIndex;
 import org.sonar.scanner.protocol.output.ScannerReport.Duplicate;
 import org.sonar.scanner.protocol.output.ScannerReport.Duplication;
@@ -51,7 +53,11 @@ import org.sonar.scanner.report.ReportPublisher;
 import org.sonar.scanner.scan.filesystem.InputComponentStore;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyCollection;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class CpdExecutorTest {
@@ -74,6 +80,8 @@ public class CpdExecutorTest {
   private DefaultInputFile batchComponent3;
   private File baseDir;
   private InputComponentStore componentStore;
+  private CpdBlocksCache blocksCache = mock(CpdBlocksCache.class);
+  private DefaultAnalysisMode mode = mock(DefaultAnalysisMode.class);
 
   @Before
   public void setUp() throws IOException {
@@ -83,9 +91,9 @@ public class CpdExecutorTest {
     settings = new MapSettings();
     publisher = mock(ReportPublisher.class);
     when(publisher.getWriter()).thenReturn(new ScannerReportWriter(outputDir));
-    index = new SonarCpdBlockIndex(publisher, settings.asConfig());
+    index = new SonarCpdBlockIndex(publisher, settings.asConfig(), blocksCache);
     componentStore = new InputComponentStore(new PathResolver());
-    executor = new CpdExecutor(settings.asConfig(), index, publisher, componentStore);
+    executor = new CpdExecutor(settings.asConfig(), index, publisher, componentStore, blocksCache, mode);
     reader = new ScannerReportReader(outputDir);
 
     componentStore.put(TestInputFileBuilder.newDefaultInputModule("foo", baseDir));
@@ -237,6 +245,61 @@ public class CpdExecutorTest {
         "Timeout during detection of duplications for .*Foo2.php");
   }
 
+  @Test
+  public void detect_duplications_with_unchanged_files_in_incremental_mode() {
+    when(mode.isIncremental()).thenReturn(true);
+    DefaultInputFile changedFile = createComponent("src/Changed.java", InputFile.Status.CHANGED);
+    DefaultInputFile sameFile = createComponent("src/Same.java", InputFile.Status.SAME);
+    DefaultInputFile notCachedFile = createComponent("src/NotCached.java", InputFile.Status.SAME);
+    index.insert(changedFile, newBlocks(changedFile));
+    when(blocksCache.read(sameFile)).thenReturn(newBlocks(sameFile));
+
+    executor.execute();
+
+    assertThat(index.isIndexed(sameFile)).isTrue();
+    assertThat(index.isIndexed(notCachedFile)).isFalse();
+    assertThat(reader.readComponentDuplications(changedFile.batchId())).hasSize(1);
+    assertThat(reader.readComponentDuplications(sameFile.batchId())).hasSize(1);
+    assertThat(logTester.logs(LoggerLevel.INFO)).contains("CPD blocks of 1 unchanged file loaded from cache, 1 not found");
+    // blocks loaded from cache are not written again
+    verify(blocksCache).write(eq(changedFile), anyCollection());
+    verify(blocksCache, never()).write(eq(sameFile), anyCollection());
+  }
+
+  @Test
+  public void do_not_load_blocks_of_unchanged_files_if_not_incremental() {
+    DefaultInputFile sameFile = createComponent("src/Same.java", InputFile.Status.SAME);
+
+    executor.execute();
+
+    assertThat(index.isIndexed(sameFile)).isFalse();
+  }
+
+  private DefaultInputFile createComponent(String relativePath, InputFile.Status status) {
+    DefaultInputFile file = new TestInputFileBuilder("foo", relativePath)
+      .setModuleBaseDir(baseDir.toPath())
+      .setLanguage("java")
+      .setStatus(status)
+      .setLines(10)
+      .build();
+    componentStore.put(file);
+    return file;
+  }
+
+  private static List<Block> newBlocks(DefaultInputFile file) {
+    List<Block> blocks = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      blocks.add(Block.builder()
+        .setResourceId(file.key())
+        .setIndexInFile(i)
+        .setLines(i + 1, i + 2)
+        .setUnit(i, i + 1)
+        .setBlockHash(new ByteArray(new byte[] {(byte) i}))
+        .build());
+    }
+    return blocks;
+  }
+
   private Duplication[] readDuplications(int expected) {
     assertThat(reader.readComponentDuplications(batchComponent1.batchId())).hasSize(expected);
     Duplication[] duplications = new Duplication[expected];
@@ -0,0 +1,118 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.cpd.index;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.sensor.cache.ScannerCache;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
+import org.sonar.scanner.analysis.DefaultAnalysisMode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CpdBlocksCacheTest {
+
+  private MapScannerCache cache = new MapScannerCache();
+  private DefaultAnalysisMode mode = mock(DefaultAnalysisMode.class);
+  private DefaultInputFile file = new TestInputFileBuilder("foo", "src/Foo.java").build();
+  private CpdBlocksCache underTest = new CpdBlocksCache(cache, mode);
+
+  @Test
+  public void read_blocks_written_by_previous_analysis() {
+    when(mode.isPublish()).thenReturn(true);
+    Block block1 = newBlock(0, 1, 3, 0, 10, "a1b2");
+    Block block2 = newBlock(5, 2, 4, 11, 20, "c3d4");
+
+    underTest.write(file, Arrays.asList(block1, block2));
+    List<Block> blocks = underTest.read(file);
+
+    assertThat(blocks).containsExactly(block1, block2);
+    assertThat(blocks).extracting(Block::getResourceId).containsOnly(file.key());
+    assertThat(blocks).extracting(Block::getIndexInFile).containsExactly(0, 5);
+    assertThat(blocks).extracting(Block::getStartLine).containsExactly(1, 2);
+    assertThat(blocks).extracting(Block::getEndLine).containsExactly(3, 4);
+    assertThat(blocks).extracting(Block::getStartUnit).containsExactly(0, 11);
+    assertThat(blocks).extracting(Block::getEndUnit).containsExactly(10, 20);
+  }
+
+  @Test
+  public void do_not_write_blocks_if_not_publish_mode() {
+    when(mode.isPublish()).thenReturn(false);
+
+    underTest.write(file, Arrays.asList(newBlock(0, 1, 3, 0, 10, "a1b2")));
+
+    assertThat(underTest.read(file)).isNull();
+  }
+
+  @Test
+  public void do_not_write_again_blocks_of_unchanged_file() {
+    when(mode.isPublish()).thenReturn(true);
+    DefaultInputFile sameFile = new TestInputFileBuilder("foo", "src/Same.java").setStatus(InputFile.Status.SAME).build();
+    underTest.write(sameFile, Arrays.asList(newBlock(0, 1, 3, 0, 10, "a1b2")));
+    assertThat(cache.writes).isEqualTo(1);
+
+    underTest.write(sameFile, Arrays.asList(newBlock(0, 1, 3, 0, 10, "a1b2")));
+
+    assertThat(cache.writes).isEqualTo(1);
+    assertThat(underTest.read(sameFile)).hasSize(1);
+  }
+
+  @Test
+  public void ignore_corrupted_entry() {
+    cache.write(file, CpdBlocksCache.CACHE_KEY, new byte[] {0, 0, 0, 1, 42});
+
+    assertThat(underTest.read(file)).isNull();
+  }
+
+  private Block newBlock(int indexInFile, int startLine, int endLine, int startUnit, int endUnit, String hash) {
+    return Block.builder()
+      .setResourceId(file.key())
+      .setBlockHash(new ByteArray(hash))
+      .setIndexInFile(indexInFile)
+      .setLines(startLine, endLine)
+      .setUnit(startUnit, endUnit)
+      .build();
+  }
+
+  private static class MapScannerCache implements ScannerCache {
+    private final Map<String, byte[]> values = new HashMap<>();
+    private int writes = 0;
+
+    @Override
+    public byte[] read(InputFile inputFile, String key) {
+      return values.get(inputFile.key() + key);
+    }
+
+    @Override
+    public void write(InputFile inputFile, String key, byte[] value) {
+      values.put(inputFile.key() + key, value);
+      writes++;
+    }
+  }
+}
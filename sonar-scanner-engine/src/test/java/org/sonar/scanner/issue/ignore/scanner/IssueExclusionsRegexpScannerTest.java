@@ -42,6 +42,7 @@ import org.sonar.scanner.issue.ignore.pattern.PatternMatcher;
 import org.sonar.scanner.issue.ignore.scanner.IssueExclusionsLoader.DoubleRegexpMatcher;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -54,8 +55,9 @@ public class IssueExclusionsRegexpScannerTest {
   @Mock
   private PatternMatcher patternMatcher;
 
-  private List<Pattern> allFilePatterns;
+  private List<PrefilteredPattern> allFilePatterns;
   private List<DoubleRegexpMatcher> blockPatterns;
+  private RegexpStatistics statistics = new RegexpStatistics();
   private IssueExclusionsRegexpScanner regexpScanner;
   private FileMetadata fileMetadata = new FileMetadata();
 
@@ -67,10 +69,10 @@ public class IssueExclusionsRegexpScannerTest {
       new DoubleRegexpMatcher(Pattern.compile("// SONAR-OFF"), Pattern.compile("// SONAR-ON")),
       new DoubleRegexpMatcher(Pattern.compile("// FOO-OFF"), Pattern.compile("// FOO-ON"))
     });
-    allFilePatterns = Collections.singletonList(Pattern.compile("@SONAR-IGNORE-ALL"));
+    allFilePatterns = Collections.singletonList(new PrefilteredPattern(Pattern.compile("@SONAR-IGNORE-ALL")));
 
     javaFile = "org.sonar.test.MyFile";
-    regexpScanner = new IssueExclusionsRegexpScanner(javaFile, allFilePatterns, blockPatterns, patternMatcher);
+    regexpScanner = new IssueExclusionsRegexpScanner(javaFile, allFilePatterns, blockPatterns, patternMatcher, statistics);
   }
 
   @Test
@@ -90,6 +92,17 @@ public class IssueExclusionsRegexpScannerTest {
     verifyNoMoreInteractions(patternMatcher);
   }
 
+  @Test
+  public void shouldSkipRegexpsOnLinesWithoutRequiredLiteral() throws Exception {
+    Path filePath = getResource("file-with-no-regexp.txt");
+    fileMetadata.readMetadata(Files.newInputStream(filePath), UTF_8, filePath.toString(), regexpScanner);
+
+    assertThat(statistics.scannedLines()).isPositive();
+    assertThat(statistics.evaluatedRegexps()).isZero();
+    // one file pattern and two begin block patterns per line
+    assertThat(statistics.skippedRegexps()).isEqualTo(3 * statistics.scannedLines());
+  }
+
   @Test
   public void shouldAddPatternToExcludeFile() throws Exception {
     Path filePath = getResource("file-with-single-regexp.txt");
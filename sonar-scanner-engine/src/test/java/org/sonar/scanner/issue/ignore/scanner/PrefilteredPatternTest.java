@@ -0,0 +1,85 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.issue.ignore.scanner;
+
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.scanner.issue.ignore.scanner.PrefilteredPattern.extractRequiredLiteral;
+
+public class PrefilteredPatternTest {
+
+  @Test
+  public void extract_literal_of_plain_text() {
+    assertThat(extractRequiredLiteral("@SONAR-IGNORE-ALL")).isEqualTo("@SONAR-IGNORE-ALL");
+    assertThat(extractRequiredLiteral("// SONAR-OFF")).isEqualTo("// SONAR-OFF");
+  }
+
+  @Test
+  public void extract_longest_literal_between_meta_characters() {
+    assertThat(extractRequiredLiteral("^\\s*@Generated\\(.*")).isEqualTo("@Generated(");
+    assertThat(extractRequiredLiteral("foo.*barbaz")).isEqualTo("barbaz");
+    assertThat(extractRequiredLiteral("[a-z]+ BEGIN-[0-9]{2,3}")).isEqualTo(" BEGIN-");
+    assertThat(extractRequiredLiteral("\\QNO.SONAR\\E")).isEqualTo("NO.SONAR");
+  }
+
+  @Test
+  public void quantified_character_is_not_part_of_the_literal() {
+    assertThat(extractRequiredLiteral("colou?r")).isEqualTo("colo");
+    assertThat(extractRequiredLiteral("abcd*e")).isEqualTo("abc");
+    assertThat(extractRequiredLiteral("abcd{0,2}e")).isEqualTo("abc");
+    assertThat(extractRequiredLiteral("abcd+e")).isEqualTo("abcd");
+  }
+
+  @Test
+  public void groups_and_character_classes_are_skipped() {
+    assertThat(extractRequiredLiteral("(foo)?bar")).isEqualTo("bar");
+    assertThat(extractRequiredLiteral("[]x]y")).isEqualTo("y");
+    assertThat(extractRequiredLiteral("(?:a|b)c")).isEqualTo("c");
+  }
+
+  @Test
+  public void no_literal_if_not_understood() {
+    assertThat(extractRequiredLiteral("foo|bar")).isNull();
+    assertThat(extractRequiredLiteral("(?i)foo")).isNull();
+    assertThat(extractRequiredLiteral("(a)\\1")).isNull();
+    assertThat(extractRequiredLiteral("\\p{Upper}foo")).isNull();
+    assertThat(extractRequiredLiteral(".*")).isNull();
+  }
+
+  @Test
+  public void no_literal_if_flags() {
+    PrefilteredPattern pattern = new PrefilteredPattern(Pattern.compile("foo", Pattern.CASE_INSENSITIVE));
+
+    assertThat(pattern.requiredLiteral()).isNull();
+    assertThat(pattern.mayMatch("FOO")).isTrue();
+    assertThat(pattern.find("FOO")).isTrue();
+  }
+
+  @Test
+  public void reject_lines_without_literal() {
+    PrefilteredPattern pattern = new PrefilteredPattern(Pattern.compile("^\\s*// NOSONAR-[A-Z]+"));
+
+    assertThat(pattern.mayMatch("int i = 0;")).isFalse();
+    assertThat(pattern.mayMatch("  // NOSONAR-FOO")).isTrue();
+    assertThat(pattern.find("  // NOSONAR-FOO")).isTrue();
+  }
+}
@@ -76,6 +76,7 @@ public class PhasesSumUpTimeProfilerTest {
     assertThat(profiler.currentModuleProfiling.getProfilingPerPhase(Phase.SENSOR).getProfilingPerItem(new FakeSensor()).totalTime()).isEqualTo(10L);
     assertThat(profiler.currentModuleProfiling.getProfilingPerPhase(Phase.POSTJOB).getProfilingPerItem(new FakePostJob()).totalTime()).isEqualTo(30L);
     assertThat(profiler.currentModuleProfiling.getProfilingPerBatchStep("Free memory").totalTime()).isEqualTo(9L);
+    assertThat(profiler.currentModuleProfiling.getProfilingPerBatchStep("Measured step").totalTime()).isEqualTo(42L);
   }
 
   @Test
@@ -152,6 +153,8 @@ public class PhasesSumUpTimeProfilerTest {
     clock.sleep(9);
     // End of batch step
     profiler.onBatchStep(new BatchStepEvent("Free memory", false));
+    // Step measured by the caller
+    profiler.onBatchStep(new BatchStepEvent("Measured step", 42L));
   }
 
   private void initializerPhase(PhasesSumUpTimeProfiler profiler) {
@@ -28,6 +28,7 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.batch.bootstrap.ProjectDefinition;
+import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.InputFile.Type;
 import org.sonar.api.batch.fs.internal.DefaultInputDir;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
@@ -36,6 +37,8 @@ import org.sonar.api.batch.fs.internal.InputModuleHierarchy;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.utils.DateUtils;
 import org.sonar.scanner.ProjectAnalysisInfo;
+import org.sonar.scanner.analysis.DefaultAnalysisMode;
+import org.sonar.scanner.cpd.index.SonarCpdBlockIndex;
 import org.sonar.scanner.protocol.output.FileStructure;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.scanner.protocol.output.ScannerReport.Component;
@@ -56,6 +59,8 @@ public class ComponentsPublisherTest {
   private InputModuleHierarchy moduleHierarchy;
   private File outputDir;
   private ScannerReportWriter writer;
+  private DefaultAnalysisMode mode = mock(DefaultAnalysisMode.class);
+  private SonarCpdBlockIndex cpdBlockIndex = mock(SonarCpdBlockIndex.class);
 
   @Before
   public void setUp() throws IOException {
@@ -108,7 +113,7 @@ public class ComponentsPublisherTest {
     DefaultInputFile testFile = new TestInputFileBuilder("module1", "test/FooTest.java", 7).setType(Type.TEST).setLines(4).build();
     tree.index(testFile, dir);
 
-    ComponentsPublisher publisher = new ComponentsPublisher(moduleHierarchy, tree);
+    ComponentsPublisher publisher = new ComponentsPublisher(moduleHierarchy, tree, mode, cpdBlockIndex);
     publisher.publish(writer);
 
     assertThat(writer.hasComponentData(FileStructure.Domain.COMPONENT, 1)).isTrue();
@@ -136,6 +141,46 @@ public class ComponentsPublisherTest {
     assertThat(module1Protobuf.getVersion()).isEqualTo("1.0");
   }
 
+  @Test
+  public void add_file_status_in_incremental_mode() {
+    when(mode.isIncremental()).thenReturn(true);
+    ProjectDefinition rootDef = ProjectDefinition.create()
+      .setKey("foo")
+      .setProperty(CoreProperties.PROJECT_VERSION_PROPERTY, "1.0")
+      .setName("Root project");
+    DefaultInputModule root = new DefaultInputModule(rootDef, 1);
+
+    moduleHierarchy = mock(InputModuleHierarchy.class);
+    when(moduleHierarchy.root()).thenReturn(root);
+    when(moduleHierarchy.children(root)).thenReturn(Collections.emptyList());
+
+    DefaultInputDir dir = new DefaultInputDir("foo", "src", 2);
+    tree.index(dir, root);
+
+    DefaultInputFile sameFile = new TestInputFileBuilder("foo", "src/Same.java", 3).setLines(2).setStatus(InputFile.Status.SAME).build();
+    tree.index(sameFile, dir);
+    DefaultInputFile changedFile = new TestInputFileBuilder("foo", "src/Changed.java", 4).setLines(2).setStatus(InputFile.Status.CHANGED).build();
+    tree.index(changedFile, dir);
+    DefaultInputFile addedFile = new TestInputFileBuilder("foo", "src/Added.java", 5).setLines(2).setStatus(InputFile.Status.ADDED).build();
+    tree.index(addedFile, dir);
+    DefaultInputFile sameIndexedFile = new TestInputFileBuilder("foo", "src/SameIndexed.java", 6).setLines(2).setStatus(InputFile.Status.SAME).build();
+    tree.index(sameIndexedFile, dir);
+    when(cpdBlockIndex.isIndexed(sameIndexedFile)).thenReturn(true);
+
+    ComponentsPublisher publisher = new ComponentsPublisher(moduleHierarchy, tree, mode, cpdBlockIndex);
+    publisher.publish(writer);
+
+    ScannerReportReader reader = new ScannerReportReader(outputDir);
+    assertThat(reader.readComponent(3).getStatus()).isEqualTo(Component.FileStatus.SAME);
+    assertThat(reader.readComponent(4).getStatus()).isEqualTo(Component.FileStatus.CHANGED);
+    assertThat(reader.readComponent(5).getStatus()).isEqualTo(Component.FileStatus.ADDED);
+    // duplications of unchanged files are detected only if their CPD blocks were loaded from cache
+    assertThat(reader.readComponent(3).getDuplicationsSkipped()).isTrue();
+    assertThat(reader.readComponent(4).getDuplicationsSkipped()).isFalse();
+    assertThat(reader.readComponent(6).getStatus()).isEqualTo(Component.FileStatus.SAME);
+    assertThat(reader.readComponent(6).getDuplicationsSkipped()).isFalse();
+  }
+
   @Test
   public void should_skip_dir_without_published_files() {
     ProjectAnalysisInfo projectAnalysisInfo = mock(ProjectAnalysisInfo.class);
@@ -174,7 +219,7 @@ public class ComponentsPublisherTest {
     DefaultInputFile file3 = new TestInputFileBuilder("module1", "src2/Foo3.java", 7).setPublish(false).setLines(2).build();
     tree.index(file3, dir3);
 
-    ComponentsPublisher publisher = new ComponentsPublisher(moduleHierarchy, tree);
+    ComponentsPublisher publisher = new ComponentsPublisher(moduleHierarchy, tree, mode, cpdBlockIndex);
     publisher.publish(writer);
 
     assertThat(writer.hasComponentData(FileStructure.Domain.COMPONENT, 1)).isTrue();
@@ -222,7 +267,7 @@ public class ComponentsPublisherTest {
     DefaultInputFile testFile = new TestInputFileBuilder("module1", "test/FooTest.java", 6).setType(Type.TEST).setLines(4).build();
     tree.index(testFile, dir);
 
-    ComponentsPublisher publisher = new ComponentsPublisher(moduleHierarchy, tree);
+    ComponentsPublisher publisher = new ComponentsPublisher(moduleHierarchy, tree, mode, cpdBlockIndex);
     publisher.publish(writer);
 
     assertThat(writer.hasComponentData(FileStructure.Domain.COMPONENT, 1)).isTrue();
@@ -283,7 +328,7 @@ public class ComponentsPublisherTest {
     DefaultInputFile file = new TestInputFileBuilder("module1", "src/Foo.java", 4).setLines(2).build();
     tree.index(file, dir);
 
-    ComponentsPublisher publisher = new ComponentsPublisher(moduleHierarchy, tree);
+    ComponentsPublisher publisher = new ComponentsPublisher(moduleHierarchy, tree, mode, cpdBlockIndex);
     publisher.publish(writer);
 
     ScannerReportReader reader = new ScannerReportReader(outputDir);
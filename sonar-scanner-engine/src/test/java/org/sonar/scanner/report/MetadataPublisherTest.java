@@ -32,6 +32,7 @@ import org.sonar.api.batch.fs.internal.InputModuleHierarchy;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.config.internal.MapSettings;
 import org.sonar.scanner.ProjectAnalysisInfo;
+import org.sonar.scanner.analysis.DefaultAnalysisMode;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.scanner.protocol.output.ScannerReportReader;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
@@ -56,6 +57,7 @@ public class MetadataPublisherTest {
   private ModuleQProfiles qProfiles;
   private ProjectAnalysisInfo projectAnalysisInfo;
   private InputModuleHierarchy inputModuleHierarchy;
+  private DefaultAnalysisMode mode;
 
   @Before
   public void prepare() {
@@ -67,7 +69,8 @@ public class MetadataPublisherTest {
     when(inputModuleHierarchy.root()).thenReturn(rootModule);
     settings = new MapSettings();
     qProfiles = mock(ModuleQProfiles.class);
-    underTest = new MetadataPublisher(projectAnalysisInfo, inputModuleHierarchy, settings.asConfig(), qProfiles);
+    mode = mock(DefaultAnalysisMode.class);
+    underTest = new MetadataPublisher(projectAnalysisInfo, inputModuleHierarchy, settings.asConfig(), qProfiles, mode);
   }
 
   @Test
@@ -90,6 +93,7 @@ public class MetadataPublisherTest {
     assertThat(metadata.getProjectKey()).isEqualTo("foo");
     assertThat(metadata.getProjectKey()).isEqualTo("foo");
     assertThat(metadata.getCrossProjectDuplicationActivated()).isTrue();
+    assertThat(metadata.getIncremental()).isFalse();
     assertThat(metadata.getQprofilesPerLanguage()).containsOnly(entry("java", org.sonar.scanner.protocol.output.ScannerReport.Metadata.QProfile.newBuilder()
       .setKey("q1")
       .setName("Q1")
@@ -119,6 +123,19 @@ public class MetadataPublisherTest {
     assertThat(metadata.getCrossProjectDuplicationActivated()).isFalse();
   }
 
+  @Test
+  public void write_incremental_flag() throws Exception {
+    when(mode.isIncremental()).thenReturn(true);
+
+    File outputDir = temp.newFolder();
+    ScannerReportWriter writer = new ScannerReportWriter(outputDir);
+
+    underTest.publish(writer);
+
+    ScannerReportReader reader = new ScannerReportReader(outputDir);
+    assertThat(reader.readMetadata().getIncremental()).isTrue();
+  }
+
   @Test
   public void write_project_organization() throws Exception {
     settings.setProperty(CoreProperties.PROJECT_ORGANIZATION_PROPERTY, "SonarSource");
@@ -24,26 +24,50 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.utils.internal.TestSystem2;
+import org.sonar.home.cache.Logger;
+import org.sonar.home.cache.PersistentCache;
 import org.sonar.scanner.WsTestUtil;
+import org.sonar.scanner.bootstrap.GlobalProperties;
 import org.sonar.scanner.bootstrap.ScannerWsClient;
 import org.sonar.scanner.protocol.input.ScannerInput.ServerIssue;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 public class DefaultServerIssuesLoaderTest {
+  private static final long NOW = 10 * DefaultServerIssuesLoader.FULL_SYNC_PERIOD_MS;
+  private static final long CHANGED_SINCE = NOW - DefaultServerIssuesLoader.SAFETY_MARGIN_MS;
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
   private DefaultServerIssuesLoader loader;
   private ScannerWsClient wsClient;
+  private PersistentCache persistentCache;
+  private Map<String, String> properties = new HashMap<>();
+  private TestSystem2 system2 = new TestSystem2().setNow(NOW);
 
   @Before
-  public void prepare() {
+  public void prepare() throws IOException {
     wsClient = mock(ScannerWsClient.class);
-    loader = new DefaultServerIssuesLoader(wsClient);
+    when(wsClient.baseUrl()).thenReturn("http://localhost:9000");
+    persistentCache = PersistentCache.create(temp.newFolder(), 1024L * 1024L, mock(Logger.class));
+    loader = newLoader();
+  }
+
+  private DefaultServerIssuesLoader newLoader() {
+    return new DefaultServerIssuesLoader(wsClient, persistentCache, new GlobalProperties(properties), system2);
   }
 
   @Test
@@ -66,6 +90,110 @@ public class DefaultServerIssuesLoaderTest {
     assertThat(result).extracting("key").containsExactly("ab1", "ab2");
   }
 
+  @Test
+  public void download_only_changed_issues_when_local_copy_exists() throws Exception {
+    WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=foo", toStream(
+      ServerIssue.newBuilder().setKey("ab1").setStatus("OPEN").setUpdateDate(1_000L).build(),
+      ServerIssue.newBuilder().setKey("ab2").setStatus("OPEN").setUpdateDate(2_000L).build(),
+      ServerIssue.newBuilder().setKey("ab3").setStatus("OPEN").setUpdateDate(1_500L).build()));
+    loader.load("foo", issue -> {
+    });
+
+    // changes are requested since the previous synchronization, minus the safety margin
+    system2.setNow(NOW + 1_000L);
+    WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=foo&changedSince=" + CHANGED_SINCE, toStream(
+      ServerIssue.newBuilder().setKey("ab1").setStatus("CLOSED").setUpdateDate(3_000L).build(),
+      ServerIssue.newBuilder().setKey("ab3").setStatus("RESOLVED").setUpdateDate(3_500L).build(),
+      ServerIssue.newBuilder().setKey("ab4").setStatus("OPEN").setUpdateDate(3_500L).build()));
+    List<ServerIssue> result = new ArrayList<>();
+    loader.load("foo", result::add);
+
+    assertThat(result).extracting("key", "status").containsExactly(
+      tuple("ab2", "OPEN"),
+      tuple("ab3", "RESOLVED"),
+      tuple("ab4", "OPEN"));
+
+    // issues returned again because of the safety margin are not duplicated
+    WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=foo&changedSince=" + (CHANGED_SINCE + 1_000L), toStream(
+      ServerIssue.newBuilder().setKey("ab4").setStatus("OPEN").setUpdateDate(3_500L).build()));
+    result.clear();
+    loader.load("foo", result::add);
+
+    assertThat(result).extracting("key").containsExactly("ab2", "ab3", "ab4");
+  }
+
+  @Test
+  public void empty_first_download_is_synchronized_incrementally() throws Exception {
+    WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=foo", toStream());
+    loader.load("foo", issue -> {
+    });
+
+    WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=foo&changedSince=" + CHANGED_SINCE, toStream(
+      ServerIssue.newBuilder().setKey("ab1").setStatus("OPEN").setUpdateDate(NOW).build()));
+    List<ServerIssue> result = new ArrayList<>();
+    loader.load("foo", result::add);
+
+    assertThat(result).extracting("key").containsExactly("ab1");
+  }
+
+  @Test
+  public void download_all_issues_again_after_full_sync_period() throws Exception {
+    WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=foo", toStream(
+      ServerIssue.newBuilder().setKey("ab1").setStatus("OPEN").setUpdateDate(1_000L).build(),
+      ServerIssue.newBuilder().setKey("ab2").setStatus("OPEN").setUpdateDate(2_000L).build()));
+    loader.load("foo", issue -> {
+    });
+
+    // ab1 has been deleted on server side, for example with its file
+    system2.setNow(NOW + DefaultServerIssuesLoader.FULL_SYNC_PERIOD_MS);
+    WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=foo", toStream(
+      ServerIssue.newBuilder().setKey("ab2").setStatus("OPEN").setUpdateDate(2_000L).build()));
+    List<ServerIssue> result = new ArrayList<>();
+    loader.load("foo", result::add);
+
+    assertThat(result).extracting("key").containsExactly("ab2");
+  }
+
+  @Test
+  public void local_copies_are_isolated_by_user() throws Exception {
+    properties.put("sonar.login", "john");
+    WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=foo", toStream(
+      ServerIssue.newBuilder().setKey("ab1").setUpdateDate(1_000L).build()));
+    newLoader().load("foo", issue -> {
+    });
+
+    properties.put("sonar.login", "jane");
+    WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=foo", toStream(
+      ServerIssue.newBuilder().setKey("cd1").setUpdateDate(1_000L).build()));
+    List<ServerIssue> result = new ArrayList<>();
+    newLoader().load("foo", result::add);
+
+    assertThat(result).extracting("key").containsExactly("cd1");
+  }
+
+  @Test
+  public void local_copies_are_isolated_by_component() throws Exception {
+    WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=foo", toStream(
+      ServerIssue.newBuilder().setKey("ab1").setUpdateDate(1_000L).build()));
+    loader.load("foo", issue -> {
+    });
+
+    WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=bar", toStream(
+      ServerIssue.newBuilder().setKey("cd1").setUpdateDate(1_000L).build()));
+    List<ServerIssue> result = new ArrayList<>();
+    loader.load("bar", result::add);
+
+    assertThat(result).extracting("key").containsExactly("cd1");
+  }
+
+  private static InputStream toStream(ServerIssue... issues) throws IOException {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    for (ServerIssue issue : issues) {
+      issue.writeDelimitedTo(bos);
+    }
+    return new ByteArrayInputStream(bos.toByteArray());
+  }
+
   @Test(expected = IllegalStateException.class)
   public void testError() throws IOException {
     InputStream is = mock(InputStream.class);
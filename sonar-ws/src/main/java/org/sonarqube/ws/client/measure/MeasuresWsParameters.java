@@ -49,6 +49,7 @@ public class MeasuresWsParameters {
   public static final String PARAM_DEVELOPER_KEY = "developerKey";
   public static final String PARAM_FROM = "from";
   public static final String PARAM_TO = "to";
+  public static final String PARAM_MAX_POINTS = "maxPoints";
 
   public static final String ADDITIONAL_METRICS = "metrics";
   public static final String ADDITIONAL_PERIODS = "periods";
@@ -21,17 +21,20 @@ package org.sonarqube.ws.client.measure;
 
 import java.util.List;
 import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 
 import static java.lang.String.format;
 
 public class SearchHistoryRequest {
   public static final int MAX_PAGE_SIZE = 1_000;
+  public static final int MAX_POINTS = 10_000;
   public static final int DEFAULT_PAGE_SIZE = 100;
 
   private final String component;
   private final List<String> metrics;
   private final String from;
   private final String to;
+  private final Integer maxPoints;
   private final int page;
   private final int pageSize;
 
@@ -40,6 +43,7 @@ public class SearchHistoryRequest {
     this.metrics = builder.metrics;
     this.from = builder.from;
     this.to = builder.to;
+    this.maxPoints = builder.maxPoints;
     this.page = builder.page;
     this.pageSize = builder.pageSize;
   }
@@ -62,6 +66,11 @@ public class SearchHistoryRequest {
     return to;
   }
 
+  @CheckForNull
+  public Integer getMaxPoints() {
+    return maxPoints;
+  }
+
   public int getPage() {
     return page;
   }
@@ -79,6 +88,7 @@ public class SearchHistoryRequest {
     private List<String> metrics;
     private String from;
     private String to;
+    private Integer maxPoints;
     private int page = 1;
     private int pageSize = DEFAULT_PAGE_SIZE;
 
@@ -106,6 +116,11 @@ public class SearchHistoryRequest {
       return this;
     }
 
+    public Builder setMaxPoints(@Nullable Integer maxPoints) {
+      this.maxPoints = maxPoints;
+      return this;
+    }
+
     public Builder setPage(int page) {
       this.page = page;
       return this;
@@ -119,6 +134,8 @@ public class SearchHistoryRequest {
     public SearchHistoryRequest build() {
       checkArgument(component != null && !component.isEmpty(), "Component key is required");
       checkArgument(metrics != null && !metrics.isEmpty(), "Metric keys are required");
+      checkArgument(maxPoints == null || maxPoints > 0, "Maximum number of points (%d) must be greater than 0", maxPoints);
+      checkArgument(maxPoints == null || maxPoints <= MAX_POINTS, "Maximum number of points (%d) must be lower than or equal to %d", maxPoints, MAX_POINTS);
       checkArgument(pageSize <= MAX_PAGE_SIZE, "Page size (%d) must be lower than or equal to %d", pageSize, MAX_PAGE_SIZE);
 
       return new SearchHistoryRequest(this);
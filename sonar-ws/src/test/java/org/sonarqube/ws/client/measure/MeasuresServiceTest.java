@@ -40,6 +40,7 @@ import static org.sonarqube.ws.client.measure.MeasuresWsParameters.PARAM_COMPONE
 import static org.sonarqube.ws.client.measure.MeasuresWsParameters.PARAM_DEVELOPER_ID;
 import static org.sonarqube.ws.client.measure.MeasuresWsParameters.PARAM_DEVELOPER_KEY;
 import static org.sonarqube.ws.client.measure.MeasuresWsParameters.PARAM_FROM;
+import static org.sonarqube.ws.client.measure.MeasuresWsParameters.PARAM_MAX_POINTS;
 import static org.sonarqube.ws.client.measure.MeasuresWsParameters.PARAM_METRICS;
 import static org.sonarqube.ws.client.measure.MeasuresWsParameters.PARAM_METRIC_KEYS;
 import static org.sonarqube.ws.client.measure.MeasuresWsParameters.PARAM_METRIC_SORT;
@@ -69,6 +70,7 @@ public class MeasuresServiceTest {
   private static final String VALUE_DEVELOPER_KEY = "developer-key";
   private static final String VALUE_FROM = "2017-10-01";
   private static final String VALUE_TO = "2017-11-01";
+  private static final int VALUE_MAX_POINTS = 50;
 
   @Rule
   public ServiceTester<MeasuresService> serviceTester = new ServiceTester<>(new MeasuresService(mock(WsConnector.class)));
@@ -124,6 +126,7 @@ public class MeasuresServiceTest {
       .setMetrics(VALUE_METRICS)
       .setFrom(VALUE_FROM)
       .setTo(VALUE_TO)
+      .setMaxPoints(VALUE_MAX_POINTS)
       .setPage(VALUE_PAGE)
       .setPageSize(VALUE_PAGE_SIZE)
       .build();
@@ -137,6 +140,7 @@ public class MeasuresServiceTest {
       .hasParam(PARAM_METRICS, "ncloc,complexity")
       .hasParam(PARAM_FROM, VALUE_FROM)
       .hasParam(PARAM_TO, VALUE_TO)
+      .hasParam(PARAM_MAX_POINTS, VALUE_MAX_POINTS)
       .hasParam("p", VALUE_PAGE)
       .hasParam("ps", VALUE_PAGE_SIZE)
       .andNoOtherParam();
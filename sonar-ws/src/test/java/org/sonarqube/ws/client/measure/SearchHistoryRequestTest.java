@@ -28,6 +28,7 @@ import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.sonarqube.ws.client.measure.SearchHistoryRequest.DEFAULT_PAGE_SIZE;
 import static org.sonarqube.ws.client.measure.SearchHistoryRequest.MAX_PAGE_SIZE;
+import static org.sonarqube.ws.client.measure.SearchHistoryRequest.MAX_POINTS;
 
 public class SearchHistoryRequestTest {
   @Rule
@@ -92,6 +93,14 @@ public class SearchHistoryRequestTest {
     underTest.setComponent("C1").setMetrics(emptyList()).build();
   }
 
+  @Test
+  public void fail_if_max_points_greater_than_max_authorized_value() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Maximum number of points (10001) must be lower than or equal to 10000");
+
+    underTest.setComponent("C1").setMetrics(singletonList("violations")).setMaxPoints(MAX_POINTS + 1).build();
+  }
+
   @Test
   public void fail_if_page_size_greater_than_max_authorized_size() {
     expectedException.expect(IllegalArgumentException.class);